@@ -1,8 +1,6 @@
 package com.mesosphere.sdk.hdfs.scheduler;
 
 import com.mesosphere.sdk.config.ConfigStore;
-import com.mesosphere.sdk.offer.TaskException;
-import com.mesosphere.sdk.offer.TaskUtils;
 import com.mesosphere.sdk.scheduler.plan.*;
 import com.mesosphere.sdk.scheduler.plan.strategy.ParallelStrategy;
 import com.mesosphere.sdk.scheduler.plan.strategy.SerialStrategy;
@@ -15,7 +13,6 @@ import com.mesosphere.sdk.scheduler.recovery.monitor.FailureMonitor;
 import com.mesosphere.sdk.specification.PodInstance;
 import com.mesosphere.sdk.specification.ServiceSpec;
 import com.mesosphere.sdk.state.StateStore;
-import com.mesosphere.sdk.state.StateStoreUtils;
 import org.apache.mesos.Protos;
 
 import java.util.*;
@@ -35,6 +32,14 @@ public class HdfsRecoveryPlanManager extends DefaultRecoveryPlanManager {
             new SerialStrategy<>(),
             Collections.emptyList());
 
+    /**
+     * The most recent plan returned by {@link #getPlan()}, along with the default recovery plan and name node recovery
+     * phase which it was built from. The plan is only rebuilt when either of those is replaced.
+     */
+    private Plan composedPlan;
+    private Plan composedDefaultPlan;
+    private Phase composedNameNodeRecoveryPhase;
+
     public HdfsRecoveryPlanManager(
             StateStore stateStore,
             ConfigStore<ServiceSpec> configStore,
@@ -47,13 +52,27 @@ public class HdfsRecoveryPlanManager extends DefaultRecoveryPlanManager {
 
     @Override
     public Plan getPlan() {
+        synchronized (planLock) {
+            Plan defaultPlan = super.getPlan();
+            if (composedPlan == null
+                    || composedDefaultPlan != defaultPlan
+                    || composedNameNodeRecoveryPhase != nameNodeRecoveryPhase) {
+                composedPlan = composePlan(defaultPlan, nameNodeRecoveryPhase);
+                composedDefaultPlan = defaultPlan;
+                composedNameNodeRecoveryPhase = nameNodeRecoveryPhase;
+            }
+            return composedPlan;
+        }
+    }
+
+    private static Plan composePlan(Plan defaultPlan, Phase nameNodeRecoveryPhase) {
         List<Phase> phases = new ArrayList<>();
         List<String> nnStepNames = nameNodeRecoveryPhase.getChildren().stream()
                 .map(step -> step.getName())
                 .collect(Collectors.toList());
 
         // Filter out steps handled by name node recovery from the default plan.
-        for (Phase phase : super.getPlan().getChildren()) {
+        for (Phase phase : defaultPlan.getChildren()) {
             List<Step> steps = phase.getChildren().stream()
                     .filter(step -> !nnStepNames.contains(step.getName()))
                     .collect(Collectors.toList());
@@ -84,17 +103,7 @@ public class HdfsRecoveryPlanManager extends DefaultRecoveryPlanManager {
          */
         updatePlan(dirtyAssets);
 
-        Map<PodInstance, List<Protos.TaskInfo>> failedNameNodes;
-        try {
-            failedNameNodes = TaskUtils.getPodMap(
-                    configStore,
-                    StateStoreUtils.fetchTasksNeedingRecovery(stateStore, configStore));
-        } catch (TaskException e) {
-            logger.error("Failed to get tasks needing recovery, falling back to default recovery plan manager.", e);
-            return super.getCandidates(dirtyAssets);
-        }
-
-        failedNameNodes = failedNameNodes.entrySet().stream()
+        Map<PodInstance, List<Protos.TaskInfo>> failedNameNodes = getFailedPods().entrySet().stream()
                 .filter(podInstanceListEntry -> podInstanceListEntry.getKey().getPod().getType().equals("name"))
                 .collect(Collectors.toMap(
                         podInstanceListEntry -> podInstanceListEntry.getKey(),
@@ -131,7 +140,9 @@ public class HdfsRecoveryPlanManager extends DefaultRecoveryPlanManager {
     }
 
     private void setNameNodePhase(Phase phase) {
-        this.nameNodeRecoveryPhase = phase;
+        synchronized (planLock) {
+            this.nameNodeRecoveryPhase = phase;
+        }
     }
 
     private Phase initNNRecoveryPhase(Plan inputPlan, int index) {
@@ -0,0 +1,56 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.offer.OfferRequirement;
+import com.mesosphere.sdk.offer.evaluate.OfferEvaluator;
+import org.apache.mesos.Protos.Offer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Measures {@link OfferEvaluator#evaluate(OfferRequirement, List)} against synthetic offers, both when the first offer
+ * passes and when every offer must be evaluated and rejected.
+ */
+@State(Scope.Benchmark)
+public class OfferEvaluatorBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int agents;
+
+    @Param({ "4", "16" })
+    public int resourcesPerAgent;
+
+    @Param({ "0", "8" })
+    public int reservedIdsPerAgent;
+
+    private List<Offer> offers;
+    private OfferEvaluator evaluator;
+    private OfferRequirement satisfiableRequirement;
+    private OfferRequirement unsatisfiableRequirement;
+
+    @Setup
+    public void setup() {
+        SyntheticCluster cluster = new SyntheticCluster(agents, resourcesPerAgent, reservedIdsPerAgent);
+        offers = cluster.getOffers();
+        satisfiableRequirement = SyntheticRequirements.getOfferRequirement(1.0, 256.0, null);
+        // Synthetic offers have 64 unreserved cpus, so this fails the cpus stage for every offer:
+        unsatisfiableRequirement = SyntheticRequirements.getOfferRequirement(128.0, 256.0, null);
+        evaluator = new OfferEvaluator(
+                cluster.getStateStore(), SyntheticRequirements.getFixedProvider(satisfiableRequirement));
+    }
+
+    @Benchmark
+    public List<OfferRecommendation> evaluateFirstOfferPasses() throws Exception {
+        return evaluator.evaluate(satisfiableRequirement, offers);
+    }
+
+    @Benchmark
+    public List<OfferRecommendation> evaluateAllOffersFail() throws Exception {
+        return evaluator.evaluate(unsatisfiableRequirement, offers);
+    }
+}
@@ -0,0 +1,99 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.offer.OfferRequirement;
+import com.mesosphere.sdk.offer.evaluate.placement.AttributeRule;
+import com.mesosphere.sdk.offer.evaluate.placement.ExactMatcher;
+import com.mesosphere.sdk.offer.evaluate.placement.HostnameRule;
+import com.mesosphere.sdk.offer.evaluate.placement.MaxPerAttributeRule;
+import com.mesosphere.sdk.offer.evaluate.placement.MaxPerHostnameRule;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementIndex;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementRule;
+import com.mesosphere.sdk.offer.evaluate.placement.RegexMatcher;
+import com.mesosphere.sdk.offer.evaluate.placement.RoundRobinByAttributeRule;
+import com.mesosphere.sdk.offer.evaluate.placement.RoundRobinByHostnameRule;
+import com.mesosphere.sdk.offer.evaluate.placement.TaskTypeRule;
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.TaskInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Measures {@link PlacementRule#filter(Offer, OfferRequirement, java.util.Collection)} and
+ * {@link PlacementRule#filter(Offer, OfferRequirement, PlacementIndex)} for each of the built-in rules, filtering every
+ * offer in a cycle against one task per agent.
+ */
+@State(Scope.Benchmark)
+public class PlacementRuleBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int agents;
+
+    @Param({
+            "max-per-hostname",
+            "max-per-attribute",
+            "round-robin-hostname",
+            "round-robin-attribute",
+            "task-type-avoid",
+            "hostname-avoid",
+            "attribute-require" })
+    public String rule;
+
+    private List<Offer> offers;
+    private List<TaskInfo> tasks;
+    private PlacementIndex index;
+    private PlacementRule placementRule;
+    private OfferRequirement offerRequirement;
+
+    @Setup
+    public void setup() {
+        SyntheticCluster cluster = new SyntheticCluster(agents, 4, 2);
+        offers = cluster.getOffers();
+        tasks = cluster.getTasks();
+        index = new PlacementIndex(tasks);
+        placementRule = getRule(rule);
+        offerRequirement = SyntheticRequirements.getOfferRequirement(1.0, 256.0, placementRule);
+    }
+
+    @Benchmark
+    public void filterAllOffers(Blackhole blackhole) {
+        for (Offer offer : offers) {
+            blackhole.consume(placementRule.filter(offer, offerRequirement, tasks));
+        }
+    }
+
+    @Benchmark
+    public void filterAllOffersIndexed(Blackhole blackhole) {
+        for (Offer offer : offers) {
+            blackhole.consume(placementRule.filter(offer, offerRequirement, index));
+        }
+    }
+
+    private static PlacementRule getRule(String name) {
+        switch (name) {
+            case "max-per-hostname":
+                return new MaxPerHostnameRule(1);
+            case "max-per-attribute":
+                return new MaxPerAttributeRule(1, RegexMatcher.create(SyntheticCluster.ZONE_ATTRIBUTE + ":.*"));
+            case "round-robin-hostname":
+                return new RoundRobinByHostnameRule(Optional.empty());
+            case "round-robin-attribute":
+                return new RoundRobinByAttributeRule(
+                        SyntheticCluster.ZONE_ATTRIBUTE, Optional.of(SyntheticCluster.ZONE_COUNT));
+            case "task-type-avoid":
+                return TaskTypeRule.avoid(SyntheticCluster.TASK_TYPE);
+            case "hostname-avoid":
+                return HostnameRule.avoidExact(SyntheticCluster.getHostname(0));
+            case "attribute-require":
+                return AttributeRule.require(ExactMatcher.createAttribute(SyntheticCluster.ZONE_ATTRIBUTE, "zone-0"));
+            default:
+                throw new IllegalArgumentException("Unknown placement rule: " + name);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.offer.OfferAccepter;
+import com.mesosphere.sdk.offer.OfferRequirement;
+import com.mesosphere.sdk.offer.evaluate.OfferEvaluator;
+import com.mesosphere.sdk.scheduler.plan.DefaultPhase;
+import com.mesosphere.sdk.scheduler.plan.DefaultPlan;
+import com.mesosphere.sdk.scheduler.plan.DefaultPlanCoordinator;
+import com.mesosphere.sdk.scheduler.plan.DefaultPlanManager;
+import com.mesosphere.sdk.scheduler.plan.DefaultPlanScheduler;
+import com.mesosphere.sdk.scheduler.plan.DefaultPodInstance;
+import com.mesosphere.sdk.scheduler.plan.DeploymentStep;
+import com.mesosphere.sdk.scheduler.plan.Phase;
+import com.mesosphere.sdk.scheduler.plan.PlanCoordinator;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import com.mesosphere.sdk.scheduler.plan.Status;
+import com.mesosphere.sdk.scheduler.plan.Step;
+import com.mesosphere.sdk.scheduler.plan.strategy.ParallelStrategy;
+import com.mesosphere.sdk.specification.PodSpec;
+import com.mesosphere.sdk.state.StateStore;
+import org.apache.mesos.Protos;
+import org.apache.mesos.SchedulerDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures a full {@link PlanCoordinator#processOffers(SchedulerDriver, List)} cycle over a deploy plan whose steps can
+ * never be satisfied by the synthetic offers. Every step therefore evaluates every offer in every cycle, and the plan
+ * remains in the same state across benchmark invocations.
+ */
+@State(Scope.Benchmark)
+public class PlanCoordinatorBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int agents;
+
+    @Param({ "1", "10", "50" })
+    public int steps;
+
+    private List<Protos.Offer> offers;
+    private PlanCoordinator coordinator;
+    private SchedulerDriver driver;
+
+    @Setup
+    public void setup() {
+        SyntheticCluster cluster = new SyntheticCluster(agents, 4, 2);
+        offers = cluster.getOffers();
+        StateStore stateStore = cluster.getStateStore();
+
+        // Synthetic offers have 64 unreserved cpus, so this fails the cpus stage for every offer:
+        OfferRequirement offerRequirement = SyntheticRequirements.getOfferRequirement(128.0, 256.0, null);
+        OfferEvaluator evaluator =
+                new OfferEvaluator(stateStore, SyntheticRequirements.getFixedProvider(offerRequirement));
+
+        PodSpec podSpec = SyntheticRequirements.getPodSpec(steps);
+        List<Step> deploySteps = new ArrayList<>();
+        for (int i = 0; i < steps; ++i) {
+            PodInstanceRequirement podInstanceRequirement = PodInstanceRequirement.create(
+                    new DefaultPodInstance(podSpec, i),
+                    Arrays.asList(SyntheticRequirements.TASK_NAME));
+            deploySteps.add(new DeploymentStep(
+                    String.format("%s-%d:[%s]", SyntheticCluster.TASK_TYPE, i, SyntheticRequirements.TASK_NAME),
+                    Status.PENDING,
+                    podInstanceRequirement,
+                    Collections.emptyList()));
+        }
+        Phase phase = new DefaultPhase(
+                SyntheticCluster.TASK_TYPE, deploySteps, new ParallelStrategy<>(), Collections.emptyList());
+        DefaultPlan plan = new DefaultPlan("deploy", Arrays.asList(phase), new ParallelStrategy<>());
+
+        coordinator = new DefaultPlanCoordinator(
+                Arrays.asList(new DefaultPlanManager(plan)),
+                new DefaultPlanScheduler(
+                        new OfferAccepter(Collections.emptyList()),
+                        evaluator,
+                        stateStore,
+                        (taskId, destructive) -> { }));
+        driver = getNoOpDriver();
+    }
+
+    @Benchmark
+    public Collection<Protos.OfferID> processOffers() {
+        return coordinator.processOffers(driver, offers);
+    }
+
+    /**
+     * Returns a {@link SchedulerDriver} which ignores all calls. Calls which return a driver status report the driver
+     * as running.
+     */
+    private static SchedulerDriver getNoOpDriver() {
+        return (SchedulerDriver) Proxy.newProxyInstance(
+                SchedulerDriver.class.getClassLoader(),
+                new Class<?>[] { SchedulerDriver.class },
+                (proxy, method, args) ->
+                        method.getReturnType().equals(Protos.Status.class) ? Protos.Status.DRIVER_RUNNING : null);
+    }
+}
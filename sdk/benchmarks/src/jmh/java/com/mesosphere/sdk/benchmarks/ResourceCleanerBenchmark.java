@@ -0,0 +1,55 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.offer.ResourceCleaner;
+import com.mesosphere.sdk.state.StateStore;
+import org.apache.mesos.Protos.Offer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Measures {@link ResourceCleaner} construction and {@link ResourceCleaner#evaluate(List)}. Every tenth agent's task is
+ * omitted from the state store, so that its reservations are reported as unexpected.
+ */
+@State(Scope.Benchmark)
+public class ResourceCleanerBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int agents;
+
+    @Param({ "8", "32" })
+    public int reservedIdsPerAgent;
+
+    private List<Offer> offers;
+    private StateStore stateStore;
+    private ResourceCleaner cleaner;
+
+    @Setup
+    public void setup() {
+        SyntheticCluster cluster = new SyntheticCluster(agents, 4, reservedIdsPerAgent);
+        offers = cluster.getOffers();
+        stateStore = cluster.getStateStore();
+        for (int agent = 0; agent < agents; agent += 10) {
+            stateStore.clearTask(SyntheticCluster.getTaskName(agent));
+        }
+        cleaner = new ResourceCleaner(stateStore);
+    }
+
+    @Benchmark
+    public List<OfferRecommendation> evaluate() {
+        return cleaner.evaluate(offers);
+    }
+
+    /**
+     * Matches what the scheduler does in each offer cycle: build a new cleaner, then evaluate the cycle's offers.
+     */
+    @Benchmark
+    public List<OfferRecommendation> constructAndEvaluate() {
+        return new ResourceCleaner(stateStore).evaluate(offers);
+    }
+}
@@ -0,0 +1,172 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.offer.CommonTaskUtils;
+import com.mesosphere.sdk.offer.Constants;
+import com.mesosphere.sdk.offer.ResourceUtils;
+import com.mesosphere.sdk.state.StateStore;
+import org.apache.mesos.Protos;
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.Resource;
+import org.apache.mesos.Protos.TaskInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Generates deterministic synthetic cluster contents for benchmarks: offers from {@code N} agents, each with {@code M}
+ * unreserved resources and {@code K} resources reserved against resource IDs, along with tasks which occupy those
+ * reservations.
+ */
+public class SyntheticCluster {
+    public static final String ROLE = "bench-role";
+    public static final String PRINCIPAL = "bench-principal";
+    public static final String TASK_TYPE = "bench";
+    public static final String ZONE_ATTRIBUTE = "zone";
+    public static final int ZONE_COUNT = 3;
+
+    private static final Protos.FrameworkID FRAMEWORK_ID =
+            Protos.FrameworkID.newBuilder().setValue("bench-framework-id").build();
+    private static final Protos.CommandInfo COMMAND =
+            Protos.CommandInfo.newBuilder().setValue("./bench-cmd").build();
+    private static final String[] SCALAR_NAMES = new String[] { "cpus", "mem", "disk", "gpus" };
+    private static final double[] SCALAR_VALUES = new double[] { 64.0, 262144.0, 1048576.0, 8.0 };
+    private static final double CUSTOM_SCALAR_VALUE = 64.0;
+
+    private final int agentCount;
+    private final int resourcesPerAgent;
+    private final int reservedIdsPerAgent;
+
+    /**
+     * @param agentCount the number of agents to generate offers and tasks for
+     * @param resourcesPerAgent the number of unreserved resources in each offer
+     * @param reservedIdsPerAgent the number of reserved resources (each with a unique resource ID) in each offer
+     */
+    public SyntheticCluster(int agentCount, int resourcesPerAgent, int reservedIdsPerAgent) {
+        this.agentCount = agentCount;
+        this.resourcesPerAgent = resourcesPerAgent;
+        this.reservedIdsPerAgent = reservedIdsPerAgent;
+    }
+
+    public int getAgentCount() {
+        return agentCount;
+    }
+
+    public static String getHostname(int agent) {
+        return String.format("agent-%d.bench.local", agent);
+    }
+
+    public static Protos.SlaveID getAgentId(int agent) {
+        return Protos.SlaveID.newBuilder().setValue(String.format("agent-id-%d", agent)).build();
+    }
+
+    public static String getResourceId(int agent, int index) {
+        return String.format("resource-%d-%d", agent, index);
+    }
+
+    public static String getTaskName(int agent) {
+        return String.format("%s-%d-server", TASK_TYPE, agent);
+    }
+
+    /**
+     * Returns one offer per agent.
+     */
+    public List<Offer> getOffers() {
+        List<Offer> offers = new ArrayList<>();
+        for (int agent = 0; agent < agentCount; ++agent) {
+            offers.add(getOffer(agent));
+        }
+        return offers;
+    }
+
+    public Offer getOffer(int agent) {
+        Offer.Builder offerBuilder = Offer.newBuilder()
+                .setId(Protos.OfferID.newBuilder().setValue(String.format("offer-%d", agent)))
+                .setFrameworkId(FRAMEWORK_ID)
+                .setSlaveId(getAgentId(agent))
+                .setHostname(getHostname(agent));
+        offerBuilder.addAttributesBuilder()
+                .setName(ZONE_ATTRIBUTE)
+                .setType(Protos.Value.Type.TEXT)
+                .setText(Protos.Value.Text.newBuilder().setValue(getZone(agent)));
+        offerBuilder.addAllResources(getUnreservedResources());
+        offerBuilder.addAllResources(getReservedResources(agent));
+        return offerBuilder.build();
+    }
+
+    /**
+     * Returns one task per agent, each of which occupies all of the reserved resources on its agent.
+     */
+    public List<TaskInfo> getTasks() {
+        List<TaskInfo> tasks = new ArrayList<>();
+        for (int agent = 0; agent < agentCount; ++agent) {
+            tasks.add(getTask(agent));
+        }
+        return tasks;
+    }
+
+    public TaskInfo getTask(int agent) {
+        String taskName = getTaskName(agent);
+        TaskInfo.Builder taskBuilder = TaskInfo.newBuilder()
+                .setName(taskName)
+                .setTaskId(CommonTaskUtils.toTaskId(taskName))
+                .setSlaveId(getAgentId(agent))
+                .setCommand(COMMAND)
+                .addAllResources(getReservedResources(agent));
+        CommonTaskUtils.setType(taskBuilder, TASK_TYPE);
+        CommonTaskUtils.setIndex(taskBuilder, agent);
+        Offer offer = getOffer(agent);
+        CommonTaskUtils.setHostname(taskBuilder, offer);
+        CommonTaskUtils.setOfferAttributes(taskBuilder, offer);
+        return taskBuilder.build();
+    }
+
+    /**
+     * Returns a {@link StateStore} containing all tasks returned by {@link #getTasks()}, each with a RUNNING status.
+     */
+    public StateStore getStateStore() {
+        StateStore stateStore = new SyntheticStateStore();
+        List<TaskInfo> tasks = getTasks();
+        stateStore.storeTasks(tasks);
+        for (TaskInfo task : tasks) {
+            stateStore.storeStatus(Protos.TaskStatus.newBuilder()
+                    .setTaskId(task.getTaskId())
+                    .setState(Protos.TaskState.TASK_RUNNING)
+                    .build());
+        }
+        return stateStore;
+    }
+
+    private static String getZone(int agent) {
+        return String.format("zone-%d", agent % ZONE_COUNT);
+    }
+
+    private List<Resource> getUnreservedResources() {
+        List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < resourcesPerAgent; ++i) {
+            if (i == 0) {
+                resources.add(ResourceUtils.getUnreservedRanges(
+                        Constants.PORTS_RESOURCE_TYPE,
+                        Arrays.asList(Protos.Value.Range.newBuilder().setBegin(10000).setEnd(20000).build())));
+            } else if (i <= SCALAR_NAMES.length) {
+                resources.add(ResourceUtils.getUnreservedScalar(SCALAR_NAMES[i - 1], SCALAR_VALUES[i - 1]));
+            } else {
+                resources.add(ResourceUtils.getUnreservedScalar(String.format("custom-%d", i), CUSTOM_SCALAR_VALUE));
+            }
+        }
+        return resources;
+    }
+
+    private List<Resource> getReservedResources(int agent) {
+        if (reservedIdsPerAgent == 0) {
+            return Collections.emptyList();
+        }
+        List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < reservedIdsPerAgent; ++i) {
+            resources.add(ResourceUtils.getExpectedScalar(
+                    SCALAR_NAMES[i % SCALAR_NAMES.length], 1.0, getResourceId(agent, i), ROLE, PRINCIPAL));
+        }
+        return resources;
+    }
+}
@@ -0,0 +1,107 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.config.ConfigNamespace;
+import com.mesosphere.sdk.offer.InvalidRequirementException;
+import com.mesosphere.sdk.offer.OfferRequirement;
+import com.mesosphere.sdk.offer.OfferRequirementProvider;
+import com.mesosphere.sdk.offer.ResourceRequirement;
+import com.mesosphere.sdk.offer.ResourceUtils;
+import com.mesosphere.sdk.offer.TaskRequirement;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementRule;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import com.mesosphere.sdk.specification.DefaultCommandSpec;
+import com.mesosphere.sdk.specification.DefaultPodSpec;
+import com.mesosphere.sdk.specification.DefaultResourceSet;
+import com.mesosphere.sdk.specification.DefaultTaskSpec;
+import com.mesosphere.sdk.specification.GoalState;
+import com.mesosphere.sdk.specification.PodSpec;
+import com.mesosphere.sdk.testutils.TaskTestUtils;
+import org.apache.mesos.Protos;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Generates synthetic {@link OfferRequirement}s and pod specifications for benchmarks.
+ */
+public class SyntheticRequirements {
+    public static final String TASK_NAME = "server";
+
+    private SyntheticRequirements() {
+        // do not instantiate
+    }
+
+    /**
+     * Returns a requirement for a single new task which reserves the provided amount of cpus and memory.
+     */
+    public static OfferRequirement getOfferRequirement(double cpus, double mem, PlacementRule placementRule) {
+        List<Protos.Resource> resources = Arrays.asList(
+                ResourceUtils.getDesiredScalar(SyntheticCluster.ROLE, SyntheticCluster.PRINCIPAL, "cpus", cpus),
+                ResourceUtils.getDesiredScalar(SyntheticCluster.ROLE, SyntheticCluster.PRINCIPAL, "mem", mem));
+        List<ResourceRequirement> resourceRequirements = resources.stream()
+                .map(resource -> new ResourceRequirement(resource))
+                .collect(Collectors.toList());
+        TaskRequirement taskRequirement;
+        try {
+            taskRequirement = new TaskRequirement(TaskTestUtils.getTaskInfo(resources), resourceRequirements);
+        } catch (InvalidRequirementException e) {
+            throw new IllegalStateException(e);
+        }
+        return new OfferRequirement(
+                SyntheticCluster.TASK_TYPE,
+                0,
+                Arrays.asList(taskRequirement),
+                Optional.empty(),
+                Optional.ofNullable(placementRule));
+    }
+
+    /**
+     * Returns a pod with a single task, whose resources are not used by the benchmarks: offer requirements for the pod
+     * are instead produced by {@link #getFixedProvider(OfferRequirement)}.
+     */
+    public static PodSpec getPodSpec(int count) {
+        // Uses the constructor rather than the builder, which requires the scheduler's EXECUTOR_URI env to be set.
+        return new DefaultPodSpec(
+                SyntheticCluster.TASK_TYPE,
+                null,
+                count,
+                null,
+                null,
+                null,
+                null,
+                Arrays.asList(DefaultTaskSpec.newBuilder()
+                        .name(TASK_NAME)
+                        .goalState(GoalState.RUNNING)
+                        .resourceSet(DefaultResourceSet.newBuilder(SyntheticCluster.ROLE, SyntheticCluster.PRINCIPAL)
+                                .id("bench-resources")
+                                .cpus(1.0)
+                                .memory(256.0)
+                                .build())
+                        .commandSpec(DefaultCommandSpec.newBuilder(ConfigNamespace.emptyInstance())
+                                .value("./bench-cmd")
+                                .environment(Collections.emptyMap())
+                                .build())
+                        .build()),
+                null);
+    }
+
+    /**
+     * Returns a provider which returns the provided requirement for every pod.
+     */
+    public static OfferRequirementProvider getFixedProvider(OfferRequirement offerRequirement) {
+        return new OfferRequirementProvider() {
+            @Override
+            public OfferRequirement getNewOfferRequirement(PodInstanceRequirement podInstanceRequirement) {
+                return offerRequirement;
+            }
+
+            @Override
+            public OfferRequirement getExistingOfferRequirement(PodInstanceRequirement podInstanceRequirement) {
+                return offerRequirement;
+            }
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.state.StateStoreException;
+import com.mesosphere.sdk.storage.StorageError.Reason;
+import org.apache.mesos.Protos;
+import org.apache.mesos.Protos.TaskInfo;
+import org.apache.mesos.Protos.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A minimal in-memory {@link StateStore} for benchmarks, so that storage latency does not factor into measurements of
+ * the code under test. This is not thread-safe.
+ */
+public class SyntheticStateStore implements StateStore {
+    private final Map<String, TaskInfo> tasks = new HashMap<>();
+    private final Map<String, TaskStatus> statuses = new HashMap<>();
+    private final Map<String, byte[]> properties = new HashMap<>();
+    private Optional<Protos.FrameworkID> frameworkId = Optional.empty();
+
+    @Override
+    public void storeFrameworkId(Protos.FrameworkID fwkId) throws StateStoreException {
+        frameworkId = Optional.of(fwkId);
+    }
+
+    @Override
+    public void clearFrameworkId() throws StateStoreException {
+        frameworkId = Optional.empty();
+    }
+
+    @Override
+    public Optional<Protos.FrameworkID> fetchFrameworkId() throws StateStoreException {
+        return frameworkId;
+    }
+
+    @Override
+    public void storeTasks(Collection<TaskInfo> tasks) throws StateStoreException {
+        for (TaskInfo task : tasks) {
+            this.tasks.put(task.getName(), task);
+        }
+    }
+
+    @Override
+    public void storeStatus(TaskStatus status) throws StateStoreException {
+        for (TaskInfo task : tasks.values()) {
+            if (task.getTaskId().equals(status.getTaskId())) {
+                statuses.put(task.getName(), status);
+                return;
+            }
+        }
+        throw new StateStoreException(Reason.NOT_FOUND, String.format(
+                "Failed to find a task with TaskID: %s", status.getTaskId().getValue()));
+    }
+
+    @Override
+    public void clearTask(String taskName) throws StateStoreException {
+        tasks.remove(taskName);
+        statuses.remove(taskName);
+    }
+
+    @Override
+    public Collection<String> fetchTaskNames() throws StateStoreException {
+        return new ArrayList<>(tasks.keySet());
+    }
+
+    @Override
+    public Collection<TaskInfo> fetchTasks() throws StateStoreException {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public Optional<TaskInfo> fetchTask(String taskName) throws StateStoreException {
+        return Optional.ofNullable(tasks.get(taskName));
+    }
+
+    @Override
+    public Collection<TaskStatus> fetchStatuses() throws StateStoreException {
+        return new ArrayList<>(statuses.values());
+    }
+
+    @Override
+    public Optional<TaskStatus> fetchStatus(String taskName) throws StateStoreException {
+        return Optional.ofNullable(statuses.get(taskName));
+    }
+
+    @Override
+    public void storeProperty(String key, byte[] value) throws StateStoreException {
+        properties.put(key, value);
+    }
+
+    @Override
+    public byte[] fetchProperty(String key) throws StateStoreException {
+        byte[] value = properties.get(key);
+        if (value == null) {
+            throw new StateStoreException(Reason.NOT_FOUND, String.format("Property key does not exist: %s", key));
+        }
+        return value;
+    }
+
+    @Override
+    public Collection<String> fetchPropertyKeys() throws StateStoreException {
+        return new ArrayList<>(properties.keySet());
+    }
+
+    @Override
+    public void clearProperty(String key) throws StateStoreException {
+        properties.remove(key);
+    }
+}
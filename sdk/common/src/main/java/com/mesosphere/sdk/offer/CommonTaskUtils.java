@@ -1,20 +1,14 @@
 package com.mesosphere.sdk.offer;
 
-import com.github.mustachejava.DefaultMustacheFactory;
-import com.github.mustachejava.Mustache;
-import com.github.mustachejava.MustacheFactory;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.mesosphere.sdk.specification.GoalState;
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.mesos.ExecutorDriver;
 import org.apache.mesos.Protos.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -554,17 +548,17 @@ public class CommonTaskUtils {
      * @param templateContent String representation of template.
      * @param environment     Map of environment variables.
      * @return Rendered Mustache template String.
+     * @see TemplateUtils#applyEnvToMustache(String, Map)
      */
     public static String applyEnvToMustache(String templateContent, Map<String, String> environment) {
-        StringWriter writer = new StringWriter();
-        MustacheFactory mf = new DefaultMustacheFactory();
-        Mustache mustache = mf.compile(new StringReader(templateContent), "configTemplate");
-        mustache.execute(writer, environment);
-        return writer.toString();
+        return TemplateUtils.applyEnvToMustache(templateContent, environment);
     }
 
+    /**
+     * @see TemplateUtils#isMustacheFullyRendered(String)
+     */
     public static boolean isMustacheFullyRendered(String templateContent) {
-        return StringUtils.isEmpty(templateContent) || !templateContent.matches("\\{\\{.*\\}\\}");
+        return TemplateUtils.isMustacheFullyRendered(templateContent);
     }
 
     public static GoalState getGoalState(TaskInfo taskInfo) throws TaskException {
@@ -0,0 +1,99 @@
+package com.mesosphere.sdk.offer;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheFactory;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Thread-safe utilities for rendering Mustache templates.
+ * <p>
+ * The same templates (service specs and config files) are rendered repeatedly over the life of a scheduler, so compiled
+ * templates are kept in a bounded cache which is keyed by the template content. Compiled {@link Mustache} instances
+ * hold no per-render state, so a cached template may be rendered by several threads at once.
+ */
+public class TemplateUtils {
+
+    /**
+     * The maximum number of distinct compiled templates to retain.
+     */
+    public static final int MAX_CACHED_TEMPLATES = 100;
+
+    private static final String TEMPLATE_NAME = "configTemplate";
+
+    private static final MustacheFactory MUSTACHE_FACTORY = new DefaultMustacheFactory();
+
+    private static final Pattern UNRENDERED_PATTERN = Pattern.compile("\\{\\{.*\\}\\}");
+
+    // Keyed by the content itself: the hash of a String is only computed once per instance, and a lookup which hits
+    // costs a single equality check, where a digest of the content would cost at least as much on every lookup.
+    private static final LoadingCache<String, Mustache> COMPILED_TEMPLATES = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_TEMPLATES)
+            .build(new CacheLoader<String, Mustache>() {
+                @Override
+                public Mustache load(String templateContent) {
+                    return MUSTACHE_FACTORY.compile(new StringReader(templateContent), TEMPLATE_NAME);
+                }
+            });
+
+    private TemplateUtils() {
+        // do not instantiate
+    }
+
+    /**
+     * Renders the provided Mustache template using the provided environment map. Any variables which are missing from
+     * the environment are rendered as empty strings.
+     *
+     * @param templateContent String representation of template
+     * @param environment Map of environment variables
+     * @return Rendered Mustache template String
+     */
+    public static String applyEnvToMustache(String templateContent, Map<String, String> environment) {
+        StringWriter writer = new StringWriter(templateContent.length());
+        getCompiledTemplate(templateContent).execute(writer, environment);
+        return writer.toString();
+    }
+
+    /**
+     * Returns whether the provided content is rendered, meaning that it isn't entirely a single-line
+     * {@code {{variable}}} reference.
+     */
+    public static boolean isMustacheFullyRendered(String templateContent) {
+        return StringUtils.isEmpty(templateContent) || !UNRENDERED_PATTERN.matcher(templateContent).matches();
+    }
+
+    /**
+     * Drops all compiled templates, for use in tests.
+     */
+    static void clearCache() {
+        COMPILED_TEMPLATES.invalidateAll();
+    }
+
+    /**
+     * Returns the number of compiled templates currently retained, for use in tests.
+     */
+    static long getCacheSize() {
+        return COMPILED_TEMPLATES.size();
+    }
+
+    private static Mustache getCompiledTemplate(String templateContent) {
+        try {
+            return COMPILED_TEMPLATES.getUnchecked(templateContent);
+        } catch (UncheckedExecutionException e) {
+            // Surface template syntax errors as-is, as they were before templates were cached:
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to compile template", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.mesosphere.sdk.offer;
+
+import com.github.mustachejava.MustacheException;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TemplateUtils}.
+ */
+public class TemplateUtilsTest {
+
+    @Before
+    public void beforeEach() {
+        TemplateUtils.clearCache();
+    }
+
+    @Test
+    public void testRenderReusesCompiledTemplate() {
+        String template = "host: {{HOST}}\nport: {{PORT}}\n";
+        assertEquals("host: a\nport: 1\n",
+                TemplateUtils.applyEnvToMustache(template, ImmutableMap.of("HOST", "a", "PORT", "1")));
+        assertEquals("host: b\nport: \n",
+                TemplateUtils.applyEnvToMustache(new String(template), ImmutableMap.of("HOST", "b")));
+        assertEquals(1, TemplateUtils.getCacheSize());
+
+        TemplateUtils.applyEnvToMustache("other: {{HOST}}", Collections.emptyMap());
+        assertEquals(2, TemplateUtils.getCacheSize());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        for (int i = 0; i < TemplateUtils.MAX_CACHED_TEMPLATES * 2; ++i) {
+            assertEquals(i + ": x", TemplateUtils.applyEnvToMustache(i + ": {{V}}", ImmutableMap.of("V", "x")));
+        }
+        assertTrue(TemplateUtils.getCacheSize() <= TemplateUtils.MAX_CACHED_TEMPLATES);
+    }
+
+    @Test(expected = MustacheException.class)
+    public void testInvalidTemplate() {
+        TemplateUtils.applyEnvToMustache("{{#section}}never closed", Collections.emptyMap());
+    }
+
+    @Test
+    public void testConcurrentRenders() throws Exception {
+        String template = "{{#ITEMS}}{{.}},{{/ITEMS}} {{NAME}}";
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; ++i) {
+                String name = String.valueOf(i);
+                Map<String, String> env = ImmutableMap.of("NAME", name);
+                results.add(executor.submit((Callable<String>) () -> TemplateUtils.applyEnvToMustache(template, env)));
+            }
+            for (int i = 0; i < results.size(); ++i) {
+                assertEquals(" " + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, TemplateUtils.getCacheSize());
+    }
+
+    @Test
+    public void testIsMustacheFullyRendered() {
+        assertTrue(TemplateUtils.isMustacheFullyRendered(null));
+        assertTrue(TemplateUtils.isMustacheFullyRendered(""));
+        assertTrue(TemplateUtils.isMustacheFullyRendered("port: 1234"));
+        assertTrue(TemplateUtils.isMustacheFullyRendered("a: {{\nb: }}"));
+        assertTrue(TemplateUtils.isMustacheFullyRendered("a: }} {{"));
+        // Only content which is entirely a single-line reference is detected:
+        assertTrue(TemplateUtils.isMustacheFullyRendered("port: {{PORT}}"));
+        assertTrue(TemplateUtils.isMustacheFullyRendered("name: foo\nport: {{PORT}}\n"));
+        assertTrue(TemplateUtils.isMustacheFullyRendered("{{HOST}}\n{{PORT}}"));
+
+        assertFalse(TemplateUtils.isMustacheFullyRendered("{{PORT}}"));
+        assertFalse(TemplateUtils.isMustacheFullyRendered("{{{PORT}}}"));
+        assertFalse(TemplateUtils.isMustacheFullyRendered("{{HOST}}:{{PORT}}"));
+    }
+}
@@ -0,0 +1,517 @@
+package com.mesosphere.sdk.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the health and readiness checks for all tasks in this executor on a single event loop thread.
+ * <p>
+ * No thread is ever blocked waiting for a check to complete. Command checks are launched as subprocesses which are
+ * then polled for exit, while TCP and HTTP checks are performed in-process using non-blocking sockets, without forking
+ * anything. Checks which exceed their timeout are failed, and any process they launched is killed.
+ * <p>
+ * Where {@code setsid} is available, each check process is started in its own process group, so that any processes it
+ * has forked in turn are killed along with it. Otherwise only the check process itself is killed.
+ * <p>
+ * The outcome of each check is provided via a {@link CompletableFuture} which is completed on the event loop thread.
+ * Any callbacks on these futures are therefore run on the event loop, and must not block.
+ */
+public class CheckEngine implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckEngine.class);
+
+    /**
+     * How often running check processes are polled for exit. Java 8 doesn't provide notification of process exit, so
+     * this is the best we can do without dedicating a thread to each process.
+     */
+    private static final long PROCESS_POLL_INTERVAL_MS = 10;
+
+    /**
+     * The longest that the event loop waits without checking for expired timers, as a safeguard.
+     */
+    private static final long MAX_SELECT_TIMEOUT_MS = 1000;
+
+    /**
+     * Enough to hold the status line of any reasonable HTTP response.
+     */
+    private static final int HTTP_RESPONSE_BUFFER_BYTES = 1024;
+
+    /**
+     * Used to start each check process as the leader of a new process group, whose ID is then the process's PID.
+     */
+    private static final Optional<String> SETSID_PATH = findExecutable("/usr/bin/setsid", "/bin/setsid");
+
+    private final Selector selector;
+    private final Thread loopThread;
+    private final Queue<Runnable> submittedTasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed = false;
+
+    // The following are only accessed from the event loop thread:
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    private final List<RunningProcess> runningProcesses = new ArrayList<>();
+    private long timerSequence = 0;
+
+    public CheckEngine() {
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open selector for checks", e);
+        }
+        this.loopThread = new Thread(this::runLoop, "check-engine");
+        this.loopThread.setDaemon(true);
+        this.loopThread.start();
+    }
+
+    /**
+     * Runs the provided task on the event loop after the provided delay. The task must not block.
+     *
+     * @throws RejectedExecutionException if this engine has been closed
+     */
+    public void schedule(Runnable task, long delayMs) {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+        execute(() -> timers.add(new Timer(deadlineNanos, timerSequence++, task)));
+    }
+
+    /**
+     * Starts the provided process and returns its exit value once it has exited. If the process is still running after
+     * the provided timeout, it is killed and the returned future fails with a {@link TimeoutException}.
+     */
+    public CompletableFuture<Integer> runProcess(ProcessBuilder processBuilder, double timeoutSeconds) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                Process process = startInProcessGroup(processBuilder);
+                runningProcesses.add(new RunningProcess(process, getDeadlineNanos(timeoutSeconds), result));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns a future which completes successfully once a TCP connection to the provided address has been
+     * established, or which fails if the connection is refused or doesn't complete within the provided timeout.
+     */
+    public CompletableFuture<Void> probeTcp(InetSocketAddress address, double timeoutSeconds) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        execute(() -> startProbe(new TcpProbe(address, getDeadlineNanos(timeoutSeconds), result)));
+        return result;
+    }
+
+    /**
+     * Returns a future which completes with the status code of a {@code GET} request for the provided path at the
+     * provided address, or which fails if no response is received within the provided timeout.
+     */
+    public CompletableFuture<Integer> probeHttp(InetSocketAddress address, String path, double timeoutSeconds) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        execute(() -> startProbe(new HttpProbe(address, path, getDeadlineNanos(timeoutSeconds), result)));
+        return result;
+    }
+
+    /**
+     * Stops the event loop, killing any running check processes and failing any checks which are in progress.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        try {
+            loopThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void execute(Runnable task) {
+        if (closed) {
+            throw new RejectedExecutionException("Check engine has been closed");
+        }
+        submittedTasks.add(task);
+        selector.wakeup();
+    }
+
+    private void runLoop() {
+        while (!closed) {
+            try {
+                selector.select(getSelectTimeoutMs());
+                Runnable task;
+                while ((task = submittedTasks.poll()) != null) {
+                    runSafely(task);
+                }
+                handleSelectedKeys();
+                long nowNanos = System.nanoTime();
+                expireProbes(nowNanos);
+                pollProcesses(nowNanos);
+                runDueTimers(nowNanos);
+            } catch (Throwable t) {
+                LOGGER.error("Check event loop iteration failed", t);
+            }
+        }
+        shutdownLoop();
+    }
+
+    private long getSelectTimeoutMs() {
+        if (!submittedTasks.isEmpty()) {
+            return 1;
+        }
+        long nowNanos = System.nanoTime();
+        long timeoutMs = MAX_SELECT_TIMEOUT_MS;
+        if (!runningProcesses.isEmpty()) {
+            timeoutMs = PROCESS_POLL_INTERVAL_MS;
+        }
+        Timer nextTimer = timers.peek();
+        if (nextTimer != null) {
+            timeoutMs = Math.min(timeoutMs, TimeUnit.NANOSECONDS.toMillis(nextTimer.deadlineNanos - nowNanos));
+        }
+        for (SelectionKey key : selector.keys()) {
+            long probeDeadlineNanos = ((Probe) key.attachment()).deadlineNanos;
+            timeoutMs = Math.min(timeoutMs, TimeUnit.NANOSECONDS.toMillis(probeDeadlineNanos - nowNanos));
+        }
+        // A timeout of zero would block indefinitely:
+        return Math.max(1, timeoutMs);
+    }
+
+    private void handleSelectedKeys() {
+        Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+        while (iter.hasNext()) {
+            SelectionKey key = iter.next();
+            iter.remove();
+            Probe probe = (Probe) key.attachment();
+            try {
+                if (key.isConnectable()) {
+                    probe.channel.finishConnect();
+                    probe.onConnected(key);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    probe.onWritable(key);
+                }
+                if (key.isValid() && key.isReadable()) {
+                    probe.onReadable(key);
+                }
+            } catch (Throwable t) {
+                probe.fail(t);
+            }
+        }
+    }
+
+    private void expireProbes(long nowNanos) {
+        for (SelectionKey key : selector.keys()) {
+            Probe probe = (Probe) key.attachment();
+            if (probe.deadlineNanos <= nowNanos) {
+                probe.fail(new TimeoutException(String.format("Check of %s timed out", probe.address)));
+            }
+        }
+    }
+
+    private void pollProcesses(long nowNanos) {
+        Iterator<RunningProcess> iter = runningProcesses.iterator();
+        while (iter.hasNext()) {
+            RunningProcess runningProcess = iter.next();
+            if (!runningProcess.process.isAlive()) {
+                iter.remove();
+                runningProcess.result.complete(runningProcess.process.exitValue());
+            } else if (runningProcess.deadlineNanos <= nowNanos) {
+                iter.remove();
+                LOGGER.warn("Killing check process which exceeded its timeout");
+                runningProcess.kill();
+                runningProcess.result.completeExceptionally(new TimeoutException("Check process timed out"));
+            }
+        }
+    }
+
+    private void runDueTimers(long nowNanos) {
+        while (!timers.isEmpty() && timers.peek().deadlineNanos <= nowNanos) {
+            runSafely(timers.poll().task);
+        }
+    }
+
+    private void startProbe(Probe probe) {
+        try {
+            probe.channel = SocketChannel.open();
+            probe.channel.configureBlocking(false);
+            if (probe.channel.connect(probe.address)) {
+                probe.onConnected(probe.channel.register(selector, 0, probe));
+            } else {
+                probe.channel.register(selector, SelectionKey.OP_CONNECT, probe);
+            }
+        } catch (Throwable t) {
+            probe.fail(t);
+        }
+    }
+
+    private void shutdownLoop() {
+        Exception closedException = new IllegalStateException("Check engine has been closed");
+        for (RunningProcess runningProcess : runningProcesses) {
+            runningProcess.kill();
+            runningProcess.result.completeExceptionally(closedException);
+        }
+        runningProcesses.clear();
+        for (SelectionKey key : selector.keys()) {
+            ((Probe) key.attachment()).fail(closedException);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close check selector", e);
+        }
+    }
+
+    private static void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            LOGGER.error("Check task failed", t);
+        }
+    }
+
+    /**
+     * Starts the provided process via {@code setsid}, if available. {@code setsid} execs the command in place, so the
+     * returned process is the leader of its own process group. The provided builder is left unchanged.
+     */
+    private static Process startInProcessGroup(ProcessBuilder processBuilder) throws IOException {
+        if (!SETSID_PATH.isPresent()) {
+            return processBuilder.start();
+        }
+        List<String> command = processBuilder.command();
+        List<String> groupCommand = new ArrayList<>();
+        groupCommand.add(SETSID_PATH.get());
+        groupCommand.addAll(command);
+        processBuilder.command(groupCommand);
+        try {
+            return processBuilder.start();
+        } finally {
+            processBuilder.command(command);
+        }
+    }
+
+    /**
+     * Returns the PID of the provided process. Java 8 doesn't expose this directly, so it's read via
+     * {@code Process.pid()} where available (Java 9+), or otherwise from the {@code pid} field of the Unix
+     * implementation.
+     */
+    private static Optional<Long> getPid(Process process) {
+        try {
+            return Optional.of(((Number) Process.class.getMethod("pid").invoke(process)).longValue());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8: fall through
+        }
+        try {
+            Field field = process.getClass().getDeclaredField("pid");
+            field.setAccessible(true);
+            return Optional.of(((Number) field.get(process)).longValue());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Unable to determine PID of check process", e);
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<String> findExecutable(String... paths) {
+        for (String path : paths) {
+            if (new File(path).canExecute()) {
+                return Optional.of(path);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static long getDeadlineNanos(double timeoutSeconds) {
+        return System.nanoTime() + (long) (timeoutSeconds * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static class Timer implements Comparable<Timer> {
+        private final long deadlineNanos;
+        private final long sequence;
+        private final Runnable task;
+
+        private Timer(long deadlineNanos, long sequence, Runnable task) {
+            this.deadlineNanos = deadlineNanos;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Timer other) {
+            int result = Long.compare(deadlineNanos - other.deadlineNanos, 0);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static class RunningProcess {
+        private final Process process;
+        private final long deadlineNanos;
+        private final CompletableFuture<Integer> result;
+
+        private RunningProcess(Process process, long deadlineNanos, CompletableFuture<Integer> result) {
+            this.process = process;
+            this.deadlineNanos = deadlineNanos;
+            this.result = result;
+        }
+
+        /**
+         * Kills the process along with its process group, if it was started in one. The kill command isn't waited on.
+         */
+        private void kill() {
+            Optional<Long> pid = SETSID_PATH.isPresent() ? getPid(process) : Optional.empty();
+            if (pid.isPresent()) {
+                try {
+                    new ProcessBuilder("kill", "-KILL", "--", "-" + pid.get()).start();
+                } catch (IOException e) {
+                    LOGGER.warn(String.format("Failed to kill check process group %d", pid.get()), e);
+                }
+            }
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * A socket based check which is driven by readiness events from the selector.
+     */
+    private abstract static class Probe {
+        protected final InetSocketAddress address;
+        protected final long deadlineNanos;
+        protected SocketChannel channel;
+
+        private Probe(InetSocketAddress address, long deadlineNanos) {
+            this.address = address;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        abstract void onConnected(SelectionKey key) throws IOException;
+
+        void onWritable(SelectionKey key) throws IOException {
+            // Only needed by probes which write a request.
+        }
+
+        void onReadable(SelectionKey key) throws IOException {
+            // Only needed by probes which read a response.
+        }
+
+        void fail(Throwable t) {
+            closeChannel();
+            getResult().completeExceptionally(t);
+        }
+
+        abstract CompletableFuture<?> getResult();
+
+        protected void closeChannel() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                // Also cancels the channel's registration with the selector:
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.warn(String.format("Failed to close check connection to %s", address), e);
+            }
+        }
+    }
+
+    /**
+     * Succeeds as soon as a connection is established.
+     */
+    private static class TcpProbe extends Probe {
+        private final CompletableFuture<Void> result;
+
+        private TcpProbe(InetSocketAddress address, long deadlineNanos, CompletableFuture<Void> result) {
+            super(address, deadlineNanos);
+            this.result = result;
+        }
+
+        @Override
+        void onConnected(SelectionKey key) {
+            closeChannel();
+            result.complete(null);
+        }
+
+        @Override
+        CompletableFuture<?> getResult() {
+            return result;
+        }
+    }
+
+    /**
+     * Sends a {@code GET} request and completes with the status code from the status line of the response.
+     */
+    private static class HttpProbe extends Probe {
+        private final ByteBuffer request;
+        private final ByteBuffer response = ByteBuffer.allocate(HTTP_RESPONSE_BUFFER_BYTES);
+        private final CompletableFuture<Integer> result;
+
+        private HttpProbe(
+                InetSocketAddress address, String path, long deadlineNanos, CompletableFuture<Integer> result) {
+            super(address, deadlineNanos);
+            this.request = ByteBuffer.wrap(String.format(
+                    "GET %s HTTP/1.1\r\nHost: %s:%d\r\nUser-Agent: dcos-commons-executor\r\nConnection: close\r\n\r\n",
+                    path.isEmpty() ? "/" : path, address.getHostString(), address.getPort())
+                    .getBytes(StandardCharsets.US_ASCII));
+            this.result = result;
+        }
+
+        @Override
+        void onConnected(SelectionKey key) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+
+        @Override
+        void onWritable(SelectionKey key) throws IOException {
+            channel.write(request);
+            if (!request.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        @Override
+        void onReadable(SelectionKey key) throws IOException {
+            int bytesRead = channel.read(response);
+            String received = new String(
+                    response.array(), 0, response.position(), StandardCharsets.US_ASCII);
+            int lineEnd = received.indexOf("\r\n");
+            if (lineEnd >= 0) {
+                closeChannel();
+                result.complete(parseStatusCode(received.substring(0, lineEnd)));
+            } else if (bytesRead < 0 || !response.hasRemaining()) {
+                throw new IOException(String.format("Invalid HTTP response from %s: '%s'", address, received));
+            }
+        }
+
+        @Override
+        CompletableFuture<?> getResult() {
+            return result;
+        }
+
+        private int parseStatusCode(String statusLine) throws IOException {
+            // e.g. "HTTP/1.1 200 OK"
+            String[] tokens = statusLine.split(" ", 3);
+            if (tokens.length < 2 || !tokens[0].startsWith("HTTP/")) {
+                throw new IOException(String.format("Invalid HTTP status line from %s: '%s'", address, statusLine));
+            }
+            try {
+                return Integer.parseInt(tokens[1]);
+            } catch (NumberFormatException e) {
+                throw new IOException(String.format("Invalid HTTP status line from %s: '%s'", address, statusLine), e);
+            }
+        }
+    }
+}
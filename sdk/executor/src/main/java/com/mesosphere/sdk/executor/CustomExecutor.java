@@ -20,13 +20,11 @@ import java.util.concurrent.*;
  */
 public class CustomExecutor implements Executor {
     private static final Logger LOGGER = LoggerFactory.getLogger(CustomExecutor.class);
-    private static final int HEALTH_CHECK_THREAD_POOL_SIZE = 10;
-    private static final ScheduledExecutorService scheduledExecutorService =
-            Executors.newScheduledThreadPool(HEALTH_CHECK_THREAD_POOL_SIZE);
 
     private final Map<Protos.TaskID, LaunchedTask> launchedTasks = new HashMap<>();
     private final ExecutorService executorService;
     private final ExecutorTaskFactory executorTaskFactory;
+    private final CheckEngine checkEngine = new CheckEngine();
 
     private volatile Protos.SlaveInfo slaveInfo;
 
@@ -137,7 +135,7 @@ public class CustomExecutor implements Executor {
                                     executorDriver,
                                     taskInfo,
                                     check,
-                                    scheduledExecutorService,
+                                    checkEngine,
                                     new HealthCheckStats(taskInfo.getName())),
                             launchedTask);
             LOGGER.info("Submitting check monitor.");
@@ -198,6 +196,9 @@ public class CustomExecutor implements Executor {
                 LOGGER.error(String.format("Error stopping task %s", taskId.getValue()), t);
             }
         }
+
+        // Stop the check engine's event loop, along with any checks which are still running:
+        checkEngine.close();
     }
 
     @Override
@@ -208,4 +209,8 @@ public class CustomExecutor implements Executor {
     Optional<Protos.SlaveInfo> getSlaveInfo() {
         return Optional.ofNullable(slaveInfo);
     }
+
+    CheckEngine getCheckEngine() {
+        return checkEngine;
+    }
 }
@@ -9,13 +9,15 @@ import org.apache.mesos.Protos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Each HealthCheckHandler is responsible for executing a single HealthCheck defined for a TaskInfo.
@@ -23,27 +25,33 @@ import java.util.concurrent.TimeUnit;
  * HealthCheck has failed, which is another way of saying that it has reached its maximum consecutive
  * failures limit. Health checks are not run during the grace period as their result would be ignored
  * in any case.
+ * <p>
+ * Checks are run on a shared {@link CheckEngine}, which never blocks a thread while waiting for a check to complete.
  */
 public class HealthCheckHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(HealthCheckHandler.class);
 
+    /**
+     * TCP and HTTP checks are performed against the task's ports on the local agent, matching Mesos' own checks.
+     */
+    private static final String CHECK_HOST = "127.0.0.1";
+
     private final Protos.HealthCheck healthCheck;
-    private final ScheduledExecutorService scheduledExecutorService;
     private final HealthCheckRunner healthCheckRunner;
 
     public static HealthCheckHandler create(
             ExecutorDriver executorDriver,
             Protos.TaskInfo taskInfo,
             Protos.HealthCheck healthCheck,
-            ScheduledExecutorService scheduledExecutorService,
+            CheckEngine checkEngine,
             HealthCheckStats healthCheckStats)
             throws HealthCheckValidationException {
         return new HealthCheckHandler(
                 executorDriver,
                 taskInfo,
-                new ProcessRunner(),
+                new ProcessRunner(checkEngine),
                 healthCheck,
-                scheduledExecutorService,
+                checkEngine,
                 healthCheckStats);
     }
 
@@ -56,21 +64,26 @@ public class HealthCheckHandler {
             Protos.TaskInfo taskInfo,
             ProcessRunner processRunner,
             Protos.HealthCheck healthCheck,
-            ScheduledExecutorService scheduledExecutorService,
+            CheckEngine checkEngine,
             HealthCheckStats healthCheckStats)
             throws HealthCheckValidationException {
         validate(healthCheck);
         this.healthCheck = healthCheck;
-        this.scheduledExecutorService = scheduledExecutorService;
         this.healthCheckRunner = new HealthCheckRunner(
                 executorDriver,
                 taskInfo,
                 processRunner,
                 healthCheck,
+                checkEngine,
                 healthCheckStats);
     }
 
-    public ScheduledFuture<?> start() {
+    /**
+     * Starts running the check at its configured interval. The returned future completes exceptionally with a
+     * {@link HealthCheckRuntimeException} once a health check has exceeded its maximum consecutive failures, or once a
+     * readiness check has passed. Cancelling the returned future stops any further runs of the check.
+     */
+    public Future<?> start() {
         double interval = healthCheck.getIntervalSeconds();
         double delay = healthCheck.getDelaySeconds() +
                 healthCheck.getGracePeriodSeconds();
@@ -80,112 +93,238 @@ public class HealthCheckHandler {
 
         LOGGER.info("Scheduling health check every {}ms following an initial {}ms delay.",
                 intervalMs, delayMs);
-        return scheduledExecutorService.scheduleAtFixedRate(
-                healthCheckRunner,
-                delayMs,
-                intervalMs,
-                TimeUnit.MILLISECONDS);
+        return healthCheckRunner.start(delayMs, intervalMs);
     }
 
     /**
      * Custom Executors are responsible for implementing HealthChecks.  This Custom Executor implements a subset of
      * all possible Health Checks describable by a HealthCheckInfo object.
      * <p>
-     * They must be command HealthChecks as HTTP is not recommended by Mesos yet and is unneeded from a completeness
-     * perspective.  `curl -f` normally is sufficient.  Since all HealthChecks as currently implemented by this Custom
-     * Executor are excuted as sub-processes we further require that the HealthCheck specifies that it is a "shell"
-     * command to avoid unexpected behavior.
+     * Command checks are executed as sub-processes, so we require that they specify that they are a "shell" command to
+     * avoid unexpected behavior. HTTP and TCP checks are performed in-process against the provided port on the local
+     * agent. HTTPS checks are not supported.
      *
      * @param healthCheck The HealthCheck to be executed
      * @throws HealthCheckValidationException when a HealthCheck does not adhere to the HealthChecks supported
      *                                        by this Custom Executor
      */
     private void validate(Protos.HealthCheck healthCheck) throws HealthCheckValidationException {
-        // Validate HealthCheck
-        if (healthCheck.hasHttp()) {
-            throw new HealthCheckValidationException(
-                    "The following health check contains an unsupported HTTP configuration: " + healthCheck);
-        }
+        switch (getType(healthCheck)) {
+            case COMMAND:
+                if (!healthCheck.hasCommand()) {
+                    throw new HealthCheckValidationException(
+                            "The following health check does not contain a Command: " + healthCheck);
+                }
 
-        if (!healthCheck.hasCommand()) {
-            throw new HealthCheckValidationException(
-                    "The following health check does not contain a Command: " + healthCheck);
+                // Validate Command
+                Protos.CommandInfo commandInfo = healthCheck.getCommand();
+                if (!Boolean.valueOf(commandInfo.getShell())) {
+                    throw new HealthCheckValidationException(
+                            "Only shell based health checks are supported for health check commmand: " + commandInfo);
+                }
+                break;
+            case HTTP:
+                if (!healthCheck.hasHttp() || !healthCheck.getHttp().hasPort()) {
+                    throw new HealthCheckValidationException(
+                            "The following health check does not contain an HTTP port: " + healthCheck);
+                }
+                if (healthCheck.getHttp().hasScheme() && !healthCheck.getHttp().getScheme().equals("http")) {
+                    throw new HealthCheckValidationException(
+                            "The following health check contains an unsupported HTTP scheme: " + healthCheck);
+                }
+                break;
+            case TCP:
+                if (!healthCheck.hasTcp() || !healthCheck.getTcp().hasPort()) {
+                    throw new HealthCheckValidationException(
+                            "The following health check does not contain a TCP port: " + healthCheck);
+                }
+                break;
+            default:
+                throw new HealthCheckValidationException(
+                        "The following health check has an unsupported type: " + healthCheck);
         }
+    }
 
-        // Validate Command
-        Protos.CommandInfo commandInfo = healthCheck.getCommand();
-        if (!Boolean.valueOf(commandInfo.getShell())) {
-            throw new HealthCheckValidationException(
-                    "Only shell based health checks are supported for health check commmand: " + commandInfo);
+    /**
+     * Returns the type of the provided check. Checks which predate the type field are inferred from their content.
+     */
+    private static Protos.HealthCheck.Type getType(Protos.HealthCheck healthCheck) {
+        if (healthCheck.hasType()) {
+            return healthCheck.getType();
+        } else if (healthCheck.hasHttp()) {
+            return Protos.HealthCheck.Type.HTTP;
+        } else if (healthCheck.hasTcp()) {
+            return Protos.HealthCheck.Type.TCP;
+        } else {
+            return Protos.HealthCheck.Type.COMMAND;
         }
     }
 
     /**
-     * This class spawns a subprocess for each invocation of a health check.  It records statistics
-     * regarding successes and failures.
+     * This class runs each invocation of a health check on the {@link CheckEngine}, and then schedules the next
+     * invocation once it has completed.  It records statistics regarding successes, failures, and latencies.
      */
-    private static class HealthCheckRunner implements Runnable {
+    private static class HealthCheckRunner {
         private static final Logger LOGGER = LoggerFactory.getLogger(HealthCheckRunner.class);
 
         private final ExecutorDriver executorDriver;
         private final Protos.TaskInfo taskInfo;
         private final ProcessRunner processRunner;
         private final Protos.HealthCheck healthCheck;
+        private final CheckEngine checkEngine;
         private final HealthCheckStats healthCheckStats;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        // Only accessed from the CheckEngine event loop, once started:
+        private long intervalNanos;
+        private long nextRunNanos;
 
         private HealthCheckRunner(
                 ExecutorDriver executorDriver,
                 Protos.TaskInfo taskInfo,
                 ProcessRunner processRunner,
                 Protos.HealthCheck healthCheck,
+                CheckEngine checkEngine,
                 HealthCheckStats healthCheckStats) {
             this.executorDriver = executorDriver;
             this.taskInfo = taskInfo;
             this.processRunner = processRunner;
             this.healthCheck = healthCheck;
+            this.checkEngine = checkEngine;
             this.healthCheckStats = healthCheckStats;
         }
 
-        @Override
-        public void run() {
-            Protos.CommandInfo commandInfo = healthCheck.getCommand();
+        private Future<?> start(long delayMs, long intervalMs) {
+            // Checks may not be run more often than once per millisecond:
+            intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, intervalMs));
+            nextRunNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+            checkEngine.schedule(this::run, delayMs);
+            return completion;
+        }
+
+        private void run() {
+            if (completion.isDone()) {
+                // Stopped or cancelled
+                return;
+            }
+
+            long startNanos = System.nanoTime();
+            CompletableFuture<Boolean> result;
             try {
-                final Map<String, String> envMap = CommonTaskUtils.fromEnvironmentToMap(commandInfo.getEnvironment());
-                List<String> command = new ArrayList<>();
-                command.add("/bin/bash");
-                command.add("-c");
-                command.add(commandInfo.getValue());
-
-                ProcessBuilder processBuilder = new ProcessBuilder(command);
-                processBuilder.inheritIO();
-                processBuilder.environment().putAll(envMap);
-
-                LOGGER.info("Running health check process: {}", command);
-                int exitValue = processRunner.run(processBuilder, healthCheck.getTimeoutSeconds());
-
-                if (exitValue != 0) {
-                    healthCheckStats.failed();
-                    LOGGER.error("Health check failed with exit code {}: {}",
-                            exitValue, TextFormat.shortDebugString(commandInfo));
+                result = check();
+            } catch (Throwable t) {
+                result = new CompletableFuture<>();
+                result.completeExceptionally(t);
+            }
+            result.whenComplete((passed, t) -> onCheckCompleted(startNanos, passed, t));
+        }
+
+        private CompletableFuture<Boolean> check() throws Exception {
+            switch (getType(healthCheck)) {
+                case HTTP:
+                    Protos.HealthCheck.HTTPCheckInfo httpCheck = healthCheck.getHttp();
+                    LOGGER.info("Running HTTP health check: {}", TextFormat.shortDebugString(httpCheck));
+                    return checkEngine.probeHttp(
+                            new InetSocketAddress(CHECK_HOST, httpCheck.getPort()),
+                            httpCheck.getPath(),
+                            healthCheck.getTimeoutSeconds())
+                            .thenApply(statusCode -> {
+                                // Mesos considers any status code between 200 and 399 to be healthy:
+                                if (statusCode >= 200 && statusCode < 400) {
+                                    return true;
+                                }
+                                LOGGER.error("Health check failed with HTTP status {}: {}",
+                                        statusCode, TextFormat.shortDebugString(httpCheck));
+                                return false;
+                            });
+                case TCP:
+                    Protos.HealthCheck.TCPCheckInfo tcpCheck = healthCheck.getTcp();
+                    LOGGER.info("Running TCP health check: {}", TextFormat.shortDebugString(tcpCheck));
+                    return checkEngine.probeTcp(
+                            new InetSocketAddress(CHECK_HOST, tcpCheck.getPort()),
+                            healthCheck.getTimeoutSeconds())
+                            .thenApply(ignored -> true);
+                default:
+                    return checkCommand();
+            }
+        }
+
+        private CompletableFuture<Boolean> checkCommand() throws Exception {
+            Protos.CommandInfo commandInfo = healthCheck.getCommand();
+            final Map<String, String> envMap = CommonTaskUtils.fromEnvironmentToMap(commandInfo.getEnvironment());
+            List<String> command = new ArrayList<>();
+            command.add("/bin/bash");
+            command.add("-c");
+            command.add(commandInfo.getValue());
+
+            ProcessBuilder processBuilder = new ProcessBuilder(command);
+            processBuilder.inheritIO();
+            processBuilder.environment().putAll(envMap);
+
+            LOGGER.info("Running health check process: {}", command);
+            return processRunner.run(processBuilder, healthCheck.getTimeoutSeconds())
+                    .thenApply(exitValue -> {
+                        if (exitValue == 0) {
+                            return true;
+                        }
+                        LOGGER.error("Health check failed with exit code {}: {}",
+                                exitValue, TextFormat.shortDebugString(commandInfo));
+                        return false;
+                    });
+        }
+
+        private void onCheckCompleted(long startNanos, Boolean passed, Throwable t) {
+            healthCheckStats.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            if (t != null) {
+                Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                if (cause instanceof TimeoutException) {
+                    LOGGER.error("Check timed out after {}s: {}",
+                            healthCheck.getTimeoutSeconds(), TextFormat.shortDebugString(healthCheck));
                 } else {
-                    LOGGER.info("Health check succeeded: {}", TextFormat.shortDebugString(commandInfo));
-                    healthCheckStats.succeeded();
+                    LOGGER.error(String.format(
+                            "Check failed with exception: %s", TextFormat.shortDebugString(healthCheck)), cause);
                 }
-
-                LOGGER.debug("Health check stats: {}", healthCheckStats);
-            } catch (Throwable t) {
-                LOGGER.error(String.format(
-                        "Check failed with exception: %s", TextFormat.shortDebugString(commandInfo)), t);
+                healthCheckStats.failed();
+            } else if (passed) {
+                LOGGER.info("Health check succeeded: {}", TextFormat.shortDebugString(healthCheck));
+                healthCheckStats.succeeded();
+            } else {
                 healthCheckStats.failed();
             }
+            LOGGER.debug("Health check stats: {}", healthCheckStats);
 
-            // Health checks have a positive consecutive failure count, readiness
-            // checks do not.
-            if (healthCheck.getConsecutiveFailures() > 0) {
-                handleHealthCheck();
-            } else {
-                handleReadinessCheck();
+            try {
+                // Health checks have a positive consecutive failure count, readiness
+                // checks do not.
+                if (healthCheck.getConsecutiveFailures() > 0) {
+                    handleHealthCheck();
+                } else {
+                    handleReadinessCheck();
+                }
+            } catch (HealthCheckRuntimeException e) {
+                completion.completeExceptionally(e);
+                return;
+            } catch (Throwable e) {
+                LOGGER.error("Failed to handle check result", e);
+            }
+
+            scheduleNextRun();
+        }
+
+        /**
+         * Schedules the next run at a fixed rate from the first run. Any runs which were missed while the previous run
+         * was in progress are skipped, rather than being run back-to-back.
+         */
+        private void scheduleNextRun() {
+            if (completion.isDone()) {
+                return;
+            }
+            long nowNanos = System.nanoTime();
+            nextRunNanos += intervalNanos;
+            if (nextRunNanos - nowNanos < 0) {
+                nextRunNanos += ((nowNanos - nextRunNanos) / intervalNanos + 1) * intervalNanos;
             }
+            checkEngine.schedule(this::run, TimeUnit.NANOSECONDS.toMillis(nextRunNanos - nowNanos));
         }
 
         private void handleHealthCheck() {
@@ -236,18 +375,19 @@ public class HealthCheckHandler {
     }
 
     /**
-     * Runs the provided process and returns an exit value. This is broken out into a separate
-     * function to allow mockery in tests.
+     * Runs the provided process on the {@link CheckEngine} and returns its exit value. This is broken out into a
+     * separate class to allow mockery in tests.
      */
     @VisibleForTesting
     static class ProcessRunner {
-        public int run(ProcessBuilder processBuilder, double timeoutSeconds)
-                throws IOException, InterruptedException {
-            Process process = processBuilder.start();
-            synchronized (process) {
-                process.wait((long) (timeoutSeconds * 1000));
-            }
-            return process.exitValue();
+        private final CheckEngine checkEngine;
+
+        ProcessRunner(CheckEngine checkEngine) {
+            this.checkEngine = checkEngine;
+        }
+
+        public CompletableFuture<Integer> run(ProcessBuilder processBuilder, double timeoutSeconds) {
+            return checkEngine.runProcess(processBuilder, timeoutSeconds);
         }
     }
 
@@ -1,11 +1,26 @@
 package com.mesosphere.sdk.executor;
 
+import java.util.SortedMap;
+import java.util.TreeMap;
+
 /**
  * This class encapsulates the relevant statistics associated with a single HealthCheck.
  */
 public class HealthCheckStats {
+    /**
+     * The inclusive upper bounds of the buckets which check latencies are counted in, in milliseconds. Latencies above
+     * the last bound are counted in a final overflow bucket.
+     */
+    private static final long[] LATENCY_BUCKET_BOUNDS_MS =
+            { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000 };
+
     private final String name;
 
+    private Object latencyLock = new Object();
+    private final long[] latencyBucketCounts = new long[LATENCY_BUCKET_BOUNDS_MS.length + 1];
+    private long latencyCount = 0;
+    private long maxLatencyMs = 0;
+
     private Object failureLock = new Object();
     private long totalFailures = 0;
     private long consecutiveFailures = 0;
@@ -40,6 +55,21 @@ public class HealthCheckStats {
         }
     }
 
+    /**
+     * Records the time taken by a single run of the check, whether or not it succeeded.
+     */
+    public void recordLatency(long latencyMs) {
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKET_BOUNDS_MS.length && latencyMs > LATENCY_BUCKET_BOUNDS_MS[bucket]) {
+            ++bucket;
+        }
+        synchronized (latencyLock) {
+            latencyBucketCounts[bucket]++;
+            latencyCount++;
+            maxLatencyMs = Math.max(maxLatencyMs, latencyMs);
+        }
+    }
+
     public String getName() {
         return name;
     }
@@ -69,6 +99,51 @@ public class HealthCheckStats {
         }
     }
 
+    /**
+     * Returns the number of check runs whose latency fell within each bucket, keyed by the inclusive upper bound of the
+     * bucket in milliseconds. The final overflow bucket is keyed by {@link Long#MAX_VALUE}.
+     */
+    public SortedMap<Long, Long> getLatencyHistogram() {
+        SortedMap<Long, Long> histogram = new TreeMap<>();
+        synchronized (latencyLock) {
+            for (int i = 0; i < latencyBucketCounts.length; ++i) {
+                histogram.put(getBucketBoundMs(i), latencyBucketCounts[i]);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the upper bound of the histogram bucket which contains the provided percentile (0-100) of check
+     * latencies, or zero if no latencies have been recorded.
+     */
+    public long getLatencyPercentileMs(double percentile) {
+        synchronized (latencyLock) {
+            if (latencyCount == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(latencyCount * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < latencyBucketCounts.length; ++i) {
+                seen += latencyBucketCounts[i];
+                if (seen >= rank) {
+                    return Math.min(getBucketBoundMs(i), maxLatencyMs);
+                }
+            }
+            return maxLatencyMs;
+        }
+    }
+
+    public long getMaxLatencyMs() {
+        synchronized (latencyLock) {
+            return maxLatencyMs;
+        }
+    }
+
+    private static long getBucketBoundMs(int bucket) {
+        return bucket < LATENCY_BUCKET_BOUNDS_MS.length ? LATENCY_BUCKET_BOUNDS_MS[bucket] : Long.MAX_VALUE;
+    }
+
     @Override
     public String toString() {
         return "HealthCheckStats{" +
@@ -77,6 +152,9 @@ public class HealthCheckStats {
                 ", totalSuccesses=" + totalSuccesses +
                 ", consecutiveFailures=" + consecutiveFailures +
                 ", consecutiveSuccesses=" + consecutiveSuccesses +
+                ", p50LatencyMs=" + getLatencyPercentileMs(50) +
+                ", p99LatencyMs=" + getLatencyPercentileMs(99) +
+                ", maxLatencyMs=" + getMaxLatencyMs() +
                 '}';
     }
 }
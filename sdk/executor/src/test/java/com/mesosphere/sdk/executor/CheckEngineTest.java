@@ -0,0 +1,158 @@
+package com.mesosphere.sdk.executor;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.awaitility.Awaitility;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class tests the {@link CheckEngine} class.
+ */
+public class CheckEngineTest {
+    private static final double TIMEOUT_S = 5;
+
+    private CheckEngine checkEngine;
+
+    @Before
+    public void beforeEach() {
+        checkEngine = new CheckEngine();
+    }
+
+    @After
+    public void afterEach() {
+        checkEngine.close();
+    }
+
+    @Test
+    public void testSchedule() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        checkEngine.schedule(latch::countDown, 0);
+        checkEngine.schedule(latch::countDown, 10);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRunProcess() throws Exception {
+        Assert.assertEquals(0, (int) checkEngine.runProcess(getShell("exit 0"), TIMEOUT_S).get());
+        Assert.assertEquals(3, (int) checkEngine.runProcess(getShell("exit 3"), TIMEOUT_S).get());
+    }
+
+    @Test
+    public void testRunProcessTimeoutKillsProcess() throws Exception {
+        long startNanos = System.nanoTime();
+        CompletableFuture<Integer> result = checkEngine.runProcess(getShell("sleep 60"), 0.1);
+        try {
+            result.get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected exception");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        Assert.assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testRunProcessTimeoutKillsChildProcesses() throws Exception {
+        Path pidFile = Files.createTempFile("check-child", ".pid");
+        try {
+            CompletableFuture<Integer> result = checkEngine.runProcess(
+                    getShell(String.format("sleep 60 & echo $! > %s; wait", pidFile)), 0.5);
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                Assert.fail("Expected exception");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            String childPid = new String(Files.readAllBytes(pidFile), StandardCharsets.UTF_8).trim();
+            Assert.assertFalse(childPid.isEmpty());
+            Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> !isRunning(childPid));
+        } finally {
+            Files.delete(pidFile);
+        }
+    }
+
+    /**
+     * Returns whether the process with the provided PID is running, i.e. exists and isn't a zombie awaiting reaping.
+     */
+    private static boolean isRunning(String pid) throws Exception {
+        Path statPath = Paths.get("/proc", pid, "stat");
+        if (!Files.exists(statPath)) {
+            return false;
+        }
+        String stat = new String(Files.readAllBytes(statPath), StandardCharsets.UTF_8);
+        // The state follows the parenthesized command name:
+        return !stat.substring(stat.lastIndexOf(')') + 1).trim().startsWith("Z");
+    }
+
+    @Test
+    public void testTcpProbe() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            port = serverSocket.getLocalPort();
+            checkEngine.probeTcp(new InetSocketAddress("127.0.0.1", port), TIMEOUT_S).get();
+        }
+
+        // Nothing is listening anymore:
+        try {
+            checkEngine.probeTcp(new InetSocketAddress("127.0.0.1", port), TIMEOUT_S).get();
+            Assert.fail("Expected exception");
+        } catch (ExecutionException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testHttpProbe() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/healthy", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/unhealthy", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.getAddress().getPort());
+            Assert.assertEquals(200, (int) checkEngine.probeHttp(address, "/healthy", TIMEOUT_S).get());
+            Assert.assertEquals(503, (int) checkEngine.probeHttp(address, "/unhealthy", TIMEOUT_S).get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testHttpProbeTimeout() throws Exception {
+        // Accepts connections but never responds:
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            CompletableFuture<Integer> result = checkEngine.probeHttp(
+                    new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()), "/", 0.1);
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                Assert.fail("Expected exception");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof TimeoutException);
+            }
+        }
+    }
+
+    private static ProcessBuilder getShell(String command) {
+        return new ProcessBuilder("/bin/bash", "-c", command);
+    }
+}
@@ -14,6 +14,7 @@ import org.mockito.MockitoAnnotations;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 public class CustomExecutorTest {
     private static final String TASK_TYPE = "TASK_TYPE";
@@ -144,6 +145,13 @@ public class CustomExecutorTest {
         customExecutor.shutdown(mockExecutorDriver);
     }
 
+    @Test(expected = RejectedExecutionException.class)
+    public void testShutdownClosesCheckEngine() {
+        CustomExecutor customExecutor = getTestExecutor();
+        customExecutor.shutdown(mockExecutorDriver);
+        customExecutor.getCheckEngine().schedule(() -> { }, 0);
+    }
+
     private Protos.ExecutorInfo getTestExecutorInfo() {
         return Protos.ExecutorInfo
                 .newBuilder()
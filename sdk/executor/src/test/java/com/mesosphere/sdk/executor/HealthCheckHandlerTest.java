@@ -14,6 +14,8 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.util.concurrent.*;
 
 import static org.awaitility.Awaitility.to;
@@ -31,7 +33,7 @@ public class HealthCheckHandlerTest {
     private static final double SHORT_GRACE_PERIOD_S = 0.003;
     private static final double TIMEOUT_S = 456;
 
-    private ScheduledExecutorService scheduledExecutorService;
+    private CheckEngine checkEngine;
     @Mock private HealthCheckHandler.ProcessRunner mockProcessRunner;
     @Mock private ExecutorDriver executorDriver;
     @Captor private ArgumentCaptor<Protos.TaskStatus> taskStatusCaptor;
@@ -49,13 +51,12 @@ public class HealthCheckHandlerTest {
     @Before
     public void beforeEach() {
         MockitoAnnotations.initMocks(this);
-        scheduledExecutorService = Executors.newScheduledThreadPool(1);
+        checkEngine = new CheckEngine();
     }
 
     @After
     public void afterEach() throws InterruptedException {
-        scheduledExecutorService.shutdown();
-        scheduledExecutorService.awaitTermination(5, TimeUnit.SECONDS);
+        checkEngine.close();
     }
 
     @Test
@@ -67,12 +68,12 @@ public class HealthCheckHandlerTest {
                 taskInfo,
                 mockProcessRunner,
                 getHealthCheck(maxConsecutiveFailures),
-                scheduledExecutorService,
+                checkEngine,
                 healthCheckStats);
 
-        when(mockProcessRunner.run(any(), anyDouble())).thenReturn(1);
+        when(mockProcessRunner.run(any(), anyDouble())).thenReturn(CompletableFuture.completedFuture(1));
 
-        ScheduledFuture<?> future = healthCheckHandler.start();
+        Future<?> future = healthCheckHandler.start();
         try {
             future.get();
         } catch (Throwable t) {
@@ -96,12 +97,12 @@ public class HealthCheckHandlerTest {
                 taskInfo,
                 mockProcessRunner,
                 getHealthCheck(maxConsecutiveFailures),
-                scheduledExecutorService,
+                checkEngine,
                 healthCheckStats);
 
-        when(mockProcessRunner.run(any(), anyDouble())).thenReturn(1);
+        when(mockProcessRunner.run(any(), anyDouble())).thenReturn(CompletableFuture.completedFuture(1));
 
-        ScheduledFuture<?> future = healthCheckHandler.start();
+        Future<?> future = healthCheckHandler.start();
         try {
             future.get();
         } catch (Throwable t) {
@@ -125,12 +126,12 @@ public class HealthCheckHandlerTest {
                 taskInfo,
                 mockProcessRunner,
                 getHealthCheck(maxConsecutiveFailures),
-                scheduledExecutorService,
+                checkEngine,
                 healthCheckStats);
 
         when(mockProcessRunner.run(any(), anyDouble())).thenThrow(new IllegalArgumentException("hello"));
 
-        ScheduledFuture<?> future = healthCheckHandler.start();
+        Future<?> future = healthCheckHandler.start();
         try {
             future.get();
         } catch (Throwable t) {
@@ -154,12 +155,12 @@ public class HealthCheckHandlerTest {
                 taskInfo,
                 mockProcessRunner,
                 getHealthCheck(maxConsecutiveFailures),
-                scheduledExecutorService,
+                checkEngine,
                 healthCheckStats);
 
         when(mockProcessRunner.run(any(), anyDouble())).thenThrow(new IllegalArgumentException("hello"));
 
-        ScheduledFuture<?> future = healthCheckHandler.start();
+        Future<?> future = healthCheckHandler.start();
         try {
             future.get();
         } catch (Throwable t) {
@@ -174,6 +175,65 @@ public class HealthCheckHandlerTest {
         verify(mockProcessRunner, times(maxConsecutiveFailures)).run(any(), eq(TIMEOUT_S));
     }
 
+    @Test
+    public void testTimeout() throws Exception {
+        HealthCheckStats healthCheckStats = new HealthCheckStats("test");
+        HealthCheckHandler healthCheckHandler = new HealthCheckHandler(
+                executorDriver,
+                taskInfo,
+                mockProcessRunner,
+                getHealthCheck(1),
+                checkEngine,
+                healthCheckStats);
+
+        CompletableFuture<Integer> timedOut = new CompletableFuture<>();
+        timedOut.completeExceptionally(new TimeoutException("timed out"));
+        when(mockProcessRunner.run(any(), anyDouble())).thenReturn(timedOut);
+
+        Future<?> future = healthCheckHandler.start();
+        try {
+            future.get();
+            Assert.fail("Expected exception");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof HealthCheckHandler.HealthCheckRuntimeException);
+        }
+
+        Assert.assertEquals(1, healthCheckStats.getTotalFailures());
+        verify(executorDriver).sendStatusUpdate(taskStatusCaptor.capture());
+        Assert.assertEquals(Protos.TaskState.TASK_FAILED, taskStatusCaptor.getValue().getState());
+    }
+
+    @Test
+    public void testTcpCheck() throws Exception {
+        HealthCheckStats healthCheckStats = new HealthCheckStats("test");
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            Protos.HealthCheck healthCheck = getHealthCheck(1).toBuilder()
+                    .clearCommand()
+                    .setIntervalSeconds(0.01)
+                    .setType(Protos.HealthCheck.Type.TCP)
+                    .setTcp(Protos.HealthCheck.TCPCheckInfo.newBuilder().setPort(serverSocket.getLocalPort()))
+                    .build();
+            HealthCheckHandler healthCheckHandler = HealthCheckHandler.create(
+                    executorDriver,
+                    taskInfo,
+                    healthCheck,
+                    checkEngine,
+                    healthCheckStats);
+
+            Future<?> future = healthCheckHandler.start();
+            Awaitility.await().atMost(5, TimeUnit.SECONDS)
+                    .untilCall(to(healthCheckStats).getTotalSuccesses(), greaterThan(1L));
+            future.cancel(true);
+        }
+
+        Assert.assertEquals(0, healthCheckStats.getTotalFailures());
+        long recordedLatencies = healthCheckStats.getLatencyHistogram().values().stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        Assert.assertTrue("Found latencies: " + recordedLatencies, recordedLatencies > 1);
+        verifyZeroInteractions(mockProcessRunner);
+    }
+
     @Test
     public void testSuccess() throws Exception {
         HealthCheckStats healthCheckStats = new HealthCheckStats("test");
@@ -182,10 +242,10 @@ public class HealthCheckHandlerTest {
                 taskInfo,
                 mockProcessRunner,
                 getHealthCheck(1),
-                scheduledExecutorService,
+                checkEngine,
                 healthCheckStats);
 
-        when(mockProcessRunner.run(any(), anyDouble())).thenReturn(0);
+        when(mockProcessRunner.run(any(), anyDouble())).thenReturn(CompletableFuture.completedFuture(0));
 
         healthCheckHandler.start();
         Awaitility.await().atMost(5, TimeUnit.SECONDS).untilCall(to(healthCheckStats).getTotalSuccesses(), greaterThan(1L));
@@ -208,7 +268,7 @@ public class HealthCheckHandlerTest {
                 executorDriver,
                 taskInfo,
                 taskInfo.getHealthCheck(),
-                scheduledExecutorService,
+                checkEngine,
                 new HealthCheckStats("test"));
     }
 
@@ -216,7 +276,23 @@ public class HealthCheckHandlerTest {
     public void testFailHttpHealthCheckValidation() throws HealthCheckHandler.HealthCheckValidationException {
         Protos.TaskInfo taskInfo = getTask().toBuilder()
                 .setHealthCheck(Protos.HealthCheck.newBuilder()
-                        .setHttp(Protos.HealthCheck.HTTPCheckInfo.newBuilder().setPort(2))
+                        .setHttp(Protos.HealthCheck.HTTPCheckInfo.newBuilder().setScheme("https").setPort(2))
+                        .build())
+                .build();
+
+        HealthCheckHandler.create(
+                executorDriver,
+                taskInfo,
+                taskInfo.getHealthCheck(),
+                checkEngine,
+                new HealthCheckStats("test"));
+    }
+
+    @Test(expected=HealthCheckHandler.HealthCheckValidationException.class)
+    public void testFailNoTcpHealthCheckValidation() throws HealthCheckHandler.HealthCheckValidationException {
+        Protos.TaskInfo taskInfo = getTask().toBuilder()
+                .setHealthCheck(Protos.HealthCheck.newBuilder()
+                        .setType(Protos.HealthCheck.Type.TCP)
                         .build())
                 .build();
 
@@ -224,7 +300,7 @@ public class HealthCheckHandlerTest {
                 executorDriver,
                 taskInfo,
                 taskInfo.getHealthCheck(),
-                scheduledExecutorService,
+                checkEngine,
                 new HealthCheckStats("test"));
     }
 
@@ -238,7 +314,7 @@ public class HealthCheckHandlerTest {
                 executorDriver,
                 taskInfo,
                 taskInfo.getHealthCheck(),
-                scheduledExecutorService,
+                checkEngine,
                 new HealthCheckStats("test"));
     }
 
@@ -254,7 +330,7 @@ public class HealthCheckHandlerTest {
                 executorDriver,
                 taskInfo,
                 taskInfo.getHealthCheck(),
-                scheduledExecutorService,
+                checkEngine,
                 new HealthCheckStats("test"));
     }
 
@@ -266,10 +342,10 @@ public class HealthCheckHandlerTest {
                 taskInfo,
                 mockProcessRunner,
                 getReadinessCheck(),
-                scheduledExecutorService,
+                checkEngine,
                 healthCheckStats);
 
-        when(mockProcessRunner.run(any(), anyDouble())).thenReturn(0);
+        when(mockProcessRunner.run(any(), anyDouble())).thenReturn(CompletableFuture.completedFuture(0));
 
         healthCheckHandler.start();
         Awaitility.await().atMost(5, TimeUnit.SECONDS).untilCall(to(healthCheckStats).getTotalSuccesses(), greaterThanOrEqualTo(1L));
@@ -27,9 +27,7 @@ public class HealthCheckMonitorTest {
     private static final int MAX_FAILURES = 1;
     private static final String COMMAND = "SOME COMMAND";
 
-    private static final int HEALTH_CHECK_THREAD_POOL_SIZE = 50;
-    private static final ScheduledExecutorService scheduledExecutorService =
-            Executors.newScheduledThreadPool(HEALTH_CHECK_THREAD_POOL_SIZE);
+    private static final CheckEngine checkEngine = new CheckEngine();
     private static final ExecutorService executorService = Executors.newCachedThreadPool();
 
     @Mock private HealthCheckHandler.ProcessRunner mockProcessRunner;
@@ -59,9 +57,10 @@ public class HealthCheckMonitorTest {
                 taskInfo,
                 mockProcessRunner,
                 healthCheck,
-                scheduledExecutorService,
+                checkEngine,
                 new HealthCheckStats("test"));
-        when(mockProcessRunner.run(any(), anyDouble())).thenReturn(1); // return failure
+        // return failure:
+        when(mockProcessRunner.run(any(), anyDouble())).thenReturn(CompletableFuture.completedFuture(1));
 
         HealthCheckMonitor healthCheckMonitor = new HealthCheckMonitor(
                 healthCheck,
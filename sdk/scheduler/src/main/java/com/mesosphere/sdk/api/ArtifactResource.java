@@ -1,5 +1,10 @@
 package com.mesosphere.sdk.api;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.mesosphere.sdk.config.ConfigStore;
 import com.mesosphere.sdk.config.ConfigStoreException;
 import com.mesosphere.sdk.offer.ResourceUtils;
@@ -13,31 +18,52 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
-
-import static com.mesosphere.sdk.api.ResponseUtils.plainOkResponse;
+import java.util.concurrent.ExecutionException;
 
 /**
  * A read-only API for accessing file artifacts (e.g. config templates) for retrieval by executors.
+ * <p>
+ * The templates within a given configuration never change, so they're indexed in memory the first time that any
+ * template in the configuration is requested, and are served with strong ETags and headers which allow them to be
+ * cached indefinitely.
  */
 @Path("/v1/artifacts")
 public class ArtifactResource {
     private static final String ARTIFACT_URI_FORMAT =
             "http://api.%s.marathon." + ResourceUtils.VIP_HOST_TLD + "/v1/artifacts/template/%s/%s/%s/%s";
 
+    /**
+     * Templates are requested for the configurations which tasks are currently launching against, of which there are
+     * typically only one or two at a time.
+     */
+    private static final int MAX_INDEXED_CONFIGS = 8;
+
+    /**
+     * The content for a given URL never changes, so clients may cache it for as long as they like.
+     */
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final ConfigStore<ServiceSpec> configStore;
+    private final Cache<UUID, Map<List<String>, Template>> templateIndexes;
 
     /**
      * Returns a valid URL for accessing a config template artifact from a service task.
-     * Must be kept in sync with {@link #getTemplate(String, String, String, String)}.
+     * Must be kept in sync with {@link #getTemplate(String, String, String, String, String)}.
      */
     public static String getTemplateUrl(
             String serviceName, UUID configId, String podType, String taskName, String configName) {
@@ -46,6 +72,9 @@ public class ArtifactResource {
 
     public ArtifactResource(ConfigStore<ServiceSpec> configStore) {
         this.configStore = configStore;
+        this.templateIndexes = CacheBuilder.newBuilder()
+                .maximumSize(MAX_INDEXED_CONFIGS)
+                .build();
     }
 
     /**
@@ -59,7 +88,9 @@ public class ArtifactResource {
      * @param podType the name/type of the pod, eg 'index' or 'data'
      * @param taskName the name of the task
      * @param configurationName the name of the configuration to be retrieved
-     * @return an HTTP response containing the content of the requested configuration, or an HTTP error
+     * @param ifNoneMatch the ETags of any copies of the template which the client already has, or {@code null}
+     * @return an HTTP response containing the content of the requested configuration, a 304 response if the client's
+     *     copy is current, or an HTTP error
      * @see ConfigResource
      */
     @Path("/template/{configurationId}/{podType}/{taskName}/{configurationName}")
@@ -68,7 +99,8 @@ public class ArtifactResource {
             @PathParam("configurationId") String configurationId,
             @PathParam("podType") String podType,
             @PathParam("taskName") String taskName,
-            @PathParam("configurationName") String configurationName) {
+            @PathParam("configurationName") String configurationName,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
         logger.info("Attempting to fetch template '{}' from config '{}' with pod '{}', task '{}'",
                 configurationName, configurationId, podType, taskName);
         UUID uuid;
@@ -79,9 +111,9 @@ public class ArtifactResource {
                     "Failed to parse requested configuration id as a UUID: '%s'", configurationId), ex);
             return Response.status(Response.Status.BAD_REQUEST).build();
         }
-        ServiceSpec serviceSpec;
+        Map<List<String>, Template> templateIndex;
         try {
-            serviceSpec = configStore.fetch(uuid);
+            templateIndex = getTemplateIndex(uuid);
         } catch (ConfigStoreException ex) {
             if (ex.getReason() == Reason.NOT_FOUND) {
                 logger.warn(String.format("Requested configuration '%s' doesn't exist", configurationId), ex);
@@ -91,51 +123,64 @@ public class ArtifactResource {
                     "Failed to fetch requested configuration with id '%s'", configurationId), ex);
             return Response.serverError().build();
         }
-        try {
-            ConfigFileSpec config = getConfigFile(getTask(getPod(serviceSpec, podType), taskName), configurationName);
-            return plainOkResponse(config.getTemplateContent());
-        } catch (Exception ex) {
-            logger.warn(String.format(
-                    "Couldn't find requested template in config '%s'", configurationId), ex);
+        Template template = templateIndex.get(Arrays.asList(podType, taskName, configurationName));
+        if (template == null) {
+            logger.warn("Couldn't find requested template in config '{}'. Known templates (pod, task, name) are: {}",
+                    configurationId, templateIndex.keySet());
             return Response.status(Response.Status.NOT_FOUND).build();
         }
+        if (ResponseUtils.matchesEntityTag(ifNoneMatch, template.entityTag)) {
+            return Response.notModified(template.entityTag)
+                    .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL)
+                    .build();
+        }
+        return Response.ok(template.content, MediaType.TEXT_PLAIN_TYPE)
+                .tag(template.entityTag)
+                .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL)
+                .build();
     }
 
-    private static PodSpec getPod(ServiceSpec serviceSpec, String podType) throws Exception {
-        Optional<PodSpec> podOptional =
-                serviceSpec.getPods().stream().filter(pod -> podType.equals(pod.getType())).findFirst();
-        if (!podOptional.isPresent()) {
-            List<String> availablePodTypes =
-                    serviceSpec.getPods().stream().map(podSpec -> podSpec.getType()).collect(Collectors.toList());
-            throw new Exception(String.format(
-                    "Couldn't find pod of type '%s'. Known pod types are: %s", podType, availablePodTypes));
+    /**
+     * Returns the index of all templates in the provided configuration, keyed by (pod type, task name, config name).
+     * Concurrent requests for a configuration which hasn't been indexed yet share a single fetch of the configuration.
+     */
+    private Map<List<String>, Template> getTemplateIndex(UUID configId) throws ConfigStoreException {
+        try {
+            return templateIndexes.get(configId, () -> buildTemplateIndex(configStore.fetch(configId)));
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            if (e.getCause() instanceof ConfigStoreException) {
+                throw (ConfigStoreException) e.getCause();
+            }
+            throw new ConfigStoreException(Reason.UNKNOWN, String.format(
+                    "Failed to index templates in configuration '%s'", configId), e.getCause());
         }
-        return podOptional.get();
     }
 
-    private static TaskSpec getTask(PodSpec podSpec, String taskName) throws Exception {
-        Optional<TaskSpec> taskOptional =
-                podSpec.getTasks().stream().filter(task -> taskName.equals(task.getName())).findFirst();
-        if (!taskOptional.isPresent()) {
-            List<String> availableTaskNames =
-                    podSpec.getTasks().stream().map(taskSpec -> taskSpec.getName()).collect(Collectors.toList());
-            throw new Exception(String.format(
-                    "Couldn't find task named '%s' within pod '%s'. Known task names are: %s",
-                    taskName, podSpec.getType(), availableTaskNames));
+    private static Map<List<String>, Template> buildTemplateIndex(ServiceSpec serviceSpec) {
+        Map<List<String>, Template> templateIndex = new HashMap<>();
+        for (PodSpec podSpec : serviceSpec.getPods()) {
+            for (TaskSpec taskSpec : podSpec.getTasks()) {
+                for (ConfigFileSpec configFileSpec : taskSpec.getConfigFiles()) {
+                    templateIndex.put(
+                            Arrays.asList(podSpec.getType(), taskSpec.getName(), configFileSpec.getName()),
+                            new Template(configFileSpec.getTemplateContent()));
+                }
+            }
         }
-        return taskOptional.get();
+        return templateIndex;
     }
 
-    private static ConfigFileSpec getConfigFile(TaskSpec taskSpec, String configName) throws Exception {
-        Optional<ConfigFileSpec> configOptional =
-                taskSpec.getConfigFiles().stream().filter(config -> configName.equals(config.getName())).findFirst();
-        if (!configOptional.isPresent()) {
-            List<String> availableConfigNames =
-                    taskSpec.getConfigFiles().stream().map(config -> config.getName()).collect(Collectors.toList());
-            throw new Exception(String.format(
-                    "Couldn't find config named '%s' within task '%s'. Known config names are: %s",
-                    configName, taskSpec.getName(), availableConfigNames));
+    /**
+     * The content of a template along with its strong ETag.
+     */
+    private static class Template {
+        private final String content;
+        private final EntityTag entityTag;
+
+        private Template(String content) {
+            this.content = content;
+            this.entityTag = new EntityTag(
+                    Hashing.sha256().hashBytes(content.getBytes(StandardCharsets.UTF_8)).toString());
         }
-        return configOptional.get();
     }
 }
@@ -0,0 +1,128 @@
+package com.mesosphere.sdk.api;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mesosphere.sdk.metrics.Metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.mesosphere.sdk.api.ResponseUtils.jsonResponseBean;
+
+/**
+ * A read-only API for the scheduler's internal metrics, such as offer cycle and ZooKeeper latencies.
+ * <p>
+ * Durations are reported in milliseconds and rates in events per second.
+ */
+@Path("/v1/metrics")
+public class MetricsResource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsResource.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final MetricRegistry registry;
+
+    /**
+     * Creates a new instance which serves the scheduler's {@link Metrics}.
+     */
+    public MetricsResource() {
+        this(Metrics.getRegistry());
+    }
+
+    public MetricsResource(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Produces a JSON object containing the current value of every metric, grouped by metric type.
+     */
+    @GET
+    @SuppressWarnings("rawtypes")
+    public Response getMetrics() {
+        try {
+            StringWriter stringWriter = new StringWriter();
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(stringWriter)) {
+                generator.useDefaultPrettyPrinter();
+                generator.writeStartObject();
+
+                generator.writeObjectFieldStart("gauges");
+                for (Map.Entry<String, Gauge> entry : registry.getGauges().entrySet()) {
+                    Object value = entry.getValue().getValue();
+                    if (value instanceof Number) {
+                        generator.writeNumberField(entry.getKey(), ((Number) value).doubleValue());
+                    } else if (value != null) {
+                        generator.writeStringField(entry.getKey(), value.toString());
+                    }
+                }
+                generator.writeEndObject();
+
+                generator.writeObjectFieldStart("counters");
+                for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet()) {
+                    generator.writeNumberField(entry.getKey(), entry.getValue().getCount());
+                }
+                generator.writeEndObject();
+
+                generator.writeObjectFieldStart("histograms");
+                for (Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet()) {
+                    generator.writeObjectFieldStart(entry.getKey());
+                    generator.writeNumberField("count", entry.getValue().getCount());
+                    writeSnapshot(generator, entry.getValue().getSnapshot(), 1);
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+
+                generator.writeObjectFieldStart("meters");
+                for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
+                    generator.writeObjectFieldStart(entry.getKey());
+                    generator.writeNumberField("count", entry.getValue().getCount());
+                    generator.writeNumberField("m1_rate", entry.getValue().getOneMinuteRate());
+                    generator.writeNumberField("mean_rate", entry.getValue().getMeanRate());
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+
+                generator.writeObjectFieldStart("timers");
+                for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+                    generator.writeObjectFieldStart(entry.getKey());
+                    generator.writeNumberField("count", entry.getValue().getCount());
+                    generator.writeNumberField("m1_rate", entry.getValue().getOneMinuteRate());
+                    writeSnapshot(generator, entry.getValue().getSnapshot(), NANOS_PER_MILLI);
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+
+                generator.writeEndObject();
+            }
+            return jsonResponseBean(stringWriter.toString(), Response.Status.OK);
+        } catch (Exception e) {
+            LOGGER.error("Failed to render metrics", e);
+            return Response.serverError().build();
+        }
+    }
+
+    private static void writeSnapshot(JsonGenerator generator, Snapshot snapshot, double divisor) throws IOException {
+        generator.writeNumberField("min", snapshot.getMin() / divisor);
+        generator.writeNumberField("max", snapshot.getMax() / divisor);
+        generator.writeNumberField("mean", snapshot.getMean() / divisor);
+        generator.writeNumberField("p50", snapshot.getMedian() / divisor);
+        generator.writeNumberField("p75", snapshot.get75thPercentile() / divisor);
+        generator.writeNumberField("p95", snapshot.get95thPercentile() / divisor);
+        generator.writeNumberField("p99", snapshot.get99thPercentile() / divisor);
+    }
+}
@@ -0,0 +1,101 @@
+package com.mesosphere.sdk.api;
+
+import com.mesosphere.sdk.api.types.PrettyJsonResource;
+import com.mesosphere.sdk.offer.evaluate.EvaluationDiagnostics;
+import com.mesosphere.sdk.offer.evaluate.EvaluationOutcome;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.core.Response;
+import java.util.Collection;
+import java.util.Optional;
+
+import static com.mesosphere.sdk.api.ResponseUtils.jsonOkResponse;
+
+/**
+ * A read-only API describing why steps did or didn't launch against the offers in their most recent offer cycle, using
+ * the outcomes which were sampled during offer evaluation.
+ */
+@Path("/v1/offers")
+public class OffersResource extends PrettyJsonResource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffersResource.class);
+
+    private final EvaluationDiagnostics diagnostics;
+
+    public OffersResource(EvaluationDiagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Produces the diagnostics of all recently evaluated steps, from least to most recently evaluated.
+     */
+    @GET
+    public Response getSteps() {
+        try {
+            JSONArray steps = new JSONArray();
+            for (EvaluationDiagnostics.StepDiagnostic diagnostic : diagnostics.getAll()) {
+                steps.put(toJson(diagnostic));
+            }
+            return jsonOkResponse(steps);
+        } catch (Exception e) {
+            LOGGER.error("Failed to fetch offer evaluation diagnostics", e);
+            return Response.serverError().build();
+        }
+    }
+
+    /**
+     * Produces the diagnostic of a single step, e.g. {@code hello-0:[server]}.
+     */
+    @Path("/{stepName}")
+    @GET
+    public Response getStep(@PathParam("stepName") String stepName) {
+        try {
+            Optional<EvaluationDiagnostics.StepDiagnostic> diagnostic = diagnostics.get(stepName);
+            if (!diagnostic.isPresent()) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            return jsonOkResponse(toJson(diagnostic.get()));
+        } catch (Exception e) {
+            LOGGER.error(String.format("Failed to fetch offer evaluation diagnostics for step '%s'", stepName), e);
+            return Response.serverError().build();
+        }
+    }
+
+    private static JSONObject toJson(EvaluationDiagnostics.StepDiagnostic diagnostic) {
+        JSONArray sampledOffers = new JSONArray();
+        for (EvaluationDiagnostics.OfferOutcomes offerOutcomes : diagnostic.getSampledFailures()) {
+            sampledOffers.put(new JSONObject()
+                    .put("offer-id", offerOutcomes.getOffer().getId().getValue())
+                    .put("agent-id", offerOutcomes.getOffer().getSlaveId().getValue())
+                    .put("hostname", offerOutcomes.getOffer().getHostname())
+                    .put("outcomes", toJson(offerOutcomes.getOutcomes())));
+        }
+        return new JSONObject()
+                .put("step", diagnostic.getStepName())
+                .put("timestamp-ms", diagnostic.getTimestampMs())
+                .put("offers", diagnostic.getOfferCount())
+                .put("failed-offers", diagnostic.getFailedOfferCount())
+                .put("passed", diagnostic.isPassed())
+                .put("sampled-failures", sampledOffers);
+    }
+
+    private static JSONArray toJson(Collection<EvaluationOutcome> outcomes) {
+        JSONArray outcomesJson = new JSONArray();
+        for (EvaluationOutcome outcome : outcomes) {
+            JSONObject outcomeJson = new JSONObject()
+                    .put("passed", outcome.isPassing())
+                    .put("source", outcome.getSource())
+                    .put("reason", outcome.getReason());
+            if (!outcome.getChildren().isEmpty()) {
+                outcomeJson.put("children", toJson(outcome.getChildren()));
+            }
+            outcomesJson.put(outcomeJson);
+        }
+        return outcomesJson;
+    }
+}
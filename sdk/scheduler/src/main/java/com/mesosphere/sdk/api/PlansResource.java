@@ -150,7 +150,7 @@ public class PlansResource extends PrettyJsonResource {
                 return ELEMENT_NOT_FOUND_RESPONSE;
             }
 
-            phases.forEach(p -> p.getStrategy().interrupt());
+            phases.forEach(p -> p.interrupt());
         } else {
             planManagerOptional.get().getPlan().interrupt();
         }
@@ -1,42 +1,36 @@
 package com.mesosphere.sdk.api;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
+import com.mesosphere.sdk.api.types.PodsView;
 import com.mesosphere.sdk.api.types.PrettyJsonResource;
 import com.mesosphere.sdk.api.types.RestartHook;
 import com.mesosphere.sdk.api.types.TaskInfoAndStatus;
-import com.mesosphere.sdk.offer.CommonTaskUtils;
+import com.mesosphere.sdk.api.types.TaskStateView;
 import com.mesosphere.sdk.scheduler.TaskKiller;
-import com.mesosphere.sdk.specification.PodInstance;
 import com.mesosphere.sdk.state.StateStore;
 
-import org.apache.mesos.Protos.TaskID;
 import org.apache.mesos.Protos.TaskInfo;
-import org.apache.mesos.Protos.TaskStatus;
-import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static com.mesosphere.sdk.api.ResponseUtils.WAIT_SECONDS_PARAM;
 import static com.mesosphere.sdk.api.ResponseUtils.jsonOkResponse;
 import static com.mesosphere.sdk.api.ResponseUtils.jsonResponseBean;
+import static com.mesosphere.sdk.api.ResponseUtils.jsonViewResponse;
 
 /**
  * A read-only API for accessing information about how to connect to the service.
@@ -45,13 +39,8 @@ import static com.mesosphere.sdk.api.ResponseUtils.jsonResponseBean;
 public class PodsResource extends PrettyJsonResource {
     private static final Logger LOGGER = LoggerFactory.getLogger(PodsResource.class);
 
-    /**
-     * Pod 'name' to use in responses for tasks which have no pod information.
-     */
-    private static final String UNKNOWN_POD_LABEL = "UNKNOWN_POD";
-
     private final TaskKiller taskKiller;
-    private final StateStore stateStore;
+    private final PodsView podsView;
     private final RestartHook restartHook;
 
     /**
@@ -70,34 +59,23 @@ public class PodsResource extends PrettyJsonResource {
      */
     public PodsResource(TaskKiller taskKiller, StateStore stateStore, RestartHook restartHook) {
         this.taskKiller = taskKiller;
-        this.stateStore = stateStore;
+        this.podsView = PodsView.create(stateStore);
         this.restartHook = restartHook;
     }
 
     /**
      * Produces a listing of all pod instance names.
+     *
+     * @param ifNoneMatch the tag of a listing which the client already has, if any
+     * @param waitSeconds how long to wait for a change to the tagged listing before returning, if at all
      */
     @GET
-    public Response getPods() {
+    public Response getPods(
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @QueryParam(WAIT_SECONDS_PARAM) Integer waitSeconds) {
         try {
-            Set<String> podNames = new TreeSet<>();
-            List<String> unknownTaskNames = new ArrayList<>();
-            for (TaskInfo taskInfo : stateStore.fetchTasks()) {
-                Optional<String> podNameOptional = getPodInstanceName(taskInfo);
-                if (podNameOptional.isPresent()) {
-                    podNames.add(podNameOptional.get());
-                } else {
-                    unknownTaskNames.add(taskInfo.getName());
-                }
-            }
-            JSONArray jsonArray = new JSONArray(podNames);
-            if (!unknownTaskNames.isEmpty()) {
-                Collections.sort(unknownTaskNames);
-                for (String unknownName : unknownTaskNames) {
-                    jsonArray.put(String.format("%s_%s", UNKNOWN_POD_LABEL, unknownName));
-                }
-            }
-            return jsonOkResponse(jsonArray);
+            podsView.awaitChange(ifNoneMatch, waitSeconds);
+            return jsonViewResponse(podsView.getPodNames(), ifNoneMatch);
         } catch (Exception e) {
             LOGGER.error("Failed to fetch list of pods", e);
             return Response.serverError().build();
@@ -106,26 +84,18 @@ public class PodsResource extends PrettyJsonResource {
 
     /**
      * Produces the summary statuses of all pod instances.
+     *
+     * @param ifNoneMatch the tag of a status listing which the client already has, if any
+     * @param waitSeconds how long to wait for a change to the tagged statuses before returning, if at all
      */
     @Path("/status")
     @GET
-    public Response getPodStatuses() {
+    public Response getPodStatuses(
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @QueryParam(WAIT_SECONDS_PARAM) Integer waitSeconds) {
         try {
-            // Group the tasks by pod:
-            GroupedTasks groupedTasks = GroupedTasks.create(stateStore);
-
-            // Output statuses for all tasks in each pod:
-            JSONObject json = new JSONObject();
-            for (Map.Entry<String, List<TaskInfoAndStatus>> podTasks : groupedTasks.byPod.entrySet()) {
-                json.put(podTasks.getKey(), getStatusesJson(podTasks.getValue()));
-            }
-
-            // Output 'unknown pod' for any tasks which didn't have a resolvable pod:
-            if (!groupedTasks.unknownPod.isEmpty()) {
-                json.put(UNKNOWN_POD_LABEL, getStatusesJson(groupedTasks.unknownPod));
-            }
-
-            return jsonOkResponse(json);
+            podsView.awaitChange(ifNoneMatch, waitSeconds);
+            return jsonViewResponse(podsView.getPodStatuses(), ifNoneMatch);
         } catch (Exception e) {
             LOGGER.error("Failed to fetch collated list of task statuses by pod", e);
             return Response.serverError().build();
@@ -134,16 +104,23 @@ public class PodsResource extends PrettyJsonResource {
 
     /**
      * Produces the summary status of a single pod instance.
+     *
+     * @param ifNoneMatch the tag of a status which the client already has, if any
+     * @param waitSeconds how long to wait for a change to the tagged status before returning, if at all
      */
     @Path("/{name}/status")
     @GET
-    public Response getPodStatus(@PathParam("name") String name) {
+    public Response getPodStatus(
+            @PathParam("name") String name,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @QueryParam(WAIT_SECONDS_PARAM) Integer waitSeconds) {
         try {
-            List<TaskInfoAndStatus> podTasks = GroupedTasks.create(stateStore).byPod.get(name);
-            if (podTasks == null) {
+            podsView.awaitChange(ifNoneMatch, waitSeconds);
+            Optional<TaskStateView.Rendered> podStatus = podsView.getPodStatus(name);
+            if (!podStatus.isPresent()) {
                 return Response.status(Response.Status.NOT_FOUND).build();
             }
-            return jsonOkResponse(getStatusesJson(podTasks));
+            return jsonViewResponse(podStatus.get(), ifNoneMatch);
         } catch (Exception e) {
             LOGGER.error(String.format("Failed to fetch status for pod '%s'", name), e);
             return Response.serverError().build();
@@ -157,11 +134,11 @@ public class PodsResource extends PrettyJsonResource {
     @GET
     public Response getPodInfo(@PathParam("name") String name) {
         try {
-            List<TaskInfoAndStatus> podTasks = GroupedTasks.create(stateStore).byPod.get(name);
-            if (podTasks == null) {
+            Optional<List<TaskInfoAndStatus>> podTasks = podsView.getPodTasks(name);
+            if (!podTasks.isPresent()) {
                 return Response.status(Response.Status.NOT_FOUND).build();
             }
-            return jsonResponseBean(podTasks, Response.Status.OK);
+            return jsonResponseBean(podTasks.get(), Response.Status.OK);
         } catch (Exception e) {
             LOGGER.error(String.format("Failed to fetch info for pod '%s'", name), e);
             return Response.serverError().build();
@@ -198,8 +175,8 @@ public class PodsResource extends PrettyJsonResource {
 
     private Response restartPod(String name, boolean destructive) {
         // look up all tasks in the provided pod name:
-        List<TaskInfoAndStatus> podTasks = GroupedTasks.create(stateStore).byPod.get(name);
-        if (podTasks == null || podTasks.isEmpty()) { // shouldn't ever be empty, but just in case
+        List<TaskInfoAndStatus> podTasks = podsView.getPodTasks(name).orElse(Collections.emptyList());
+        if (podTasks.isEmpty()) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
@@ -238,78 +215,4 @@ public class PodsResource extends PrettyJsonResource {
         json.put("tasks", restartedTaskNames);
         return jsonOkResponse(json);
     }
-
-    /**
-     * Utility class for sorting/grouping {@link TaskInfo}s and/or {@link TaskStatus}es into pods.
-     */
-    private static class GroupedTasks {
-        /** pod instance => tasks in pod. */
-        private final Map<String, List<TaskInfoAndStatus>> byPod = new TreeMap<>();
-        /** tasks for which the pod instance couldn't be determined. */
-        private final List<TaskInfoAndStatus> unknownPod = new ArrayList<>();
-
-        private static GroupedTasks create(StateStore stateStore) {
-            return new GroupedTasks(stateStore.fetchTasks(), stateStore.fetchStatuses());
-        }
-
-        private GroupedTasks(Collection<TaskInfo> taskInfos, Collection<TaskStatus> taskStatuses) {
-            Map<TaskID, TaskStatus> taskStatusesById = taskStatuses.stream()
-                    .collect(Collectors.toMap(status -> status.getTaskId(), Function.identity()));
-
-            // map TaskInfos (and TaskStatuses if available) into pod instances:
-            for (TaskInfo taskInfo : taskInfos) {
-                TaskInfoAndStatus taskInfoAndStatus = TaskInfoAndStatus.create(
-                        taskInfo,
-                        Optional.ofNullable(taskStatusesById.get(taskInfo.getTaskId())));
-                Optional<String> podNameOptional = getPodInstanceName(taskInfo);
-                if (podNameOptional.isPresent()) {
-                    List<TaskInfoAndStatus> tasksAndStatuses = byPod.get(podNameOptional.get());
-                    if (tasksAndStatuses == null) {
-                        tasksAndStatuses = new ArrayList<>();
-                        byPod.put(podNameOptional.get(), tasksAndStatuses);
-                    }
-                    tasksAndStatuses.add(taskInfoAndStatus);
-                } else {
-                    unknownPod.add(taskInfoAndStatus);
-                }
-            }
-
-            // sort the tasks within each pod by the task names (for user convenience):
-            for (List<TaskInfoAndStatus> podTasks : byPod.values()) {
-                podTasks.sort(new Comparator<TaskInfoAndStatus>() {
-                    @Override
-                    public int compare(TaskInfoAndStatus a, TaskInfoAndStatus b) {
-                        return a.getInfo().getName().compareTo(b.getInfo().getName());
-                    }
-                });
-            }
-        }
-    }
-
-    private static JSONArray getStatusesJson(List<TaskInfoAndStatus> tasks) {
-        JSONArray jsonPod = new JSONArray();
-        for (TaskInfoAndStatus task : tasks) {
-            JSONObject jsonTask = new JSONObject();
-            jsonTask.put("id", task.getInfo().getTaskId().getValue());
-            jsonTask.put("name", task.getInfo().getName());
-            if (task.hasStatus()) {
-                jsonTask.put("state", task.getStatus().get().getState().toString());
-            } else {
-                jsonTask.put("state", "No state defined");
-            }
-            jsonPod.put(jsonTask);
-        }
-        return jsonPod;
-    }
-
-    private static Optional<String> getPodInstanceName(TaskInfo taskInfo) {
-        try {
-            return Optional.of(PodInstance.getName(
-                    CommonTaskUtils.getType(taskInfo),
-                    CommonTaskUtils.getIndex(taskInfo)));
-        } catch (Exception e) {
-            LOGGER.warn(String.format("Failed to extract pod information from task %s", taskInfo.getName()), e);
-            return Optional.empty();
-        }
-    }
 }
@@ -1,5 +1,7 @@
 package com.mesosphere.sdk.api;
 
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -7,12 +9,19 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import com.google.protobuf.Message;
+import com.mesosphere.sdk.api.types.TaskStateView;
 
 /**
  * Utilities for building RPC responses.
  */
 public class ResponseUtils {
 
+    /**
+     * Query parameter for long-polling: the number of seconds to wait for the content to differ from the tag provided
+     * in the {@code If-None-Match} header before responding.
+     */
+    public static final String WAIT_SECONDS_PARAM = "waitSeconds";
+
     private ResponseUtils() {
         // do not instantiate
     }
@@ -68,6 +77,41 @@ public class ResponseUtils {
         return Response.status(status).entity(entity).type(MediaType.APPLICATION_JSON_TYPE).build();
     }
 
+    /**
+     * Returns a 304 Not Modified response if the provided {@code If-None-Match} header value matches the tag of the
+     * provided rendered view, or otherwise a 200 OK response containing the rendered JSON. Clients must revalidate
+     * before reusing the response, as the view may change at any time.
+     */
+    public static Response jsonViewResponse(TaskStateView.Rendered rendered, String ifNoneMatch) {
+        Response.ResponseBuilder builder = matchesEntityTag(ifNoneMatch, rendered.getEntityTag())
+                ? Response.notModified(rendered.getEntityTag())
+                : Response.ok(rendered.getJson(), MediaType.APPLICATION_JSON_TYPE).tag(rendered.getEntityTag());
+        return builder.header(HttpHeaders.CACHE_CONTROL, "no-cache").build();
+    }
+
+    /**
+     * Returns whether the provided {@code If-None-Match} header value matches the provided tag. As specified for
+     * {@code If-None-Match}, weak tags are compared as if they were strong.
+     */
+    public static boolean matchesEntityTag(String ifNoneMatch, EntityTag entityTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("\"" + entityTag.getValue() + "\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns a 200 OK response containing the provided plaintext {@link String}.
      */
@@ -0,0 +1,63 @@
+package com.mesosphere.sdk.api;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mesosphere.sdk.api.types.ChangeFeed;
+import com.mesosphere.sdk.scheduler.plan.PlanCoordinator;
+import com.mesosphere.sdk.state.StateStore;
+
+import static com.mesosphere.sdk.api.ResponseUtils.WAIT_SECONDS_PARAM;
+import static com.mesosphere.sdk.api.ResponseUtils.jsonResponseBean;
+
+/**
+ * A read-only API for following changes to the status of the service's plans and tasks, without repeatedly fetching
+ * the full plans and pod statuses.
+ * <p>
+ * Clients should first fetch {@code /v1/watch} to get a snapshot of all statuses, the current revision and the epoch,
+ * then long-poll {@code /v1/watch?epoch=<epoch>&revision=<last revision>&waitSeconds=<seconds>} to receive each
+ * subsequent batch of changes. Any response with {@code "reset": true} is a new snapshot which replaces everything
+ * previously received.
+ */
+@Path("/v1/watch")
+public class WatchResource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WatchResource.class);
+
+    private final ChangeFeed changeFeed;
+
+    /**
+     * Creates a new instance which reports changes to the plans in the provided {@link PlanCoordinator} and to the
+     * tasks in the provided {@link StateStore}.
+     */
+    public WatchResource(PlanCoordinator planCoordinator, StateStore stateStore) {
+        this.changeFeed = ChangeFeed.create(planCoordinator, stateStore);
+    }
+
+    /**
+     * Produces the changes after the provided revision, or a snapshot of all statuses if no revision is provided.
+     *
+     * @param epoch the epoch of the last revision which the client has received, if any
+     * @param revision the last revision which the client has received, if any
+     * @param waitSeconds how long to wait for a change after the provided revision before returning, if at all
+     */
+    @GET
+    public Response getChanges(
+            @QueryParam("epoch") String epoch,
+            @QueryParam("revision") Long revision,
+            @QueryParam(WAIT_SECONDS_PARAM) Integer waitSeconds) {
+        try {
+            return jsonResponseBean(changeFeed.getChanges(epoch, revision, waitSeconds), Response.Status.OK);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            LOGGER.error(String.format("Failed to fetch changes after revision %s", revision), e);
+            return Response.serverError().build();
+        }
+    }
+}
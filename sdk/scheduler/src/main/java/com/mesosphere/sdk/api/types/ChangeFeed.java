@@ -0,0 +1,324 @@
+package com.mesosphere.sdk.api.types;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mesos.Protos.TaskInfo;
+import org.apache.mesos.Protos.TaskStatus;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mesosphere.sdk.scheduler.Observable;
+import com.mesosphere.sdk.scheduler.Observer;
+import com.mesosphere.sdk.scheduler.plan.Phase;
+import com.mesosphere.sdk.scheduler.plan.Plan;
+import com.mesosphere.sdk.scheduler.plan.PlanCoordinator;
+import com.mesosphere.sdk.scheduler.plan.PlanManager;
+import com.mesosphere.sdk.scheduler.plan.Step;
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.state.StateStoreCache;
+import com.mesosphere.sdk.state.StateStoreListener;
+
+/**
+ * A feed of changes to the statuses of plans, phases, and steps, and to the states of tasks, which allows clients to
+ * follow a deployment by fetching only what has changed since they last looked.
+ * <p>
+ * Each change is assigned a monotonically increasing revision. Clients first fetch a snapshot of the current statuses,
+ * which includes the latest revision and the feed's epoch, and then repeatedly ask for any changes after the last
+ * revision they've seen in that epoch, optionally waiting for the next change. The epoch is unique to each scheduler
+ * start, as revisions restart from zero. Only the most recent {@link #MAX_CHANGES} changes are retained: clients which
+ * fall further behind than that, or which ask for a revision from another epoch, are sent a new snapshot instead.
+ * <p>
+ * Plan notifications only mark the feed as dirty. The plans are only walked to find what changed when a client
+ * fetches from the feed, so the feed costs next to nothing while nobody is watching. Changes which are superseded
+ * before they're fetched are collapsed into their latest value.
+ */
+public class ChangeFeed implements Observer, StateStoreListener {
+
+    /**
+     * The number of changes to retain for clients which are catching up.
+     */
+    public static final int MAX_CHANGES = 1000;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String TYPE_PLAN = "plan";
+    private static final String TYPE_PHASE = "phase";
+    private static final String TYPE_STEP = "step";
+    private static final String TYPE_TASK = "task";
+
+    private final PlanCoordinator planCoordinator;
+    private final StateStore stateStore;
+    private final String epoch = UUID.randomUUID().toString();
+
+    // Serializes collection of changes, so that an older walk of the plans is never applied after a newer one. This
+    // is never held while waiting, and is always acquired before the monitor on 'this'.
+    private final Object collectLock = new Object();
+
+    // The following are guarded by 'this'. Plan and store notifications only hold 'this' briefly, and it's never held
+    // while accessing the plans, whose elements may notify while holding their own locks.
+    /** (type, path...) => the last status which was reported for that element, in order of first appearance. */
+    private final Map<List<String>, String> reportedStatuses = new LinkedHashMap<>();
+    /** (task, name) => the task's latest state, or null if it was removed, which hasn't been collected yet. */
+    private final Map<List<String>, String> pendingTaskStates = new HashMap<>();
+    private final Deque<Change> changes = new ArrayDeque<>();
+    private boolean plansDirty = true;
+    private long revision = 0;
+    private long compactedRevision = 0;
+
+    /**
+     * Returns a new feed of the changes to the plans in the provided {@link PlanCoordinator} and to the tasks in the
+     * provided {@link StateStore}. Task states are only included if the store is a {@link StateStoreCache}.
+     */
+    public static ChangeFeed create(PlanCoordinator planCoordinator, StateStore stateStore) {
+        ChangeFeed feed = new ChangeFeed(planCoordinator, stateStore);
+        planCoordinator.subscribe(feed);
+        if (stateStore instanceof StateStoreCache) {
+            ((StateStoreCache) stateStore).addListener(feed);
+        }
+        return feed;
+    }
+
+    private ChangeFeed(PlanCoordinator planCoordinator, StateStore stateStore) {
+        this.planCoordinator = planCoordinator;
+        this.stateStore = stateStore;
+    }
+
+    /**
+     * Returns a JSON object containing the changes after the provided revision, waiting up to the provided duration
+     * for a change if there are none yet. If the revision is {@code null}, is from another epoch, or is no longer
+     * retained, a snapshot of all current statuses is returned instead, flagged with {@code "reset": true}.
+     *
+     * @param afterEpoch the epoch of the last revision which the client has seen
+     * @param afterRevision the last revision which the client has seen, or {@code null} to fetch a snapshot
+     * @param waitSeconds the maximum time to wait for a change, which is capped at
+     *     {@link TaskStateView#MAX_WAIT_SECONDS}, or {@code null} to not wait
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public String getChanges(String afterEpoch, Long afterRevision, Integer waitSeconds)
+            throws IOException, InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(
+                waitSeconds == null ? 0 : Math.max(0, Math.min(waitSeconds, TaskStateView.MAX_WAIT_SECONDS)));
+        while (true) {
+            collect();
+            synchronized (this) {
+                if (afterRevision == null
+                        || !epoch.equals(afterEpoch)
+                        || afterRevision < compactedRevision
+                        || afterRevision > revision) {
+                    return render(true, null);
+                }
+                if (afterRevision < revision) {
+                    return render(false, afterRevision);
+                }
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return render(false, afterRevision);
+                }
+                if (!plansDirty && pendingTaskStates.isEmpty()) {
+                    wait(remainingMs);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void update(Observable observable) {
+        plansDirty = true;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void tasksRefreshed(Collection<TaskInfo> tasks) {
+        for (List<String> key : reportedStatuses.keySet()) {
+            if (key.get(0).equals(TYPE_TASK)) {
+                pendingTaskStates.put(key, null);
+            }
+        }
+        for (TaskInfo task : tasks) {
+            Optional<TaskStatus> status = stateStore.fetchStatus(task.getName());
+            if (status.isPresent()) {
+                pendingTaskStates.put(taskKey(task.getName()), status.get().getState().toString());
+            }
+        }
+        notifyAll();
+    }
+
+    @Override
+    public void tasksStored(Collection<TaskInfo> tasks) {
+        // Only task states are reported, which are updated via statusStored()
+    }
+
+    @Override
+    public synchronized void taskCleared(String taskName) {
+        pendingTaskStates.put(taskKey(taskName), null);
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void statusStored(String taskName, TaskStatus status) {
+        pendingTaskStates.put(taskKey(taskName), status.getState().toString());
+        notifyAll();
+    }
+
+    /**
+     * Records any changes since the last collection as new revisions.
+     */
+    private void collect() {
+        synchronized (collectLock) {
+            boolean walkPlans;
+            synchronized (this) {
+                walkPlans = plansDirty;
+                plansDirty = false;
+            }
+            // Walk the plans without holding 'this', see above:
+            Map<List<String>, String> planStatuses = walkPlans ? getPlanStatuses() : null;
+            synchronized (this) {
+                if (planStatuses != null) {
+                    for (Map.Entry<List<String>, String> entry : planStatuses.entrySet()) {
+                        record(entry.getKey(), entry.getValue());
+                    }
+                    for (List<String> key : new ArrayList<>(reportedStatuses.keySet())) {
+                        if (!key.get(0).equals(TYPE_TASK) && !planStatuses.containsKey(key)) {
+                            record(key, null);
+                        }
+                    }
+                }
+                for (Map.Entry<List<String>, String> entry : pendingTaskStates.entrySet()) {
+                    record(entry.getKey(), entry.getValue());
+                }
+                pendingTaskStates.clear();
+            }
+        }
+    }
+
+    private Map<List<String>, String> getPlanStatuses() {
+        Map<List<String>, String> statuses = new LinkedHashMap<>();
+        for (PlanManager planManager : planCoordinator.getPlanManagers()) {
+            Plan plan = planManager.getPlan();
+            statuses.put(Arrays.asList(TYPE_PLAN, plan.getName()), plan.getStatus().toString());
+            for (Phase phase : plan.getChildren()) {
+                statuses.put(Arrays.asList(TYPE_PHASE, plan.getName(), phase.getName()), phase.getStatus().toString());
+                for (Step step : phase.getChildren()) {
+                    statuses.put(
+                            Arrays.asList(TYPE_STEP, plan.getName(), phase.getName(), step.getName()),
+                            step.getStatus().toString());
+                }
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Records a change to the provided element's status, if it has changed. A {@code null} status indicates that the
+     * element was removed. The caller must hold the lock on 'this'.
+     */
+    private void record(List<String> key, String status) {
+        String oldStatus = status == null ? reportedStatuses.remove(key) : reportedStatuses.put(key, status);
+        if (status == null ? oldStatus == null : status.equals(oldStatus)) {
+            return;
+        }
+        changes.addLast(new Change(++revision, key, status));
+        if (changes.size() > MAX_CHANGES) {
+            compactedRevision = changes.removeFirst().revision;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Renders either the retained changes after the provided revision, or a snapshot of all current statuses. The
+     * caller must hold the lock on 'this'.
+     */
+    private String render(boolean snapshot, Long afterRevision) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(stringWriter)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartObject();
+            generator.writeStringField("epoch", epoch);
+            generator.writeNumberField("revision", revision);
+            generator.writeBooleanField("reset", snapshot);
+            generator.writeArrayFieldStart("changes");
+            if (snapshot) {
+                for (Map.Entry<List<String>, String> entry : reportedStatuses.entrySet()) {
+                    writeChange(generator, null, entry.getKey(), entry.getValue());
+                }
+            } else {
+                Iterator<Change> iter = changes.descendingIterator();
+                Deque<Change> newChanges = new ArrayDeque<>();
+                while (iter.hasNext()) {
+                    Change change = iter.next();
+                    if (change.revision <= afterRevision) {
+                        break;
+                    }
+                    newChanges.addFirst(change);
+                }
+                for (Change change : newChanges) {
+                    writeChange(generator, change.revision, change.key, change.status);
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return stringWriter.toString();
+    }
+
+    private static void writeChange(JsonGenerator generator, Long revision, List<String> key, String status)
+            throws IOException {
+        generator.writeStartObject();
+        if (revision != null) {
+            generator.writeNumberField("revision", revision);
+        }
+        String type = key.get(0);
+        generator.writeStringField("type", type);
+        if (type.equals(TYPE_TASK)) {
+            generator.writeStringField("name", key.get(1));
+        } else {
+            // plan, then phase, then step, as applicable:
+            generator.writeStringField(TYPE_PLAN, key.get(1));
+            if (key.size() > 2) {
+                generator.writeStringField(TYPE_PHASE, key.get(2));
+            }
+            if (key.size() > 3) {
+                generator.writeStringField(TYPE_STEP, key.get(3));
+            }
+        }
+        if (status == null) {
+            generator.writeBooleanField("removed", true);
+        } else {
+            generator.writeStringField(type.equals(TYPE_TASK) ? "state" : "status", status);
+        }
+        generator.writeEndObject();
+    }
+
+    private static List<String> taskKey(String taskName) {
+        return Arrays.asList(TYPE_TASK, taskName);
+    }
+
+    /**
+     * A single change to the status of an element.
+     */
+    private static class Change {
+        private final long revision;
+        private final List<String> key;
+        private final String status;
+
+        private Change(long revision, List<String> key, String status) {
+            this.revision = revision;
+            this.key = key;
+            this.status = status;
+        }
+    }
+}
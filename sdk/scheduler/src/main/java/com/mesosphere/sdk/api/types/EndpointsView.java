@@ -0,0 +1,279 @@
+package com.mesosphere.sdk.api.types;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.mesos.Protos.DiscoveryInfo;
+import org.apache.mesos.Protos.Label;
+import org.apache.mesos.Protos.Port;
+import org.apache.mesos.Protos.TaskInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Splitter;
+import com.mesosphere.sdk.offer.CommonTaskUtils;
+import com.mesosphere.sdk.offer.ResourceUtils;
+import com.mesosphere.sdk.offer.TaskException;
+import com.mesosphere.sdk.specification.yaml.YAMLToInternalMappers;
+import com.mesosphere.sdk.state.StateStore;
+
+/**
+ * A {@link TaskStateView} of the endpoints which are advertised in the {@link DiscoveryInfo} of each task.
+ * <p>
+ * Each task's endpoints are extracted once when the task is stored, and are only merged into the per-endpoint listings
+ * when they're next rendered. Task statuses have no effect on endpoints, so status updates don't invalidate this view.
+ */
+public class EndpointsView extends TaskStateView {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EndpointsView.class);
+
+    private static final String RESPONSE_KEY_DNS = "dns";
+    private static final String RESPONSE_KEY_ADDRESS = "address";
+    private static final String RESPONSE_KEY_VIP = "vip";
+
+    private static final Comparator<TaskEndpoint> TASK_NAME_COMPARATOR =
+            Comparator.comparing(endpoint -> endpoint.taskName);
+
+    private final String serviceName;
+
+    /** task => endpoints advertised by the task. */
+    private final Map<TaskInfo, List<TaskEndpoint>> endpointsByTask = new HashMap<>();
+    /** endpoint name => endpoints advertised by all tasks, or null if they need to be merged again. */
+    private Map<String, List<TaskEndpoint>> endpointsByName = null;
+
+    /**
+     * Returns a new view of the endpoints advertised by tasks in the provided {@link StateStore}, using the provided
+     * {@code serviceName} for endpoint paths.
+     */
+    public static EndpointsView create(StateStore stateStore, String serviceName) {
+        EndpointsView view = new EndpointsView(stateStore, serviceName);
+        view.listen();
+        return view;
+    }
+
+    private EndpointsView(StateStore stateStore, String serviceName) {
+        super(stateStore);
+        this.serviceName = serviceName;
+    }
+
+    /**
+     * Returns a JSON listing of the provided custom endpoint names, followed by the names of all advertised endpoints
+     * which don't collide with the custom endpoints.
+     *
+     * @param customNames the names of any custom endpoints, which take precedence over advertised endpoints
+     */
+    public Rendered getEndpointNames(Collection<String> customNames) throws IOException {
+        // Custom endpoints are typically only configured once, but include them in the key just in case:
+        return render("names:" + String.join(",", customNames), generator -> {
+            Set<String> names = new LinkedHashSet<>(customNames);
+            names.addAll(getEndpoints().keySet());
+            generator.writeStartArray();
+            for (String name : names) {
+                generator.writeString(name);
+            }
+            generator.writeEndArray();
+        });
+    }
+
+    /**
+     * Returns a JSON object containing the DNS and direct addresses of the provided advertised endpoint, along with its
+     * VIP address if it has one, or an empty value if no tasks advertise the endpoint.
+     */
+    public synchronized Optional<Rendered> getEndpoint(String name) throws IOException {
+        sync();
+        if (!getEndpoints().containsKey(name)) {
+            return Optional.empty();
+        }
+        return Optional.of(render("endpoint/" + name, generator -> {
+            List<TaskEndpoint> endpoints = getEndpoints().getOrDefault(name, Collections.emptyList());
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(RESPONSE_KEY_ADDRESS);
+            for (TaskEndpoint endpoint : endpoints) {
+                generator.writeString(endpoint.addressHostPort);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart(RESPONSE_KEY_DNS);
+            for (TaskEndpoint endpoint : endpoints) {
+                generator.writeString(endpoint.dnsHostPort);
+            }
+            generator.writeEndArray();
+            // all tasks with the same VIP name are assumed to have the same VIP port, so just use the first:
+            for (TaskEndpoint endpoint : endpoints) {
+                if (endpoint.vip != null) {
+                    generator.writeStringField(RESPONSE_KEY_VIP, endpoint.vip);
+                    break;
+                }
+            }
+            generator.writeEndObject();
+        }));
+    }
+
+    @Override
+    protected void taskAdded(TaskInfo task) {
+        List<TaskEndpoint> endpoints;
+        try {
+            endpoints = getTaskEndpoints(task);
+        } catch (TaskException e) {
+            LOGGER.error(String.format("Failed to extract endpoints from task %s", task.getName()), e);
+            return;
+        }
+        if (!endpoints.isEmpty()) {
+            endpointsByTask.put(task, endpoints);
+            endpointsByName = null;
+        }
+    }
+
+    @Override
+    protected void taskRemoved(TaskInfo task) {
+        if (endpointsByTask.remove(task) != null) {
+            endpointsByName = null;
+        }
+    }
+
+    @Override
+    protected void tasksReset() {
+        endpointsByTask.clear();
+        endpointsByName = null;
+    }
+
+    @Override
+    protected boolean isStatusRelevant() {
+        return false;
+    }
+
+    /**
+     * Returns a mapping of endpoint name to the entries advertised for it, ordered by task name. The caller must hold
+     * the lock on this view.
+     */
+    private Map<String, List<TaskEndpoint>> getEndpoints() {
+        if (endpointsByName == null) {
+            endpointsByName = new TreeMap<>();
+            for (List<TaskEndpoint> taskEndpoints : endpointsByTask.values()) {
+                for (TaskEndpoint endpoint : taskEndpoints) {
+                    endpointsByName.computeIfAbsent(endpoint.name, name -> new ArrayList<>()).add(endpoint);
+                }
+            }
+            for (List<TaskEndpoint> endpoints : endpointsByName.values()) {
+                endpoints.sort(TASK_NAME_COMPARATOR);
+            }
+        }
+        return endpointsByName;
+    }
+
+    /**
+     * Returns the endpoints advertised by the provided task. Endpoints are filed against any VIPs listed against each
+     * public port's labels, or if no VIPs are found, against the task type.
+     *
+     * @throws TaskException if the task's hostname, or the type of a task with no VIPs, couldn't be extracted
+     */
+    private List<TaskEndpoint> getTaskEndpoints(TaskInfo taskInfo) throws TaskException {
+        if (!taskInfo.hasDiscovery()) {
+            LOGGER.info("Task lacks any discovery information, no endpoints to report: {}", taskInfo.getName());
+            return Collections.emptyList();
+        }
+        // TODO(mrb): Also extract DiscoveryInfo from executor, when executors get the ability to specify resources
+        DiscoveryInfo discoveryInfo = taskInfo.getDiscovery();
+        // Mesos DNS hostname:
+        String mesosDnsHost = String.format("%s.%s.mesos",
+                discoveryInfo.hasName() ? discoveryInfo.getName() : taskInfo.getName(),
+                serviceName);
+        // Hostname of agent at offer time:
+        String nativeHost = CommonTaskUtils.getHostname(taskInfo);
+
+        List<TaskEndpoint> endpoints = new ArrayList<>();
+        for (Port port : discoveryInfo.getPorts().getPortsList()) {
+            if (port.getVisibility() != YAMLToInternalMappers.PUBLIC_VIP_VISIBILITY) {
+                LOGGER.info(
+                        "Task discovery information has {} visibility, {} needed to be included in endpoints: {}",
+                        port.getVisibility(), YAMLToInternalMappers.PUBLIC_VIP_VISIBILITY, taskInfo.getName());
+                continue;
+            }
+            String dnsHostPort = String.format("%s:%d", mesosDnsHost, port.getNumber());
+            String addressHostPort = String.format("%s:%d", nativeHost, port.getNumber());
+
+            // Search for any VIPs to add the above host:port against:
+            boolean foundAnyVips = false;
+            for (Label label : port.getLabels().getLabelsList()) {
+                VIPInfo vipInfo = VIPInfo.parse(taskInfo.getName(), label);
+                if (vipInfo == null) {
+                    continue;
+                }
+                // VIP found. file host:port against the VIP name.
+                foundAnyVips = true;
+                String vip = String.format("%s.%s.%s:%d",
+                        vipInfo.name, serviceName, ResourceUtils.VIP_HOST_TLD, vipInfo.port);
+                endpoints.add(new TaskEndpoint(taskInfo.getName(), vipInfo.name, dnsHostPort, addressHostPort, vip));
+            }
+
+            if (!foundAnyVips) {
+                // No VIPs found for this port. file direct host:port against task type.
+                endpoints.add(new TaskEndpoint(
+                        taskInfo.getName(), CommonTaskUtils.getType(taskInfo), dnsHostPort, addressHostPort, null));
+            }
+        }
+        return endpoints;
+    }
+
+    /**
+     * A single host:port entry advertised by a task for an endpoint.
+     */
+    private static class TaskEndpoint {
+        private final String taskName;
+        private final String name;
+        private final String dnsHostPort;
+        private final String addressHostPort;
+        private final String vip;
+
+        private TaskEndpoint(String taskName, String name, String dnsHostPort, String addressHostPort, String vip) {
+            this.taskName = taskName;
+            this.name = name;
+            this.dnsHostPort = dnsHostPort;
+            this.addressHostPort = addressHostPort;
+            this.vip = vip;
+        }
+    }
+
+    /**
+     * Struct for VIP name + port, e.g. 'broker' and 9092.
+     */
+    private static class VIPInfo {
+        private final String name;
+        private final int port;
+
+        private VIPInfo(String name, int port) {
+            this.name = name;
+            this.port = port;
+        }
+
+        private static VIPInfo parse(String taskName, Label label) {
+            if (!label.getKey().startsWith(ResourceUtils.VIP_PREFIX)) {
+                return null;
+            }
+            List<String> namePort = Splitter.on(':').splitToList(label.getValue());
+            if (namePort.size() != 2) {
+                LOGGER.error("Task {}'s VIP value for {} is invalid, expected 2 components but got {}: {}",
+                        taskName, label.getKey(), namePort.size(), label.getValue());
+                return null;
+            }
+            int vipPort;
+            try {
+                vipPort = Integer.parseInt(namePort.get(1));
+            } catch (NumberFormatException e) {
+                LOGGER.error(String.format(
+                        "Unable to Task %s's VIP port from %s as an int",
+                        taskName, label.getValue()), e);
+                return null;
+            }
+            return new VIPInfo(namePort.get(0), vipPort);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.mesosphere.sdk.api.types;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.mesos.Protos.TaskInfo;
+import org.apache.mesos.Protos.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mesosphere.sdk.offer.CommonTaskUtils;
+import com.mesosphere.sdk.specification.PodInstance;
+import com.mesosphere.sdk.state.StateStore;
+
+/**
+ * A {@link TaskStateView} which groups tasks by their pod instance, for serving pod listings and statuses.
+ */
+public class PodsView extends TaskStateView {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PodsView.class);
+
+    /**
+     * Pod 'name' to use in responses for tasks which have no pod information.
+     */
+    private static final String UNKNOWN_POD_LABEL = "UNKNOWN_POD";
+
+    private static final Comparator<TaskInfo> TASK_NAME_COMPARATOR = Comparator.comparing(TaskInfo::getName);
+
+    /** pod instance => tasks in pod. */
+    private final Map<String, Set<TaskInfo>> tasksByPod = new TreeMap<>();
+    /** tasks for which the pod instance couldn't be determined. */
+    private final Set<TaskInfo> unknownPodTasks = new HashSet<>();
+    /** task => its pod instance, or an empty value if it has no pod. */
+    private final Map<TaskInfo, Optional<String>> podNamesByTask = new HashMap<>();
+
+    /**
+     * Returns a new view of the tasks in the provided {@link StateStore}.
+     */
+    public static PodsView create(StateStore stateStore) {
+        PodsView view = new PodsView(stateStore);
+        view.listen();
+        return view;
+    }
+
+    private PodsView(StateStore stateStore) {
+        super(stateStore);
+    }
+
+    /**
+     * Returns a JSON listing of all pod instance names, followed by an entry for each task without a pod.
+     */
+    public Rendered getPodNames() throws IOException {
+        return render("names", generator -> {
+            generator.writeStartArray();
+            for (String podName : tasksByPod.keySet()) {
+                generator.writeString(podName);
+            }
+            for (TaskInfo task : sorted(unknownPodTasks)) {
+                generator.writeString(String.format("%s_%s", UNKNOWN_POD_LABEL, task.getName()));
+            }
+            generator.writeEndArray();
+        });
+    }
+
+    /**
+     * Returns a JSON object containing the summary statuses of all pod instances.
+     */
+    public Rendered getPodStatuses() throws IOException {
+        return render("statuses", generator -> {
+            generator.writeStartObject();
+            for (Map.Entry<String, Set<TaskInfo>> podTasks : tasksByPod.entrySet()) {
+                generator.writeFieldName(podTasks.getKey());
+                writeStatuses(generator, podTasks.getValue());
+            }
+            // Output 'unknown pod' for any tasks which didn't have a resolvable pod:
+            if (!unknownPodTasks.isEmpty()) {
+                generator.writeFieldName(UNKNOWN_POD_LABEL);
+                writeStatuses(generator, unknownPodTasks);
+            }
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * Returns a JSON array containing the summary status of the provided pod instance, or an empty value if the pod
+     * instance isn't known.
+     */
+    public synchronized Optional<Rendered> getPodStatus(String podName) throws IOException {
+        sync();
+        if (!tasksByPod.containsKey(podName)) {
+            return Optional.empty();
+        }
+        // Look the pod up again when rendering, in case the view is resynced in the meantime:
+        return Optional.of(render("status/" + podName, generator -> writeStatuses(
+                generator, tasksByPod.getOrDefault(podName, Collections.emptySet()))));
+    }
+
+    /**
+     * Returns the tasks in the provided pod instance along with their statuses, sorted by task name, or an empty value
+     * if the pod instance isn't known.
+     */
+    public synchronized Optional<List<TaskInfoAndStatus>> getPodTasks(String podName) {
+        sync();
+        Set<TaskInfo> podTasks = tasksByPod.get(podName);
+        if (podTasks == null) {
+            return Optional.empty();
+        }
+        List<TaskInfoAndStatus> tasksAndStatuses = new ArrayList<>();
+        for (TaskInfo task : sorted(podTasks)) {
+            tasksAndStatuses.add(TaskInfoAndStatus.create(task, Optional.ofNullable(getStatus(task))));
+        }
+        return Optional.of(tasksAndStatuses);
+    }
+
+    @Override
+    protected void taskAdded(TaskInfo task) {
+        Optional<String> podName = getPodInstanceName(task);
+        podNamesByTask.put(task, podName);
+        if (podName.isPresent()) {
+            tasksByPod.computeIfAbsent(podName.get(), name -> new HashSet<>()).add(task);
+        } else {
+            unknownPodTasks.add(task);
+        }
+    }
+
+    @Override
+    protected void taskRemoved(TaskInfo task) {
+        Optional<String> podName = podNamesByTask.remove(task);
+        if (podName == null) {
+            return;
+        }
+        if (podName.isPresent()) {
+            Set<TaskInfo> podTasks = tasksByPod.get(podName.get());
+            podTasks.remove(task);
+            if (podTasks.isEmpty()) {
+                tasksByPod.remove(podName.get());
+            }
+        } else {
+            unknownPodTasks.remove(task);
+        }
+    }
+
+    @Override
+    protected void tasksReset() {
+        tasksByPod.clear();
+        unknownPodTasks.clear();
+        podNamesByTask.clear();
+    }
+
+    @Override
+    protected boolean isStatusRelevant() {
+        return true;
+    }
+
+    private void writeStatuses(JsonGenerator generator, Collection<TaskInfo> tasks) throws IOException {
+        generator.writeStartArray();
+        for (TaskInfo task : sorted(tasks)) {
+            generator.writeStartObject();
+            generator.writeStringField("id", task.getTaskId().getValue());
+            generator.writeStringField("name", task.getName());
+            TaskStatus status = getStatus(task);
+            generator.writeStringField("state", status == null ? "No state defined" : status.getState().toString());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Returns the provided tasks sorted by their names (for user convenience).
+     */
+    private static List<TaskInfo> sorted(Collection<TaskInfo> tasks) {
+        List<TaskInfo> sortedTasks = new ArrayList<>(tasks);
+        sortedTasks.sort(TASK_NAME_COMPARATOR);
+        return sortedTasks;
+    }
+
+    private static Optional<String> getPodInstanceName(TaskInfo taskInfo) {
+        try {
+            return Optional.of(PodInstance.getName(
+                    CommonTaskUtils.getType(taskInfo),
+                    CommonTaskUtils.getIndex(taskInfo)));
+        } catch (Exception e) {
+            LOGGER.warn(String.format("Failed to extract pod information from task %s", taskInfo.getName()), e);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.mesosphere.sdk.api.types;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.EntityTag;
+
+import org.apache.mesos.Protos.TaskID;
+import org.apache.mesos.Protos.TaskInfo;
+import org.apache.mesos.Protos.TaskStatus;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mesosphere.sdk.api.ResponseUtils;
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.state.StateStoreCache;
+import com.mesosphere.sdk.state.StateStoreListener;
+
+/**
+ * Base class for precomputed read-only views of the tasks in a {@link StateStore}, which allow API requests to be
+ * served without rescanning every task and status on each request.
+ * <p>
+ * When the store is a {@link StateStoreCache}, the view is updated incrementally as tasks and statuses are written,
+ * and each rendered response is reused until the next relevant write. Otherwise the view is resynced from the store
+ * on each read. Every relevant change increments the view's version, which is exposed to clients as an
+ * {@link EntityTag} so that they may make conditional requests, or wait for the next change via
+ * {@link #awaitChange(String, Integer)}.
+ * <p>
+ * All renderings from a single version are snapshot-consistent: they're produced while holding the view's lock, so no
+ * write is ever partially reflected in a response.
+ */
+public abstract class TaskStateView implements StateStoreListener {
+
+    /**
+     * The longest that a client may wait for a change. Each waiting request holds an API thread, so clients are
+     * expected to poll again rather than wait for long.
+     */
+    public static final int MAX_WAIT_SECONDS = 10;
+
+    /**
+     * The most requests which may wait for a change at once, across all views, so that waiting requests can't take up
+     * all of the API threads. Requests beyond this are answered immediately, as if they had nothing to wait for.
+     */
+    public static final int MAX_WAITING_REQUESTS = 8;
+
+    private static final Semaphore WAITING_REQUESTS = new Semaphore(MAX_WAITING_REQUESTS);
+
+    /**
+     * How often the store is checked for changes while waiting, when the view isn't being notified of writes.
+     */
+    private static final long RESYNC_INTERVAL_MS = 1000;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final StateStore stateStore;
+    // Distinguishes tags across scheduler restarts, when the version counter starts over:
+    private final String epoch = UUID.randomUUID().toString();
+
+    private final Set<TaskInfo> tasks = new HashSet<>();
+    private final Map<String, TaskInfo> tasksByName = new HashMap<>();
+    private final Map<TaskID, TaskStatus> statuses = new HashMap<>();
+    private final Map<String, Rendered> renderedByKey = new HashMap<>();
+
+    private boolean isListening = false;
+    private long version = 0;
+
+    protected TaskStateView(StateStore stateStore) {
+        this.stateStore = stateStore;
+    }
+
+    /**
+     * Registers this view for updates from the underlying store, if supported. This must be invoked after the view has
+     * been fully constructed, because the view is immediately populated with the current state of the store.
+     */
+    protected void listen() {
+        if (stateStore instanceof StateStoreCache) {
+            ((StateStoreCache) stateStore).addListener(this);
+            synchronized (this) {
+                isListening = true;
+            }
+        }
+    }
+
+    /**
+     * A rendered JSON response, along with the tag of the view version which it was rendered from.
+     */
+    public static class Rendered {
+        private final String json;
+        private final EntityTag entityTag;
+
+        private Rendered(String json, EntityTag entityTag) {
+            this.json = json;
+            this.entityTag = entityTag;
+        }
+
+        public String getJson() {
+            return json;
+        }
+
+        public EntityTag getEntityTag() {
+            return entityTag;
+        }
+    }
+
+    /**
+     * Writes the content of a rendered response, see {@link #render(String, JsonWriter)}.
+     */
+    @FunctionalInterface
+    protected interface JsonWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * Returns the tag of the current version of this view.
+     */
+    public synchronized EntityTag getEntityTag() {
+        sync();
+        return getCurrentEntityTag();
+    }
+
+    /**
+     * Blocks until this view no longer matches the provided {@code If-None-Match} header value, or until the provided
+     * wait has elapsed, whichever comes first. Returns immediately if either value is {@code null}, or if
+     * {@link #MAX_WAITING_REQUESTS} are already waiting.
+     *
+     * @param ifNoneMatch the tag(s) of the version(s) which the client already has
+     * @param waitSeconds the maximum time to wait, which is capped at {@link #MAX_WAIT_SECONDS}
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public synchronized void awaitChange(String ifNoneMatch, Integer waitSeconds) throws InterruptedException {
+        if (ifNoneMatch == null || waitSeconds == null || waitSeconds <= 0) {
+            return;
+        }
+        if (!WAITING_REQUESTS.tryAcquire()) {
+            return;
+        }
+        try {
+            long deadlineNanos = System.nanoTime()
+                    + TimeUnit.SECONDS.toNanos(Math.min(waitSeconds, MAX_WAIT_SECONDS));
+            while (ResponseUtils.matchesEntityTag(ifNoneMatch, getEntityTag())) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return;
+                }
+                wait(isListening ? remainingMs : Math.min(remainingMs, RESYNC_INTERVAL_MS));
+            }
+        } finally {
+            WAITING_REQUESTS.release();
+        }
+    }
+
+    /**
+     * Returns the number of requests which are currently waiting for a change, for use in tests.
+     */
+    static int getWaitingRequestCount() {
+        return MAX_WAITING_REQUESTS - WAITING_REQUESTS.availablePermits();
+    }
+
+    /**
+     * Returns the response with the provided key which was rendered from the current version of this view, or renders
+     * it with the provided writer if it hasn't been rendered since the last change.
+     */
+    protected synchronized Rendered render(String key, JsonWriter writer) throws IOException {
+        sync();
+        Rendered rendered = renderedByKey.get(key);
+        if (rendered == null) {
+            StringWriter stringWriter = new StringWriter();
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(stringWriter)) {
+                generator.useDefaultPrettyPrinter();
+                writer.write(generator);
+            }
+            rendered = new Rendered(stringWriter.toString(), getCurrentEntityTag());
+            renderedByKey.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * Returns the status of the provided task, or {@code null} if none is available. The caller must hold the lock on
+     * this view, having called {@link #sync()}.
+     */
+    protected TaskStatus getStatus(TaskInfo task) {
+        return statuses.get(task.getTaskId());
+    }
+
+    /**
+     * Invoked when a task has been added to this view. Tasks which are replaced are first removed.
+     */
+    protected abstract void taskAdded(TaskInfo task);
+
+    /**
+     * Invoked when a task has been removed from this view.
+     */
+    protected abstract void taskRemoved(TaskInfo task);
+
+    /**
+     * Invoked when all tasks are about to be re-added to this view.
+     */
+    protected abstract void tasksReset();
+
+    /**
+     * Returns whether changes to task statuses affect the content of this view.
+     */
+    protected abstract boolean isStatusRelevant();
+
+    @Override
+    public synchronized void tasksRefreshed(Collection<TaskInfo> refreshedTasks) {
+        reset(refreshedTasks, stateStore.fetchStatuses());
+    }
+
+    @Override
+    public synchronized void tasksStored(Collection<TaskInfo> storedTasks) {
+        boolean changed = false;
+        for (TaskInfo task : storedTasks) {
+            TaskInfo oldTask = tasksByName.put(task.getName(), task);
+            if (task.equals(oldTask)) {
+                continue;
+            }
+            if (oldTask != null) {
+                remove(oldTask, !oldTask.getTaskId().equals(task.getTaskId()));
+            }
+            tasks.add(task);
+            taskAdded(task);
+            changed = true;
+        }
+        if (changed) {
+            changed();
+        }
+    }
+
+    @Override
+    public synchronized void taskCleared(String taskName) {
+        TaskInfo oldTask = tasksByName.remove(taskName);
+        if (oldTask != null) {
+            remove(oldTask, true);
+            changed();
+        }
+    }
+
+    @Override
+    public synchronized void statusStored(String taskName, TaskStatus status) {
+        // Like the store itself, only retain statuses which match the current task:
+        TaskInfo task = tasksByName.get(taskName);
+        if (task == null || !task.getTaskId().equals(status.getTaskId())) {
+            return;
+        }
+        TaskStatus oldStatus = statuses.put(status.getTaskId(), status);
+        if (isStatusRelevant() && (oldStatus == null || oldStatus.getState() != status.getState())) {
+            changed();
+        }
+    }
+
+    /**
+     * Resyncs this view from the store if it isn't being notified of writes. The caller must hold the lock on this
+     * view.
+     */
+    protected void sync() {
+        if (isListening) {
+            return;
+        }
+        Collection<TaskInfo> currentTasks = stateStore.fetchTasks();
+        Collection<TaskStatus> currentStatuses = stateStore.fetchStatuses();
+        if (currentTasks.size() == tasks.size()
+                && tasks.containsAll(currentTasks)
+                && (!isStatusRelevant() || statuses.equals(getMatchingStatuses(currentStatuses)))) {
+            return;
+        }
+        reset(currentTasks, currentStatuses);
+    }
+
+    private void reset(Collection<TaskInfo> newTasks, Collection<TaskStatus> newStatuses) {
+        tasks.clear();
+        tasksByName.clear();
+        tasksReset();
+        for (TaskInfo task : newTasks) {
+            tasks.add(task);
+            tasksByName.put(task.getName(), task);
+            taskAdded(task);
+        }
+        statuses.clear();
+        statuses.putAll(getMatchingStatuses(newStatuses));
+        changed();
+    }
+
+    private void remove(TaskInfo oldTask, boolean removeStatus) {
+        tasks.remove(oldTask);
+        taskRemoved(oldTask);
+        if (removeStatus) {
+            statuses.remove(oldTask.getTaskId());
+        }
+    }
+
+    private Map<TaskID, TaskStatus> getMatchingStatuses(Collection<TaskStatus> allStatuses) {
+        Set<TaskID> taskIds = new HashSet<>();
+        for (TaskInfo task : tasks) {
+            taskIds.add(task.getTaskId());
+        }
+        Map<TaskID, TaskStatus> matchingStatuses = new HashMap<>();
+        for (TaskStatus status : allStatuses) {
+            if (taskIds.contains(status.getTaskId())) {
+                matchingStatuses.put(status.getTaskId(), status);
+            }
+        }
+        return matchingStatuses;
+    }
+
+    private EntityTag getCurrentEntityTag() {
+        return new EntityTag(String.format("%s-%d", epoch, version));
+    }
+
+    private void changed() {
+        ++version;
+        renderedByKey.clear();
+        notifyAll();
+    }
+}
@@ -1,5 +1,7 @@
 package com.mesosphere.sdk.config;
 
+import com.google.common.hash.Hashing;
+
 import java.util.Collection;
 import java.util.UUID;
 
@@ -36,6 +38,18 @@ public interface ConfigStore<T extends Configuration> extends ConfigTargetStore
      */
     T fetch(UUID id) throws ConfigStoreException;
 
+    /**
+     * Returns a hash of the serialized content of the configuration assigned to the provided UUID. Configurations with
+     * equal hashes have identical content, which allows them to be compared without being deserialized.
+     *
+     * @param id The UUID of the configuration whose hash should be returned
+     * @return A hex-encoded SHA-256 hash of the configuration's serialized content
+     * @throws ConfigStoreException if retrieval fails, or if the requested config is missing
+     */
+    default String fetchHash(UUID id) throws ConfigStoreException {
+        return Hashing.sha256().hashBytes(fetch(id).getBytes()).toString();
+    }
+
     /**
      * Deletes the configuration with the provided UUID, or does nothing if no matching
      * configuration is found.
@@ -45,6 +59,19 @@ public interface ConfigStore<T extends Configuration> extends ConfigTargetStore
      */
     void clear(UUID id) throws ConfigStoreException;
 
+    /**
+     * Deletes the configurations with the provided UUIDs, skipping any which aren't found. Implementations may
+     * override this to clean up after all of the configurations at once, rather than after each one.
+     *
+     * @param ids The UUIDs of the configurations to be deleted
+     * @throws ConfigStoreException if a configuration is found but deletion fails
+     */
+    default void clear(Collection<UUID> ids) throws ConfigStoreException {
+        for (UUID id : ids) {
+            clear(id);
+        }
+    }
+
     /**
      * Returns a list of all stored configuration UUIDs, or an empty list if none are found.
      *
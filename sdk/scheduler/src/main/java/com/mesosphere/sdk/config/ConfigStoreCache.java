@@ -0,0 +1,127 @@
+package com.mesosphere.sdk.config;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.mesosphere.sdk.storage.StorageError.Reason;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Thread-safe cache of deserialized configurations in front of an underlying {@link ConfigStore}.
+ * <p>
+ * The content stored against a configuration ID never changes, so fetched configurations may be cached indefinitely
+ * without any risk of becoming stale. Configurations are only evicted when they're cleared, or when the cache is full
+ * and they're the least recently used. This allows frequent lookups of task configurations, e.g. when checking tasks
+ * for recovery on every status update, to be served without any storage access or deserialization.
+ *
+ * @param <T> The {@code Configuration} object to be serialized and deserialized in the
+ *            implementation of this interface
+ */
+public class ConfigStoreCache<T extends Configuration> implements ConfigStore<T> {
+
+    /**
+     * Services typically have a target configuration plus a few prior configurations which tasks are still using.
+     */
+    public static final int DEFAULT_MAX_SIZE = 16;
+
+    private final ConfigStore<T> store;
+    private final Cache<UUID, T> configs;
+
+    public ConfigStoreCache(ConfigStore<T> store) {
+        this(store, DEFAULT_MAX_SIZE);
+    }
+
+    public ConfigStoreCache(ConfigStore<T> store, int maxSize) {
+        this.store = store;
+        this.configs = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public UUID store(T config) throws ConfigStoreException {
+        return store.store(config);
+    }
+
+    /**
+     * Returns the cached configuration for the provided ID, fetching it from the underlying store if it isn't cached.
+     * Concurrent fetches of the same uncached ID only fetch it once.
+     */
+    @Override
+    public T fetch(UUID id) throws ConfigStoreException {
+        try {
+            return configs.get(id, () -> store.fetch(id));
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            if (e.getCause() instanceof ConfigStoreException) {
+                throw (ConfigStoreException) e.getCause();
+            }
+            throw new ConfigStoreException(Reason.UNKNOWN, String.format(
+                    "Failed to fetch configuration '%s'", id), e.getCause());
+        }
+    }
+
+    @Override
+    public String fetchHash(UUID id) throws ConfigStoreException {
+        return store.fetchHash(id);
+    }
+
+    @Override
+    public void clear(UUID id) throws ConfigStoreException {
+        try {
+            store.clear(id);
+        } finally {
+            configs.invalidate(id);
+        }
+    }
+
+    @Override
+    public void clear(Collection<UUID> ids) throws ConfigStoreException {
+        try {
+            store.clear(ids);
+        } finally {
+            configs.invalidateAll(ids);
+        }
+    }
+
+    @Override
+    public Collection<UUID> list() throws ConfigStoreException {
+        return store.list();
+    }
+
+    @Override
+    public void setTargetConfig(UUID id) throws ConfigStoreException {
+        store.setTargetConfig(id);
+    }
+
+    @Override
+    public UUID getTargetConfig() throws ConfigStoreException {
+        return store.getTargetConfig();
+    }
+
+    /**
+     * Returns the number of fetches which were served from the cache.
+     */
+    public long getHitCount() {
+        return configs.stats().hitCount();
+    }
+
+    /**
+     * Returns the number of fetches which required fetching from the underlying store, including any which failed.
+     */
+    public long getMissCount() {
+        return configs.stats().missCount();
+    }
+
+    /**
+     * Returns all statistics for this cache, including hits, misses, and evictions.
+     */
+    public CacheStats getStats() {
+        return configs.stats();
+    }
+}
@@ -144,6 +144,10 @@ public class DefaultConfigurationUpdater implements ConfigurationUpdater<Service
         List<Protos.TaskInfo> taskInfosToUpdate = new ArrayList<>();
         Set<UUID> neededConfigs = new HashSet<>();
         neededConfigs.add(targetConfigId);
+        // Configs are compared by hash where possible, and otherwise only deserialized once each.
+        final String targetConfigHash = fetchHash(targetConfigId);
+        Map<UUID, String> configHashes = new HashMap<>();
+        Map<UUID, ServiceSpec> fetchedConfigs = new HashMap<>();
         // Search task labels for configs which need to be cleaned up.
         for (Protos.TaskInfo taskInfo : stateStore.fetchTasks()) {
             final UUID taskConfigId;
@@ -158,9 +162,21 @@ public class DefaultConfigurationUpdater implements ConfigurationUpdater<Service
             if (taskConfigId.equals(targetConfigId)) {
                 LOGGER.info("Task {} configuration ID matches target: {}",
                         taskInfo.getName(), taskConfigId);
+            } else if (targetConfigHash != null
+                    && targetConfigHash.equals(configHashes.computeIfAbsent(taskConfigId, id -> fetchHash(id)))) {
+                // Task's config has the same content as the target. Update task's config ID to match target,
+                // and allow the duplicate config to be dropped from configStore.
+                LOGGER.info("Task {} config {} has the same content as target {}. Updating task configuration to {}.",
+                        taskInfo.getName(), taskConfigId, targetConfigId, targetConfigId);
+                taskInfosToUpdate.add(
+                        CommonTaskUtils.setTargetConfiguration(taskInfo.toBuilder(), targetConfigId).build());
             } else {
                 try {
-                    final ServiceSpec taskConfig = configStore.fetch(taskConfigId);
+                    ServiceSpec taskConfig = fetchedConfigs.get(taskConfigId);
+                    if (taskConfig == null) {
+                        taskConfig = configStore.fetch(taskConfigId);
+                        fetchedConfigs.put(taskConfigId, taskConfig);
+                    }
                     if (!needsConfigUpdate(taskInfo, targetConfig, taskConfig)) {
                         // Task is effectively already on the target config. Update task's config ID to match target,
                         // and allow the duplicate config to be dropped from configStore.
@@ -191,17 +207,47 @@ public class DefaultConfigurationUpdater implements ConfigurationUpdater<Service
             stateStore.storeTasks(taskInfosToUpdate);
         }
 
-        for (UUID configId : configStore.list()) {
+        // Configs which can't be deserialized are left as-is. Content which is known to be readable (including that
+        // of the target) doesn't need to be deserialized again.
+        Set<String> readableHashes = new HashSet<>();
+        if (targetConfigHash != null) {
+            readableHashes.add(targetConfigHash);
+        }
+        Collection<UUID> configIds = configStore.list();
+        for (UUID configId : configIds) {
+            if (neededConfigs.contains(configId)) {
+                continue;
+            }
+            String configHash = configHashes.computeIfAbsent(configId, id -> fetchHash(id));
+            if (configHash != null && readableHashes.contains(configHash)) {
+                LOGGER.info("Config {} has the same content as a readable config", configId);
+                continue;
+            }
             try {
                 ServiceSpec serviceSpec = configStore.fetch(configId);
                 LOGGER.info("Config {} : {} ", configId, serviceSpec.getName());
+                if (configHash != null) {
+                    readableHashes.add(configHash);
+                }
             } catch (Exception e) {
                 LOGGER.info("Config {} has incompatible format, leaving it as-is : {}", configId, e.getMessage());
                 neededConfigs.add(configId);
             }
         }
 
-        clearConfigsNotListed(neededConfigs);
+        clearConfigsNotListed(configIds, neededConfigs);
+    }
+
+    /**
+     * Returns the hash of the content of the provided config, or {@code null} if it couldn't be retrieved.
+     */
+    private String fetchHash(UUID configId) {
+        try {
+            return configStore.fetchHash(configId);
+        } catch (ConfigStoreException e) {
+            LOGGER.warn(String.format("Unable to fetch hash of config %s", configId), e);
+            return null;
+        }
     }
 
     private static void printConfigDiff(ServiceSpec oldConfig, UUID oldConfigId, String newConfigJson) {
@@ -281,21 +327,19 @@ public class DefaultConfigurationUpdater implements ConfigurationUpdater<Service
     }
 
     /**
-     * Searches for any config IDs which are no longer active and removes them from the config
-     * store.
+     * Removes any of the provided config IDs which are no longer active from the config store.
      *
      * @throws ConfigStoreException if config access fails
      */
-    private void clearConfigsNotListed(Set<UUID> neededConfigs) throws ConfigStoreException {
+    private void clearConfigsNotListed(Collection<UUID> configIds, Set<UUID> neededConfigs)
+            throws ConfigStoreException {
         final Set<UUID> configsToClear = new HashSet<>();
-        for (UUID configId : configStore.list()) {
+        for (UUID configId : configIds) {
             if (!neededConfigs.contains(configId)) {
                 configsToClear.add(configId);
             }
         }
         LOGGER.info("Cleaning up {} unused configs: {}", configsToClear.size(), configsToClear);
-        for (UUID configToClear : configsToClear) {
-            configStore.clear(configToClear);
-        }
+        configStore.clear(configsToClear);
     }
 }
@@ -1,5 +1,7 @@
 package com.mesosphere.sdk.curator;
 
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
 import org.apache.curator.RetryPolicy;
 import com.mesosphere.sdk.config.ConfigStore;
 import com.mesosphere.sdk.config.ConfigStoreException;
@@ -7,14 +9,27 @@ import com.mesosphere.sdk.config.Configuration;
 import com.mesosphere.sdk.config.ConfigurationFactory;
 import com.mesosphere.sdk.dcos.DcosConstants;
 import com.mesosphere.sdk.state.SchemaVersionStore;
+import com.mesosphere.sdk.storage.Persister;
 import com.mesosphere.sdk.storage.StorageError.Reason;
 import org.apache.zookeeper.KeeperException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * A CuratorConfigStore stores String Configurations in Zookeeper.
@@ -23,9 +38,20 @@ import java.util.UUID;
  * rootPath
  *     -> ConfigTarget (contains UUID)
  *     -> Configurations/
- *         -> [Config-ID-0] (contains serialized config)
- *         -> [Config-ID-1] (contains serialized config)
+ *         -> [Config-ID-0] (contains "sha256:[Hash-A]")
+ *         -> [Config-ID-1] (contains "sha256:[Hash-A]")
+ *         -> [Config-ID-2] (contains serialized config, if stored by an earlier version)
  *         -> ...
+ *     -> ConfigContent/
+ *         -> [Hash-A] (contains deflate-compressed serialized config)
+ *         -> ...
+ *     -> ConfigReferencesToken (contains a random UUID, replaced whenever a reference is stored)
+ *
+ * Configurations are stored by the hash of their serialized content, such that each distinct configuration is only
+ * stored once no matter how many IDs it's been stored under, and is removed once no IDs refer to it. Content is only
+ * removed if no reference has been stored since the remaining references were read, as indicated by an unchanged
+ * ConfigReferencesToken. Hash references were added in schema version 2: older versions would misread them as
+ * serialized configs, so opening a version 1 store upgrades it to version 2, which older versions refuse to open.
  *
  * @param <T> The {@code Configuration} object to be serialized and deserialized in the
  *            implementation of this interface
@@ -38,14 +64,29 @@ public class CuratorConfigStore<T extends Configuration> implements ConfigStore<
      * @see CuratorSchemaVersionStore#CURRENT_SCHEMA_VERSION
      */
     private static final int MIN_SUPPORTED_SCHEMA_VERSION = 1;
-    private static final int MAX_SUPPORTED_SCHEMA_VERSION = 1;
+    private static final int MAX_SUPPORTED_SCHEMA_VERSION = 2;
+
+    /**
+     * The first schema version whose configurations may be stored as hash references.
+     */
+    private static final int HASH_REFERENCE_SCHEMA_VERSION = 2;
+
+    /**
+     * Number of times to attempt deleting unreferenced content in clear(), should references be stored concurrently.
+     */
+    private static final int CLEAR_CONTENT_ATTEMPTS = 3;
 
     private static final String TARGET_PATH_NAME = "ConfigTarget";
     private static final String CONFIGURATIONS_PATH_NAME = "Configurations";
+    private static final String CONTENT_PATH_NAME = "ConfigContent";
+    private static final String REFERENCES_TOKEN_PATH_NAME = "ConfigReferencesToken";
+    private static final String HASH_REFERENCE_PREFIX = "sha256:";
 
     private final ConfigurationFactory<T> factory;
-    private final CuratorPersister curator;
+    private final Persister curator;
     private final String configurationsPath;
+    private final String contentPath;
+    private final String referencesTokenPath;
     private final String targetPath;
 
     /**
@@ -102,11 +143,24 @@ public class CuratorConfigStore<T extends Configuration> implements ConfigStore<
             RetryPolicy retryPolicy,
             String username,
             String password) {
+        this(factory, frameworkName, new CuratorPersister(connectionString, retryPolicy, username, password));
+    }
+
+    /**
+     * Creates a new {@link ConfigStore} which stores data using the provided {@link Persister}. For example, a
+     * {@link com.mesosphere.sdk.storage.LocalPersister} may be provided where ZooKeeper isn't available.
+     *
+     * @param factory
+     * @param frameworkName The name of the framework
+     * @param persister The storage to be used
+     */
+    public CuratorConfigStore(ConfigurationFactory<T> factory, String frameworkName, Persister persister) {
         this.factory = factory;
-        this.curator = new CuratorPersister(connectionString, retryPolicy, username, password);
+        this.curator = persister;
 
         // Check version up-front:
-        int currentVersion = new CuratorSchemaVersionStore(curator, frameworkName).fetch();
+        SchemaVersionStore schemaVersionStore = new CuratorSchemaVersionStore(curator, frameworkName);
+        int currentVersion = schemaVersionStore.fetch();
         if (!SchemaVersionStore.isSupported(
                 currentVersion, MIN_SUPPORTED_SCHEMA_VERSION, MAX_SUPPORTED_SCHEMA_VERSION)) {
             throw new IllegalStateException(String.format(
@@ -114,19 +168,40 @@ public class CuratorConfigStore<T extends Configuration> implements ConfigStore<
                             "(support: min=%d, max=%d)",
                     currentVersion, MIN_SUPPORTED_SCHEMA_VERSION, MAX_SUPPORTED_SCHEMA_VERSION));
         }
+        if (currentVersion < HASH_REFERENCE_SCHEMA_VERSION) {
+            // Configurations stored by earlier versions remain readable as-is, so there's nothing to migrate. Record
+            // that hash references may now be stored, so that earlier versions don't misread them.
+            logger.info("Upgrading storage schema version from {} to {}",
+                    currentVersion, HASH_REFERENCE_SCHEMA_VERSION);
+            schemaVersionStore.store(HASH_REFERENCE_SCHEMA_VERSION);
+        }
 
         final String rootPath = CuratorUtils.toServiceRootPath(frameworkName);
         this.targetPath = CuratorUtils.join(rootPath, TARGET_PATH_NAME);
         this.configurationsPath = CuratorUtils.join(rootPath, CONFIGURATIONS_PATH_NAME);
+        this.contentPath = CuratorUtils.join(rootPath, CONTENT_PATH_NAME);
+        this.referencesTokenPath = CuratorUtils.join(rootPath, REFERENCES_TOKEN_PATH_NAME);
     }
 
+    /**
+     * Stores the provided configuration under a new UUID. If a configuration with identical content has already been
+     * stored, the new UUID refers to that content rather than storing another copy of it. The reference, the content,
+     * and a new references token are written in a single transaction, so that a concurrent {@link #clear(Collection)}
+     * either sees the reference or fails to delete the content.
+     */
     @Override
     public UUID store(T config) throws ConfigStoreException {
         UUID id = UUID.randomUUID();
         String path = getConfigPath(id);
         byte[] data = config.getBytes();
+        String hash = toHash(data);
+        String hashContentPath = getContentPath(hash);
         try {
-            curator.set(path, data);
+            Map<String, byte[]> writes = new HashMap<>();
+            writes.put(path, toReference(hash));
+            writes.put(hashContentPath, compress(data));
+            writes.put(referencesTokenPath, CuratorUtils.serialize(UUID.randomUUID()));
+            curator.setMany(writes);
         } catch (Exception e) {
             throw new ConfigStoreException(Reason.STORAGE_ERROR, String.format(
                     "Failed to store configuration to path '%s': %s", path, config), e);
@@ -138,33 +213,98 @@ public class CuratorConfigStore<T extends Configuration> implements ConfigStore<
     @Override
     public T fetch(UUID id) throws ConfigStoreException {
         String path = getConfigPath(id);
-        byte[] data;
-        try {
-            data = curator.get(path);
-        } catch (KeeperException.NoNodeException e) {
-            throw new ConfigStoreException(Reason.NOT_FOUND, String.format(
-                    "Configuration '%s' was not found at path '%s'", id, path), e);
-        } catch (Exception e) {
-            throw new ConfigStoreException(Reason.STORAGE_ERROR, String.format(
-                    "Failed to retrieve configuration '%s' from path '%s'", id, path), e);
+        byte[] data = fetchConfigNode(id);
+        String hash = parseReference(data);
+        if (hash != null) {
+            String hashContentPath = getContentPath(hash);
+            try {
+                data = decompress(curator.get(hashContentPath));
+            } catch (KeeperException.NoNodeException e) {
+                throw new ConfigStoreException(Reason.NOT_FOUND, String.format(
+                        "Content of configuration '%s' was not found at path '%s'", id, hashContentPath), e);
+            } catch (IOException e) {
+                throw new ConfigStoreException(Reason.SERIALIZATION_ERROR, String.format(
+                        "Failed to decompress configuration '%s' from path '%s'", id, hashContentPath), e);
+            } catch (Exception e) {
+                throw new ConfigStoreException(Reason.STORAGE_ERROR, String.format(
+                        "Failed to retrieve configuration '%s' from path '%s'", id, path), e);
+            }
         }
         return factory.parse(data);
     }
 
+    /**
+     * Returns the hash of the configuration's content without fetching or deserializing the content itself, except for
+     * configurations which were stored by an earlier version.
+     */
+    @Override
+    public String fetchHash(UUID id) throws ConfigStoreException {
+        byte[] data = fetchConfigNode(id);
+        String hash = parseReference(data);
+        return hash != null ? hash : toHash(data);
+    }
+
     @Override
     public void clear(UUID id) throws ConfigStoreException {
-        String path = getConfigPath(id);
+        clear(Arrays.asList(id));
+    }
+
+    /**
+     * Deletes the provided configurations, and then any content which no remaining configuration refers to. The
+     * remaining references are only read once, however many configurations are deleted, and are read again only if a
+     * reference is stored concurrently.
+     */
+    @Override
+    public void clear(Collection<UUID> ids) throws ConfigStoreException {
+        Map<String, UUID> pathIds = new HashMap<>();
+        for (UUID id : ids) {
+            pathIds.put(getConfigPath(id), id);
+        }
+        Set<String> clearedHashes = new HashSet<>();
         try {
-            curator.delete(path);
-        } catch (KeeperException.NoNodeException e) {
-            // Clearing a non-existent Configuration should not
-            // result in an exception.
-            logger.warn("Requested configuration '{}' to be deleted does not exist at path '{}'",
-                    id, path);
+            Map<String, byte[]> pathData = curator.getMany(pathIds.keySet());
+            for (Map.Entry<String, UUID> entry : pathIds.entrySet()) {
+                byte[] data = pathData.get(entry.getKey());
+                if (data == null) {
+                    // Clearing a non-existent Configuration should not
+                    // result in an exception.
+                    logger.warn("Requested configuration '{}' to be deleted does not exist at path '{}'",
+                            entry.getValue(), entry.getKey());
+                    continue;
+                }
+                try {
+                    curator.delete(entry.getKey());
+                } catch (KeeperException.NoNodeException e) {
+                    logger.warn("Requested configuration '{}' to be deleted does not exist at path '{}'",
+                            entry.getValue(), entry.getKey());
+                    continue;
+                }
+                String hash = parseReference(data);
+                if (hash != null) {
+                    clearedHashes.add(hash);
+                }
+            }
+        } catch (Exception e) {
+            throw new ConfigStoreException(Reason.STORAGE_ERROR, String.format(
+                    "Failed to delete configurations %s", pathIds.values()), e);
+        }
+        if (clearedHashes.isEmpty()) {
             return;
+        }
+
+        try {
+            for (int i = 0; i < CLEAR_CONTENT_ATTEMPTS; ++i) {
+                if (deleteUnreferencedContent(clearedHashes)) {
+                    return;
+                }
+                logger.info("Configuration references changed while deleting content (attempt {}/{})",
+                        i + 1, CLEAR_CONTENT_ATTEMPTS);
+            }
+            // Leaving content behind is harmless, and it's deleted once a later clear() gets through.
+            logger.warn("Configuration references kept changing, leaving content in place: {}", clearedHashes);
         } catch (Exception e) {
             throw new ConfigStoreException(Reason.STORAGE_ERROR, String.format(
-                    "Failed to delete configuration '%s' at path '%s'", id, path), e);
+                    "Failed to delete unreferenced content of configurations %s", pathIds.values()), e);
         }
     }
 
@@ -230,4 +370,104 @@ public class CuratorConfigStore<T extends Configuration> implements ConfigStore<
     private String getConfigPath(UUID id) {
         return CuratorUtils.join(configurationsPath, id.toString());
     }
+
+    private String getContentPath(String hash) {
+        return CuratorUtils.join(contentPath, hash);
+    }
+
+    /**
+     * Returns the data stored against the provided ID: either a reference to its content, or the serialized content.
+     */
+    private byte[] fetchConfigNode(UUID id) throws ConfigStoreException {
+        String path = getConfigPath(id);
+        try {
+            return curator.get(path);
+        } catch (KeeperException.NoNodeException e) {
+            throw new ConfigStoreException(Reason.NOT_FOUND, String.format(
+                    "Configuration '%s' was not found at path '%s'", id, path), e);
+        } catch (Exception e) {
+            throw new ConfigStoreException(Reason.STORAGE_ERROR, String.format(
+                    "Failed to retrieve configuration '%s' from path '%s'", id, path), e);
+        }
+    }
+
+    /**
+     * Deletes the content of any of the provided hashes which no configuration refers to, so long as no reference is
+     * stored in the meantime.
+     *
+     * @return whether the references were unchanged, in which case the unreferenced content was deleted
+     */
+    private boolean deleteUnreferencedContent(Collection<String> hashes) throws Exception {
+        // Read the token before the references: a reference stored after this read changes the token.
+        byte[] referencesToken = curator.getMany(Arrays.asList(referencesTokenPath)).get(referencesTokenPath);
+        if (referencesToken == null) {
+            // Stored references always write a token, so there's no content to delete.
+            return true;
+        }
+        Set<String> unreferencedHashes = new HashSet<>(hashes);
+        unreferencedHashes.removeAll(getReferencedHashes());
+        if (unreferencedHashes.isEmpty()) {
+            return true;
+        }
+        List<String> paths = new ArrayList<>();
+        for (String hash : unreferencedHashes) {
+            paths.add(getContentPath(hash));
+        }
+        return curator.deleteManyIfUnchanged(referencesTokenPath, referencesToken, paths);
+    }
+
+    /**
+     * Returns the hashes of all content which stored configuration IDs still refer to.
+     */
+    private Set<String> getReferencedHashes() throws Exception {
+        List<String> paths = new ArrayList<>();
+        for (String id : curator.getChildren(configurationsPath)) {
+            paths.add(CuratorUtils.join(configurationsPath, id));
+        }
+        Set<String> hashes = new HashSet<>();
+        for (byte[] data : curator.getMany(paths).values()) {
+            String hash = parseReference(data);
+            if (hash != null) {
+                hashes.add(hash);
+            }
+        }
+        return hashes;
+    }
+
+    private static String toHash(byte[] data) {
+        return Hashing.sha256().hashBytes(data).toString();
+    }
+
+    private static byte[] toReference(String hash) {
+        return (HASH_REFERENCE_PREFIX + hash).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the hash referenced by the provided data, or {@code null} if the data is a serialized configuration
+     * which was stored by an earlier version.
+     */
+    private static String parseReference(byte[] data) {
+        if (data.length <= HASH_REFERENCE_PREFIX.length()) {
+            return null;
+        }
+        String prefix = new String(data, 0, HASH_REFERENCE_PREFIX.length(), StandardCharsets.UTF_8);
+        if (!prefix.equals(HASH_REFERENCE_PREFIX)) {
+            return null;
+        }
+        return new String(data, StandardCharsets.UTF_8).substring(HASH_REFERENCE_PREFIX.length());
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] data) throws IOException {
+        try (InflaterInputStream inflater = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return ByteStreams.toByteArray(inflater);
+        }
+    }
 }
@@ -1,19 +1,33 @@
 package com.mesosphere.sdk.curator;
 
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.storage.Persister;
 import org.apache.curator.RetryPolicy;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.api.CuratorEvent;
 import org.apache.curator.framework.api.transaction.CuratorTransaction;
 import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The CuratorPersistor implementation of the {@link Persister} interface
  * provides for persistence and retrieval of data from Zookeeper.
+ *
+ * Paths which are known to exist are cached, so that writes to them don't need a round trip to check for their
+ * existence first. The cache is updated by this instance's own reads, writes, and deletes, and optionally by a
+ * {@link TreeCache} watch (see {@link #watch(String)}) which picks up changes made by other parties. A stale entry can
+ * only cause a write transaction to fail, in which case the failing path is evicted and the transaction is retried.
  */
 public class CuratorPersister implements Persister {
 
@@ -25,8 +39,20 @@ public class CuratorPersister implements Persister {
      */
     private static final int ATOMIC_WRITE_ATTEMPTS = 3;
 
+    /**
+     * Maximum number of reads to have outstanding against ZooKeeper at once in getMany().
+     */
+    private static final int MAX_IN_FLIGHT_READS = 64;
+
     private final CuratorFramework client;
 
+    /**
+     * Paths which are believed to exist. The parents of any path in this set are assumed to exist as well.
+     */
+    private final Set<String> knownPaths = ConcurrentHashMap.newKeySet();
+
+    private TreeCache treeCache = null;
+
     public CuratorPersister(String connectionString, RetryPolicy retryPolicy) {
         this(createClient(connectionString, retryPolicy));
     }
@@ -39,67 +65,265 @@ public class CuratorPersister implements Persister {
         this.client = client;
     }
 
+    /**
+     * Starts watching the tree under the provided path, so that nodes created or deleted by other parties are
+     * reflected in the cache of existing paths. Without a watch, the cache is only updated by this instance, and any
+     * out-of-band deletes are instead detected when a write to a deleted path fails and is retried.
+     *
+     * @param rootPath the root of the tree to watch, e.g. the service's root path
+     */
+    public synchronized void watch(String rootPath) throws Exception {
+        if (treeCache != null) {
+            throw new IllegalStateException("Already watching a tree");
+        }
+        treeCache = TreeCache.newBuilder(client, rootPath).setCacheData(false).build();
+        treeCache.getListenable().addListener((CuratorFramework c, TreeCacheEvent event) -> {
+            switch (event.getType()) {
+            case NODE_ADDED:
+                knownPaths.add(event.getData().getPath());
+                break;
+            case NODE_REMOVED:
+                forget(event.getData().getPath());
+                break;
+            case CONNECTION_SUSPENDED:
+            case CONNECTION_LOST:
+            case CONNECTION_RECONNECTED:
+                // Changes may have been missed while disconnected. The TreeCache re-adds nodes once reconnected.
+                knownPaths.clear();
+                break;
+            default:
+                break;
+            }
+        });
+        treeCache.start();
+    }
+
     @Override
     public void setMany(Map<String, byte[]> pathBytesMap) throws Exception {
         if (pathBytesMap.isEmpty()) {
             return;
         }
+        long startNanos = System.nanoTime();
+        try {
+            setManyAttempts(pathBytesMap);
+        } finally {
+            Metrics.recordSince(Metrics.ZK_SET_MANY, startNanos);
+        }
+    }
+
+    private void setManyAttempts(Map<String, byte[]> pathBytesMap) throws Exception {
         for (int i = 0; i < ATOMIC_WRITE_ATTEMPTS; ++i) {
-            // Phase 1: Determine which nodes already exist. This determination can be rendered
-            //          invalid by an out-of-band change to the data.
+            // Phase 1: Determine which nodes already exist, only querying those which aren't already known to exist.
+            //          This determination can be rendered invalid by an out-of-band change to the data.
             final Set<String> pathsWhichExist = selectPathsWhichExist(pathBytesMap.keySet());
-            List<String> parentPathsToCreate = getParentPathsToCreate(pathBytesMap.keySet(), pathsWhichExist);
+            Collection<String> parentPathsToCreate = getParentPathsToCreate(pathBytesMap.keySet(), pathsWhichExist);
 
             logger.debug("Atomic write attempt {}/{}:\n-Parent paths: {}\n-All paths: {}\n-Paths which exist: {}",
                     i + 1, ATOMIC_WRITE_ATTEMPTS, parentPathsToCreate, pathBytesMap.keySet(), pathsWhichExist);
 
             // Phase 2: Compose a single transaction that updates and/or creates nodes according to
             //          the above determinations (retry if there's an out-of-band modification)
+            final List<String> operationPaths = new ArrayList<>();
             final CuratorTransactionFinal transaction =
-                    getTransaction(pathBytesMap, pathsWhichExist, parentPathsToCreate);
-            if (i + 1 < ATOMIC_WRITE_ATTEMPTS) {
-                try {
-                    transaction.commit();
-                    break; // Success!
-                } catch (Exception e) {
-                    // Transaction failed! Bad connection? Existence check rendered invalid?
-                    // Swallow exception and try again
-                    logger.error(String.format("Failed to complete transaction attempt %d/%d: %s",
-                            i + 1, ATOMIC_WRITE_ATTEMPTS, transaction), e);
-                }
-            } else {
-                // Last try: Any exception should be forwarded upstream
+                    getTransaction(pathBytesMap, pathsWhichExist, parentPathsToCreate, operationPaths);
+            try {
                 transaction.commit();
+            } catch (Exception e) {
+                // Transaction failed! Bad connection? Existence check rendered invalid?
+                // Evict whichever paths may be stale so that they're checked again in the next attempt.
+                forgetFailedPaths(e, operationPaths);
+                if (i + 1 >= ATOMIC_WRITE_ATTEMPTS) {
+                    // Last try: Any exception should be forwarded upstream
+                    throw e;
+                }
+                // Swallow exception and try again
+                Metrics.counter(Metrics.ZK_SET_MANY_RETRIES).inc();
+                logger.error(String.format("Failed to complete transaction attempt %d/%d: %s",
+                        i + 1, ATOMIC_WRITE_ATTEMPTS, transaction), e);
+                continue;
             }
+            knownPaths.addAll(operationPaths);
+            for (String path : pathBytesMap.keySet()) {
+                knownPaths.addAll(CuratorUtils.getParentPaths(path));
+            }
+            break; // Success!
         }
     }
 
     @Override
     public void set(String path, byte[] bytes) throws Exception {
+        long startNanos = System.nanoTime();
+        try {
+            setPath(path, bytes);
+        } finally {
+            Metrics.recordSince(Metrics.ZK_SET, startNanos);
+        }
+    }
+
+    private void setPath(String path, byte[] bytes) throws Exception {
+        if (knownPaths.contains(path)) {
+            try {
+                client.setData().forPath(path, bytes);
+                return;
+            } catch (KeeperException.NoNodeException e) {
+                forget(path);
+            }
+        }
         try {
             client.create().creatingParentsIfNeeded().forPath(path, bytes);
         } catch (KeeperException.NodeExistsException e) {
             client.setData().forPath(path, bytes);
         }
+        knownPaths.add(path);
     }
 
     @Override
     public byte[] get(String path) throws Exception {
-        return client.getData().forPath(path);
+        long startNanos = System.nanoTime();
+        try {
+            byte[] bytes = client.getData().forPath(path);
+            knownPaths.add(path);
+            return bytes;
+        } finally {
+            Metrics.recordSince(Metrics.ZK_GET, startNanos);
+        }
+    }
+
+    /**
+     * Issues asynchronous reads for all of the provided paths, with up to {@link #MAX_IN_FLIGHT_READS} outstanding at
+     * once, and waits for them all to complete. This takes a few pipelined round trips rather than one per path.
+     */
+    @Override
+    public Map<String, byte[]> getMany(Collection<String> paths) throws Exception {
+        long startNanos = System.nanoTime();
+        try {
+            return getManyInBackground(paths);
+        } finally {
+            Metrics.recordSince(Metrics.ZK_GET_MANY, startNanos);
+        }
+    }
+
+    private Map<String, byte[]> getManyInBackground(Collection<String> paths) throws Exception {
+        final Map<String, byte[]> pathBytesMap = new ConcurrentHashMap<>();
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT_READS);
+
+        for (String path : paths) {
+            inFlight.acquire();
+            if (error.get() != null) {
+                inFlight.release();
+                break;
+            }
+            try {
+                client.getData().inBackground((CuratorFramework c, CuratorEvent event) -> {
+                    try {
+                        KeeperException.Code code = KeeperException.Code.get(event.getResultCode());
+                        if (code == KeeperException.Code.OK) {
+                            pathBytesMap.put(path, event.getData() == null ? new byte[0] : event.getData());
+                        } else if (code != KeeperException.Code.NONODE) {
+                            error.compareAndSet(null, KeeperException.create(code, path));
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                }).forPath(path);
+            } catch (Exception e) {
+                inFlight.release();
+                error.compareAndSet(null, e);
+                break;
+            }
+        }
+
+        // Wait for all outstanding reads to complete:
+        inFlight.acquire(MAX_IN_FLIGHT_READS);
+        if (error.get() != null) {
+            throw error.get();
+        }
+        knownPaths.addAll(pathBytesMap.keySet());
+        return pathBytesMap;
     }
 
     @Override
     public void delete(String path) throws Exception {
-        client.delete().deletingChildrenIfNeeded().forPath(path);
+        long startNanos = System.nanoTime();
+        try {
+            client.delete().deletingChildrenIfNeeded().forPath(path);
+        } finally {
+            forget(path);
+            Metrics.recordSince(Metrics.ZK_DELETE, startNanos);
+        }
+    }
+
+    /**
+     * Deletes the paths in a single transaction which also checks that {@code checkPath} is still at the version whose
+     * data was compared. If the transaction fails, the data is compared again before retrying.
+     */
+    @Override
+    public boolean deleteManyIfUnchanged(String checkPath, byte[] checkBytes, Collection<String> paths)
+            throws Exception {
+        long startNanos = System.nanoTime();
+        try {
+            return deleteManyIfUnchangedAttempts(checkPath, checkBytes, paths);
+        } finally {
+            for (String path : paths) {
+                forget(path);
+            }
+            Metrics.recordSince(Metrics.ZK_DELETE, startNanos);
+        }
+    }
+
+    private boolean deleteManyIfUnchangedAttempts(String checkPath, byte[] checkBytes, Collection<String> paths)
+            throws Exception {
+        for (int i = 0; i < ATOMIC_WRITE_ATTEMPTS; ++i) {
+            Stat checkStat = new Stat();
+            try {
+                if (!Arrays.equals(checkBytes, client.getData().storingStatIn(checkStat).forPath(checkPath))) {
+                    return false;
+                }
+            } catch (KeeperException.NoNodeException e) {
+                return false;
+            }
+
+            CuratorTransactionFinal transaction =
+                    client.inTransaction().check().withVersion(checkStat.getVersion()).forPath(checkPath).and();
+            for (String path : paths) {
+                if (client.checkExists().forPath(path) != null) {
+                    transaction = transaction.delete().forPath(path).and();
+                }
+            }
+            try {
+                transaction.commit();
+                return true;
+            } catch (KeeperException e) {
+                // The checked path was modified, or one of the paths was deleted by another party.
+                if (i + 1 >= ATOMIC_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn(String.format("Failed to complete delete transaction attempt %d/%d: %s",
+                        i + 1, ATOMIC_WRITE_ATTEMPTS, transaction), e);
+            }
+        }
+        return false;
     }
 
     @Override
     public Collection<String> getChildren(String path) throws Exception {
-        return client.getChildren().forPath(path);
+        long startNanos = System.nanoTime();
+        try {
+            return client.getChildren().forPath(path);
+        } finally {
+            Metrics.recordSince(Metrics.ZK_GET_CHILDREN, startNanos);
+        }
     }
 
     @Override
     public void close() {
+        synchronized (this) {
+            if (treeCache != null) {
+                treeCache.close();
+                treeCache = null;
+            }
+        }
         client.close();
     }
 
@@ -138,24 +362,28 @@ public class CuratorPersister implements Persister {
     private Set<String> selectPathsWhichExist(Set<String> paths) throws Exception {
         Set<String> pathsWhichExist = new HashSet<>();
         for (String path : paths) {
-            if (client.checkExists().forPath(path) != null) {
+            if (knownPaths.contains(path) || client.checkExists().forPath(path) != null) {
                 pathsWhichExist.add(path);
             }
         }
         return pathsWhichExist;
     }
 
-    private List<String> getParentPathsToCreate(Set<String> paths, Set<String> pathsWhichExist)
+    private Collection<String> getParentPathsToCreate(Set<String> paths, Set<String> pathsWhichExist)
             throws Exception {
-        List<String> parentPathsToCreate = new ArrayList<>();
+        // Parents are shared between many paths, so only check each one once.
+        Set<String> checkedParentPaths = new HashSet<>();
+        Set<String> parentPathsToCreate = new LinkedHashSet<>();
         for (String path : paths) {
             if (pathsWhichExist.contains(path)) {
                 continue;
             }
             // Transaction interface doesn't support creatingParentsIfNeeded(), so go manual.
             for (String parentPath : CuratorUtils.getParentPaths(path)) {
-                if (client.checkExists().forPath(parentPath) == null
-                        && !parentPathsToCreate.contains(parentPath)) {
+                if (knownPaths.contains(parentPath) || !checkedParentPaths.add(parentPath)) {
+                    continue;
+                }
+                if (client.checkExists().forPath(parentPath) == null) {
                     parentPathsToCreate.add(parentPath);
                 }
             }
@@ -163,15 +391,21 @@ public class CuratorPersister implements Persister {
         return parentPathsToCreate;
     }
 
+    /**
+     * Returns a transaction which creates the provided parent paths, then creates or updates each of the provided
+     * paths. The path of each operation is added to {@code operationPaths}, in the order of the operations.
+     */
     private CuratorTransactionFinal getTransaction(
             Map<String, byte[]> pathBytesMap,
             Set<String> pathsWhichExist,
-            List<String> parentPathsToCreate) throws Exception {
+            Collection<String> parentPathsToCreate,
+            List<String> operationPaths) throws Exception {
         CuratorTransactionFinal transactionFinal = null;
         CuratorTransaction transaction = client.inTransaction();
         for (String parentPath : parentPathsToCreate) {
             transactionFinal = transaction.create().forPath(parentPath).and();
             transaction = transactionFinal;
+            operationPaths.add(parentPath);
         }
         for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
             if (pathsWhichExist.contains(entry.getKey())) {
@@ -180,7 +414,45 @@ public class CuratorPersister implements Persister {
                 transactionFinal = transaction.create().forPath(entry.getKey(), entry.getValue()).and();
             }
             transaction = transactionFinal;
+            operationPaths.add(entry.getKey());
         }
         return transactionFinal;
     }
+
+    /**
+     * Evicts the paths implicated in a failed transaction from the cache of known paths. When ZooKeeper reports which
+     * operation failed, only that operation's path (and its parents, in case one of them was deleted) is evicted.
+     * Otherwise all of the paths in the transaction are evicted.
+     */
+    private void forgetFailedPaths(Exception e, List<String> operationPaths) {
+        if (e instanceof KeeperException) {
+            List<OpResult> results = ((KeeperException) e).getResults();
+            if (results != null) {
+                for (int i = 0; i < results.size() && i < operationPaths.size(); ++i) {
+                    OpResult result = results.get(i);
+                    if (result instanceof OpResult.ErrorResult
+                            && ((OpResult.ErrorResult) result).getErr() != KeeperException.Code.OK.intValue()
+                            && ((OpResult.ErrorResult) result).getErr()
+                                    != KeeperException.Code.RUNTIMEINCONSISTENCY.intValue()) {
+                        String failedPath = operationPaths.get(i);
+                        knownPaths.remove(failedPath);
+                        knownPaths.removeAll(CuratorUtils.getParentPaths(failedPath));
+                        return;
+                    }
+                }
+            }
+        }
+        knownPaths.removeAll(operationPaths);
+        for (String path : operationPaths) {
+            knownPaths.removeAll(CuratorUtils.getParentPaths(path));
+        }
+    }
+
+    /**
+     * Evicts the provided path and any of its children from the cache of known paths.
+     */
+    private void forget(String path) {
+        String childPrefix = path.endsWith("/") ? path : path + "/";
+        knownPaths.removeIf(knownPath -> knownPath.equals(path) || knownPath.startsWith(childPrefix));
+    }
 }
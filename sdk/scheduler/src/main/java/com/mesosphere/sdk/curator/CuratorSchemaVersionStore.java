@@ -28,7 +28,7 @@ public class CuratorSchemaVersionStore implements SchemaVersionStore {
      * @see CuratorStateStore#MIN_SUPPORTED_SCHEMA_VERSION
      * @see CuratorStateStore#MAX_SUPPORTED_SCHEMA_VERSION
      */
-    static final int CURRENT_SCHEMA_VERSION = 1;
+    static final int CURRENT_SCHEMA_VERSION = 2;
 
     /**
      * This name/path must remain the same forever. It's the basis of all other migrations.
@@ -3,6 +3,7 @@ package com.mesosphere.sdk.curator;
 import com.google.common.annotations.VisibleForTesting;
 import com.mesosphere.sdk.dcos.DcosConstants;
 import com.mesosphere.sdk.offer.CommonTaskUtils;
+import com.mesosphere.sdk.offer.TaskException;
 import com.mesosphere.sdk.state.*;
 import com.mesosphere.sdk.storage.Persister;
 import com.mesosphere.sdk.storage.StorageError.Reason;
@@ -17,6 +18,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -46,10 +48,12 @@ public class CuratorStateStore implements StateStore {
     private static final Logger logger = LoggerFactory.getLogger(CuratorStateStore.class);
 
     /**
+     * Version 2 only changed the format of {@link CuratorConfigStore}'s data, which this store doesn't read.
+     *
      * @see CuratorSchemaVersionStore#CURRENT_SCHEMA_VERSION
      */
     private static final int MIN_SUPPORTED_SCHEMA_VERSION = 1;
-    private static final int MAX_SUPPORTED_SCHEMA_VERSION = 1;
+    private static final int MAX_SUPPORTED_SCHEMA_VERSION = 2;
 
     private static final String TASK_INFO_PATH_NAME = "TaskInfo";
     private static final String TASK_STATUS_PATH_NAME = "TaskStatus";
@@ -110,7 +114,20 @@ public class CuratorStateStore implements StateStore {
             RetryPolicy retryPolicy,
             String username,
             String password) {
-        this.curator = new CuratorPersister(connectionString, retryPolicy, username, password);
+        this(frameworkName, createWatchedPersister(
+                new CuratorPersister(connectionString, retryPolicy, username, password), frameworkName));
+    }
+
+    /**
+     * Creates a new {@link StateStore} which stores data using the provided {@link Persister}. For example, a
+     * {@link com.mesosphere.sdk.storage.WriteBehindPersister} may be provided to batch writes to ZooKeeper, or a
+     * {@link com.mesosphere.sdk.storage.LocalPersister} where ZooKeeper isn't available.
+     *
+     * @param frameworkName    The name of the framework
+     * @param persister        The storage to be used, typically wrapping a {@link CuratorPersister}
+     */
+    public CuratorStateStore(String frameworkName, Persister persister) {
+        this.curator = persister;
 
         // Check version up-front:
         int currentVersion = new CuratorSchemaVersionStore(curator, frameworkName).fetch();
@@ -195,26 +212,7 @@ public class CuratorStateStore implements StateStore {
 
     @Override
     public void storeStatus(Protos.TaskStatus status) throws StateStoreException {
-        Optional<Protos.TaskInfo> taskInfoOptional = Optional.empty();
-
-        for (Protos.TaskInfo taskInfo : fetchTasks()) {
-            if (taskInfo.getTaskId().getValue().equals(status.getTaskId().getValue())) {
-                if (taskInfoOptional.isPresent()) {
-                    logger.error("Found duplicate taskIDs in Task {} and  Task {}",
-                            taskInfoOptional.get(), taskInfo.getName());
-                    throw new StateStoreException(Reason.LOGIC_ERROR, String.format(
-                            "There are more than one tasks with TaskID: %s", status));
-                }
-                taskInfoOptional = Optional.of(taskInfo);
-            }
-        }
-
-        if (!taskInfoOptional.isPresent()) {
-            throw new StateStoreException(Reason.NOT_FOUND, String.format(
-                    "Failed to find a task with TaskID: %s", status));
-        }
-
-        String taskName = taskInfoOptional.get().getName();
+        String taskName = getTaskName(status);
         Optional<Protos.TaskStatus> currentStatusOptional = fetchStatus(taskName);
 
         if (currentStatusOptional.isPresent()
@@ -235,6 +233,44 @@ public class CuratorStateStore implements StateStore {
         }
     }
 
+    /**
+     * Returns the name of the stored task with the TaskID of the provided status. Well-formed TaskIDs include the task
+     * name, in which case only that task is fetched. Otherwise, all tasks are searched for a matching TaskID.
+     */
+    private String getTaskName(Protos.TaskStatus status) throws StateStoreException {
+        try {
+            String taskName = CommonTaskUtils.toTaskName(status.getTaskId());
+            Optional<Protos.TaskInfo> taskInfoOptional = fetchTask(taskName);
+            if (!taskInfoOptional.isPresent()
+                    || !taskInfoOptional.get().getTaskId().getValue().equals(status.getTaskId().getValue())) {
+                throw new StateStoreException(Reason.NOT_FOUND, String.format(
+                        "Failed to find a task with TaskID: %s", status));
+            }
+            return taskName;
+        } catch (TaskException e) {
+            logger.warn("Searching all tasks for malformed TaskID: {}", status.getTaskId().getValue());
+        }
+
+        Optional<Protos.TaskInfo> taskInfoOptional = Optional.empty();
+        for (Protos.TaskInfo taskInfo : fetchTasks()) {
+            if (taskInfo.getTaskId().getValue().equals(status.getTaskId().getValue())) {
+                if (taskInfoOptional.isPresent()) {
+                    logger.error("Found duplicate taskIDs in Task {} and  Task {}",
+                            taskInfoOptional.get(), taskInfo.getName());
+                    throw new StateStoreException(Reason.LOGIC_ERROR, String.format(
+                            "There are more than one tasks with TaskID: %s", status));
+                }
+                taskInfoOptional = Optional.of(taskInfo);
+            }
+        }
+
+        if (!taskInfoOptional.isPresent()) {
+            throw new StateStoreException(Reason.NOT_FOUND, String.format(
+                    "Failed to find a task with TaskID: %s", status));
+        }
+        return taskInfoOptional.get().getName();
+    }
+
     @Override
     public void clearTask(String taskName) throws StateStoreException {
         String path = taskPathMapper.getTaskPath(taskName);
@@ -273,15 +309,25 @@ public class CuratorStateStore implements StateStore {
 
     @Override
     public Collection<Protos.TaskInfo> fetchTasks() throws StateStoreException {
+        Collection<String> taskNames = fetchTaskNames();
+        Map<String, byte[]> taskBytesMap = fetchTaskData(taskNames, taskPathMapper::getTaskInfoPath);
         Collection<Protos.TaskInfo> taskInfos = new ArrayList<>();
-        for (String taskName : fetchTaskNames()) {
-            Optional<Protos.TaskInfo> taskInfoOptional = fetchTask(taskName);
-            if (taskInfoOptional.isPresent()) {
-                taskInfos.add(taskInfoOptional.get());
-            } else {
+        for (String taskName : taskNames) {
+            byte[] bytes = taskBytesMap.get(taskName);
+            if (bytes == null) {
                 // We should always have a TaskInfo for every name entry we just got
                 throw new StateStoreException(Reason.NOT_FOUND,
                         String.format("Expected task named %s to be present when retrieving all tasks", taskName));
+            } else if (bytes.length == 0) {
+                throw new StateStoreException(Reason.SERIALIZATION_ERROR, String.format(
+                        "Empty TaskInfo for TaskName: %s", taskName));
+            }
+            try {
+                // See note about unpacking in fetchTask() below.
+                taskInfos.add(CommonTaskUtils.unpackTaskInfo(Protos.TaskInfo.parseFrom(bytes)));
+            } catch (Exception e) {
+                throw new StateStoreException(Reason.STORAGE_ERROR,
+                        String.format("Failed to retrieve task named %s", taskName), e);
             }
         }
         return taskInfos;
@@ -313,15 +359,19 @@ public class CuratorStateStore implements StateStore {
 
     @Override
     public Collection<Protos.TaskStatus> fetchStatuses() throws StateStoreException {
-        Collection<Protos.TaskStatus> taskStatuses = new ArrayList<>();
-        for (String taskName : fetchTaskNames()) {
+        return fetchStatuses(fetchTaskNames()).values();
+    }
+
+    /**
+     * Returns a mapping of task name to status for each of the provided tasks which has a stored status.
+     */
+    private Map<String, Protos.TaskStatus> fetchStatuses(Collection<String> taskNames) throws StateStoreException {
+        // Tasks which lack a TaskStatus node are omitted. This may occur if the only contents are a TaskInfo.
+        Map<String, Protos.TaskStatus> taskStatuses = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry
+                : fetchTaskData(taskNames, taskPathMapper::getTaskStatusPath).entrySet()) {
             try {
-                byte[] bytes = curator.get(taskPathMapper.getTaskStatusPath(taskName));
-                taskStatuses.add(Protos.TaskStatus.parseFrom(bytes));
-            } catch (KeeperException.NoNodeException e) {
-                // The task node exists, but it doesn't contain a TaskStatus node. This may occur if
-                // the only contents are a TaskInfo.
-                continue;
+                taskStatuses.put(entry.getKey(), Protos.TaskStatus.parseFrom(entry.getValue()));
             } catch (Exception e) {
                 throw new StateStoreException(Reason.STORAGE_ERROR, e);
             }
@@ -329,6 +379,33 @@ public class CuratorStateStore implements StateStore {
         return taskStatuses;
     }
 
+    /**
+     * Fetches the data at each task's path in a single bulk read, returning a mapping of task name to data. Tasks
+     * which don't have any data at their path are omitted.
+     */
+    private Map<String, byte[]> fetchTaskData(Collection<String> taskNames, Function<String, String> getPath)
+            throws StateStoreException {
+        Map<String, String> pathToTaskName = new LinkedHashMap<>();
+        for (String taskName : taskNames) {
+            pathToTaskName.put(getPath.apply(taskName), taskName);
+        }
+        Map<String, byte[]> pathBytesMap;
+        try {
+            pathBytesMap = curator.getMany(pathToTaskName.keySet());
+        } catch (Exception e) {
+            throw new StateStoreException(Reason.STORAGE_ERROR, String.format(
+                    "Failed to retrieve data for %d tasks", taskNames.size()), e);
+        }
+        Map<String, byte[]> taskBytesMap = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : pathToTaskName.entrySet()) {
+            byte[] bytes = pathBytesMap.get(entry.getKey());
+            if (bytes != null) {
+                taskBytesMap.put(entry.getValue(), bytes);
+            }
+        }
+        return taskBytesMap;
+    }
+
     @Override
     public Optional<Protos.TaskStatus> fetchStatus(String taskName) throws StateStoreException {
         String path = taskPathMapper.getTaskStatusPath(taskName);
@@ -389,6 +466,24 @@ public class CuratorStateStore implements StateStore {
         }
     }
 
+    @Override
+    public Map<String, byte[]> fetchProperties() throws StateStoreException {
+        Map<String, String> pathToKey = new LinkedHashMap<>();
+        for (String key : fetchPropertyKeys()) {
+            pathToKey.put(CuratorUtils.join(this.propertiesPath, key), key);
+        }
+        try {
+            Map<String, byte[]> pathBytesMap = curator.getMany(pathToKey.keySet());
+            Map<String, byte[]> properties = new HashMap<>();
+            for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
+                properties.put(pathToKey.get(entry.getKey()), entry.getValue());
+            }
+            return properties;
+        } catch (Exception e) {
+            throw new StateStoreException(Reason.STORAGE_ERROR, e);
+        }
+    }
+
     @Override
     public void clearProperty(final String key) throws StateStoreException {
         StateStoreUtils.validateKey(key);
@@ -405,11 +500,34 @@ public class CuratorStateStore implements StateStore {
         }
     }
 
+    @Override
+    public void flush() throws StateStoreException {
+        try {
+            curator.flush();
+        } catch (Exception e) {
+            throw new StateStoreException(Reason.STORAGE_ERROR, "Failed to commit buffered writes", e);
+        }
+    }
+
     @VisibleForTesting
     public void closeForTesting() {
         curator.close();
     }
 
+    /**
+     * Starts a watch on the framework's tree in the provided {@link CuratorPersister}, which allows it to skip
+     * existence checks for paths which are already present when writing to them, and returns the persister.
+     */
+    public static CuratorPersister createWatchedPersister(CuratorPersister persister, String frameworkName) {
+        try {
+            persister.watch(CuratorUtils.toServiceRootPath(frameworkName));
+        } catch (Exception e) {
+            // Not fatal: the persister then only learns of existing paths from its own reads and writes.
+            logger.warn("Failed to start watch of framework tree, existence checks will not be cached", e);
+        }
+        return persister;
+    }
+
     // Internals
 
     /**
@@ -451,8 +569,11 @@ public class CuratorStateStore implements StateStore {
         List<TaskStatus> repairedStatuses = new ArrayList<>();
         List<TaskInfo> repairedTasks = new ArrayList<>();
 
-        for (TaskInfo task : fetchTasks()) {
-            Optional<TaskStatus> statusOptional = fetchStatus(task.getName());
+        Collection<TaskInfo> tasks = fetchTasks();
+        Map<String, TaskStatus> statuses =
+                fetchStatuses(tasks.stream().map(TaskInfo::getName).collect(Collectors.toList()));
+        for (TaskInfo task : tasks) {
+            Optional<TaskStatus> statusOptional = Optional.ofNullable(statuses.get(task.getName()));
 
             if (statusOptional.isPresent()) {
                 TaskStatus status = statusOptional.get();
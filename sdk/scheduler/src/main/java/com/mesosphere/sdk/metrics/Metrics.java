@@ -0,0 +1,159 @@
+package com.mesosphere.sdk.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scheduler's registry of metrics, which are served by the {@code /v1/metrics} API and which may be pushed to a
+ * StatsD agent.
+ * <p>
+ * Metrics are created on first use and then live for the life of the process. Components record against the names
+ * below via the static helpers, which are cheap enough to call on every offer and every ZooKeeper operation.
+ */
+public class Metrics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Metrics.class);
+
+    // Offer cycles, as run by the scheduler:
+    /** Timer: Time taken to process each batch of offers received from Mesos. */
+    public static final String OFFER_CYCLE = "offers.cycle";
+    /** Meter: Offers received from Mesos. */
+    public static final String OFFERS_RECEIVED = "offers.received";
+    /** Counter: Offers which were accepted for launches, reservations, or cleanup. */
+    public static final String OFFERS_ACCEPTED = "offers.accepted";
+    /** Counter: Offers which were declined. */
+    public static final String OFFERS_DECLINED = "offers.declined";
+    /** Gauge: Whether offers are currently suppressed, as 1 or 0. */
+    public static final String OFFERS_SUPPRESSED = "offers.suppressed";
+    /** Gauge: Steps across all plans which are waiting for offers. */
+    public static final String OFFERS_DEMANDED_STEPS = "offers.demand.steps";
+    /** Gauge: Callbacks waiting for the scheduler's single worker thread. */
+    public static final String SCHEDULER_QUEUE_DEPTH = "scheduler.queue.depth";
+
+    // Offer evaluation:
+    /** Timer: Time taken to evaluate all of the offers in a cycle against a single requirement. */
+    public static final String OFFER_EVALUATION = "offers.evaluation";
+    /** Prefix for per-stage timers, suffixed with the stage's class name. */
+    public static final String OFFER_EVALUATION_STAGE_PREFIX = "offers.evaluation.stage.";
+    /** Counter: Offers which passed all evaluation stages for a requirement. */
+    public static final String OFFER_EVALUATION_PASSED = "offers.evaluation.passed";
+    /** Counter: Offers which failed one or more evaluation stages for a requirement. */
+    public static final String OFFER_EVALUATION_FAILED = "offers.evaluation.failed";
+
+    // Plans:
+    /** Timer: Time taken by the plan coordinator to offer resources to all plans. */
+    public static final String PLAN_COORDINATION = "plans.coordination";
+    /** Histogram: Candidate steps returned by each plan in each offer cycle. */
+    public static final String PLAN_CANDIDATES = "plans.candidates";
+
+    // ZooKeeper, with one timer per operation type:
+    public static final String ZK_GET = "zk.get";
+    public static final String ZK_GET_MANY = "zk.get-many";
+    public static final String ZK_SET = "zk.set";
+    public static final String ZK_SET_MANY = "zk.set-many";
+    public static final String ZK_DELETE = "zk.delete";
+    public static final String ZK_GET_CHILDREN = "zk.get-children";
+    /** Counter: Atomic write transactions which failed and were retried. */
+    public static final String ZK_SET_MANY_RETRIES = "zk.set-many.retries";
+
+    // Caches:
+    /** Counter: Reads of the task/status listings which were served from an existing snapshot. */
+    public static final String STATE_CACHE_SNAPSHOT_HITS = "state.cache.snapshot.hits";
+    /** Counter: Reads of the task/status listings which required a new snapshot to be built. */
+    public static final String STATE_CACHE_SNAPSHOT_MISSES = "state.cache.snapshot.misses";
+    /** Gauge: Configuration fetches which were served from memory. */
+    public static final String CONFIG_CACHE_HITS = "config.cache.hits";
+    /** Gauge: Configuration fetches which required a read from ZooKeeper. */
+    public static final String CONFIG_CACHE_MISSES = "config.cache.misses";
+
+    // Reconciliation:
+    /** Gauge: Tasks which have yet to be reconciled with Mesos. */
+    public static final String RECONCILIATION_REMAINING = "reconciliation.remaining";
+    /** Counter: Explicit reconciliation requests sent to Mesos. */
+    public static final String RECONCILIATION_EXPLICIT = "reconciliation.explicit";
+    /** Counter: Implicit reconciliation requests sent to Mesos. */
+    public static final String RECONCILIATION_IMPLICIT = "reconciliation.implicit";
+
+    private static final MetricRegistry REGISTRY = new MetricRegistry();
+
+    private static StatsDReporter statsDReporter = null;
+
+    private Metrics() {
+        // do not instantiate
+    }
+
+    /**
+     * Returns the registry containing all of the scheduler's metrics.
+     */
+    public static MetricRegistry getRegistry() {
+        return REGISTRY;
+    }
+
+    public static Timer timer(String name) {
+        return REGISTRY.timer(name);
+    }
+
+    public static Counter counter(String name) {
+        return REGISTRY.counter(name);
+    }
+
+    public static Meter meter(String name) {
+        return REGISTRY.meter(name);
+    }
+
+    public static Histogram histogram(String name) {
+        return REGISTRY.histogram(name);
+    }
+
+    /**
+     * Records a duration against the named timer, given a start time from {@link System#nanoTime()}.
+     */
+    public static void recordSince(String name, long startNanos) {
+        REGISTRY.timer(name).update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registers the provided gauge under the provided name, replacing any gauge which was previously registered under
+     * that name, e.g. by a prior instance of the same component.
+     */
+    public static void registerGauge(String name, Gauge<?> gauge) {
+        synchronized (REGISTRY) {
+            REGISTRY.remove(name);
+            REGISTRY.register(name, gauge);
+        }
+    }
+
+    /**
+     * Starts pushing all metrics to the StatsD agent at the provided address at the provided interval. Only one
+     * reporter is run per process: Subsequent calls are ignored.
+     */
+    public static synchronized void startStatsDReporter(String host, int port, long intervalSecs) {
+        if (statsDReporter != null) {
+            return;
+        }
+        LOGGER.info("Pushing metrics to StatsD at {}:{} every {}s", host, port, intervalSecs);
+        statsDReporter = new StatsDReporter(REGISTRY, host, port);
+        statsDReporter.start(intervalSecs, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Removes all metrics and stops any StatsD reporter, for use in tests.
+     */
+    @VisibleForTesting
+    public static synchronized void resetForTests() {
+        if (statsDReporter != null) {
+            statsDReporter.stop();
+            statsDReporter = null;
+        }
+        REGISTRY.removeMatching(MetricFilter.ALL);
+    }
+}
@@ -0,0 +1,168 @@
+package com.mesosphere.sdk.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reporter which periodically pushes the contents of a {@link MetricRegistry} to a StatsD agent over UDP, such as
+ * the agent advertised to DC/OS tasks via the {@code STATSD_UDP_HOST} and {@code STATSD_UDP_PORT} envvars.
+ * <p>
+ * All values are sent as gauges, including counters, which are sent as their running totals: A lost datagram then
+ * only delays a value until the next report, rather than skewing it forever. Multiple values are packed into each
+ * datagram, up to a size which avoids IP fragmentation.
+ */
+public class StatsDReporter extends ScheduledReporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatsDReporter.class);
+
+    /**
+     * Keeps each datagram within a typical 1500 byte MTU once IP and UDP headers are added.
+     */
+    static final int MAX_DATAGRAM_BYTES = 1432;
+
+    private final String host;
+    private final int port;
+
+    private DatagramSocket socket = null;
+    private InetSocketAddress address = null;
+    private final StringBuilder datagram = new StringBuilder(MAX_DATAGRAM_BYTES);
+
+    /**
+     * Creates a new reporter of the provided registry's metrics, which must then be started with
+     * {@link #start(long, TimeUnit)}.
+     */
+    public StatsDReporter(MetricRegistry registry, String host, int port) {
+        super(registry, "statsd-reporter", MetricFilter.ALL, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public synchronized void report(
+            SortedMap<String, Gauge> gauges,
+            SortedMap<String, Counter> counters,
+            SortedMap<String, Histogram> histograms,
+            SortedMap<String, Meter> meters,
+            SortedMap<String, Timer> timers) {
+        try {
+            if (socket == null) {
+                socket = new DatagramSocket();
+            }
+            // Resolve on each report, in case the agent has moved:
+            address = new InetSocketAddress(host, port);
+            if (address.isUnresolved()) {
+                LOGGER.warn("Unable to resolve StatsD host {}, skipping report", host);
+                return;
+            }
+
+            for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+                Object value = entry.getValue().getValue();
+                if (value instanceof Number) {
+                    send(entry.getKey(), ((Number) value).doubleValue());
+                }
+            }
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                send(entry.getKey(), entry.getValue().getCount());
+            }
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                send(entry.getKey() + ".count", entry.getValue().getCount());
+                sendSnapshot(entry.getKey(), entry.getValue().getSnapshot(), false);
+            }
+            for (Map.Entry<String, Meter> entry : meters.entrySet()) {
+                send(entry.getKey() + ".count", entry.getValue().getCount());
+                send(entry.getKey() + ".m1_rate", convertRate(entry.getValue().getOneMinuteRate()));
+                send(entry.getKey() + ".mean_rate", convertRate(entry.getValue().getMeanRate()));
+            }
+            for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+                send(entry.getKey() + ".count", entry.getValue().getCount());
+                send(entry.getKey() + ".m1_rate", convertRate(entry.getValue().getOneMinuteRate()));
+                sendSnapshot(entry.getKey(), entry.getValue().getSnapshot(), true);
+            }
+            flush();
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Failed to send metrics to StatsD at %s:%d", host, port), e);
+            datagram.setLength(0);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        super.stop();
+        if (socket != null) {
+            socket.close();
+            socket = null;
+        }
+    }
+
+    private void sendSnapshot(String name, Snapshot snapshot, boolean isDuration) throws IOException {
+        send(name + ".min", convert(snapshot.getMin(), isDuration));
+        send(name + ".max", convert(snapshot.getMax(), isDuration));
+        send(name + ".mean", convert(snapshot.getMean(), isDuration));
+        send(name + ".p50", convert(snapshot.getMedian(), isDuration));
+        send(name + ".p95", convert(snapshot.get95thPercentile(), isDuration));
+        send(name + ".p99", convert(snapshot.get99thPercentile(), isDuration));
+    }
+
+    private double convert(double value, boolean isDuration) {
+        return isDuration ? convertDuration(value) : value;
+    }
+
+    private void send(String name, long value) throws IOException {
+        if (value < 0) {
+            // A leading sign is interpreted as a delta against the current value, so reset the gauge first:
+            append(String.format("%s:0|g", name));
+        }
+        append(String.format("%s:%d|g", name, value));
+    }
+
+    private void send(String name, double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        if (value < 0) {
+            append(String.format("%s:0|g", name));
+        }
+        append(String.format(Locale.ROOT, "%s:%.3f|g", name, value));
+    }
+
+    /**
+     * Adds the provided line to the current datagram, first sending the datagram if the line wouldn't fit.
+     */
+    private void append(String line) throws IOException {
+        if (datagram.length() > 0 && datagram.length() + 1 + line.length() > MAX_DATAGRAM_BYTES) {
+            flush();
+        }
+        if (datagram.length() > 0) {
+            datagram.append('\n');
+        }
+        datagram.append(line);
+    }
+
+    private void flush() throws IOException {
+        if (datagram.length() == 0) {
+            return;
+        }
+        byte[] bytes = datagram.toString().getBytes(StandardCharsets.UTF_8);
+        datagram.setLength(0);
+        socket.send(new DatagramPacket(bytes, bytes.length, address));
+    }
+}
@@ -0,0 +1,298 @@
+package com.mesosphere.sdk.offer;
+
+import org.apache.mesos.Protos.Resource;
+import org.apache.mesos.Protos.Value;
+import org.apache.mesos.Protos.Value.Range;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the unreserved, non-atomic resources in an offer, of which a subset may be consumed. For example, an offer
+ * may contain 4.0 CPUs of which 2.4 are consumed, or a range of ports of which a few are consumed.
+ *
+ * Resource names are interned into process-wide slot indexes. Scalar quantities are then tracked as doubles in a slot
+ * array, and ranges as sorted arrays of merged {@code [begin, end]} pairs, so that consuming from the pool doesn't
+ * allocate {@link Value} protobufs. Protobufs are only built when a value is read back out of the pool.
+ */
+class MergedResourcePool {
+
+    /**
+     * Mapping of resource name => slot index, shared across all pools. The set of resource names in a cluster is small
+     * and stable, e.g. 'cpus', 'mem', 'disk', 'ports', 'gpus'.
+     */
+    private static final ConcurrentMap<String, Integer> NAME_SLOTS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_SLOT = new AtomicInteger(0);
+
+    private static final long[] EMPTY_RANGES = new long[0];
+
+    // Indexed by slot. Absent scalars are NaN, and absent ranges are null.
+    private double[] scalars;
+    private long[][] ranges;
+    // Values which are neither scalars nor ranges, which aren't expected to be seen in practice.
+    private final Map<String, Value> otherValues = new HashMap<>();
+
+    MergedResourcePool() {
+        int slotCount = NEXT_SLOT.get();
+        this.scalars = new double[slotCount];
+        Arrays.fill(this.scalars, Double.NaN);
+        this.ranges = new long[slotCount][];
+    }
+
+    /**
+     * Adds the value of the provided resource to any existing value with the same name.
+     */
+    void add(Resource resource) {
+        switch (resource.getType()) {
+        case SCALAR:
+            addScalar(getSlot(resource.getName()), resource.getScalar().getValue());
+            break;
+        case RANGES:
+            addRanges(getSlot(resource.getName()), resource.getRanges().getRangeList());
+            break;
+        default:
+            otherValues.put(resource.getName(), ValueUtils.getValue(resource));
+            break;
+        }
+    }
+
+    /**
+     * Adds the provided value to any existing value with the same name.
+     */
+    void add(String name, Value value) {
+        switch (value.getType()) {
+        case SCALAR:
+            addScalar(getSlot(name), value.getScalar().getValue());
+            break;
+        case RANGES:
+            addRanges(getSlot(name), value.getRanges().getRangeList());
+            break;
+        default:
+            otherValues.put(name, value);
+            break;
+        }
+    }
+
+    /**
+     * Removes the provided value from the pool and returns {@code true}, or leaves the pool unchanged and returns
+     * {@code false} if the pool doesn't contain the full value.
+     */
+    boolean consume(String name, Value desired) {
+        Integer slot = NAME_SLOTS.get(name);
+        switch (desired.getType()) {
+        case SCALAR: {
+            if (slot == null || slot >= scalars.length || Double.isNaN(scalars[slot])) {
+                return false;
+            }
+            double available = scalars[slot];
+            double desiredValue = desired.getScalar().getValue();
+            if (desiredValue - available > 0) {
+                return false;
+            }
+            scalars[slot] = available - desiredValue;
+            return true;
+        }
+        case RANGES: {
+            if (slot == null || slot >= ranges.length || ranges[slot] == null) {
+                return false;
+            }
+            long[] desiredRanges = toSortedPairs(desired.getRanges().getRangeList());
+            if (!containsAll(ranges[slot], desiredRanges)) {
+                return false;
+            }
+            ranges[slot] = subtract(ranges[slot], desiredRanges);
+            return true;
+        }
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether the pool has any value with the provided name, including values which have been fully consumed.
+     */
+    boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    /**
+     * Returns the value remaining for the provided name, or {@code null} if the pool has never had a value with that
+     * name.
+     */
+    Value get(String name) {
+        Integer slot = NAME_SLOTS.get(name);
+        if (slot != null) {
+            if (slot < scalars.length && !Double.isNaN(scalars[slot])) {
+                return Value.newBuilder()
+                        .setType(Value.Type.SCALAR)
+                        .setScalar(Value.Scalar.newBuilder().setValue(scalars[slot]))
+                        .build();
+            }
+            if (slot < ranges.length && ranges[slot] != null) {
+                return toRangesValue(ranges[slot]);
+            }
+        }
+        return otherValues.get(name);
+    }
+
+    /**
+     * Returns a newly built mapping of resource name to the value remaining for that name.
+     */
+    Map<String, Value> toMap() {
+        Map<String, Value> map = new HashMap<>(otherValues);
+        for (Map.Entry<String, Integer> nameSlot : NAME_SLOTS.entrySet()) {
+            int slot = nameSlot.getValue();
+            if (slot < scalars.length && !Double.isNaN(scalars[slot])) {
+                map.put(nameSlot.getKey(), get(nameSlot.getKey()));
+            } else if (slot < ranges.length && ranges[slot] != null) {
+                map.put(nameSlot.getKey(), toRangesValue(ranges[slot]));
+            }
+        }
+        return map;
+    }
+
+    private void addScalar(int slot, double value) {
+        ensureCapacity(slot);
+        scalars[slot] = Double.isNaN(scalars[slot]) ? value : scalars[slot] + value;
+    }
+
+    private void addRanges(int slot, List<Range> rangeList) {
+        ensureCapacity(slot);
+        long[] added = toSortedPairs(rangeList);
+        ranges[slot] = ranges[slot] == null ? added : merge(ranges[slot], added);
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < scalars.length) {
+            return;
+        }
+        int oldLength = scalars.length;
+        int newLength = Math.max(slot + 1, NEXT_SLOT.get());
+        scalars = Arrays.copyOf(scalars, newLength);
+        Arrays.fill(scalars, oldLength, newLength, Double.NaN);
+        ranges = Arrays.copyOf(ranges, newLength);
+    }
+
+    private static int getSlot(String name) {
+        Integer slot = NAME_SLOTS.get(name);
+        if (slot == null) {
+            slot = NAME_SLOTS.computeIfAbsent(name, k -> NEXT_SLOT.getAndIncrement());
+        }
+        return slot;
+    }
+
+    private static Value toRangesValue(long[] pairs) {
+        Value.Ranges.Builder rangesBuilder = Value.Ranges.newBuilder();
+        for (int i = 0; i < pairs.length; i += 2) {
+            rangesBuilder.addRangeBuilder().setBegin(pairs[i]).setEnd(pairs[i + 1]);
+        }
+        return Value.newBuilder().setType(Value.Type.RANGES).setRanges(rangesBuilder).build();
+    }
+
+    /**
+     * Returns the provided ranges as a sorted array of {@code [begin, end]} pairs, with any overlapping or adjacent
+     * ranges merged together.
+     */
+    private static long[] toSortedPairs(List<Range> rangeList) {
+        if (rangeList.isEmpty()) {
+            return EMPTY_RANGES;
+        }
+        long[] pairs = new long[rangeList.size() * 2];
+        for (int i = 0; i < rangeList.size(); ++i) {
+            Range range = rangeList.get(i);
+            // insertion sort by range start: offers typically list one or two ranges, already in order
+            int j = i;
+            while (j > 0 && pairs[(j - 1) * 2] > range.getBegin()) {
+                pairs[j * 2] = pairs[(j - 1) * 2];
+                pairs[j * 2 + 1] = pairs[(j - 1) * 2 + 1];
+                --j;
+            }
+            pairs[j * 2] = range.getBegin();
+            pairs[j * 2 + 1] = range.getEnd();
+        }
+        return coalesce(pairs, pairs.length);
+    }
+
+    /**
+     * Merges the overlapping or adjacent pairs in the provided sorted array, returning a new array if any were merged.
+     */
+    private static long[] coalesce(long[] pairs, int length) {
+        int out = 0;
+        for (int i = 0; i < length; i += 2) {
+            if (out > 0 && pairs[i] <= pairs[out - 1] + 1) {
+                pairs[out - 1] = Math.max(pairs[out - 1], pairs[i + 1]);
+            } else {
+                pairs[out] = pairs[i];
+                pairs[out + 1] = pairs[i + 1];
+                out += 2;
+            }
+        }
+        return out == pairs.length ? pairs : Arrays.copyOf(pairs, out);
+    }
+
+    private static long[] merge(long[] a, long[] b) {
+        long[] merged = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int out = 0;
+        while (i < a.length || j < b.length) {
+            if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+                merged[out++] = a[i++];
+                merged[out++] = a[i++];
+            } else {
+                merged[out++] = b[j++];
+                merged[out++] = b[j++];
+            }
+        }
+        return coalesce(merged, out);
+    }
+
+    private static boolean containsAll(long[] available, long[] desired) {
+        int i = 0;
+        for (int j = 0; j < desired.length; j += 2) {
+            while (i < available.length && available[i + 1] < desired[j]) {
+                i += 2;
+            }
+            if (i >= available.length || available[i] > desired[j] || available[i + 1] < desired[j + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] subtract(long[] available, long[] removed) {
+        if (removed.length == 0) {
+            return available;
+        }
+        // Each removed range may split at most one available range in two.
+        long[] remaining = new long[available.length + removed.length];
+        int out = 0;
+        int j = 0;
+        for (int i = 0; i < available.length; i += 2) {
+            long begin = available[i];
+            long end = available[i + 1];
+            while (j < removed.length && removed[j + 1] < begin) {
+                j += 2;
+            }
+            int k = j;
+            while (k < removed.length && removed[k] <= end) {
+                if (removed[k] > begin) {
+                    remaining[out++] = begin;
+                    remaining[out++] = removed[k] - 1;
+                }
+                begin = Math.max(begin, removed[k + 1] + 1);
+                k += 2;
+            }
+            if (begin <= end) {
+                remaining[out++] = begin;
+                remaining[out++] = end;
+            }
+        }
+        return Arrays.copyOf(remaining, out);
+    }
+}
@@ -20,7 +20,7 @@ public class MesosResourcePool {
 
     private Offer offer;
     private Map<String, List<MesosResource>> unreservedAtomicPool;
-    private Map<String, Value> unreservedMergedPool;
+    private MergedResourcePool unreservedMergedPool;
     private Map<String, MesosResource> reservedPool;
 
     /**
@@ -32,10 +32,25 @@ public class MesosResourcePool {
 
     private void init(Offer offer) {
         this.offer = offer;
-        final Collection<MesosResource> mesosResources = getMesosResources(offer);
-        this.unreservedAtomicPool = getUnreservedAtomicPool(mesosResources);
-        this.unreservedMergedPool = getUnreservedMergedPool(mesosResources);
-        this.reservedPool = getReservedPool(mesosResources);
+        this.unreservedAtomicPool = new HashMap<>();
+        this.unreservedMergedPool = new MergedResourcePool();
+        this.reservedPool = new HashMap<>();
+
+        for (Resource resource : offer.getResourcesList()) {
+            MesosResource mesosResource = new MesosResource(resource);
+            if (mesosResource.hasResourceId()) {
+                reservedPool.put(mesosResource.getResourceId(), mesosResource);
+            } else if (mesosResource.isAtomic()) {
+                List<MesosResource> resList = unreservedAtomicPool.get(mesosResource.getName());
+                if (resList == null) {
+                    resList = new ArrayList<>();
+                    unreservedAtomicPool.put(mesosResource.getName(), resList);
+                }
+                resList.add(mesosResource);
+            } else {
+                unreservedMergedPool.add(resource);
+            }
+        }
     }
 
     /**
@@ -56,9 +71,19 @@ public class MesosResourcePool {
     /**
      * Returns the unreserved resources of which a subset can be consumed from an Offer. For
      * example, an offer may contain 4.0 CPUs and 2.4 of those CPUs can be reserved.
+     *
+     * The returned map is a copy of the pool's current state. Use {@link #getUnreservedMergedValue(String)} to look
+     * up a single resource without building the full map.
      */
     public Map<String, Value> getUnreservedMergedPool() {
-        return unreservedMergedPool;
+        return unreservedMergedPool.toMap();
+    }
+
+    /**
+     * Returns the remaining unreserved value of the named resource of which a subset can be consumed, if present.
+     */
+    public Optional<Value> getUnreservedMergedValue(String name) {
+        return Optional.ofNullable(unreservedMergedPool.get(name));
     }
 
     /**
@@ -116,14 +141,7 @@ public class MesosResourcePool {
     }
 
     private void releaseMergedResource(MesosResource mesosResource) {
-        Value currValue = unreservedMergedPool.get(mesosResource.getName());
-
-        if (currValue == null) {
-            currValue = ValueUtils.getZero(mesosResource.getType());
-        }
-
-        Value updatedValue = ValueUtils.add(currValue, mesosResource.getValue());
-        unreservedMergedPool.put(mesosResource.getName(), updatedValue);
+        unreservedMergedPool.add(mesosResource.getName(), mesosResource.getValue());
     }
 
     private void releaseAtomicResource(MesosResource mesosResource) {
@@ -226,13 +244,12 @@ public class MesosResourcePool {
 
     private Optional<MesosResource> consumeUnreservedMerged(ResourceRequirement resourceRequirement) {
         Value desiredValue = resourceRequirement.getValue();
-        Value availableValue = unreservedMergedPool.get(resourceRequirement.getName());
 
-        if (sufficientValue(desiredValue, availableValue)) {
-            unreservedMergedPool.put(resourceRequirement.getName(), ValueUtils.subtract(availableValue, desiredValue));
+        if (unreservedMergedPool.consume(resourceRequirement.getName(), desiredValue)) {
             Resource resource = ResourceUtils.getUnreservedResource(resourceRequirement.getName(), desiredValue);
             return Optional.of(new MesosResource(resource));
         } else {
+            Value availableValue = unreservedMergedPool.get(resourceRequirement.getName());
             if (availableValue == null) {
                 logger.info("Offer lacks any resources named {}", resourceRequirement.getName());
             } else {
@@ -255,113 +272,4 @@ public class MesosResourcePool {
         Value difference = ValueUtils.subtract(desired, available);
         return ValueUtils.compare(difference, ValueUtils.getZero(desired.getType())) <= 0;
     }
-
-    private static Collection<MesosResource> getMesosResources(Offer offer) {
-        Collection<MesosResource> mesosResources = new ArrayList<MesosResource>();
-
-        for (Resource resource : offer.getResourcesList()) {
-            mesosResources.add(new MesosResource(resource));
-        }
-
-        return mesosResources;
-    }
-
-    private static Map<String, MesosResource> getReservedPool(
-            Collection<MesosResource> mesosResources) {
-        Map<String, MesosResource> reservedPool = new HashMap<String, MesosResource>();
-
-        for (MesosResource mesResource : mesosResources) {
-            if (mesResource.hasResourceId()) {
-                reservedPool.put(mesResource.getResourceId(), mesResource);
-            }
-        }
-
-        return reservedPool;
-    }
-
-    private static Map<String, List<MesosResource>> getUnreservedAtomicPool(
-            Collection<MesosResource> mesosResources) {
-        Map<String, List<MesosResource>> pool = new HashMap<String, List<MesosResource>>();
-
-        for (MesosResource mesosResource : getUnreservedAtomicResources(mesosResources)) {
-            String name = mesosResource.getName();
-            List<MesosResource> resList = pool.get(name);
-
-            if (resList == null) {
-                resList = new ArrayList<MesosResource>();
-            }
-
-            resList.add(mesosResource);
-            pool.put(name, resList);
-        }
-
-        return pool;
-    }
-
-    private static Map<String, Value> getUnreservedMergedPool(
-            Collection<MesosResource> mesosResources) {
-        Map<String, Value> pool = new HashMap<String, Value>();
-
-        for (MesosResource mesosResource : getUnreservedMergedResources(mesosResources)) {
-            String name = mesosResource.getName();
-            Value currValue = pool.get(name);
-
-            if (currValue == null) {
-                currValue = ValueUtils.getZero(mesosResource.getType());
-            }
-
-            pool.put(name, ValueUtils.add(currValue, mesosResource.getValue()));
-        }
-
-        return pool;
-    }
-
-    private static Collection<MesosResource> getUnreservedAtomicResources(
-            Collection<MesosResource> mesosResources) {
-        return getUnreservedResources(getAtomicResources(mesosResources));
-    }
-
-    private static Collection<MesosResource> getUnreservedMergedResources(
-            Collection<MesosResource> mesosResources) {
-        return getUnreservedResources(getMergedResources(mesosResources));
-    }
-
-    private static Collection<MesosResource> getUnreservedResources(
-            Collection<MesosResource> mesosResources) {
-        Collection<MesosResource> unreservedResources = new ArrayList<MesosResource>();
-
-        for (MesosResource mesosResource : mesosResources) {
-            if (!mesosResource.hasResourceId()) {
-                unreservedResources.add(mesosResource);
-            }
-        }
-
-        return unreservedResources;
-    }
-
-    private static Collection<MesosResource> getAtomicResources(
-            Collection<MesosResource> mesosResources) {
-        Collection<MesosResource> atomicResources = new ArrayList<>();
-
-        for (MesosResource mesosResource : mesosResources) {
-            if (mesosResource.isAtomic()) {
-                atomicResources.add(mesosResource);
-            }
-        }
-
-        return atomicResources;
-    }
-
-    private static Collection<MesosResource> getMergedResources(
-            Collection<MesosResource> mesosResources) {
-        Collection<MesosResource> mergedResources = new ArrayList<>();
-
-        for (MesosResource mesosResource : mesosResources) {
-            if (!mesosResource.isAtomic()) {
-                mergedResources.add(mesosResource);
-            }
-        }
-
-        return mergedResources;
-    }
 }
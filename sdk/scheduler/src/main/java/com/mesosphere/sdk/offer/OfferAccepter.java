@@ -57,6 +57,7 @@ public class OfferAccepter {
 
         try {
             record(recommendations);
+            flush();
         } catch (Exception ex) {
             logger.error("Failed to record Operations so not launching Task", ex);
             return new ArrayList<>();
@@ -79,6 +80,12 @@ public class OfferAccepter {
         }
     }
 
+    private void flush() throws Exception {
+        for (OperationRecorder recorder : recorders) {
+            recorder.flush();
+        }
+    }
+
     private static List<Operation> getOperations(List<OfferRecommendation> recommendations) {
         List<Operation> operations = new ArrayList<>();
 
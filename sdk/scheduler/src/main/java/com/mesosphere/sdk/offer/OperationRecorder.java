@@ -8,4 +8,12 @@ package com.mesosphere.sdk.offer;
  */
 public interface OperationRecorder {
     void record(OfferRecommendation offerRecommendation) throws Exception;
+
+    /**
+     * Ensures that everything recorded so far is durable. This is called after all of an accept's Operations have been
+     * recorded, and before any of them are sent to Mesos.
+     */
+    default void flush() throws Exception {
+        // Recorded operations are durable by default, so there's nothing to flush.
+    }
 }
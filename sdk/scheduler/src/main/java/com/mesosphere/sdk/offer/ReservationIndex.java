@@ -0,0 +1,144 @@
+package com.mesosphere.sdk.offer;
+
+import com.mesosphere.sdk.state.StateStoreListener;
+import org.apache.mesos.Protos.Resource;
+import org.apache.mesos.Protos.TaskInfo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An incrementally maintained index of the reserved resource IDs and persistent volume IDs which are expected by the
+ * deployed tasks, allowing the {@link ResourceCleaner} to identify unexpected reservations in offers without rescanning
+ * every deployed task on every offer cycle.
+ *
+ * Each task's IDs are extracted once when the task is stored, from both its own resources and its executor's. IDs are
+ * reference counted, as tasks in the same pod share their executor's resources, and may share a resource set.
+ *
+ * The index may be kept up to date by registering it against a {@link com.mesosphere.sdk.state.StateStoreCache}, or
+ * may be built once from a snapshot of tasks.
+ */
+public class ReservationIndex implements StateStoreListener {
+
+    /**
+     * The IDs which were extracted from a single task.
+     */
+    private static class TaskReservations {
+        private final List<String> resourceIds = new ArrayList<>();
+        private final List<String> persistenceIds = new ArrayList<>();
+
+        private TaskReservations(TaskInfo task) {
+            add(task.getResourcesList());
+            if (task.hasExecutor()) {
+                add(task.getExecutor().getResourcesList());
+            }
+        }
+
+        private void add(Collection<Resource> resources) {
+            for (Resource resource : resources) {
+                String resourceId = ResourceUtils.getResourceId(resource);
+                if (resourceId != null) {
+                    resourceIds.add(resourceId);
+                }
+                String persistenceId = ResourceUtils.getPersistenceId(resource);
+                if (persistenceId != null) {
+                    persistenceIds.add(persistenceId);
+                }
+            }
+        }
+    }
+
+    private final Map<String, TaskReservations> reservationsByTaskName = new HashMap<>();
+    private final Map<String, Integer> resourceIdCounts = new HashMap<>();
+    private final Map<String, Integer> persistenceIdCounts = new HashMap<>();
+
+    /**
+     * Creates an empty index, which is expected to be populated by registering it as a {@link StateStoreListener}.
+     */
+    public ReservationIndex() {
+        // Populated via tasksRefreshed()
+    }
+
+    /**
+     * Creates an index containing the provided tasks.
+     */
+    public ReservationIndex(Collection<TaskInfo> tasks) {
+        tasksRefreshed(tasks);
+    }
+
+    @Override
+    public synchronized void tasksRefreshed(Collection<TaskInfo> tasks) {
+        reservationsByTaskName.clear();
+        resourceIdCounts.clear();
+        persistenceIdCounts.clear();
+        for (TaskInfo task : tasks) {
+            addTask(task);
+        }
+    }
+
+    @Override
+    public synchronized void tasksStored(Collection<TaskInfo> tasks) {
+        for (TaskInfo task : tasks) {
+            removeTask(task.getName());
+            addTask(task);
+        }
+    }
+
+    @Override
+    public synchronized void taskCleared(String taskName) {
+        removeTask(taskName);
+    }
+
+    /**
+     * Returns whether the provided reserved resource ID is expected by any deployed task.
+     */
+    public synchronized boolean isExpectedResourceId(String resourceId) {
+        return resourceIdCounts.containsKey(resourceId);
+    }
+
+    /**
+     * Returns whether the provided persistent volume ID is expected by any deployed task.
+     */
+    public synchronized boolean isExpectedPersistenceId(String persistenceId) {
+        return persistenceIdCounts.containsKey(persistenceId);
+    }
+
+    private void addTask(TaskInfo task) {
+        TaskReservations reservations = new TaskReservations(task);
+        TaskReservations existingReservations = reservationsByTaskName.get(task.getName());
+        if (existingReservations == null) {
+            reservationsByTaskName.put(task.getName(), reservations);
+        } else {
+            // Only expected in a snapshot which wasn't read from a store: keep the IDs of both tasks.
+            existingReservations.resourceIds.addAll(reservations.resourceIds);
+            existingReservations.persistenceIds.addAll(reservations.persistenceIds);
+        }
+        for (String resourceId : reservations.resourceIds) {
+            resourceIdCounts.merge(resourceId, 1, Integer::sum);
+        }
+        for (String persistenceId : reservations.persistenceIds) {
+            persistenceIdCounts.merge(persistenceId, 1, Integer::sum);
+        }
+    }
+
+    private void removeTask(String taskName) {
+        TaskReservations reservations = reservationsByTaskName.remove(taskName);
+        if (reservations == null) {
+            return;
+        }
+        for (String resourceId : reservations.resourceIds) {
+            decrement(resourceIdCounts, resourceId);
+        }
+        for (String persistenceId : reservations.persistenceIds) {
+            decrement(persistenceIdCounts, persistenceId);
+        }
+    }
+
+    private static void decrement(Map<String, Integer> counts, String id) {
+        // Remove the entry once its count reaches zero:
+        counts.computeIfPresent(id, (key, count) -> count > 1 ? count - 1 : null);
+    }
+}
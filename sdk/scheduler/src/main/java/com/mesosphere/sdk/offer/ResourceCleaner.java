@@ -4,11 +4,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
+import java.util.function.Predicate;
 
-import org.apache.mesos.Protos;
 import org.apache.mesos.Protos.Offer;
 import org.apache.mesos.Protos.Resource;
 import com.mesosphere.sdk.state.StateStore;
@@ -23,10 +21,8 @@ import org.slf4j.LoggerFactory;
 public class ResourceCleaner {
     private static final Logger logger = LoggerFactory.getLogger(ResourceCleaner.class);
 
-    // Only Persistent Volumes are DESTROYed
-    private final Set<String> expectedPersistentVolumeIds;
-    // Both Persistent Volumes AND Reserved Resources are UNRESERVEd
-    private final Set<String> expectedReservedResourceIds;
+    // Only Persistent Volumes are DESTROYed, while both Persistent Volumes AND Reserved Resources are UNRESERVEd
+    private final ReservationIndex expectedReservations;
 
     /**
      * Creates a new {@link ResourceCleaner} which retrieves expected resource
@@ -36,9 +32,17 @@ public class ResourceCleaner {
      *             if there's a failure when retrieving resource information
      */
     public ResourceCleaner(StateStore stateStore) {
-        Collection<Resource> expectedResources = getExpectedResources(stateStore);
-        this.expectedPersistentVolumeIds = getPersistentVolumeIds(expectedResources);
-        this.expectedReservedResourceIds = getReservedResourceIds(expectedResources);
+        this(new ReservationIndex(stateStore.fetchTasks()));
+    }
+
+    /**
+     * Creates a new {@link ResourceCleaner} which checks offered resources against the provided index of expected
+     * resources. If the index is kept up to date, e.g. by registering it against a
+     * {@link com.mesosphere.sdk.state.StateStoreCache}, then the cleaner may be reused across offer cycles, and each
+     * evaluation only costs O(offered resources).
+     */
+    public ResourceCleaner(ReservationIndex expectedReservations) {
+        this.expectedReservations = expectedReservations;
     }
 
     /**
@@ -57,7 +61,7 @@ public class ResourceCleaner {
         for (Offer offer : offers) {
             offerResourceCount += offer.getResourcesCount();
             for (Resource toDestroy : selectUnexpectedResources(
-                    expectedPersistentVolumeIds, getPersistentVolumesById(offer))) {
+                    expectedReservations::isExpectedPersistenceId, getPersistentVolumesById(offer))) {
                 recommendations.add(new DestroyOfferRecommendation(offer, toDestroy));
             }
         }
@@ -67,7 +71,7 @@ public class ResourceCleaner {
         // (both) be UNRESERVEd
         for (Offer offer : offers) {
             for (Resource toUnreserve : selectUnexpectedResources(
-                    expectedReservedResourceIds, getReservedResourcesById(offer))) {
+                    expectedReservations::isExpectedResourceId, getReservedResourcesById(offer))) {
                 recommendations.add(new UnreserveOfferRecommendation(offer, toUnreserve));
             }
         }
@@ -80,15 +84,15 @@ public class ResourceCleaner {
     }
 
     /**
-     * Returns a list of resources from {@code resourcesById} whose ids are not present in
-     * {@code expectedIds}.
+     * Returns a list of resources from {@code resourcesById} whose ids are not accepted by
+     * {@code isExpectedId}.
      */
     private static Collection<Resource> selectUnexpectedResources(
-            Set<String> expectedIds, Map<String, Resource> resourcesById) {
+            Predicate<String> isExpectedId, Map<String, Resource> resourcesById) {
         List<Resource> unexpectedResources = new ArrayList<Resource>();
 
         for (Map.Entry<String, Resource> entry : resourcesById.entrySet()) {
-            if (!expectedIds.contains(entry.getKey())) {
+            if (!isExpectedId.test(entry.getKey())) {
                 unexpectedResources.add(entry.getValue());
             }
         }
@@ -96,59 +100,6 @@ public class ResourceCleaner {
         return unexpectedResources;
     }
 
-    /**
-     * Returns a list of all expected resources, which are extracted from all {@link org.apache.mesos.Protos.TaskInfo}s
-     * produced by the provided {@link StateStore}.
-     */
-    private static Collection<Resource> getExpectedResources(StateStore stateStore)
-            throws StateStoreException {
-        Collection<Resource> resources = new ArrayList<>();
-
-        for (Protos.TaskInfo taskInfo : stateStore.fetchTasks()) {
-            // get all resources from both the task level and the executor level
-            resources.addAll(taskInfo.getResourcesList());
-            if (taskInfo.hasExecutor()) {
-                resources.addAll(taskInfo.getExecutor().getResourcesList());
-            }
-        }
-
-        return resources;
-    }
-
-    /**
-     * Returns the resource ids for all {@code resources} which represent persistent volumes, or
-     * an empty list if no persistent volume resources were found.
-     */
-    private static Set<String> getPersistentVolumeIds(Collection<Resource> resources) {
-        Set<String> persistenceIds = new HashSet<>();
-
-        for (Resource resource : resources) {
-            String persistenceId = ResourceUtils.getPersistenceId(resource);
-            if (persistenceId != null) {
-                persistenceIds.add(persistenceId);
-            }
-        }
-
-        return persistenceIds;
-    }
-
-    /**
-     * Returns the resource ids for all {@code resources} which represent reserved resources, or
-     * an empty list if no reserved resources were found.
-     */
-    private static Set<String> getReservedResourceIds(Collection<Resource> resources) {
-        Set<String> resourceIds = new HashSet<>();
-
-        for (Resource resource : resources) {
-            String resourceId = ResourceUtils.getResourceId(resource);
-            if (resourceId != null) {
-                resourceIds.add(resourceId);
-            }
-        }
-
-        return resourceIds;
-    }
-
     /**
      * Returns an ID -> Resource mapping of all disk resources listed in the provided {@link Offer},
      * or an empty list of no disk resources are found.
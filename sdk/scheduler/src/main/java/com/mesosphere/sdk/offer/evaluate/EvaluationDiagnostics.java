@@ -0,0 +1,157 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import org.apache.mesos.Protos.Offer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Retains a sample of the evaluation outcomes from the most recent offer cycle of each step, so that the question of
+ * why a pod isn't being launched may be answered after the fact without enabling verbose logging.
+ * <p>
+ * Only the outcomes of the first few failed offers are kept for each step, and at most one entry is kept for each of
+ * the most recently evaluated steps. Outcomes are kept in their raw form and are only rendered when queried.
+ */
+public class EvaluationDiagnostics {
+
+    /**
+     * The maximum number of failed offers whose outcomes are kept for each step.
+     */
+    public static final int MAX_SAMPLED_OFFERS = 5;
+
+    /**
+     * The maximum number of steps to retain diagnostics for. The least recently evaluated steps are dropped first.
+     */
+    public static final int MAX_STEPS = 100;
+
+    /**
+     * The outcomes of evaluating a single offer against a step's requirement.
+     */
+    public static class OfferOutcomes {
+        private final Offer offer;
+        private final List<EvaluationOutcome> outcomes;
+
+        private OfferOutcomes(Offer offer, List<EvaluationOutcome> outcomes) {
+            this.offer = offer;
+            this.outcomes = outcomes;
+        }
+
+        public Offer getOffer() {
+            return offer;
+        }
+
+        public List<EvaluationOutcome> getOutcomes() {
+            return outcomes;
+        }
+    }
+
+    /**
+     * The result of evaluating a step's requirement against the offers in an offer cycle. Instances may be updated
+     * concurrently while the offers are being evaluated, and are then only read.
+     */
+    public static class StepDiagnostic {
+        private final String stepName;
+        private final long timestampMs;
+        private final int offerCount;
+        private final List<OfferOutcomes> sampledFailures = new ArrayList<>();
+        private int failedOfferCount = 0;
+        private boolean passed = false;
+
+        private StepDiagnostic(String stepName, int offerCount) {
+            this.stepName = stepName;
+            this.timestampMs = System.currentTimeMillis();
+            this.offerCount = offerCount;
+        }
+
+        /**
+         * Records that the provided offer failed evaluation with the provided outcomes. The outcomes are only kept if
+         * fewer than {@link #MAX_SAMPLED_OFFERS} failures have already been recorded.
+         */
+        public synchronized void addFailure(Offer offer, List<EvaluationOutcome> outcomes) {
+            failedOfferCount++;
+            if (sampledFailures.size() < MAX_SAMPLED_OFFERS) {
+                sampledFailures.add(new OfferOutcomes(offer, outcomes));
+            }
+        }
+
+        /**
+         * Records that an offer passed evaluation.
+         */
+        public synchronized void setPassed() {
+            passed = true;
+        }
+
+        public String getStepName() {
+            return stepName;
+        }
+
+        public long getTimestampMs() {
+            return timestampMs;
+        }
+
+        /**
+         * Returns the number of offers which were available in the offer cycle.
+         */
+        public int getOfferCount() {
+            return offerCount;
+        }
+
+        /**
+         * Returns the number of offers which were evaluated and failed. This may be less than the number of available
+         * offers if an offer passed, or if offers were skipped as unable to satisfy the requirement.
+         */
+        public synchronized int getFailedOfferCount() {
+            return failedOfferCount;
+        }
+
+        public synchronized boolean isPassed() {
+            return passed;
+        }
+
+        public synchronized List<OfferOutcomes> getSampledFailures() {
+            return new ArrayList<>(sampledFailures);
+        }
+    }
+
+    private final Map<String, StepDiagnostic> diagnostics = new LinkedHashMap<String, StepDiagnostic>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StepDiagnostic> eldest) {
+            return size() > MAX_STEPS;
+        }
+    };
+
+    /**
+     * Returns a new diagnostic for an evaluation of the named step against the provided number of offers. The
+     * diagnostic should be passed to {@link #record(StepDiagnostic)} once the evaluation is complete.
+     */
+    public StepDiagnostic start(String stepName, int offerCount) {
+        return new StepDiagnostic(stepName, offerCount);
+    }
+
+    /**
+     * Stores the provided diagnostic, replacing any prior diagnostic for the same step.
+     */
+    public synchronized void record(StepDiagnostic diagnostic) {
+        // Remove first so that the step is treated as the most recently evaluated:
+        diagnostics.remove(diagnostic.getStepName());
+        diagnostics.put(diagnostic.getStepName(), diagnostic);
+    }
+
+    /**
+     * Returns the most recent diagnostic for the named step, if any.
+     */
+    public synchronized Optional<StepDiagnostic> get(String stepName) {
+        return Optional.ofNullable(diagnostics.get(stepName));
+    }
+
+    /**
+     * Returns the most recent diagnostics for all retained steps, from least to most recently evaluated.
+     */
+    public synchronized List<StepDiagnostic> getAll() {
+        return Collections.unmodifiableList(new ArrayList<>(diagnostics.values()));
+    }
+}
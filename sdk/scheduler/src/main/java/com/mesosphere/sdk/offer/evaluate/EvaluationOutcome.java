@@ -1,5 +1,7 @@
 package com.mesosphere.sdk.offer.evaluate;
 
+import com.google.protobuf.MessageOrBuilder;
+import com.google.protobuf.TextFormat;
 import com.mesosphere.sdk.offer.OfferRecommendation;
 
 import java.util.ArrayList;
@@ -10,6 +12,9 @@ import java.util.Collections;
  * The outcome of invoking an {@link OfferEvaluationStage}. Describes whether the evaluation passed or failed, and the
  * reason(s) why. Supports a nested tree of outcomes which describe any sub-evaluations which may have been performed
  * within the {@link OfferEvaluationStage}.
+ * <p>
+ * Outcomes are produced for every stage of every offer in an offer cycle, but are only rarely read. The source name and
+ * reason are therefore kept in their raw form, and are only rendered when requested, e.g. when logged or queried.
  */
 public class EvaluationOutcome {
 
@@ -22,10 +27,11 @@ public class EvaluationOutcome {
     }
 
     private final Type type;
-    private final String source;
+    private final Class<?> sourceClass;
     private final Collection<OfferRecommendation> offerRecommendations;
     private final Collection<EvaluationOutcome> children;
-    private final String reason;
+    private final String reasonFormat;
+    private final Object[] reasonArgs;
 
     /**
      * Returns a new passing outcome object with the provided descriptive reason.
@@ -65,6 +71,19 @@ public class EvaluationOutcome {
         return create(false, source, Collections.emptyList(), Collections.emptyList(), reasonFormat, reasonArgs);
     }
 
+    /**
+     * Returns a reason argument which renders the provided protobuf message on a single line, but only if and when the
+     * reason is itself rendered.
+     */
+    public static Object shortDebugString(MessageOrBuilder message) {
+        return new Object() {
+            @Override
+            public String toString() {
+                return TextFormat.shortDebugString(message);
+            }
+        };
+    }
+
     /**
      * Returns a new outcome object with the provided outcome type, offer recommendation, descriptive reason, and child
      * outcomes.
@@ -88,10 +107,11 @@ public class EvaluationOutcome {
             String reasonFormat,
             Object... reasonArgs) {
         this.type = type;
-        this.source = source.getClass().getSimpleName();
+        this.sourceClass = source.getClass();
         this.offerRecommendations = offerRecommendations;
         this.children = children;
-        this.reason = String.format(reasonFormat, reasonArgs);
+        this.reasonFormat = reasonFormat;
+        this.reasonArgs = reasonArgs;
     }
 
     /**
@@ -105,14 +125,14 @@ public class EvaluationOutcome {
      * Returns the name of the object which produced this response.
      */
     public String getSource() {
-        return source;
+        return sourceClass.getSimpleName();
     }
 
     /**
-     * Returns the reason that this response is passing or failing.
+     * Returns the reason that this response is passing or failing. The reason is formatted on each call.
      */
     public String getReason() {
-        return reason;
+        return String.format(reasonFormat, reasonArgs);
     }
 
     /**
@@ -1,9 +1,13 @@
 package com.mesosphere.sdk.offer.evaluate;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.offer.*;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementIndex;
 import com.mesosphere.sdk.specification.PodInstance;
 import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.state.StateStoreCache;
 import com.mesosphere.sdk.state.StateStoreException;
 import org.apache.mesos.Protos.*;
 import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
@@ -11,6 +15,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -25,71 +33,354 @@ public class OfferEvaluator {
 
     private final StateStore stateStore;
     private final OfferRequirementProvider offerRequirementProvider;
+    private final Optional<ExecutorService> evaluationExecutor;
+    private final Optional<PlacementIndex> placementIndex;
+    private final boolean failFast;
+    private final EvaluationDiagnostics diagnostics = new EvaluationDiagnostics();
+    private OfferIndex offerIndex = null;
 
     @Inject
     public OfferEvaluator(StateStore stateStore, OfferRequirementProvider offerRequirementProvider) {
+        this(stateStore, offerRequirementProvider, 1);
+    }
+
+    /**
+     * Creates a new evaluator which evaluates offers using the provided number of threads. When more than one thread
+     * is requested, all offers are evaluated against a requirement concurrently, after which the first passing offer
+     * (in the order provided) is selected. This yields the same offer selection as serial evaluation.
+     *
+     * @param evaluationThreads the number of threads to evaluate offers with, or 1 for serial evaluation
+     */
+    public OfferEvaluator(
+            StateStore stateStore, OfferRequirementProvider offerRequirementProvider, int evaluationThreads) {
+        this(stateStore, offerRequirementProvider, evaluationThreads, false);
+    }
+
+    /**
+     * Creates a new evaluator as described in {@link #OfferEvaluator(StateStore, OfferRequirementProvider, int)},
+     * optionally in fail-fast mode. In fail-fast mode, the cheapest stages are evaluated first, starting with a check
+     * of the offer's scalar resource totals, and evaluation of an offer stops at its first failing stage. This yields
+     * the same offer selection as the default mode, but with less detailed diagnostics for the failed offers.
+     *
+     * @param evaluationThreads the number of threads to evaluate offers with, or 1 for serial evaluation
+     * @param failFast whether to stop evaluating each offer at its first failing stage
+     */
+    public OfferEvaluator(
+            StateStore stateStore,
+            OfferRequirementProvider offerRequirementProvider,
+            int evaluationThreads,
+            boolean failFast) {
+        this(stateStore, offerRequirementProvider, evaluationThreads, failFast, Optional.empty());
+    }
+
+    /**
+     * Creates a new evaluator as described in {@link #OfferEvaluator(StateStore, OfferRequirementProvider, int,
+     * boolean)}, which evaluates placement rules against the provided {@link PlacementIndex}. The index must be kept up
+     * to date with the deployed tasks, e.g. by registering it with a {@link StateStoreCache}. If no index is provided,
+     * one is built from the deployed tasks for each evaluation.
+     *
+     * @param placementIndex an index of the deployed tasks which is kept up to date by the caller, if any
+     */
+    public OfferEvaluator(
+            StateStore stateStore,
+            OfferRequirementProvider offerRequirementProvider,
+            int evaluationThreads,
+            boolean failFast,
+            Optional<PlacementIndex> placementIndex) {
         this.stateStore = stateStore;
         this.offerRequirementProvider = offerRequirementProvider;
+        if (evaluationThreads > 1) {
+            this.evaluationExecutor = Optional.of(Executors.newFixedThreadPool(
+                    evaluationThreads,
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("offer-evaluator-%d").build()));
+        } else {
+            this.evaluationExecutor = Optional.empty();
+        }
+        this.placementIndex = placementIndex;
+        this.failFast = failFast;
+    }
+
+    /**
+     * Returns the sampled outcomes of the most recent evaluation of each step.
+     */
+    public EvaluationDiagnostics getDiagnostics() {
+        return diagnostics;
     }
 
+    /**
+     * Evaluates the provided offers against the provided pod requirement, and records a sample of the outcomes in
+     * {@link #getDiagnostics()} under the name of the step which launches the pod requirement's tasks.
+     */
     public List<OfferRecommendation> evaluate(PodInstanceRequirement podInstanceRequirement, List<Offer> offers)
             throws StateStoreException, InvalidRequirementException {
-        return evaluate(getOfferRequirement(podInstanceRequirement), offers);
+        OfferRequirement offerRequirement = getOfferRequirement(podInstanceRequirement);
+        EvaluationDiagnostics.StepDiagnostic diagnostic = diagnostics.start(
+                TaskUtils.getStepName(
+                        podInstanceRequirement.getPodInstance(), podInstanceRequirement.getTasksToLaunch()),
+                offers.size());
+        try {
+            return evaluate(offerRequirement, offers, Optional.of(diagnostic));
+        } finally {
+            diagnostics.record(diagnostic);
+        }
     }
 
     public List<OfferRecommendation> evaluate(OfferRequirement offerRequirement, List<Offer> offers)
             throws StateStoreException, InvalidRequirementException {
-        for (int i = 0; i < offers.size(); ++i) {
-            List<OfferEvaluationStage> evaluationStages = getEvaluationPipeline(offerRequirement);
-
-            Offer offer = offers.get(i);
-            MesosResourcePool resourcePool = new MesosResourcePool(offer);
-            PodInfoBuilder podInfoBuilder = new PodInfoBuilder(offerRequirement);
-            List<EvaluationOutcome> outcomes = new ArrayList<>();
-            int failedOutcomeCount = 0;
-
-            for (OfferEvaluationStage evaluationStage : evaluationStages) {
-                EvaluationOutcome outcome = evaluationStage.evaluate(resourcePool, podInfoBuilder);
-                outcomes.add(outcome);
-                if (!outcome.isPassing()) {
-                    failedOutcomeCount++;
+        return evaluate(offerRequirement, offers, Optional.empty());
+    }
+
+    private List<OfferRecommendation> evaluate(
+            OfferRequirement offerRequirement,
+            List<Offer> offers,
+            Optional<EvaluationDiagnostics.StepDiagnostic> diagnostic) throws StateStoreException {
+        long startNanos = System.nanoTime();
+        try {
+            return evaluateOffers(new Evaluation(offerRequirement, getPlacementIndex(offerRequirement), diagnostic),
+                    offers);
+        } finally {
+            Metrics.recordSince(Metrics.OFFER_EVALUATION, startNanos);
+        }
+    }
+
+    /**
+     * The state which is shared across the evaluations of all offers against a single requirement.
+     */
+    private class Evaluation {
+        private final OfferRequirement offerRequirement;
+        // Deployed tasks are fetched once for all offers, rather than once per offer:
+        private final PlacementIndex deployedTasks;
+        // In fail-fast mode, required totals are computed once for all offers:
+        private final Optional<ScalarTotalsEvaluationStage> scalarTotalsStage;
+        private final Optional<EvaluationDiagnostics.StepDiagnostic> diagnostic;
+
+        private Evaluation(
+                OfferRequirement offerRequirement,
+                PlacementIndex deployedTasks,
+                Optional<EvaluationDiagnostics.StepDiagnostic> diagnostic) {
+            this.offerRequirement = offerRequirement;
+            this.deployedTasks = deployedTasks;
+            this.scalarTotalsStage = failFast
+                    ? Optional.of(new ScalarTotalsEvaluationStage(offerRequirement))
+                    : Optional.empty();
+            this.diagnostic = diagnostic;
+        }
+    }
+
+    private List<OfferRecommendation> evaluateOffers(Evaluation evaluation, List<Offer> offers) {
+        final List<Integer> candidateIndexes = getCandidateOfferIndexes(evaluation.offerRequirement, offers);
+
+        if (!evaluationExecutor.isPresent() || candidateIndexes.size() <= 1) {
+            for (int i : candidateIndexes) {
+                OfferResult result = evaluateOffer(evaluation, offers.get(i), i);
+                recordDiagnostic(evaluation, result);
+                if (result.recommendations.isPresent()) {
+                    return result.recommendations.get();
                 }
             }
+            return Collections.emptyList();
+        }
+
+        // Score all offers concurrently, then select the first passing offer in the original offer order. This
+        // keeps the resulting offer-to-step assignment identical to what serial evaluation would produce.
+        List<Future<OfferResult>> futures = new ArrayList<>();
+        for (int i : candidateIndexes) {
+            final Offer offer = offers.get(i);
+            final int index = i;
+            futures.add(evaluationExecutor.get().submit(() -> evaluateOffer(evaluation, offer, index)));
+        }
 
-            StringBuilder outcomeDetails = new StringBuilder();
-            for (EvaluationOutcome outcome : outcomes) {
-                logOutcome(outcomeDetails, outcome, "");
+        List<OfferRecommendation> selected = null;
+        for (Future<OfferResult> future : futures) {
+            if (selected != null) {
+                future.cancel(true);
+                continue;
             }
-            if (outcomeDetails.length() != 0) {
-                // trim extra trailing newline:
-                outcomeDetails.deleteCharAt(outcomeDetails.length() - 1);
+            // Diagnostics are recorded here rather than by the workers, so that they cover the same offers in the
+            // same order as serial evaluation would:
+            OfferResult result = getResult(future);
+            recordDiagnostic(evaluation, result);
+            if (result.recommendations.isPresent()) {
+                selected = result.recommendations.get();
             }
+        }
+        return selected == null ? Collections.emptyList() : selected;
+    }
 
-            if (failedOutcomeCount != 0) {
-                logger.info("Offer {}: failed {} of {} evaluation stages:\n{}",
-                        i + 1, failedOutcomeCount, evaluationStages.size(), outcomeDetails.toString());
+    /**
+     * The result of evaluating a single offer against a requirement.
+     */
+    private static class OfferResult {
+        private final Offer offer;
+        private final List<EvaluationOutcome> outcomes;
+        private final Optional<List<OfferRecommendation>> recommendations;
+
+        private OfferResult(
+                Offer offer, List<EvaluationOutcome> outcomes, Optional<List<OfferRecommendation>> recommendations) {
+            this.offer = offer;
+            this.outcomes = outcomes;
+            this.recommendations = recommendations;
+        }
+    }
+
+    private static void recordDiagnostic(Evaluation evaluation, OfferResult result) {
+        if (!evaluation.diagnostic.isPresent()) {
+            return;
+        }
+        if (result.recommendations.isPresent()) {
+            evaluation.diagnostic.get().setPassed();
+        } else {
+            evaluation.diagnostic.get().addFailure(result.offer, result.outcomes);
+        }
+    }
+
+    /**
+     * Returns the indexes of the provided offers which should be evaluated against the provided requirement, in
+     * ascending order.
+     *
+     * A requirement for an existing pod expects the pod's previously reserved resources, and an offer which lacks any
+     * of them always fails evaluation. Such a requirement is therefore routed to the offers from the agents which hold
+     * its reservations. The resources of an already-running executor are not offered, so only the tasks' resources
+     * are used for routing. Requirements for new pods are evaluated against all offers.
+     */
+    private List<Integer> getCandidateOfferIndexes(OfferRequirement offerRequirement, List<Offer> offers) {
+        Collection<String> expectedResourceIds = new ArrayList<>();
+        for (TaskRequirement taskRequirement : offerRequirement.getTaskRequirements()) {
+            expectedResourceIds.addAll(taskRequirement.getResourceIds());
+        }
+
+        List<Integer> candidateIndexes = new ArrayList<>();
+        if (expectedResourceIds.isEmpty()) {
+            for (int i = 0; i < offers.size(); ++i) {
+                candidateIndexes.add(i);
+            }
+            return candidateIndexes;
+        }
+
+        Map<OfferID, Integer> offerIndexes = new HashMap<>();
+        for (int i = 0; i < offers.size(); ++i) {
+            offerIndexes.put(offers.get(i).getId(), i);
+        }
+        OfferIndex index = getOfferIndex(offers);
+        Set<String> agentIds = index.getAgentIds(expectedResourceIds);
+        for (String agentId : agentIds) {
+            for (Offer offer : index.getOffers(agentId)) {
+                // The index may cover offers which were since accepted by other steps:
+                Integer offerIndex = offerIndexes.get(offer.getId());
+                if (offerIndex != null) {
+                    candidateIndexes.add(offerIndex);
+                }
+            }
+        }
+        Collections.sort(candidateIndexes);
+
+        logger.info("Evaluating {} of {} offers from agents holding the expected reservations: {}",
+                candidateIndexes.size(), offers.size(), agentIds);
+        return candidateIndexes;
+    }
+
+    /**
+     * Returns an index which covers all of the provided offers, reusing the index from a prior evaluation if possible.
+     * This allows the index to be built once per offer cycle, rather than once per requirement.
+     */
+    private synchronized OfferIndex getOfferIndex(List<Offer> offers) {
+        if (offerIndex == null || !offerIndex.containsAll(offers)) {
+            offerIndex = new OfferIndex(offers);
+        }
+        return offerIndex;
+    }
+
+    private OfferResult evaluateOffer(Evaluation evaluation, Offer offer, int index) {
+        List<OfferEvaluationStage> evaluationStages = getEvaluationPipeline(evaluation);
+
+        MesosResourcePool resourcePool = new MesosResourcePool(offer);
+        PodInfoBuilder podInfoBuilder = new PodInfoBuilder(evaluation.offerRequirement);
+        List<EvaluationOutcome> outcomes = new ArrayList<>();
+        EvaluationOutcome firstFailedOutcome = null;
+        int failedOutcomeCount = 0;
+
+        for (OfferEvaluationStage evaluationStage : evaluationStages) {
+            long stageStartNanos = System.nanoTime();
+            EvaluationOutcome outcome = evaluationStage.evaluate(resourcePool, podInfoBuilder);
+            Metrics.recordSince(
+                    Metrics.OFFER_EVALUATION_STAGE_PREFIX + evaluationStage.getClass().getSimpleName(),
+                    stageStartNanos);
+            outcomes.add(outcome);
+            if (!outcome.isPassing()) {
+                failedOutcomeCount++;
+                if (firstFailedOutcome == null) {
+                    firstFailedOutcome = outcome;
+                }
+                if (failFast) {
+                    break;
+                }
+            }
+        }
+
+        if (failedOutcomeCount != 0) {
+            Metrics.counter(Metrics.OFFER_EVALUATION_FAILED).inc();
+            // Outcomes are only rendered if they're actually logged:
+            if (failFast) {
+                logger.info("Offer {}: failed evaluation stage {} of {}: {}",
+                        index + 1, outcomes.size(), evaluationStages.size(), firstFailedOutcome);
             } else {
-                List<OfferRecommendation> recommendations = outcomes.stream()
-                        .map(outcome -> outcome.getOfferRecommendations())
-                        .flatMap(xs -> xs.stream())
-                        .collect(Collectors.toList());
-                logger.info("Offer {}: passed all {} evaluation stages, returning {} recommendations:\n{}",
-                        i + 1, evaluationStages.size(), recommendations.size(), outcomeDetails.toString());
-                return recommendations;
+                logger.info("Offer {}: failed {} of {} evaluation stages, first failure: {}",
+                        index + 1, failedOutcomeCount, evaluationStages.size(), firstFailedOutcome);
             }
+            logger.debug("Offer {}: evaluation outcomes:\n{}", index + 1, renderOutcomes(outcomes));
+            return new OfferResult(offer, outcomes, Optional.empty());
         }
 
-        return Collections.emptyList();
+        List<OfferRecommendation> recommendations = outcomes.stream()
+                .map(outcome -> outcome.getOfferRecommendations())
+                .flatMap(xs -> xs.stream())
+                .collect(Collectors.toList());
+        Metrics.counter(Metrics.OFFER_EVALUATION_PASSED).inc();
+        logger.info("Offer {}: passed all {} evaluation stages, returning {} recommendations:\n{}",
+                index + 1, evaluationStages.size(), recommendations.size(), renderOutcomes(outcomes));
+        return new OfferResult(offer, outcomes, Optional.of(recommendations));
+    }
+
+    private static OfferResult getResult(Future<OfferResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating offers", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to evaluate offer", e.getCause());
+        }
     }
 
     public List<OfferEvaluationStage> getEvaluationPipeline(OfferRequirement offerRequirement) {
+        return getEvaluationPipeline(
+                new Evaluation(offerRequirement, getPlacementIndex(offerRequirement), Optional.empty()));
+    }
+
+    /**
+     * Returns the stages to evaluate an offer against. In fail-fast mode the stages are ordered cheapest first: The
+     * scalar totals check and the executor ID check are simple scans of the offer, while placement rules may need to
+     * consider every deployed task. Resource and volume stages are kept in their original order, as they consume
+     * from the offer in turn.
+     */
+    private List<OfferEvaluationStage> getEvaluationPipeline(Evaluation evaluation) {
+        final OfferRequirement offerRequirement = evaluation.offerRequirement;
         List<OfferEvaluationStage> evaluationPipeline = new ArrayList<>();
 
-        evaluationPipeline.add(new PlacementRuleEvaluationStage(stateStore.fetchTasks()));
-        if (offerRequirement.getExecutorRequirementOptional().isPresent()) {
-            evaluationPipeline.add(offerRequirement.getExecutorRequirementOptional().get().getEvaluationStage());
+        OfferEvaluationStage placementStage = new PlacementRuleEvaluationStage(evaluation.deployedTasks);
+        OfferEvaluationStage executorStage = offerRequirement.getExecutorRequirementOptional().isPresent()
+                ? offerRequirement.getExecutorRequirementOptional().get().getEvaluationStage()
+                : new ExecutorEvaluationStage();
+        if (evaluation.scalarTotalsStage.isPresent()) {
+            evaluationPipeline.add(evaluation.scalarTotalsStage.get());
+            evaluationPipeline.add(executorStage);
+            evaluationPipeline.add(placementStage);
         } else {
-            evaluationPipeline.add(new ExecutorEvaluationStage());
+            evaluationPipeline.add(placementStage);
+            evaluationPipeline.add(executorStage);
         }
 
         for (TaskRequirement taskRequirement : offerRequirement.getTaskRequirements()) {
@@ -105,6 +396,41 @@ public class OfferEvaluator {
         return evaluationPipeline;
     }
 
+    /**
+     * Returns an index of the deployed tasks against which the provided requirement's placement rule, if any, should
+     * be evaluated.
+     */
+    private PlacementIndex getPlacementIndex(OfferRequirement offerRequirement) throws StateStoreException {
+        if (placementIndex.isPresent()) {
+            return placementIndex.get();
+        }
+        if (!offerRequirement.getPlacementRuleOptional().isPresent()) {
+            // No rule to evaluate: avoid fetching the deployed tasks.
+            return new PlacementIndex();
+        }
+        return new PlacementIndex(stateStore.fetchTasks());
+    }
+
+    /**
+     * Returns an object which renders the provided outcomes as an indented tree, only once it's converted to a string.
+     */
+    private static Object renderOutcomes(List<EvaluationOutcome> outcomes) {
+        return new Object() {
+            @Override
+            public String toString() {
+                StringBuilder outcomeDetails = new StringBuilder();
+                for (EvaluationOutcome outcome : outcomes) {
+                    logOutcome(outcomeDetails, outcome, "");
+                }
+                if (outcomeDetails.length() != 0) {
+                    // trim extra trailing newline:
+                    outcomeDetails.deleteCharAt(outcomeDetails.length() - 1);
+                }
+                return outcomeDetails.toString();
+            }
+        };
+    }
+
     private static void logOutcome(StringBuilder stringBuilder, EvaluationOutcome outcome, String indent) {
         stringBuilder.append(String.format("  %s%s%n", indent, outcome.toString()));
         for (EvaluationOutcome child : outcome.getChildren()) {
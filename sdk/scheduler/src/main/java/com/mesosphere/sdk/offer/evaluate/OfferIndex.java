@@ -0,0 +1,79 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import com.mesosphere.sdk.offer.ResourceUtils;
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.Resource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the offers in an offer cycle, by the agent they came from and by the IDs of the reserved resources they
+ * contain. This allows a requirement which expects previously reserved resources, i.e. one for an existing pod, to be
+ * routed directly to the offers which could satisfy it, rather than being evaluated against every offer in the cycle.
+ * <p>
+ * Offers are only ever removed from a cycle as they're accepted, so an index which was built from the full cycle
+ * remains valid for any subset of those same offer instances.
+ */
+public class OfferIndex {
+
+    private final Set<Offer> offers = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<String, String> agentIdsByResourceId = new HashMap<>();
+    private final Map<String, List<Offer>> offersByAgentId = new HashMap<>();
+
+    public OfferIndex(Collection<Offer> offers) {
+        for (Offer offer : offers) {
+            this.offers.add(offer);
+            String agentId = offer.getSlaveId().getValue();
+            List<Offer> agentOffers = offersByAgentId.get(agentId);
+            if (agentOffers == null) {
+                agentOffers = new ArrayList<>();
+                offersByAgentId.put(agentId, agentOffers);
+            }
+            agentOffers.add(offer);
+            for (Resource resource : offer.getResourcesList()) {
+                String resourceId = ResourceUtils.getResourceId(resource);
+                if (resourceId != null && !resourceId.isEmpty()) {
+                    agentIdsByResourceId.put(resourceId, agentId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether all of the provided offers are covered by this index. Offers are compared by identity: Comparing
+     * offers by value would cost as much as rebuilding the index.
+     */
+    public boolean containsAll(Collection<Offer> offers) {
+        return this.offers.containsAll(offers);
+    }
+
+    /**
+     * Returns the IDs of the agents whose offers contain any of the provided reserved resource IDs.
+     */
+    public Set<String> getAgentIds(Collection<String> resourceIds) {
+        Set<String> agentIds = new HashSet<>();
+        for (String resourceId : resourceIds) {
+            String agentId = agentIdsByResourceId.get(resourceId);
+            if (agentId != null) {
+                agentIds.add(agentId);
+            }
+        }
+        return agentIds;
+    }
+
+    /**
+     * Returns all indexed offers from the provided agent, in the order they were indexed.
+     */
+    public List<Offer> getOffers(String agentId) {
+        List<Offer> agentOffers = offersByAgentId.get(agentId);
+        return agentOffers == null ? Collections.emptyList() : agentOffers;
+    }
+}
@@ -2,6 +2,7 @@ package com.mesosphere.sdk.offer.evaluate;
 
 import com.mesosphere.sdk.offer.MesosResourcePool;
 import com.mesosphere.sdk.offer.OfferRequirement;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementIndex;
 import org.apache.mesos.Protos;
 
 import java.util.Collection;
@@ -13,9 +14,13 @@ import static com.mesosphere.sdk.offer.evaluate.EvaluationOutcome.*;
  * constraints imposed by the supplied {@link com.mesosphere.sdk.offer.evaluate.placement.PlacementRule}.
  */
 public class PlacementRuleEvaluationStage implements OfferEvaluationStage {
-    private final Collection<Protos.TaskInfo> deployedTasks;
+    private final PlacementIndex deployedTasks;
 
     public PlacementRuleEvaluationStage(Collection<Protos.TaskInfo> deployedTasks) {
+        this(new PlacementIndex(deployedTasks));
+    }
+
+    public PlacementRuleEvaluationStage(PlacementIndex deployedTasks) {
         this.deployedTasks = deployedTasks;
     }
 
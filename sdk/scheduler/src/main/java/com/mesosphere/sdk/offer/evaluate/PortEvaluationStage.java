@@ -52,7 +52,7 @@ public class PortEvaluationStage extends ResourceEvaluationStage implements Offe
             if (!dynamicPort.isPresent()) {
                 return fail(this,
                         "No ports were available for dynamic claim in offer: %s",
-                        mesosResourcePool.getOffer().toString());
+                        shortDebugString(mesosResourcePool.getOffer()));
             }
 
             assignedPort = dynamicPort.get();
@@ -151,10 +151,11 @@ public class PortEvaluationStage extends ResourceEvaluationStage implements Offe
             }
         }
 
-        Protos.Value availablePorts = mesosResourcePool.getUnreservedMergedPool().get(Constants.PORTS_RESOURCE_TYPE);
+        Optional<Protos.Value> availablePorts =
+                mesosResourcePool.getUnreservedMergedValue(Constants.PORTS_RESOURCE_TYPE);
         Optional<Integer> dynamicPort = Optional.empty();
-        if (availablePorts != null) {
-            dynamicPort = availablePorts.getRanges().getRangeList().stream()
+        if (availablePorts.isPresent()) {
+            dynamicPort = availablePorts.get().getRanges().getRangeList().stream()
                     .flatMap(r -> IntStream.rangeClosed((int) r.getBegin(), (int) r.getEnd()).boxed())
                     .filter(p -> !consumedPorts.contains(p))
                     .findFirst();
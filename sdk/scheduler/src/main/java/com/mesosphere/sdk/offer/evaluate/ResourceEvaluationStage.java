@@ -15,6 +15,7 @@ import java.util.UUID;
 
 import static com.mesosphere.sdk.offer.evaluate.EvaluationOutcome.fail;
 import static com.mesosphere.sdk.offer.evaluate.EvaluationOutcome.pass;
+import static com.mesosphere.sdk.offer.evaluate.EvaluationOutcome.shortDebugString;
 
 /**
  * This class evaluates an offer against a given {@link OfferRequirement}, ensuring that it contains a sufficient amount
@@ -77,14 +78,14 @@ public class ResourceEvaluationStage implements OfferEvaluationStage {
             if (!existingResourceOptional.isPresent()) {
                 return fail(this, "Expected existing resource is not present in the offer '%s': %s",
                         resourceRequirement.getName(),
-                        TextFormat.shortDebugString(resourceRequirement.getResource()));
+                        shortDebugString(resourceRequirement.getResource()));
             }
 
             Optional<MesosResource> consumedResourceOptional = mesosResourcePool.consume(resourceRequirement);
             if (!consumedResourceOptional.isPresent()) {
                 return fail(this, "Failed to satisfy required resource '%s': %s",
                         resourceRequirement.getName(),
-                        TextFormat.shortDebugString(resourceRequirement.getResource()));
+                        shortDebugString(resourceRequirement.getResource()));
             }
 
             MesosResource existingResource = existingResourceOptional.get();
@@ -134,7 +135,7 @@ public class ResourceEvaluationStage implements OfferEvaluationStage {
             if (!consumedResourceOptional.isPresent()) {
                 return fail(this, "Failed to satisfy required resource '%s': %s",
                         resourceRequirement.getName(),
-                        TextFormat.shortDebugString(resourceRequirement.getResource()));
+                        shortDebugString(resourceRequirement.getResource()));
             }
             offerRecommendation = new ReserveOfferRecommendation(mesosResourcePool.getOffer(), fulfilledResource);
         }
@@ -154,7 +155,7 @@ public class ResourceEvaluationStage implements OfferEvaluationStage {
                 offerRecommendation == null ? Collections.emptyList() : Arrays.asList(offerRecommendation),
                 "Offer contains sufficient '%s': requirement=%s",
                 resourceRequirement.getName(),
-                TextFormat.shortDebugString(resourceRequirement.getValue()));
+                shortDebugString(resourceRequirement.getValue()));
     }
 
     protected EvaluationOutcome validateRequirements(OfferRequirement offerRequirement) {
@@ -0,0 +1,69 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.OfferRequirement;
+import com.mesosphere.sdk.offer.ResourceRequirement;
+import com.mesosphere.sdk.offer.TaskRequirement;
+import org.apache.mesos.Protos.Resource;
+import org.apache.mesos.Protos.Value;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.mesosphere.sdk.offer.evaluate.EvaluationOutcome.*;
+
+/**
+ * This class performs a cheap check that an offer contains at least the total amount of each scalar resource (cpus,
+ * mem, disk, ...) which is required by the tasks in an {@link OfferRequirement}, before any of the costlier
+ * placement, resource, or volume stages are evaluated against it.
+ * <p>
+ * The check is deliberately permissive: All offered resources of a given name are counted regardless of their role or
+ * reservation, and executor resources are not required, as those of an already running executor are not offered. An
+ * offer which fails this check would therefore always fail a later stage as well.
+ */
+public class ScalarTotalsEvaluationStage implements OfferEvaluationStage {
+
+    /** Tolerance for floating point error in offered and required amounts. */
+    private static final double EPSILON = 0.0001;
+
+    private final Map<String, Double> requiredTotals;
+
+    /**
+     * Creates a new stage which checks offers against the scalar totals of the provided requirement. The totals are
+     * computed once, so that a single instance may be used to check every offer in an offer cycle.
+     */
+    public ScalarTotalsEvaluationStage(OfferRequirement offerRequirement) {
+        this.requiredTotals = new HashMap<>();
+        for (TaskRequirement taskRequirement : offerRequirement.getTaskRequirements()) {
+            for (ResourceRequirement resourceRequirement : taskRequirement.getResourceRequirements()) {
+                Value value = resourceRequirement.getValue();
+                if (value.getType() == Value.Type.SCALAR) {
+                    requiredTotals.merge(resourceRequirement.getName(), value.getScalar().getValue(), Double::sum);
+                }
+            }
+        }
+    }
+
+    @Override
+    public EvaluationOutcome evaluate(MesosResourcePool mesosResourcePool, PodInfoBuilder podInfoBuilder) {
+        if (requiredTotals.isEmpty()) {
+            return pass(this, "No scalar resources required");
+        }
+
+        Map<String, Double> offeredTotals = new HashMap<>();
+        for (Resource resource : mesosResourcePool.getOffer().getResourcesList()) {
+            if (resource.getType() == Value.Type.SCALAR && requiredTotals.containsKey(resource.getName())) {
+                offeredTotals.merge(resource.getName(), resource.getScalar().getValue(), Double::sum);
+            }
+        }
+
+        for (Map.Entry<String, Double> required : requiredTotals.entrySet()) {
+            double offered = offeredTotals.getOrDefault(required.getKey(), 0.0);
+            if (offered + EPSILON < required.getValue()) {
+                return fail(this, "Offer has insufficient '%s' in total: offered=%s required=%s",
+                        required.getKey(), offered, required.getValue());
+            }
+        }
+        return pass(this, "Offer has sufficient totals of all required scalar resources: %s", requiredTotals);
+    }
+}
@@ -39,7 +39,7 @@ public class VolumeEvaluationStage extends ResourceEvaluationStage implements Of
             return fail(this, "Failed to satisfy requirements for %s volume '%s': %s",
                     getVolumeType(),
                     resourceRequirement.getResource().getDisk().getVolume().getContainerPath(),
-                    TextFormat.shortDebugString(resourceRequirement.getResource()));
+                    shortDebugString(resourceRequirement.getResource()));
         }
 
         final MesosResource mesosResource = mesosResourceOptional.get();
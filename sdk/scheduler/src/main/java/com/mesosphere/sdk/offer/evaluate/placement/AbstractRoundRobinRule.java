@@ -44,6 +44,11 @@ abstract class AbstractRoundRobinRule implements PlacementRule {
      */
     protected abstract String getValue(TaskInfo task);
 
+    /**
+     * Returns the {@link PlacementIndex.Key} which tallies tasks by the same values as {@link #getValue(TaskInfo)}.
+     */
+    protected abstract PlacementIndex.Key getIndexKey();
+
     @Override
     public EvaluationOutcome filter(Offer offer, OfferRequirement offerRequirement, Collection<TaskInfo> tasks) {
         final String offerValue = getValue(offer);
@@ -96,6 +101,38 @@ abstract class AbstractRoundRobinRule implements PlacementRule {
         LOGGER.info("Value counts: {}, knownMin: {}, knownMax: {}, offer: {}",
                 valueCounts, minKnownValueCount, maxKnownValueCount, offerValueCount);
 
+        return filterCounts(offerValue, offerValueCount, minKnownValueCount, maxKnownValueCount, valueCounts.size());
+    }
+
+    @Override
+    public EvaluationOutcome filter(Offer offer, OfferRequirement offerRequirement, PlacementIndex index) {
+        final String offerValue = getValue(offer);
+        if (offerValue == null) {
+            // offer doesn't have the required attribute at all. denied.
+            return EvaluationOutcome.fail(this, "Offer lacks required round robin value");
+        }
+
+        PlacementIndex.ValueCounts valueCounts = index.getValueCounts(getIndexKey(), offerValue, offerRequirement);
+        LOGGER.info("Value counts: {}", valueCounts);
+
+        return filterCounts(
+                offerValue,
+                valueCounts.getValueCount(),
+                valueCounts.getMinCount(),
+                valueCounts.getMaxCount(),
+                valueCounts.getDistinctValues());
+    }
+
+    /**
+     * Returns whether an offer with the provided value should be accepted, given the number of tasks already placed
+     * against that value and the range of task counts across all values which have tasks.
+     */
+    private EvaluationOutcome filterCounts(
+            String offerValue,
+            int offerValueCount,
+            int minKnownValueCount,
+            int maxKnownValueCount,
+            int knownValueCount) {
         if (minKnownValueCount == maxKnownValueCount
                 || offerValueCount <= minKnownValueCount) {
             // all (known) attribute values are full at the current level, or this offer is on a value
@@ -107,7 +144,7 @@ abstract class AbstractRoundRobinRule implements PlacementRule {
                         this,
                         "Distinct value count is unspecified, and '%s' has %d instances while others have%d to %d",
                         offerValue, offerValueCount, minKnownValueCount, maxKnownValueCount);
-            } else if (valueCounts.size() >= distinctValueCount.get()) {
+            } else if (knownValueCount >= distinctValueCount.get()) {
                 // no values are missing from our counts, and this value has fewer instances than some other value in
                 // the system.
                 return EvaluationOutcome.pass(
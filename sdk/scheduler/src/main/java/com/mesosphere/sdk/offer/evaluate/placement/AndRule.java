@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -32,13 +33,22 @@ public class AndRule implements PlacementRule {
 
     @Override
     public EvaluationOutcome filter(Offer offer, OfferRequirement offerRequirement, Collection<TaskInfo> tasks) {
+        return filterChildren(rule -> rule.filter(offer, offerRequirement, tasks));
+    }
+
+    @Override
+    public EvaluationOutcome filter(Offer offer, OfferRequirement offerRequirement, PlacementIndex index) {
+        return filterChildren(rule -> rule.filter(offer, offerRequirement, index));
+    }
+
+    private EvaluationOutcome filterChildren(Function<PlacementRule, EvaluationOutcome> childFilter) {
         if (rules.isEmpty()) {
             return EvaluationOutcome.fail(this, "No rules to AND together is treated as 'always fail'");
         }
         int passingCount = 0;
         Collection<EvaluationOutcome> children = new ArrayList<>();
         for (PlacementRule rule : rules) {
-            EvaluationOutcome child = rule.filter(offer, offerRequirement, tasks);
+            EvaluationOutcome child = childFilter.apply(rule);
             if (child.isPassing()) {
                 passingCount++;
             }
@@ -153,6 +153,35 @@ public class MaxPerAttributeRule implements PlacementRule {
                 maxTasksPerSelectedAttribute, taskFilter.toString(), attributeMatcher.toString());
     }
 
+    @Override
+    public EvaluationOutcome filter(Offer offer, OfferRequirement offerRequirement, PlacementIndex index) {
+        if (offer.getAttributesCount() == 0) {
+            // shortcut: offer has no attributes to enforce. offer accepted!
+            return EvaluationOutcome.pass(this, "Offer has no attributes to enforce");
+        }
+
+        PlacementIndex.Key key = PlacementIndex.Key.attribute(taskFilter);
+        for (Attribute attributeProto : offer.getAttributesList()) {
+            String offerAttributeString = AttributeStringUtils.toString(attributeProto);
+            // only check attribute(s) that match the attribute matcher (eg 'rack:.*'):
+            if (!attributeMatcher.matches(offerAttributeString)) {
+                continue;
+            }
+            int val = index.getTaskCount(key, offerAttributeString, offerRequirement);
+            if (val > 0 && val >= maxTasksPerSelectedAttribute) {
+                // this attribute value's usage meets or exceeds the limit, and it is
+                // present in this offer. offer denied!
+                return EvaluationOutcome.fail(this,
+                        "Reached %d/%d tasks matching filter '%s' on this agent with attribute: %s",
+                        val, maxTasksPerSelectedAttribute, taskFilter.toString(), attributeMatcher.toString());
+            }
+        }
+        return EvaluationOutcome.pass(
+                this,
+                "Fits within limit of %d tasks matching filter '%s' on this agent with attribute: %s",
+                maxTasksPerSelectedAttribute, taskFilter.toString(), attributeMatcher.toString());
+    }
+
     @JsonProperty("max")
     private int getMax() {
         return maxTasksPerSelectedAttribute;
@@ -114,6 +114,21 @@ public class MaxPerHostnameRule implements PlacementRule {
                 offerHostnameTaskCounts, maxTasksPerHostname, taskFilter.toString());
     }
 
+    @Override
+    public EvaluationOutcome filter(Offer offer, OfferRequirement offerRequirement, PlacementIndex index) {
+        int offerHostnameTaskCounts =
+                index.getTaskCount(PlacementIndex.Key.hostname(taskFilter), offer.getHostname(), offerRequirement);
+        if (offerHostnameTaskCounts > 0 && offerHostnameTaskCounts >= maxTasksPerHostname) {
+            // the hostname for this offer meets or exceeds the limit. offer denied!
+            return EvaluationOutcome.fail(this, "%d/%d tasks matching filter '%s' are already present on this host",
+                    offerHostnameTaskCounts, maxTasksPerHostname, taskFilter.toString());
+        }
+        return EvaluationOutcome.pass(
+                this,
+                "%d/%d tasks matching filter '%s' are present on this host",
+                offerHostnameTaskCounts, maxTasksPerHostname, taskFilter.toString());
+    }
+
     @JsonProperty("max")
     private int getMax() {
         return maxTasksPerHostname;
@@ -27,7 +27,15 @@ public class NotRule implements PlacementRule {
 
     @Override
     public EvaluationOutcome filter(Offer offer, OfferRequirement offerRequirement, Collection<TaskInfo> tasks) {
-        EvaluationOutcome child = rule.filter(offer, offerRequirement, tasks);
+        return invert(rule.filter(offer, offerRequirement, tasks));
+    }
+
+    @Override
+    public EvaluationOutcome filter(Offer offer, OfferRequirement offerRequirement, PlacementIndex index) {
+        return invert(rule.filter(offer, offerRequirement, index));
+    }
+
+    private EvaluationOutcome invert(EvaluationOutcome child) {
         return EvaluationOutcome.create(
                 !child.isPassing(),
                 this,
@@ -0,0 +1,480 @@
+package com.mesosphere.sdk.offer.evaluate.placement;
+
+import com.mesosphere.sdk.offer.AttributeStringUtils;
+import com.mesosphere.sdk.offer.CommonTaskUtils;
+import com.mesosphere.sdk.offer.OfferRequirement;
+import com.mesosphere.sdk.offer.TaskException;
+import com.mesosphere.sdk.state.StateStoreListener;
+import org.apache.mesos.Protos.TaskInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An incrementally maintained index of the placement-relevant properties of deployed tasks, allowing
+ * {@link PlacementRule}s to be evaluated against an offer without rescanning every deployed task.
+ *
+ * Each task's type, pod index, hostname, agent and offer attributes are parsed once when the task is stored. Rules
+ * then request tallies of those properties by {@link Key}, e.g. "the number of tasks named 'index-.*' on each
+ * hostname". A tally is built from the current tasks the first time its key is requested, and from then on is
+ * updated as tasks are stored or cleared. Lookups against a tally only cost O(1) per offer, plus the cost of
+ * discounting any stale tasks for the pod instance currently being placed (see
+ * {@link PlacementUtils#areEquivalent(TaskInfo, OfferRequirement)}).
+ *
+ * The index may be kept up to date by registering it against a
+ * {@link com.mesosphere.sdk.state.StateStoreCache}, or may be built once from a snapshot of tasks.
+ */
+public class PlacementIndex implements StateStoreListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlacementIndex.class);
+
+    /**
+     * The task property which is tallied for a given {@link Key}.
+     */
+    private enum Dimension {
+        HOSTNAME,
+        AGENT_ID,
+        ATTRIBUTE,
+        ATTRIBUTE_VALUE
+    }
+
+    /**
+     * Describes which tasks are counted by a tally, and which property of those tasks is counted.
+     */
+    public static final class Key {
+        private final Dimension dimension;
+        private final String attributeName;
+        private final StringMatcher taskFilter;
+        private final String taskType;
+
+        /**
+         * Counts tasks by the hostname they were launched on, for tasks whose names match the provided filter.
+         */
+        public static Key hostname(StringMatcher taskFilter) {
+            return new Key(Dimension.HOSTNAME, null, taskFilter, null);
+        }
+
+        /**
+         * Counts tasks by each of the offer attribute strings (e.g. {@code rack:foo}) they were launched against, for
+         * tasks whose names match the provided filter.
+         */
+        public static Key attribute(StringMatcher taskFilter) {
+            return new Key(Dimension.ATTRIBUTE, null, taskFilter, null);
+        }
+
+        /**
+         * Counts tasks by the value of the named offer attribute they were launched against, for tasks whose names
+         * match the provided filter. Attribute names are compared case-insensitively.
+         */
+        public static Key attributeValue(String attributeName, StringMatcher taskFilter) {
+            return new Key(Dimension.ATTRIBUTE_VALUE, attributeName.toLowerCase(), taskFilter, null);
+        }
+
+        /**
+         * Counts tasks by the ID of the agent they were launched on, for tasks with the provided task type label.
+         */
+        public static Key agentId(String taskType) {
+            return new Key(Dimension.AGENT_ID, null, null, taskType);
+        }
+
+        private Key(Dimension dimension, String attributeName, StringMatcher taskFilter, String taskType) {
+            this.dimension = dimension;
+            this.attributeName = attributeName;
+            this.taskFilter = taskFilter;
+            this.taskType = taskType;
+        }
+
+        private boolean matches(TaskEntry entry) {
+            return (taskFilter == null || taskFilter.matches(entry.name))
+                    && (taskType == null || taskType.equals(entry.type));
+        }
+
+        private List<String> getValues(TaskEntry entry) {
+            switch (dimension) {
+            case HOSTNAME:
+                return entry.hostname == null
+                        ? Collections.emptyList()
+                        : Collections.singletonList(entry.hostname);
+            case AGENT_ID:
+                return Collections.singletonList(entry.agentId);
+            case ATTRIBUTE:
+                return entry.attributeStrings;
+            case ATTRIBUTE_VALUE:
+                for (String attributeString : entry.attributeStrings) {
+                    AttributeStringUtils.NameValue nameValue = AttributeStringUtils.split(attributeString);
+                    if (nameValue.name.equalsIgnoreCase(attributeName)) {
+                        return Collections.singletonList(nameValue.value);
+                    }
+                }
+                return Collections.emptyList();
+            default:
+                throw new IllegalStateException("Unsupported dimension: " + dimension);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return dimension == other.dimension
+                    && Objects.equals(attributeName, other.attributeName)
+                    && Objects.equals(taskFilter, other.taskFilter)
+                    && Objects.equals(taskType, other.taskType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dimension, attributeName, taskFilter, taskType);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Key{dimension=%s, attribute=%s, task-filter=%s, task-type=%s}",
+                    dimension, attributeName, taskFilter, taskType);
+        }
+    }
+
+    /**
+     * A summary of the task counts across all values of a {@link Key}, as returned by
+     * {@link PlacementIndex#getValueCounts(Key, String, OfferRequirement)}.
+     */
+    public static final class ValueCounts {
+        private final int valueCount;
+        private final int minCount;
+        private final int maxCount;
+        private final int distinctValues;
+
+        private ValueCounts(int valueCount, int minCount, int maxCount, int distinctValues) {
+            this.valueCount = valueCount;
+            this.minCount = minCount;
+            this.maxCount = maxCount;
+            this.distinctValues = distinctValues;
+        }
+
+        /**
+         * Returns the number of tasks against the requested value.
+         */
+        public int getValueCount() {
+            return valueCount;
+        }
+
+        /**
+         * Returns the smallest number of tasks against any value which has at least one task, or zero if no values
+         * have tasks.
+         */
+        public int getMinCount() {
+            return minCount;
+        }
+
+        /**
+         * Returns the largest number of tasks against any value, or zero if no values have tasks.
+         */
+        public int getMaxCount() {
+            return maxCount;
+        }
+
+        /**
+         * Returns the number of distinct values which have at least one task.
+         */
+        public int getDistinctValues() {
+            return distinctValues;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ValueCounts{value=%d, min=%d, max=%d, distinct=%d}",
+                    valueCount, minCount, maxCount, distinctValues);
+        }
+    }
+
+    /**
+     * The placement-relevant properties of a single task, parsed once when the task is stored.
+     */
+    private static class TaskEntry {
+        private final TaskInfo task;
+        private final String name;
+        private final String type;
+        private final Integer index;
+        private final String hostname;
+        private final String agentId;
+        private final List<String> attributeStrings;
+
+        private TaskEntry(TaskInfo task) {
+            this.task = task;
+            this.name = task.getName();
+            this.type = getTypeOrNull(task);
+            this.index = getIndexOrNull(task);
+            this.hostname = getHostnameOrNull(task);
+            this.agentId = task.getSlaveId().getValue();
+            this.attributeStrings = CommonTaskUtils.getOfferAttributeStrings(task);
+        }
+
+        private List<Object> getPodInstanceKey() {
+            return Arrays.asList(type, index);
+        }
+    }
+
+    /**
+     * Task counts for each value of a {@link Key}, along with the number of values having each count.
+     */
+    private static class Tally {
+        private final Map<String, Integer> valueCounts = new HashMap<>();
+        private final TreeMap<Integer, Integer> countFrequencies = new TreeMap<>();
+        private int taskCount = 0;
+
+        private void add(List<String> values) {
+            ++taskCount;
+            for (String value : values) {
+                adjust(value, 1);
+            }
+        }
+
+        private void remove(List<String> values) {
+            --taskCount;
+            for (String value : values) {
+                adjust(value, -1);
+            }
+        }
+
+        private void adjust(String value, int delta) {
+            int oldCount = valueCounts.getOrDefault(value, 0);
+            int newCount = oldCount + delta;
+            if (oldCount > 0) {
+                adjustFrequency(countFrequencies, oldCount, -1);
+            }
+            if (newCount > 0) {
+                valueCounts.put(value, newCount);
+                adjustFrequency(countFrequencies, newCount, 1);
+            } else {
+                valueCounts.remove(value);
+            }
+        }
+    }
+
+    private final Map<String, TaskEntry> entries = new LinkedHashMap<>();
+    private final Map<List<Object>, Set<String>> namesByPodInstance = new HashMap<>();
+    private final Map<Key, Tally> tallies = new HashMap<>();
+    private List<TaskInfo> tasks = null;
+
+    /**
+     * Creates an empty index, to be populated via the {@link StateStoreListener} callbacks.
+     */
+    public PlacementIndex() {
+        this(Collections.emptyList());
+    }
+
+    /**
+     * Creates an index containing the provided tasks.
+     */
+    public PlacementIndex(Collection<TaskInfo> tasks) {
+        tasksRefreshed(tasks);
+    }
+
+    @Override
+    public synchronized void tasksRefreshed(Collection<TaskInfo> tasks) {
+        entries.clear();
+        namesByPodInstance.clear();
+        tallies.clear();
+        for (TaskInfo task : tasks) {
+            addEntry(new TaskEntry(task));
+        }
+        this.tasks = null;
+    }
+
+    @Override
+    public synchronized void tasksStored(Collection<TaskInfo> tasks) {
+        for (TaskInfo task : tasks) {
+            removeEntry(task.getName());
+            addEntry(new TaskEntry(task));
+        }
+        this.tasks = null;
+    }
+
+    @Override
+    public synchronized void taskCleared(String taskName) {
+        removeEntry(taskName);
+        this.tasks = null;
+    }
+
+    /**
+     * Returns all tasks in the index, for use by rules which cannot make use of the index's tallies.
+     */
+    public synchronized Collection<TaskInfo> getTasks() {
+        if (tasks == null) {
+            List<TaskInfo> taskList = new ArrayList<>(entries.size());
+            for (TaskEntry entry : entries.values()) {
+                taskList.add(entry.task);
+            }
+            tasks = Collections.unmodifiableList(taskList);
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the number of tasks matching the provided {@link Key}, including any stale tasks for the pod instance
+     * being placed.
+     */
+    public synchronized int getMatchingTaskCount(Key key) {
+        return getTally(key).taskCount;
+    }
+
+    /**
+     * Returns the number of tasks matching the provided {@link Key} which have the provided value, ignoring any stale
+     * tasks for the pod instance described by the provided {@link OfferRequirement}.
+     */
+    public synchronized int getTaskCount(Key key, String value, OfferRequirement offerRequirement) {
+        int count = getTally(key).valueCounts.getOrDefault(value, 0);
+        Integer excluded = getExcludedCounts(key, offerRequirement).get(value);
+        return excluded == null ? count : count - excluded;
+    }
+
+    /**
+     * Returns a summary of the task counts across all values of the provided {@link Key}, along with the count for the
+     * provided value, ignoring any stale tasks for the pod instance described by the provided {@link OfferRequirement}.
+     */
+    public synchronized ValueCounts getValueCounts(Key key, String value, OfferRequirement offerRequirement) {
+        Tally tally = getTally(key);
+        Map<String, Integer> excludedCounts = getExcludedCounts(key, offerRequirement);
+
+        int valueCount = tally.valueCounts.getOrDefault(value, 0) - excludedCounts.getOrDefault(value, 0);
+        int distinctValues = tally.valueCounts.size();
+        TreeMap<Integer, Integer> countFrequencies = tally.countFrequencies;
+        if (!excludedCounts.isEmpty()) {
+            // Stale tasks are rare, and only affect a handful of values. Adjust a copy of the frequencies to match.
+            countFrequencies = new TreeMap<>(countFrequencies);
+            for (Map.Entry<String, Integer> excluded : excludedCounts.entrySet()) {
+                int oldCount = tally.valueCounts.getOrDefault(excluded.getKey(), 0);
+                int newCount = oldCount - excluded.getValue();
+                adjustFrequency(countFrequencies, oldCount, -1);
+                if (newCount > 0) {
+                    adjustFrequency(countFrequencies, newCount, 1);
+                } else {
+                    --distinctValues;
+                }
+            }
+        }
+
+        return new ValueCounts(
+                valueCount,
+                countFrequencies.isEmpty() ? 0 : countFrequencies.firstKey(),
+                countFrequencies.isEmpty() ? 0 : countFrequencies.lastKey(),
+                distinctValues);
+    }
+
+    private Tally getTally(Key key) {
+        Tally tally = tallies.get(key);
+        if (tally == null) {
+            tally = new Tally();
+            for (TaskEntry entry : entries.values()) {
+                if (key.matches(entry)) {
+                    tally.add(key.getValues(entry));
+                }
+            }
+            tallies.put(key, tally);
+        }
+        return tally;
+    }
+
+    /**
+     * Returns the per-value counts contributed by stale tasks with the same type and index as the provided
+     * {@link OfferRequirement}, which should be ignored when placing it.
+     */
+    private Map<String, Integer> getExcludedCounts(Key key, OfferRequirement offerRequirement) {
+        Set<String> names = namesByPodInstance.get(
+                Arrays.asList(offerRequirement.getType(), offerRequirement.getIndex()));
+        if (names == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> excludedCounts = new HashMap<>();
+        for (String name : names) {
+            TaskEntry entry = entries.get(name);
+            if (!key.matches(entry)) {
+                continue;
+            }
+            for (String value : key.getValues(entry)) {
+                excludedCounts.merge(value, 1, Integer::sum);
+            }
+        }
+        return excludedCounts;
+    }
+
+    private void addEntry(TaskEntry entry) {
+        entries.put(entry.name, entry);
+        namesByPodInstance.computeIfAbsent(entry.getPodInstanceKey(), k -> new HashSet<>()).add(entry.name);
+        for (Map.Entry<Key, Tally> tally : tallies.entrySet()) {
+            if (tally.getKey().matches(entry)) {
+                tally.getValue().add(tally.getKey().getValues(entry));
+            }
+        }
+    }
+
+    private void removeEntry(String taskName) {
+        TaskEntry entry = entries.remove(taskName);
+        if (entry == null) {
+            return;
+        }
+        Set<String> names = namesByPodInstance.get(entry.getPodInstanceKey());
+        names.remove(taskName);
+        if (names.isEmpty()) {
+            namesByPodInstance.remove(entry.getPodInstanceKey());
+        }
+        for (Map.Entry<Key, Tally> tally : tallies.entrySet()) {
+            if (tally.getKey().matches(entry)) {
+                tally.getValue().remove(tally.getKey().getValues(entry));
+            }
+        }
+    }
+
+    private static void adjustFrequency(TreeMap<Integer, Integer> countFrequencies, int count, int delta) {
+        int frequency = countFrequencies.getOrDefault(count, 0) + delta;
+        if (frequency > 0) {
+            countFrequencies.put(count, frequency);
+        } else {
+            countFrequencies.remove(count);
+        }
+    }
+
+    private static String getTypeOrNull(TaskInfo task) {
+        try {
+            return CommonTaskUtils.getType(task);
+        } catch (TaskException e) {
+            LOGGER.warn("Unable to extract task type from task {} for placement", task.getName(), e);
+            return null;
+        }
+    }
+
+    private static Integer getIndexOrNull(TaskInfo task) {
+        try {
+            return CommonTaskUtils.getIndex(task);
+        } catch (TaskException | NumberFormatException e) {
+            LOGGER.warn("Unable to extract index from task {} for placement", task.getName(), e);
+            return null;
+        }
+    }
+
+    private static String getHostnameOrNull(TaskInfo task) {
+        try {
+            return CommonTaskUtils.getHostname(task);
+        } catch (TaskException e) {
+            LOGGER.warn("Unable to extract hostname from task {} for placement", task.getName(), e);
+            return null;
+        }
+    }
+}
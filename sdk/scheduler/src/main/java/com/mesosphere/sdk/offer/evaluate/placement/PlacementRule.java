@@ -36,6 +36,23 @@ public interface PlacementRule {
      */
     EvaluationOutcome filter(Offer offer, OfferRequirement offerRequirement, Collection<TaskInfo> tasks);
 
+    /**
+     * Returns whether the provided {@link Offer}, combined with the accompanying {@link OfferRequirement} and the
+     * deployed tasks described by the {@link PlacementIndex}, passes or fails this placement constraint. This must
+     * return the same result as {@link #filter(Offer, OfferRequirement, Collection)} against the index's tasks.
+     *
+     * Rules which count deployed tasks should override this to query the index's tallies, rather than scanning every
+     * task for every offer. By default this falls back to {@link #filter(Offer, OfferRequirement, Collection)}.
+     *
+     * @param offer the offer to be examined
+     * @param offerRequirement the offer requirement describing what's to be done with this offer
+     * @param index an index of the currently deployed tasks in the system
+     * @return an {@link EvaluationOutcome} object describing whether the placement succeeded or failed and why
+     */
+    default EvaluationOutcome filter(Offer offer, OfferRequirement offerRequirement, PlacementIndex index) {
+        return filter(offer, offerRequirement, index.getTasks());
+    }
+
     /**
      * Must be explicitly implemented by all PlacementRules.
      *
@@ -78,6 +78,11 @@ public class RoundRobinByAttributeRule extends AbstractRoundRobinRule {
         return null;
     }
 
+    @Override
+    protected PlacementIndex.Key getIndexKey() {
+        return PlacementIndex.Key.attributeValue(attributeName, taskFilter);
+    }
+
     @JsonProperty("name")
     private String getAttributeName() {
         return attributeName;
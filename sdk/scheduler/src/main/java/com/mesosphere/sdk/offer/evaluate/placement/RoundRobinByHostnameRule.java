@@ -74,6 +74,11 @@ public class RoundRobinByHostnameRule extends AbstractRoundRobinRule {
         }
     }
 
+    @Override
+    protected PlacementIndex.Key getIndexKey() {
+        return PlacementIndex.Key.hostname(taskFilter);
+    }
+
     @JsonProperty("agent-count")
     private Optional<Integer> getAgentCount() {
         return distinctValueCount;
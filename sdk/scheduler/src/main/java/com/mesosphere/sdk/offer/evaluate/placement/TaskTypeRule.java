@@ -131,6 +131,47 @@ public class TaskTypeRule implements PlacementRule {
         }
     }
 
+    @Override
+    public EvaluationOutcome filter(Offer offer, OfferRequirement offerRequirement, PlacementIndex index) {
+        if (!typeConverter.getClass().equals(TaskTypeLabelConverter.class)) {
+            // The index only knows the task types stored in task labels. Custom converters need to see each task.
+            return filter(offer, offerRequirement, index.getTasks());
+        }
+        PlacementIndex.Key key = PlacementIndex.Key.agentId(typeToFind);
+        boolean foundOnAgent = index.getTaskCount(key, offer.getSlaveId().getValue(), offerRequirement) > 0;
+        switch (behaviorType) {
+        case AVOID:
+            if (index.getMatchingTaskCount(key) == 0) {
+                return EvaluationOutcome.pass(
+                        this,
+                        "No tasks of avoided type '%s' are currently running.",
+                        typeToFind);
+            } else if (foundOnAgent) {
+                return EvaluationOutcome.fail(this,
+                        "Found a task matching avoided type '%s' on this agent.", typeToFind);
+            } else {
+                return EvaluationOutcome.pass(this, "No tasks of avoided type '%s' found on this agent.", typeToFind);
+            }
+        case COLOCATE:
+            if (index.getMatchingTaskCount(key) == 0) {
+                return EvaluationOutcome.pass(
+                        this,
+                        "No tasks of colocated type '%s' are currently running.",
+                        typeToFind);
+            } else if (foundOnAgent) {
+                return EvaluationOutcome.pass(
+                        this,
+                        "Found a task matching colocated type '%s' on this agent.",
+                        typeToFind);
+            } else {
+                return EvaluationOutcome.fail(this,
+                        "Didn't find a task matching colocated type '%s' on this agent.", typeToFind);
+            }
+        default:
+            throw new IllegalStateException("Unsupported behavior type: " + behaviorType);
+        }
+    }
+
     /**
      * Implementation of task type avoidance. Considers the presence of tasks in the cluster to
      * determine whether the provided task can be launched against a given offer. This rule requires
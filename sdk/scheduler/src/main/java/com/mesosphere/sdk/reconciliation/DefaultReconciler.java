@@ -7,6 +7,7 @@ import com.google.inject.Singleton;
 import org.apache.mesos.Protos;
 import org.apache.mesos.Protos.TaskStatus;
 import org.apache.mesos.SchedulerDriver;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.offer.CommonTaskUtils;
 import com.mesosphere.sdk.state.StateStore;
 import org.slf4j.Logger;
@@ -40,6 +41,11 @@ public class DefaultReconciler implements Reconciler {
     public DefaultReconciler(StateStore stateStore) {
         this.stateStore = stateStore;
         resetTimerValues();
+        Metrics.registerGauge(Metrics.RECONCILIATION_REMAINING, () -> {
+            synchronized (unreconciled) {
+                return unreconciled.size();
+            }
+        });
     }
 
     @Override
@@ -99,6 +105,7 @@ public class DefaultReconciler implements Reconciler {
                     LOGGER.info("Triggering explicit reconciliation of {} remaining tasks, next "
                             + "explicit reconciliation in {}ms or later",
                             unreconciled.size(), backOffMs);
+                    Metrics.counter(Metrics.RECONCILIATION_EXPLICIT).inc();
                     // pass a COPY of the list, in case driver is doing anything with it..:
                     driver.reconcileTasks(ImmutableList.copyOf(unreconciled.values()));
                 } else {
@@ -111,6 +118,7 @@ public class DefaultReconciler implements Reconciler {
                 // PHASE 2: no unreconciled tasks remain, trigger a single implicit reconciliation,
                 // where we get the list of all tasks currently known to Mesos.
                 LOGGER.info("Triggering implicit final reconciliation of all tasks");
+                Metrics.counter(Metrics.RECONCILIATION_IMPLICIT).inc();
                 driver.reconcileTasks(Collections.<TaskStatus>emptyList());
 
                 // reset the timer values in case we're started again in the future
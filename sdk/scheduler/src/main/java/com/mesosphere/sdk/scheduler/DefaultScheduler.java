@@ -2,12 +2,14 @@ package com.mesosphere.sdk.scheduler;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.TextFormat;
 import com.mesosphere.sdk.api.*;
 import com.mesosphere.sdk.api.types.EndpointProducer;
 import com.mesosphere.sdk.api.types.RestartHook;
 import com.mesosphere.sdk.api.types.StringPropertyDeserializer;
 import com.mesosphere.sdk.config.ConfigStore;
+import com.mesosphere.sdk.config.ConfigStoreCache;
 import com.mesosphere.sdk.config.ConfigStoreException;
 import com.mesosphere.sdk.config.ConfigurationUpdater;
 import com.mesosphere.sdk.config.DefaultConfigurationUpdater;
@@ -15,12 +17,16 @@ import com.mesosphere.sdk.config.validate.ConfigValidator;
 import com.mesosphere.sdk.config.validate.PodSpecsCannotShrink;
 import com.mesosphere.sdk.config.validate.TaskVolumesCannotChange;
 import com.mesosphere.sdk.curator.CuratorConfigStore;
+import com.mesosphere.sdk.curator.CuratorPersister;
 import com.mesosphere.sdk.curator.CuratorStateStore;
+import com.mesosphere.sdk.curator.CuratorUtils;
 import com.mesosphere.sdk.dcos.Capabilities;
 import com.mesosphere.sdk.dcos.DcosCluster;
 import com.mesosphere.sdk.dcos.DcosConstants;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.offer.*;
 import com.mesosphere.sdk.offer.evaluate.OfferEvaluator;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementIndex;
 import com.mesosphere.sdk.reconciliation.DefaultReconciler;
 import com.mesosphere.sdk.reconciliation.Reconciler;
 import com.mesosphere.sdk.scheduler.plan.*;
@@ -42,6 +48,7 @@ import com.mesosphere.sdk.state.PersistentLaunchRecorder;
 import com.mesosphere.sdk.state.StateStore;
 import com.mesosphere.sdk.state.StateStoreCache;
 import com.mesosphere.sdk.state.StateStoreUtils;
+import com.mesosphere.sdk.storage.WriteBehindPersister;
 import org.apache.mesos.Protos;
 import org.apache.mesos.Scheduler;
 import org.apache.mesos.SchedulerDriver;
@@ -52,6 +59,7 @@ import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
@@ -96,6 +104,8 @@ public class DefaultScheduler implements Scheduler, Observer {
     protected final Optional<RecoveryPlanManagerFactory> recoveryPlanManagerFactoryOptional;
     private final Optional<ReplacementFailurePolicy> failurePolicyOptional;
 
+    private final Optional<OfferBuffer> offerBuffer;
+
     private JettyApiServer apiServer;
     private Stopwatch apiServerStopwatch = Stopwatch.createStarted();
 
@@ -107,6 +117,9 @@ public class DefaultScheduler implements Scheduler, Observer {
     protected TaskFailureListener taskFailureListener;
     protected TaskKiller taskKiller;
     protected OfferAccepter offerAccepter;
+    protected OfferEvaluator offerEvaluator;
+    protected Optional<ResourceCleanerScheduler> indexedCleanerScheduler = Optional.empty();
+    protected OfferDemandController offerDemandController;
     protected PlanScheduler planScheduler;
     protected PlanManager deploymentPlanManager;
     protected PlanManager recoveryPlanManager;
@@ -375,7 +388,14 @@ public class DefaultScheduler implements Scheduler, Observer {
      * @param zkConnectionString the zookeeper connection string to be passed to curator (host:port)
      */
     public static StateStore createStateStore(ServiceSpec serviceSpec, String zkConnectionString) {
-        StateStore stateStore = new CuratorStateStore(serviceSpec.getName(), zkConnectionString);
+        long writeBehindMs = SchedulerFlags.getStateStoreWriteBehindMs();
+        StateStore stateStore = writeBehindMs > 0
+                ? new CuratorStateStore(serviceSpec.getName(), new WriteBehindPersister(
+                        CuratorStateStore.createWatchedPersister(
+                                new CuratorPersister(zkConnectionString, CuratorUtils.getDefaultRetry()),
+                                serviceSpec.getName()),
+                        writeBehindMs))
+                : new CuratorStateStore(serviceSpec.getName(), zkConnectionString);
         if (System.getenv(Constants.DISABLE_STATE_CACHE_SCHEDENV) != null) {
             return stateStore;
         } else {
@@ -398,6 +418,7 @@ public class DefaultScheduler implements Scheduler, Observer {
      * {@link DefaultScheduler#create}. To avoid the risk of zookeeper consistency issues, the
      * returned storage MUST NOT be written to before the Scheduler has registered with Mesos, as
      * signified by a call to {@link #registered(SchedulerDriver, Protos.FrameworkID, Protos.MasterInfo)}.
+     * Fetched configurations are cached in memory by a {@link ConfigStoreCache}.
      *
      * @param zkConnectionString the zookeeper connection string to be passed to curator (host:port)
      * @param customDeserializationSubtypes custom subtypes to register for deserialization of
@@ -410,10 +431,13 @@ public class DefaultScheduler implements Scheduler, Observer {
             ServiceSpec serviceSpec,
             String zkConnectionString,
             Collection<Class<?>> customDeserializationSubtypes) throws ConfigStoreException {
-        return new CuratorConfigStore<>(
+        ConfigStoreCache<ServiceSpec> configStore = new ConfigStoreCache<>(new CuratorConfigStore<>(
                 DefaultServiceSpec.getFactory(serviceSpec, customDeserializationSubtypes),
                 serviceSpec.getName(),
-                zkConnectionString);
+                zkConnectionString));
+        Metrics.registerGauge(Metrics.CONFIG_CACHE_HITS, () -> configStore.getHitCount());
+        Metrics.registerGauge(Metrics.CONFIG_CACHE_MISSES, () -> configStore.getMissCount());
+        return configStore;
     }
 
     /**
@@ -507,15 +531,38 @@ public class DefaultScheduler implements Scheduler, Observer {
         this.customRestartHook = restartHookOptional;
         this.recoveryPlanManagerFactoryOptional = recoveryPlanManagerFactoryOptional;
         this.failurePolicyOptional = serviceSpec.getReplacementFailurePolicy();
+        long offerHoldMs = SchedulerFlags.getOfferHoldMs();
+        if (offerHoldMs > 0) {
+            this.offerBuffer = Optional.of(new OfferBuffer(
+                    offerHoldMs,
+                    SchedulerFlags.getOfferHoldMaxOffers(),
+                    Executors.newSingleThreadScheduledExecutor(
+                            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("offer-hold-%d").build()),
+                    (offerDriver, offers) -> executor.execute(() -> processOffers(offerDriver, offers))));
+        } else {
+            this.offerBuffer = Optional.empty();
+        }
+        Metrics.registerGauge(Metrics.SCHEDULER_QUEUE_DEPTH, () -> executor instanceof ThreadPoolExecutor
+                ? ((ThreadPoolExecutor) executor).getQueue().size()
+                : 0);
     }
 
     public Collection<Object> getResources() throws InterruptedException {
         return resources;
     }
 
+    /**
+     * Stops processing any further callbacks from Mesos, once the driver has stopped. Any offers which are being held
+     * for evaluation are dropped.
+     */
+    public void stop() {
+        offerBuffer.ifPresent(OfferBuffer::close);
+        executor.shutdown();
+    }
+
     @VisibleForTesting
     void awaitTermination() throws InterruptedException {
-        executor.shutdown();
+        stop();
         executor.awaitTermination(AWAIT_TERMINATION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
     }
 
@@ -529,6 +576,7 @@ public class DefaultScheduler implements Scheduler, Observer {
         initializePlanCoordinator();
         initializeResources();
         initializeApiServer();
+        initializeMetricsReporter();
         planCoordinator.subscribe(this);
         LOGGER.info("Done initializing.");
     }
@@ -546,9 +594,34 @@ public class DefaultScheduler implements Scheduler, Observer {
         taskKiller = new DefaultTaskKiller(taskFailureListener, driver);
         reconciler = new DefaultReconciler(stateStore);
         offerAccepter = new OfferAccepter(Arrays.asList(new PersistentLaunchRecorder(stateStore, serviceSpec)));
-        planScheduler = new DefaultPlanScheduler(
-                offerAccepter,
-                new OfferEvaluator(stateStore, offerRequirementProvider), stateStore, taskKiller);
+        Optional<PlacementIndex> placementIndex = Optional.empty();
+        if (stateStore instanceof StateStoreCache) {
+            // Evaluate placement rules against an index which is kept up to date as tasks are stored:
+            placementIndex = Optional.of(new PlacementIndex());
+            ((StateStoreCache) stateStore).addListener(placementIndex.get());
+        }
+        offerEvaluator = new OfferEvaluator(
+                stateStore,
+                offerRequirementProvider,
+                SchedulerFlags.getOfferEvaluationThreads(),
+                SchedulerFlags.isOfferEvaluationFailFast(),
+                placementIndex);
+        planScheduler = new DefaultPlanScheduler(offerAccepter, offerEvaluator, stateStore, taskKiller);
+        if (stateStore instanceof StateStoreCache) {
+            // Keep the expected reservations up to date as tasks are stored, rather than rescanning every cycle:
+            ReservationIndex reservationIndex = new ReservationIndex();
+            ((StateStoreCache) stateStore).addListener(reservationIndex);
+            indexedCleanerScheduler = Optional.of(
+                    new ResourceCleanerScheduler(new ResourceCleaner(reservationIndex), offerAccepter));
+        }
+        offerDemandController = new OfferDemandController(
+                stateStore,
+                SchedulerFlags.getDeclineRefuseSecondsActive(),
+                SchedulerFlags.getDeclineRefuseSecondsIdle(),
+                Executors.newSingleThreadExecutor(
+                        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("suppress-persist-%d").build()));
+        Metrics.registerGauge(Metrics.OFFERS_SUPPRESSED, () -> offerDemandController.isSuppressed() ? 1 : 0);
+        Metrics.registerGauge(Metrics.OFFERS_DEMANDED_STEPS, () -> offerDemandController.getDemandedStepCount());
     }
 
     /**
@@ -638,6 +711,21 @@ public class DefaultScheduler implements Scheduler, Observer {
         }
         resources.add(new StateResource(stateStore, new StringPropertyDeserializer()));
         resources.add(new TaskResource(stateStore, taskKiller, serviceSpec.getName()));
+        resources.add(new WatchResource(planCoordinator, stateStore));
+        resources.add(new MetricsResource());
+        resources.add(new OffersResource(offerEvaluator.getDiagnostics()));
+    }
+
+    private void initializeMetricsReporter() {
+        Optional<String> statsDHost = SchedulerFlags.getStatsDHost();
+        if (!statsDHost.isPresent()) {
+            LOGGER.info("No StatsD agent configured, metrics are only available via the API");
+            return;
+        }
+        Metrics.startStatsDReporter(
+                statsDHost.get(),
+                SchedulerFlags.getStatsDPort(),
+                SchedulerFlags.getStatsDIntervalSecs());
     }
 
     private void initializeApiServer() {
@@ -668,17 +756,26 @@ public class DefaultScheduler implements Scheduler, Observer {
         }).start();
     }
 
-    private void declineOffers(SchedulerDriver driver, List<Protos.OfferID> acceptedOffers, List<Protos.Offer> offers) {
+    private void declineOffers(
+            SchedulerDriver driver,
+            List<Protos.OfferID> acceptedOffers,
+            List<Protos.Offer> offers,
+            double refuseSeconds) {
         final List<Protos.Offer> unusedOffers = OfferUtils.filterOutAcceptedOffers(offers, acceptedOffers);
-        LOGGER.info("Declining {} unused offers:", unusedOffers.size());
+        LOGGER.info("Declining {} unused offers for {}s:", unusedOffers.size(), refuseSeconds);
+        Metrics.counter(Metrics.OFFERS_DECLINED).inc(unusedOffers.size());
+        final Protos.Filters filters = Protos.Filters.newBuilder().setRefuseSeconds(refuseSeconds).build();
         unusedOffers.stream().forEach(offer -> {
             final Protos.OfferID offerId = offer.getId();
             LOGGER.info("  {}", offerId.getValue());
-            driver.declineOffer(offerId);
+            driver.declineOffer(offerId, filters);
         });
     }
 
     private Optional<ResourceCleanerScheduler> getCleanerScheduler() {
+        if (indexedCleanerScheduler.isPresent()) {
+            return indexedCleanerScheduler;
+        }
         try {
             ResourceCleaner cleaner = new ResourceCleaner(stateStore);
             return Optional.of(new ResourceCleanerScheduler(cleaner, offerAccepter));
@@ -741,63 +838,86 @@ public class DefaultScheduler implements Scheduler, Observer {
 
     @Override
     public void resourceOffers(SchedulerDriver driver, List<Protos.Offer> offersToProcess) {
+        Metrics.meter(Metrics.OFFERS_RECEIVED).mark(offersToProcess.size());
+        if (offerBuffer.isPresent()) {
+            // Offers are evaluated once the buffer is flushed:
+            offerBuffer.get().add(driver, offersToProcess);
+            return;
+        }
         List<Protos.Offer> offers = new ArrayList<>(offersToProcess);
-        executor.execute(() -> {
-            if (!apiServerReady()) {
-                LOGGER.info("Declining all offers. Waiting for API Server to start ...");
-                declineOffers(driver, Collections.emptyList(), offersToProcess);
-                return;
-            }
+        executor.execute(() -> processOffers(driver, offers));
+    }
 
-            LOGGER.info("Received {} {}:", offers.size(), offers.size() == 1 ? "offer" : "offers");
-            for (int i = 0; i < offers.size(); ++i) {
-                LOGGER.info("  {}: {}", i + 1, TextFormat.shortDebugString(offers.get(i)));
-            }
+    /**
+     * Runs a single offer cycle against the provided offers. Must be called on the scheduler's executor thread.
+     */
+    private void processOffers(SchedulerDriver driver, List<Protos.Offer> offersToProcess) {
+        List<Protos.Offer> offers = new ArrayList<>(offersToProcess);
+        if (!apiServerReady()) {
+            LOGGER.info("Declining all offers. Waiting for API Server to start ...");
+            declineOffers(driver, Collections.emptyList(), offers, SchedulerFlags.getDeclineRefuseSecondsActive());
+            return;
+        }
 
-            // Task Reconciliation:
-            // Task Reconciliation must complete before any Tasks may be launched.  It ensures that a Scheduler and
-            // Mesos have agreed upon the state of all Tasks of interest to the scheduler.
-            // http://mesos.apache.org/documentation/latest/reconciliation/
-            reconciler.reconcile(driver);
-            if (!reconciler.isReconciled()) {
-                LOGGER.info("Reconciliation is still in progress, declining all offers.");
-                declineOffers(driver, Collections.emptyList(), offers);
-                return;
-            }
+        Stopwatch cycleStopwatch = Stopwatch.createStarted();
+        int offerCount = offers.size();
+        LOGGER.info("Received {} {}:", offers.size(), offers.size() == 1 ? "offer" : "offers");
+        for (int i = 0; i < offers.size(); ++i) {
+            LOGGER.info("  {}: {}", i + 1, TextFormat.shortDebugString(offers.get(i)));
+        }
 
-            // Coordinate amongst all the plans via PlanCoordinator.
-            final List<Protos.OfferID> acceptedOffers = new ArrayList<>();
-            acceptedOffers.addAll(planCoordinator.processOffers(driver, offers));
-
-            List<Protos.Offer> unusedOffers = OfferUtils.filterOutAcceptedOffers(offers, acceptedOffers);
-            offers.clear();
-            offers.addAll(unusedOffers);
-
-            // Resource Cleaning:
-            // A ResourceCleaner ensures that reserved Resources are not leaked.  It is possible that an Agent may
-            // become inoperable for long enough that Tasks resident there were relocated.  However, this Agent may
-            // return at a later point and begin offering reserved Resources again.  To ensure that these unexpected
-            // reserved Resources are returned to the Mesos Cluster, the Resource Cleaner performs all necessary
-            // UNRESERVE and DESTROY (in the case of persistent volumes) Operations.
-            // Note: If there are unused reserved resources on a dirtied offer, then it will be cleaned in the next
-            // offer cycle.
-            final Optional<ResourceCleanerScheduler> cleanerScheduler = getCleanerScheduler();
-            if (cleanerScheduler.isPresent()) {
-                acceptedOffers.addAll(cleanerScheduler.get().resourceOffers(driver, offers));
-            }
+        // Task Reconciliation:
+        // Task Reconciliation must complete before any Tasks may be launched.  It ensures that a Scheduler and
+        // Mesos have agreed upon the state of all Tasks of interest to the scheduler.
+        // http://mesos.apache.org/documentation/latest/reconciliation/
+        reconciler.reconcile(driver);
+        if (!reconciler.isReconciled()) {
+            LOGGER.info("Reconciliation is still in progress, declining all offers.");
+            declineOffers(driver, Collections.emptyList(), offers, SchedulerFlags.getDeclineRefuseSecondsActive());
+            return;
+        }
 
-            unusedOffers = OfferUtils.filterOutAcceptedOffers(offers, acceptedOffers);
-            offers.clear();
-            offers.addAll(unusedOffers);
+        // Coordinate amongst all the plans via PlanCoordinator.
+        final List<Protos.OfferID> acceptedOffers = new ArrayList<>();
+        acceptedOffers.addAll(planCoordinator.processOffers(driver, offers));
+
+        List<Protos.Offer> unusedOffers = OfferUtils.filterOutAcceptedOffers(offers, acceptedOffers);
+        offers.clear();
+        offers.addAll(unusedOffers);
+
+        // Resource Cleaning:
+        // A ResourceCleaner ensures that reserved Resources are not leaked.  It is possible that an Agent may
+        // become inoperable for long enough that Tasks resident there were relocated.  However, this Agent may
+        // return at a later point and begin offering reserved Resources again.  To ensure that these unexpected
+        // reserved Resources are returned to the Mesos Cluster, the Resource Cleaner performs all necessary
+        // UNRESERVE and DESTROY (in the case of persistent volumes) Operations.
+        // Note: If there are unused reserved resources on a dirtied offer, then it will be cleaned in the next
+        // offer cycle.
+        final Optional<ResourceCleanerScheduler> cleanerScheduler = getCleanerScheduler();
+        if (cleanerScheduler.isPresent()) {
+            acceptedOffers.addAll(cleanerScheduler.get().resourceOffers(driver, offers));
+        }
 
-            // Decline remaining offers.
-            declineOffers(driver, acceptedOffers, offers);
-        });
+        unusedOffers = OfferUtils.filterOutAcceptedOffers(offers, acceptedOffers);
+        offers.clear();
+        offers.addAll(unusedOffers);
+
+        // Decline remaining offers, for longer if there's no work to do.
+        declineOffers(driver, acceptedOffers, offers, offerDemandController.getDeclineRefuseSeconds());
+
+        Metrics.counter(Metrics.OFFERS_ACCEPTED).inc(acceptedOffers.size());
+        Metrics.timer(Metrics.OFFER_CYCLE).update(cycleStopwatch.elapsed(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        LOGGER.info("Offer cycle completed in {}ms: {} offers received, {} accepted, {} declined",
+                cycleStopwatch.elapsed(TimeUnit.MILLISECONDS), offerCount, acceptedOffers.size(), offers.size());
     }
 
     @Override
     public void offerRescinded(SchedulerDriver driver, Protos.OfferID offerId) {
-        LOGGER.warn("Ignoring rescinded Offer: {}.", offerId.getValue());
+        if (offerBuffer.isPresent() && offerBuffer.get().remove(offerId)) {
+            LOGGER.info("Dropped rescinded held Offer: {}.", offerId.getValue());
+        } else {
+            LOGGER.warn("Ignoring rescinded Offer: {}.", offerId.getValue());
+        }
     }
 
     @Override
@@ -817,18 +937,20 @@ public class DefaultScheduler implements Scheduler, Observer {
                             .forEach(planManager -> planManager.update(status));
                     reconciler.update(status);
 
+                    String taskName = CommonTaskUtils.toTaskName(status.getTaskId());
                     if (status.getState().equals(Protos.TaskState.TASK_RUNNING)
                             || status.getState().equals(Protos.TaskState.TASK_FINISHED)) {
-                        String taskName = CommonTaskUtils.toTaskName(status.getTaskId());
                         Optional<Protos.TaskInfo> taskInfoOptional = stateStore.fetchTask(taskName);
                         if (taskInfoOptional.isPresent() && FailureUtils.isLabeledAsFailed(taskInfoOptional.get())) {
                             stateStore.storeTasks(Arrays.asList(FailureUtils.clearFailed(taskInfoOptional.get())));
                         }
                     }
 
-                    if (StateStoreUtils.isSuppressed(stateStore)
-                            && !StateStoreUtils.fetchTasksNeedingRecovery(stateStore, configStore).isEmpty()) {
-                        revive();
+                    // Only the updated task may have newly failed, so only it needs to be checked:
+                    if (offerDemandController.isSuppressed()
+                            && !StateStoreUtils.fetchTasksNeedingRecovery(
+                                    stateStore, configStore, Collections.singletonList(taskName)).isEmpty()) {
+                        offerDemandController.revive(driver);
                     }
                 } catch (Exception e) {
                     LOGGER.warn("Failed to update TaskStatus received from Mesos. "
@@ -888,44 +1010,16 @@ public class DefaultScheduler implements Scheduler, Observer {
         SchedulerUtils.hardExit(SchedulerErrorCode.ERROR);
     }
 
-    private void suppressOrRevive() {
-        if (planCoordinator.hasOperations()) {
-            if (StateStoreUtils.isSuppressed(stateStore)) {
-                revive();
-            } else {
-                LOGGER.info("Already revived.");
-            }
-        } else {
-            if (StateStoreUtils.isSuppressed(stateStore)) {
-                LOGGER.info("Already suppressed.");
-            } else {
-                suppress();
-            }
-        }
-    }
-
-    private void suppress() {
-        LOGGER.info("Suppressing offers.");
-        driver.suppressOffers();
-        StateStoreUtils.setSuppressed(stateStore, true);
-    }
-
-    private void revive() {
-        LOGGER.info("Reviving offers.");
-        driver.reviveOffers();
-        StateStoreUtils.setSuppressed(stateStore, false);
-    }
-
     private void postRegister() {
         reconciler.start();
         reconciler.reconcile(driver);
-        revive();
+        offerDemandController.revive(driver);
     }
 
     @Override
     public void update(Observable observable) {
         if (observable == planCoordinator) {
-            suppressOrRevive();
+            offerDemandController.update(driver, planCoordinator.getPlanManagers());
         }
     }
 }
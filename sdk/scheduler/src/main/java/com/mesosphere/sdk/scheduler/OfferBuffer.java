@@ -0,0 +1,152 @@
+package com.mesosphere.sdk.scheduler;
+
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.OfferID;
+import org.apache.mesos.SchedulerDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Holds offers which are received across multiple callbacks from Mesos, so that they may be evaluated together in a
+ * single offer cycle. Mesos frequently sends offers in small batches, and evaluating each batch on its own means that
+ * a pod may be placed against whichever offer happens to arrive first, rather than against the best one.
+ * <p>
+ * A window is started when an offer is added to an empty buffer. The held offers are flushed to the provided consumer
+ * when the window expires, or as soon as the maximum number of offers are being held, whichever comes first. Offers
+ * which are rescinded while being held are dropped. Each batch is flushed along with the driver which most recently
+ * provided offers to it, so that the flush doesn't depend on any state of the caller's.
+ */
+public class OfferBuffer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OfferBuffer.class);
+
+    private final long holdMs;
+    private final int maxOffers;
+    private final ScheduledExecutorService timer;
+    private final BiConsumer<SchedulerDriver, List<Offer>> flushConsumer;
+
+    // Guarded by 'this':
+    private final Map<OfferID, Offer> heldOffers = new LinkedHashMap<>();
+    private SchedulerDriver heldDriver = null;
+    /** Incremented whenever the buffer is flushed, so that a timer from an earlier window doesn't cut a later one. */
+    private long window = 0;
+    private boolean windowStarted = false;
+    private boolean closed = false;
+
+    /**
+     * Creates a new buffer which passes each batch of held offers to the provided consumer.
+     *
+     * @param holdMs the maximum time to hold an offer before it's flushed
+     * @param maxOffers the number of held offers at which they're flushed immediately
+     * @param timer the executor on which window expirations are scheduled, which is shut down by {@link #close()}
+     * @param flushConsumer the consumer of flushed offers and the driver which provided them, which is called without
+     *     holding any lock on the buffer
+     */
+    public OfferBuffer(
+            long holdMs,
+            int maxOffers,
+            ScheduledExecutorService timer,
+            BiConsumer<SchedulerDriver, List<Offer>> flushConsumer) {
+        this.holdMs = holdMs;
+        this.maxOffers = maxOffers;
+        this.timer = timer;
+        this.flushConsumer = flushConsumer;
+    }
+
+    /**
+     * Adds the provided offers to the buffer, flushing the buffer if it's now full. Offers which are added after the
+     * buffer has been closed are dropped.
+     */
+    public void add(SchedulerDriver driver, Collection<Offer> offers) {
+        List<Offer> flushedOffers = null;
+        synchronized (this) {
+            if (closed) {
+                LOGGER.info("Dropping {} offers: buffer is closed", offers.size());
+                return;
+            }
+            heldDriver = driver;
+            for (Offer offer : offers) {
+                heldOffers.put(offer.getId(), offer);
+            }
+            if (heldOffers.size() >= maxOffers) {
+                flushedOffers = drain();
+            } else if (!heldOffers.isEmpty() && !windowStarted) {
+                windowStarted = true;
+                final long currentWindow = window;
+                timer.schedule(() -> flush(currentWindow), holdMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushedOffers != null) {
+            LOGGER.info("Flushing {} held offers: buffer is full", flushedOffers.size());
+            flushConsumer.accept(driver, flushedOffers);
+        }
+    }
+
+    /**
+     * Drops any held offers and shuts down the timer, so that no further offers are flushed.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            drain();
+        }
+        timer.shutdownNow();
+    }
+
+    /**
+     * Removes the provided offer from the buffer, if it's being held.
+     *
+     * @return whether the offer was being held
+     */
+    public synchronized boolean remove(OfferID offerId) {
+        return heldOffers.remove(offerId) != null;
+    }
+
+    /**
+     * Returns the number of offers currently being held.
+     */
+    public synchronized int size() {
+        return heldOffers.size();
+    }
+
+    private void flush(long expiredWindow) {
+        SchedulerDriver driver;
+        List<Offer> flushedOffers;
+        synchronized (this) {
+            if (expiredWindow != window) {
+                // The buffer was already flushed or closed since this window was started
+                return;
+            }
+            driver = heldDriver;
+            flushedOffers = drain();
+        }
+        if (flushedOffers.isEmpty()) {
+            // All held offers were rescinded
+            return;
+        }
+        LOGGER.info("Flushing {} held offers: hold window of {}ms expired", flushedOffers.size(), holdMs);
+        flushConsumer.accept(driver, flushedOffers);
+    }
+
+    /**
+     * Removes and returns all held offers, and ends the current window. The caller must hold the lock on 'this'.
+     */
+    private List<Offer> drain() {
+        List<Offer> offers = heldOffers.isEmpty()
+                ? Collections.emptyList()
+                : new ArrayList<>(heldOffers.values());
+        heldOffers.clear();
+        ++window;
+        windowStarted = false;
+        return offers;
+    }
+}
@@ -0,0 +1,269 @@
+package com.mesosphere.sdk.scheduler;
+
+import com.mesosphere.sdk.scheduler.plan.DeploymentStep;
+import com.mesosphere.sdk.scheduler.plan.Phase;
+import com.mesosphere.sdk.scheduler.plan.Plan;
+import com.mesosphere.sdk.scheduler.plan.PlanManager;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import com.mesosphere.sdk.scheduler.plan.Step;
+import com.mesosphere.sdk.specification.ResourceSet;
+import com.mesosphere.sdk.specification.ResourceSpec;
+import com.mesosphere.sdk.specification.TaskSpec;
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.state.StateStoreUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.mesos.Protos;
+import org.apache.mesos.SchedulerDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Decides whether the scheduler needs offers from Mesos, according to the outstanding demand of its plans, and
+ * suppresses or revives offers accordingly.
+ * <p>
+ * Demand is the set of steps which are waiting for offers, i.e. those which are PENDING or PREPARED in running phases
+ * of running plans, along with the scalar resources which they require by role. Steps which have already launched
+ * their tasks don't need any further offers, so offers are suppressed once every remaining step is STARTING.
+ * <p>
+ * Whether offers are suppressed is kept in memory. It's written to the {@link StateStore}, where it's visible via the
+ * state API, on the provided executor, so that suppress and revive calls never wait on a write. Writes are coalesced,
+ * and skipped if the stored value is already current.
+ */
+public class OfferDemandController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OfferDemandController.class);
+
+    /**
+     * The outstanding demand of a single plan.
+     */
+    public static class PlanDemand {
+        private final String planName;
+        private int stepCount = 0;
+        private final Map<String, Map<String, Double>> scalarsByRole = new TreeMap<>();
+
+        private PlanDemand(String planName) {
+            this.planName = planName;
+        }
+
+        private void addStep(Step step) {
+            stepCount++;
+            if (!(step instanceof DeploymentStep)) {
+                return;
+            }
+            PodInstanceRequirement podInstanceRequirement = ((DeploymentStep) step).getPodInstanceRequirement();
+            Set<String> resourceSetIds = new HashSet<>();
+            for (TaskSpec taskSpec : podInstanceRequirement.getPodInstance().getPod().getTasks()) {
+                ResourceSet resourceSet = taskSpec.getResourceSet();
+                // Tasks in the same pod may share a resource set, which is only reserved once:
+                if (!podInstanceRequirement.getTasksToLaunch().contains(taskSpec.getName())
+                        || !resourceSetIds.add(resourceSet.getId())) {
+                    continue;
+                }
+                addScalars(resourceSet.getResources());
+                addScalars(resourceSet.getVolumes());
+            }
+        }
+
+        private void addScalars(Collection<? extends ResourceSpec> resourceSpecs) {
+            for (ResourceSpec resourceSpec : resourceSpecs) {
+                Protos.Value value = resourceSpec.getValue();
+                if (value.getType() == Protos.Value.Type.SCALAR) {
+                    scalarsByRole.computeIfAbsent(resourceSpec.getRole(), role -> new TreeMap<>())
+                            .merge(resourceSpec.getName(), value.getScalar().getValue(), Double::sum);
+                }
+            }
+        }
+
+        public String getPlanName() {
+            return planName;
+        }
+
+        /**
+         * Returns the number of steps in the plan which are waiting for offers.
+         */
+        public int getStepCount() {
+            return stepCount;
+        }
+
+        /**
+         * Returns the total scalar resources required by the plan's waiting steps, by role and then by resource name.
+         */
+        public Map<String, Map<String, Double>> getScalarsByRole() {
+            return Collections.unmodifiableMap(scalarsByRole);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return EqualsBuilder.reflectionEquals(this, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return HashCodeBuilder.reflectionHashCode(this);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d %s waiting for offers, requiring %s",
+                    planName, stepCount, stepCount == 1 ? "step" : "steps", scalarsByRole);
+        }
+    }
+
+    private final StateStore stateStore;
+    private final double activeRefuseSeconds;
+    private final double idleRefuseSeconds;
+    private final Executor persistExecutor;
+    private final AtomicBoolean persistScheduled = new AtomicBoolean(false);
+
+    // Guarded by 'this':
+    private Map<String, PlanDemand> demand = Collections.emptyMap();
+    private volatile boolean suppressed;
+
+    // Only accessed by persist(), which the executor doesn't run concurrently with itself:
+    private boolean storedSuppressed;
+
+    /**
+     * Creates a new controller, whose initial state is read from the provided {@link StateStore}.
+     *
+     * @param activeRefuseSeconds how long Mesos should withhold declined offers while any plan is waiting for offers
+     * @param idleRefuseSeconds how long Mesos should withhold declined offers while no plan is waiting for offers
+     * @param persistExecutor the executor on which changes to the suppressed state are written to the state store
+     */
+    public OfferDemandController(
+            StateStore stateStore,
+            double activeRefuseSeconds,
+            double idleRefuseSeconds,
+            Executor persistExecutor) {
+        this.stateStore = stateStore;
+        this.activeRefuseSeconds = activeRefuseSeconds;
+        this.idleRefuseSeconds = idleRefuseSeconds;
+        this.persistExecutor = persistExecutor;
+        this.suppressed = StateStoreUtils.isSuppressed(stateStore);
+        this.storedSuppressed = suppressed;
+    }
+
+    /**
+     * Recalculates the outstanding demand of the provided plans, then revives offers if there's now demand and offers
+     * are suppressed, or suppresses offers if there's no longer any demand.
+     */
+    public synchronized void update(SchedulerDriver driver, Collection<PlanManager> planManagers) {
+        Map<String, PlanDemand> newDemand = getDemand(planManagers);
+        if (!newDemand.equals(demand)) {
+            LOGGER.info("Outstanding offer demand: {}", newDemand.isEmpty() ? "none" : newDemand.values());
+            demand = newDemand;
+        }
+
+        if (!demand.isEmpty()) {
+            if (suppressed) {
+                revive(driver);
+            } else {
+                LOGGER.debug("Already revived.");
+            }
+        } else {
+            if (suppressed) {
+                LOGGER.debug("Already suppressed.");
+            } else {
+                suppress(driver);
+            }
+        }
+    }
+
+    /**
+     * Revives offers, regardless of the current demand or whether offers are already revived. This clears any filters
+     * which were set by declining offers, e.g. when tasks have failed or the scheduler has re-registered.
+     */
+    public synchronized void revive(SchedulerDriver driver) {
+        LOGGER.info("Reviving offers.");
+        driver.reviveOffers();
+        setSuppressed(false);
+    }
+
+    /**
+     * Returns whether offers are currently suppressed.
+     */
+    public boolean isSuppressed() {
+        return suppressed;
+    }
+
+    /**
+     * Returns the outstanding demand of each plan which is waiting for offers, as of the most recent update.
+     */
+    public synchronized Collection<PlanDemand> getDemand() {
+        return demand.values();
+    }
+
+    /**
+     * Returns the number of steps which are waiting for offers across all plans, as of the most recent update.
+     */
+    public synchronized int getDemandedStepCount() {
+        return demand.values().stream().mapToInt(PlanDemand::getStepCount).sum();
+    }
+
+    /**
+     * Returns how long Mesos should withhold declined offers. Offers are withheld for longer while there's no demand,
+     * as any filters are cleared when offers are revived.
+     */
+    public synchronized double getDeclineRefuseSeconds() {
+        return demand.isEmpty() ? idleRefuseSeconds : activeRefuseSeconds;
+    }
+
+    private void suppress(SchedulerDriver driver) {
+        LOGGER.info("Suppressing offers.");
+        driver.suppressOffers();
+        setSuppressed(true);
+    }
+
+    private void setSuppressed(boolean suppressed) {
+        this.suppressed = suppressed;
+        if (persistScheduled.compareAndSet(false, true)) {
+            persistExecutor.execute(this::persist);
+        }
+    }
+
+    /**
+     * Writes the current suppressed state to the state store, if it differs from the last written state.
+     */
+    private void persist() {
+        persistScheduled.set(false);
+        boolean currentSuppressed = suppressed;
+        if (currentSuppressed == storedSuppressed) {
+            return;
+        }
+        try {
+            StateStoreUtils.setSuppressed(stateStore, currentSuppressed);
+            storedSuppressed = currentSuppressed;
+        } catch (Exception e) {
+            LOGGER.error(String.format("Failed to store suppressed state: %s", currentSuppressed), e);
+        }
+    }
+
+    private static Map<String, PlanDemand> getDemand(Collection<PlanManager> planManagers) {
+        Map<String, PlanDemand> demand = new TreeMap<>();
+        for (PlanManager planManager : planManagers) {
+            Plan plan = planManager.getPlan();
+            if (!plan.isRunning()) {
+                continue;
+            }
+            for (Phase phase : plan.getChildren()) {
+                if (!phase.isRunning()) {
+                    continue;
+                }
+                for (Step step : phase.getChildren()) {
+                    if (step.isPending() || step.isPrepared()) {
+                        demand.computeIfAbsent(plan.getName(), PlanDemand::new).addStep(step);
+                    }
+                }
+            }
+        }
+        return demand;
+    }
+}
@@ -1,6 +1,7 @@
 package com.mesosphere.sdk.scheduler;
 
 import java.time.Duration;
+import java.util.Optional;
 
 /**
  * This class encapuslates global Scheduler settings retrieved from the environment.
@@ -9,11 +10,126 @@ public class SchedulerFlags {
     public static final String API_SERVER_TIMEOUT_S = "API_SERVER_TIMEOUT_S";
     public static final String DEFAULT_API_SERVER_TIMEOUT_S = "600";
 
+    /**
+     * The number of threads used to evaluate offers against a step. A value of 1 (the default) evaluates offers
+     * serially on the scheduler thread, while larger values evaluate all offers for a step concurrently.
+     */
+    public static final String OFFER_EVALUATION_THREADS = "OFFER_EVALUATION_THREADS";
+    public static final String DEFAULT_OFFER_EVALUATION_THREADS = "1";
+
+    /**
+     * Whether offer evaluation stops at the first failing stage of each offer. This avoids evaluating the remaining
+     * stages of offers which cannot be used, at the cost of less detailed diagnostics for those offers.
+     */
+    public static final String OFFER_EVALUATION_FAIL_FAST = "OFFER_EVALUATION_FAIL_FAST";
+    public static final String DEFAULT_OFFER_EVALUATION_FAIL_FAST = "false";
+
+    /**
+     * The window in milliseconds within which writes to the state store are batched before being committed to
+     * ZooKeeper in a single transaction. A value of 0 (the default) writes synchronously.
+     */
+    public static final String STATE_STORE_WRITE_BEHIND_MS = "STATE_STORE_WRITE_BEHIND_MS";
+    public static final String DEFAULT_STATE_STORE_WRITE_BEHIND_MS = "0";
+
+    /**
+     * The address of a StatsD agent to push metrics to, if any. DC/OS provides these to all tasks, including the
+     * scheduler, when its metrics agent is running.
+     */
+    public static final String STATSD_UDP_HOST = "STATSD_UDP_HOST";
+    public static final String STATSD_UDP_PORT = "STATSD_UDP_PORT";
+
+    /**
+     * The interval in seconds between pushes of metrics to StatsD.
+     */
+    public static final String STATSD_INTERVAL_S = "STATSD_INTERVAL_S";
+    public static final String DEFAULT_STATSD_INTERVAL_S = "10";
+
+    /**
+     * The window in milliseconds within which offers received from Mesos are held so that they may be evaluated
+     * together in a single offer cycle. A value of 0 (the default) evaluates each batch of offers as it's received.
+     */
+    public static final String OFFER_HOLD_MS = "OFFER_HOLD_MS";
+    public static final String DEFAULT_OFFER_HOLD_MS = "0";
+
+    /**
+     * The number of held offers at which they're evaluated immediately, without waiting for the hold window to end.
+     */
+    public static final String OFFER_HOLD_MAX_OFFERS = "OFFER_HOLD_MAX_OFFERS";
+    public static final String DEFAULT_OFFER_HOLD_MAX_OFFERS = "100";
+
+    /**
+     * The number of seconds for which Mesos should withhold declined offers while any plan has steps waiting for
+     * offers. This matches the Mesos default, so that freed resources are offered again soon.
+     */
+    public static final String DECLINE_REFUSE_SECONDS_ACTIVE = "DECLINE_REFUSE_SECONDS_ACTIVE";
+    public static final String DEFAULT_DECLINE_REFUSE_SECONDS_ACTIVE = "5";
+
+    /**
+     * The number of seconds for which Mesos should withhold declined offers while no plan has steps waiting for
+     * offers. Any filters are cleared when offers are revived, e.g. when a plan is resumed or a task fails.
+     */
+    public static final String DECLINE_REFUSE_SECONDS_IDLE = "DECLINE_REFUSE_SECONDS_IDLE";
+    public static final String DEFAULT_DECLINE_REFUSE_SECONDS_IDLE = "120";
+
     public static Duration getApiServerTimeout() {
         String apiServerTimeoutSecs = getEnvDefault(API_SERVER_TIMEOUT_S, DEFAULT_API_SERVER_TIMEOUT_S);
         return Duration.ofSeconds(Integer.parseInt(apiServerTimeoutSecs));
     }
 
+    public static int getOfferEvaluationThreads() {
+        String threads = getEnvDefault(OFFER_EVALUATION_THREADS, DEFAULT_OFFER_EVALUATION_THREADS);
+        return Math.max(1, Integer.parseInt(threads));
+    }
+
+    public static boolean isOfferEvaluationFailFast() {
+        return Boolean.parseBoolean(getEnvDefault(OFFER_EVALUATION_FAIL_FAST, DEFAULT_OFFER_EVALUATION_FAIL_FAST));
+    }
+
+    public static long getStateStoreWriteBehindMs() {
+        String windowMs = getEnvDefault(STATE_STORE_WRITE_BEHIND_MS, DEFAULT_STATE_STORE_WRITE_BEHIND_MS);
+        return Math.max(0, Long.parseLong(windowMs));
+    }
+
+    public static long getOfferHoldMs() {
+        String holdMs = getEnvDefault(OFFER_HOLD_MS, DEFAULT_OFFER_HOLD_MS);
+        return Math.max(0, Long.parseLong(holdMs));
+    }
+
+    public static int getOfferHoldMaxOffers() {
+        String maxOffers = getEnvDefault(OFFER_HOLD_MAX_OFFERS, DEFAULT_OFFER_HOLD_MAX_OFFERS);
+        return Math.max(1, Integer.parseInt(maxOffers));
+    }
+
+    public static double getDeclineRefuseSecondsActive() {
+        String refuseSecs = getEnvDefault(DECLINE_REFUSE_SECONDS_ACTIVE, DEFAULT_DECLINE_REFUSE_SECONDS_ACTIVE);
+        return Math.max(0, Double.parseDouble(refuseSecs));
+    }
+
+    public static double getDeclineRefuseSecondsIdle() {
+        String refuseSecs = getEnvDefault(DECLINE_REFUSE_SECONDS_IDLE, DEFAULT_DECLINE_REFUSE_SECONDS_IDLE);
+        return Math.max(0, Double.parseDouble(refuseSecs));
+    }
+
+    /**
+     * Returns the StatsD host to push metrics to, or an empty value if no port is configured alongside it.
+     */
+    public static Optional<String> getStatsDHost() {
+        String host = System.getenv(STATSD_UDP_HOST);
+        if (host == null || host.isEmpty() || System.getenv(STATSD_UDP_PORT) == null) {
+            return Optional.empty();
+        }
+        return Optional.of(host);
+    }
+
+    public static int getStatsDPort() {
+        return Integer.parseInt(System.getenv(STATSD_UDP_PORT));
+    }
+
+    public static long getStatsDIntervalSecs() {
+        String intervalSecs = getEnvDefault(STATSD_INTERVAL_S, DEFAULT_STATSD_INTERVAL_S);
+        return Math.max(1, Long.parseLong(intervalSecs));
+    }
+
     private static String getEnvDefault(String envKey, String dflt) {
         String value = System.getenv(envKey);
         return (value == null) ? dflt : value;
@@ -53,16 +53,12 @@ public abstract class AbstractStep extends DefaultObservable implements Step {
 
     @Override
     public void interrupt() {
-        synchronized (statusLock) {
-            interrupted = true;
-        }
+        setInterrupted(true);
     }
 
     @Override
     public void proceed() {
-        synchronized (statusLock) {
-            interrupted = false;
-        }
+        setInterrupted(false);
     }
 
     @Override
@@ -72,6 +68,18 @@ public abstract class AbstractStep extends DefaultObservable implements Step {
         }
     }
 
+    private void setInterrupted(boolean newInterrupted) {
+        boolean oldInterrupted;
+        synchronized (statusLock) {
+            oldInterrupted = interrupted;
+            interrupted = newInterrupted;
+        }
+        // Interrupting a step may change its status, so observers need to know:
+        if (oldInterrupted != newInterrupted) {
+            notifyObservers();
+        }
+    }
+
     /**
      * Updates the status setting and logs the outcome. Should only be called either by tests, by
      * {@code this}, or by subclasses.
@@ -5,8 +5,11 @@ import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import com.mesosphere.sdk.scheduler.ChainedObserver;
 import com.mesosphere.sdk.scheduler.Observable;
 import com.mesosphere.sdk.scheduler.plan.strategy.Strategy;
+import org.apache.mesos.Protos;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -23,6 +26,8 @@ public class DefaultPhase extends ChainedObserver implements Phase {
     private final Strategy<Step> strategy;
     private final List<String> errors;
     private final List<Step> steps;
+    private final StatusCache statusCache;
+    private final TaskStepIndex taskStepIndex = new TaskStepIndex();
 
     public DefaultPhase(String name, List<Step> steps, Strategy<Step> strategy, List<String> errors) {
         this.name = name;
@@ -30,7 +35,10 @@ public class DefaultPhase extends ChainedObserver implements Phase {
         this.strategy = strategy;
         this.errors = errors;
 
+        this.statusCache = StatusCache.isCacheable(steps) ? new StatusCache() : null;
+
         getChildren().forEach(step -> step.subscribe(this));
+        getChildren().forEach(taskStepIndex::addStep);
     }
 
     @Override
@@ -53,11 +61,60 @@ public class DefaultPhase extends ChainedObserver implements Phase {
         return getErrors(errors);
     }
 
+    /**
+     * Updates only the steps which are expecting the provided status, rather than every step in this phase.
+     */
+    @Override
+    public void update(Protos.TaskStatus taskStatus) {
+        taskStepIndex.getSteps(taskStatus.getTaskId()).forEach(step -> step.update(taskStatus));
+    }
+
+    /**
+     * Returns whether any steps in this phase may be expecting status updates for the provided task.
+     */
+    boolean isExpectingUpdates(Protos.TaskID taskId) {
+        return taskStepIndex.hasSteps(taskId);
+    }
+
     @Override
     public List<Step> getChildren() {
         return steps;
     }
 
+    /**
+     * Returns the aggregated status of this element's children. This is cached between changes to the children if all
+     * of them notify this element of any changes to their status.
+     */
+    @Override
+    public Status getStatus() {
+        return statusCache == null ? Phase.super.getStatus() : statusCache.get(Phase.super::getStatus);
+    }
+
+    /**
+     * Returns the number of this element's children in each status, omitting statuses which no child has. Like
+     * {@link #getStatus()}, this is cached between changes to the children where possible.
+     */
+    public Map<Status, Integer> getChildStatusCounts() {
+        return statusCache == null
+                ? Collections.unmodifiableMap(StatusCache.countStatuses(getChildren()))
+                : statusCache.getCounts(getChildren());
+    }
+
+    /**
+     * Returns whether this element's status is cached between changes to its children.
+     */
+    boolean isStatusCached() {
+        return statusCache != null;
+    }
+
+    @Override
+    public void notifyObservers() {
+        if (statusCache != null) {
+            statusCache.invalidate();
+        }
+        super.notifyObservers();
+    }
+
     @Override
     public String toString() {
         return ReflectionToStringBuilder.toString(this);
@@ -6,9 +6,11 @@ import com.mesosphere.sdk.scheduler.ChainedObserver;
 import com.mesosphere.sdk.scheduler.Observable;
 import com.mesosphere.sdk.scheduler.plan.strategy.SerialStrategy;
 import com.mesosphere.sdk.scheduler.plan.strategy.Strategy;
+import org.apache.mesos.Protos;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -25,6 +27,7 @@ public class DefaultPlan extends ChainedObserver implements Plan {
     private final List<Phase> phases;
     private final List<String> errors;
     private final String name;
+    private final StatusCache statusCache;
 
     public DefaultPlan(
             final String name,
@@ -36,6 +39,8 @@ public class DefaultPlan extends ChainedObserver implements Plan {
         this.phases = phases;
         this.errors = errors;
 
+        this.statusCache = StatusCache.isCacheable(phases) ? new StatusCache() : null;
+
         getChildren().forEach(phase -> phase.subscribe(this));
     }
 
@@ -52,6 +57,20 @@ public class DefaultPlan extends ChainedObserver implements Plan {
         return phases;
     }
 
+    /**
+     * Updates only the phases which contain steps that may be expecting the provided status.
+     */
+    @Override
+    public void update(Protos.TaskStatus taskStatus) {
+        for (Phase phase : phases) {
+            if (phase instanceof DefaultPhase
+                    && !((DefaultPhase) phase).isExpectingUpdates(taskStatus.getTaskId())) {
+                continue;
+            }
+            phase.update(taskStatus);
+        }
+    }
+
     @Override
     public Strategy<Phase> getStrategy() {
         return strategy;
@@ -72,6 +91,33 @@ public class DefaultPlan extends ChainedObserver implements Plan {
         return getErrors(errors);
     }
 
+    /**
+     * Returns the aggregated status of this element's children. This is cached between changes to the children if all
+     * of them notify this element of any changes to their status.
+     */
+    @Override
+    public Status getStatus() {
+        return statusCache == null ? Plan.super.getStatus() : statusCache.get(Plan.super::getStatus);
+    }
+
+    /**
+     * Returns the number of this element's children in each status, omitting statuses which no child has. Like
+     * {@link #getStatus()}, this is cached between changes to the children where possible.
+     */
+    public Map<Status, Integer> getChildStatusCounts() {
+        return statusCache == null
+                ? Collections.unmodifiableMap(StatusCache.countStatuses(getChildren()))
+                : statusCache.getCounts(getChildren());
+    }
+
+    @Override
+    public void notifyObservers() {
+        if (statusCache != null) {
+            statusCache.invalidate();
+        }
+        super.notifyObservers();
+    }
+
     @Override
     public String toString() {
         return ReflectionToStringBuilder.toString(this);
@@ -4,6 +4,7 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.mesos.Protos.Offer;
 import org.apache.mesos.Protos.OfferID;
 import org.apache.mesos.SchedulerDriver;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.scheduler.ChainedObserver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +38,17 @@ public class DefaultPlanCoordinator extends ChainedObserver implements PlanCoord
     public Collection<OfferID> processOffers(
             final SchedulerDriver driver,
             final List<Offer> offersToProcess) {
+        long startNanos = System.nanoTime();
+        try {
+            return processOffersInternal(driver, offersToProcess);
+        } finally {
+            Metrics.recordSince(Metrics.PLAN_COORDINATION, startNanos);
+        }
+    }
+
+    private Collection<OfferID> processOffersInternal(
+            final SchedulerDriver driver,
+            final List<Offer> offersToProcess) {
         // Offers that have already been used
         final Set<OfferID> dirtiedOffers = new HashSet<>();
 
@@ -69,6 +81,7 @@ public class DefaultPlanCoordinator extends ChainedObserver implements PlanCoord
 
                 // Get candidate steps to be scheduled
                 Collection<? extends Step> candidateSteps = planManager.getCandidates(relevantDirtyAssets);
+                Metrics.histogram(Metrics.PLAN_CANDIDATES).update(candidateSteps.size());
                 LOGGER.info("Attempting to process candidates: {}, from plan: {}",
                         candidateSteps.stream().map(step -> step.getName()).collect(Collectors.toList()),
                         planManager.getPlan().getName());
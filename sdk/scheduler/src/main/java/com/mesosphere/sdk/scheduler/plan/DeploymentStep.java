@@ -21,6 +21,12 @@ public class DeploymentStep extends AbstractStep {
     private Map<String, String> parameters;
     private Map<Protos.TaskID, TaskStatusPair> tasks = new HashMap<>();
 
+    /**
+     * The indexes of every phase which this step has been added to. These are held weakly, so that phases which have
+     * since been discarded (for example recovery phases, which are rebuilt as needed) may still be collected.
+     */
+    private final Set<TaskStepIndex> taskStepIndexes = Collections.newSetFromMap(new WeakHashMap<>());
+
     protected final PodInstanceRequirement podInstanceRequirement;
 
     /**
@@ -45,6 +51,7 @@ public class DeploymentStep extends AbstractStep {
      *                        {@link PodInstanceRequirement} provided by {@link #start()}
      */
     private synchronized void setTaskIds(Collection<OfferRecommendation> recommendations) {
+        Collection<Protos.TaskID> oldTaskIds = new ArrayList<>(tasks.keySet());
         tasks.clear();
 
         for (OfferRecommendation recommendation : recommendations) {
@@ -57,9 +64,23 @@ public class DeploymentStep extends AbstractStep {
             }
         }
 
+        for (TaskStepIndex taskStepIndex : taskStepIndexes) {
+            taskStepIndex.setTaskIds(this, oldTaskIds, tasks.keySet());
+        }
+
         logger.info("Step '{} [{}]' is now waiting for updates for task IDs: {}", getName(), getId(), tasks);
     }
 
+    /**
+     * Adds an index which this step reports its task IDs to, so that the {@link Phase} owning the index only routes
+     * this step status updates for those tasks. A step which has been added to several phases reports to all of them.
+     */
+    synchronized void addTaskStepIndex(TaskStepIndex index) {
+        if (taskStepIndexes.add(index)) {
+            index.setTaskIds(this, Collections.emptyList(), tasks.keySet());
+        }
+    }
+
     @Override
     public void updateParameters(Map<String, String> parameters) {
         this.parameters = parameters;
@@ -86,6 +107,13 @@ public class DeploymentStep extends AbstractStep {
         }
     }
 
+    /**
+     * Returns the requirement for the pod instance deployed by this step, without starting the step.
+     */
+    public PodInstanceRequirement getPodInstanceRequirement() {
+        return podInstanceRequirement;
+    }
+
     @Override
     public Optional<String> getAsset() {
         return Optional.of(podInstanceRequirement.getPodInstance().getName());
@@ -113,14 +141,14 @@ public class DeploymentStep extends AbstractStep {
      */
     @Override
     public synchronized void update(Protos.TaskStatus status) {
-        logger.info("Step {} received status: {}", getName(), TextFormat.shortDebugString(status));
-
         if (!tasks.containsKey(status.getTaskId())) {
             logger.debug("Step {} ignoring irrelevant TaskStatus: {}",
                     getName(), TextFormat.shortDebugString(status));
             return;
         }
 
+        logger.info("Step {} received status: {}", getName(), TextFormat.shortDebugString(status));
+
         if (isComplete()) {
             logger.debug("Step {} ignoring TaskStatus due to being Complete: {}",
                     getName(), TextFormat.shortDebugString(status));
@@ -204,12 +232,12 @@ public class DeploymentStep extends AbstractStep {
 
     @Override
     public String toString() {
-        return ReflectionToStringBuilder.toString(this);
+        return ReflectionToStringBuilder.toStringExclude(this, "taskStepIndexes");
     }
 
     @Override
     public boolean equals(Object o) {
-        return EqualsBuilder.reflectionEquals(this, o);
+        return EqualsBuilder.reflectionEquals(this, o, "taskStepIndexes");
     }
 
     @Override
@@ -0,0 +1,96 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes the aggregated {@link Status} of a {@link ParentElement}, along with the number of its children in each
+ * status, which are otherwise recomputed from all of its children on every call. Both are invalidated whenever the
+ * element is notified of a change by one of its children, or changes itself, e.g. when it's interrupted.
+ * <p>
+ * Invalidations are versioned, so that a value which was computed concurrently with a change is never returned after
+ * that change.
+ */
+class StatusCache {
+
+    private final AtomicLong version = new AtomicLong(0);
+    private volatile Cached<Status> cachedStatus = null;
+    private volatile Cached<Map<Status, Integer>> cachedCounts = null;
+
+    /**
+     * Discards the cached status, if any. This should be called before any observers of the element are notified.
+     */
+    void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Returns the cached status if it's still valid, or otherwise computes and caches a new status.
+     */
+    Status get(Supplier<Status> computeStatus) {
+        long currentVersion = version.get();
+        Cached<Status> current = cachedStatus;
+        if (current != null && current.version == currentVersion) {
+            return current.value;
+        }
+        Status status = computeStatus.get();
+        cachedStatus = new Cached<>(currentVersion, status);
+        return status;
+    }
+
+    /**
+     * Returns the cached counts of the provided children's statuses if they're still valid, or otherwise counts and
+     * caches them anew.
+     */
+    Map<Status, Integer> getCounts(Iterable<? extends Element> children) {
+        long currentVersion = version.get();
+        Cached<Map<Status, Integer>> current = cachedCounts;
+        if (current != null && current.version == currentVersion) {
+            return current.value;
+        }
+        Map<Status, Integer> counts = Collections.unmodifiableMap(countStatuses(children));
+        cachedCounts = new Cached<>(currentVersion, counts);
+        return counts;
+    }
+
+    /**
+     * Returns the number of the provided children in each status. Statuses which no child has are omitted.
+     */
+    static Map<Status, Integer> countStatuses(Iterable<? extends Element> children) {
+        Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        for (Element child : children) {
+            counts.merge(child.getStatus(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns whether all of the provided children notify their observers whenever their status may have changed,
+     * which is required for their parent's status to be cached.
+     */
+    static boolean isCacheable(Iterable<? extends Element> children) {
+        for (Element child : children) {
+            if (child instanceof AbstractStep) {
+                continue;
+            }
+            if (child instanceof DefaultPhase && ((DefaultPhase) child).isStatusCached()) {
+                continue;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static class Cached<T> {
+        private final long version;
+        private final T value;
+
+        private Cached(long version, T value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
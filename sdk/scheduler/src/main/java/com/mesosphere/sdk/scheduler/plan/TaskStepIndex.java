@@ -0,0 +1,81 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+import org.apache.mesos.Protos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Index of the {@link Step}s within a {@link DefaultPhase} which are expecting status updates for each task ID. This
+ * allows each {@link Protos.TaskStatus} to be routed only to the steps which launched the task, rather than being
+ * broadcast to every step in every phase.
+ * <p>
+ * {@link DeploymentStep}s report their task IDs to the index whenever they launch tasks, including to the indexes of
+ * any other phases which the same step has been added to. Any other steps don't report their task IDs, so they
+ * continue to receive all status updates.
+ */
+class TaskStepIndex {
+
+    private final Map<Protos.TaskID, Set<Step>> stepsByTaskId = new ConcurrentHashMap<>();
+    private final List<Step> unindexedSteps = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds the provided step to this index. If the step doesn't report its task IDs, it will be returned for all task
+     * IDs.
+     */
+    void addStep(Step step) {
+        if (step instanceof DeploymentStep) {
+            ((DeploymentStep) step).addTaskStepIndex(this);
+        } else {
+            unindexedSteps.add(step);
+        }
+    }
+
+    /**
+     * Replaces the task IDs which the provided step is expecting status updates for.
+     */
+    void setTaskIds(Step step, Collection<Protos.TaskID> oldTaskIds, Collection<Protos.TaskID> newTaskIds) {
+        for (Protos.TaskID taskId : oldTaskIds) {
+            stepsByTaskId.computeIfPresent(taskId, (id, steps) -> {
+                Set<Step> remainingSteps = new HashSet<>(steps);
+                remainingSteps.remove(step);
+                return remainingSteps.isEmpty() ? null : remainingSteps;
+            });
+        }
+        for (Protos.TaskID taskId : newTaskIds) {
+            stepsByTaskId.compute(taskId, (id, steps) -> {
+                Set<Step> updatedSteps = steps == null ? new HashSet<>() : new HashSet<>(steps);
+                updatedSteps.add(step);
+                return updatedSteps;
+            });
+        }
+    }
+
+    /**
+     * Returns the steps which should receive status updates for the provided task ID, or an empty collection if there
+     * are none.
+     */
+    Collection<Step> getSteps(Protos.TaskID taskId) {
+        Set<Step> indexedSteps = stepsByTaskId.get(taskId);
+        if (indexedSteps == null) {
+            return unindexedSteps.isEmpty() ? Collections.emptyList() : new ArrayList<>(unindexedSteps);
+        }
+        List<Step> steps = new ArrayList<>(indexedSteps);
+        steps.addAll(unindexedSteps);
+        return steps;
+    }
+
+    /**
+     * Returns whether any steps should receive status updates for the provided task ID.
+     */
+    boolean hasSteps(Protos.TaskID taskId) {
+        return !unindexedSteps.isEmpty() || stepsByTaskId.containsKey(taskId);
+    }
+}
@@ -1,6 +1,7 @@
 package com.mesosphere.sdk.scheduler.recovery;
 
 import com.mesosphere.sdk.config.ConfigStore;
+import com.mesosphere.sdk.offer.CommonTaskUtils;
 import com.mesosphere.sdk.offer.TaskException;
 import com.mesosphere.sdk.offer.TaskUtils;
 import com.mesosphere.sdk.scheduler.ChainedObserver;
@@ -29,6 +30,10 @@ import java.util.stream.Collectors;
  * This is an implementation of {@code PlanManager} that performs task recovery using dynamically generated
  * {@code Plan}. {@link DefaultRecoveryPlanManager} tracks currently failed (permanent) and stopped (transient) tasks,
  * generates a new {@link DefaultRecoveryStep} for them and adds them to the recovery Plan, if not already added.
+ * <p>
+ * Rather than scanning every task on every offer cycle, the tasks which may need recovery are tracked from the
+ * {@link Protos.TaskStatus} updates passed to {@link #update(Protos.TaskStatus)}, and only those tasks are re-checked
+ * until they have been relaunched. The recovery Plan is only rebuilt when its steps change.
  */
 public class DefaultRecoveryPlanManager extends ChainedObserver implements PlanManager {
     protected static final String RECOVERY_ELEMENT_NAME = "recovery";
@@ -42,6 +47,14 @@ public class DefaultRecoveryPlanManager extends ChainedObserver implements PlanM
     protected final LaunchConstrainer launchConstrainer;
     protected final Object planLock = new Object();
 
+    /**
+     * Names of the tasks which have reported a terminal status and may need recovery. Tasks are removed once they no
+     * longer need recovery, e.g. after being relaunched. Guarded by {@link #planLock}.
+     */
+    private final Set<String> failedTaskNames = new HashSet<>();
+    private boolean failedTaskNamesInitialized = false;
+    private Map<PodInstance, List<Protos.TaskInfo>> failedPods = Collections.emptyMap();
+
     public DefaultRecoveryPlanManager(
             StateStore stateStore,
             ConfigStore<ServiceSpec> configStore,
@@ -85,11 +98,9 @@ public class DefaultRecoveryPlanManager extends ChainedObserver implements PlanM
     }
 
     /**
-     * Updates the recovery plan if necessary.
-     * <p>
-     * 1. Updates existing steps.
-     * 2. If the needs recovery and doesn't yet have a step in the plan, removes any COMPLETED steps for this task
-     * (at most one step for a given task can exist) and creates a new PENDING step.
+     * Updates the recovery plan's existing steps with the provided status, and records the status's task as possibly
+     * needing recovery if the status is terminal. Steps for the task's pod are then created by the next call to
+     * {@link #updatePlan(Collection)}.
      *
      * @param status task status
      */
@@ -97,48 +108,104 @@ public class DefaultRecoveryPlanManager extends ChainedObserver implements PlanM
     public void update(Protos.TaskStatus status) {
         synchronized (planLock) {
             getPlan().update(status);
+            if (CommonTaskUtils.isRecoveryNeeded(status)) {
+                try {
+                    failedTaskNames.add(CommonTaskUtils.toTaskName(status.getTaskId()));
+                } catch (TaskException e) {
+                    logger.error(String.format(
+                            "Failed to determine task name of terminal status: %s", status.getTaskId().getValue()), e);
+                }
+            }
             notifyObservers();
         }
     }
 
+    /**
+     * Updates the recovery plan if necessary.
+     * <p>
+     * 1. Drops any tracked tasks which no longer need recovery. When no tasks need recovery, nothing else is done.
+     * 2. For each pod needing recovery which isn't in the provided {@code dirtyAssets}, adds a new PENDING step unless
+     * the plan already has a PENDING step of the same recovery type for that pod. Any other step with the same name,
+     * e.g. a COMPLETED step from an earlier recovery, is replaced (at most one step for a given pod can exist).
+     */
     protected void updatePlan(Collection<String> dirtyAssets) {
-        logger.info("Dirty assets for recovery plan consideration: {}", dirtyAssets);
+        logger.debug("Dirty assets for recovery plan consideration: {}", dirtyAssets);
 
         synchronized (planLock) {
-            // This list will not contain any Complete steps.
+            // The plan is always built on the first update, so that it has a phase even without any failures.
+            boolean isFirstUpdate = !failedTaskNamesInitialized;
             List<Step> steps = null;
             try {
+                updateFailedPods();
+                if (failedPods.isEmpty() && !isFirstUpdate) {
+                    return;
+                }
                 steps = createSteps(dirtyAssets);
             } catch (TaskException e) {
                 logger.error("Failed to generate steps.", e);
                 return;
             }
 
-            List<String> stepNames = steps.stream().map(step -> step.getName()).collect(Collectors.toList());
-            logger.info("New recovery steps: {}", stepNames);
-
-            List<Step> oldSteps = getPlan().getChildren().stream()
+            Map<String, Step> stepsByName = new LinkedHashMap<>();
+            getPlan().getChildren().stream()
                     .flatMap(phase -> phase.getChildren().stream())
-                    .filter(step -> !stepNames.contains(step.getName()))
-                    .collect(Collectors.toList());
-            logger.info("Old recovery steps: {}",
-                    oldSteps.stream().map(step -> step.getName()).collect(Collectors.toList()));
+                    .forEach(step -> stepsByName.put(step.getName(), step));
 
-            steps.addAll(oldSteps);
-            setPlan(createPlan(steps));
+            List<String> newStepNames = new ArrayList<>();
+            for (Step step : steps) {
+                Step oldStep = stepsByName.get(step.getName());
+                if (oldStep != null && oldStep.isPending() && ((DefaultRecoveryStep) oldStep).getRecoveryType()
+                        .equals(((DefaultRecoveryStep) step).getRecoveryType())) {
+                    continue;
+                }
+                stepsByName.put(step.getName(), step);
+                newStepNames.add(step.getName());
+            }
+
+            if (!newStepNames.isEmpty() || isFirstUpdate) {
+                logger.info("New recovery steps: {}", newStepNames);
+                setPlan(createPlan(new ArrayList<>(stepsByName.values())));
+            }
         }
     }
 
+    /**
+     * Returns the pods which needed recovery as of the most recent successful call to {@link #updatePlan(Collection)},
+     * mapped to their tasks which need recovery.
+     */
+    protected Map<PodInstance, List<Protos.TaskInfo>> getFailedPods() {
+        synchronized (planLock) {
+            return failedPods;
+        }
+    }
+
+    private void updateFailedPods() throws TaskException {
+        if (!failedTaskNamesInitialized) {
+            // Tasks may have failed before this instance started receiving status updates, e.g. during a restart.
+            StateStoreUtils.fetchTasksNeedingRecovery(stateStore, configStore).stream()
+                    .forEach(taskInfo -> failedTaskNames.add(taskInfo.getName()));
+            failedTaskNamesInitialized = true;
+        }
+        if (failedTaskNames.isEmpty()) {
+            failedPods = Collections.emptyMap();
+            return;
+        }
+
+        Collection<Protos.TaskInfo> failedTasks =
+                StateStoreUtils.fetchTasksNeedingRecovery(stateStore, configStore, failedTaskNames);
+        failedTaskNames.retainAll(failedTasks.stream()
+                .map(taskInfo -> taskInfo.getName())
+                .collect(Collectors.toSet()));
+        failedPods = TaskUtils.getPodMap(configStore, failedTasks);
+    }
+
     private Plan createPlan(List<Step> steps) {
         Phase phase = DefaultPhaseFactory.getPhase(RECOVERY_ELEMENT_NAME, steps, new RandomStrategy<>());
         return DeployPlanFactory.getPlan(RECOVERY_ELEMENT_NAME, Arrays.asList(phase), new SerialStrategy<>());
     }
 
     private List<Step> createSteps(Collection<String> dirtyAssets) throws TaskException {
-        Map<PodInstance, List<Protos.TaskInfo>> failedPodsMap =
-                TaskUtils.getPodMap(
-                        configStore,
-                        StateStoreUtils.fetchTasksNeedingRecovery(stateStore, configStore));
+        Map<PodInstance, List<Protos.TaskInfo>> failedPodsMap = failedPods;
 
         List<String> podNames = failedPodsMap.keySet().stream()
                 .map(podInstance -> podInstance.getName())
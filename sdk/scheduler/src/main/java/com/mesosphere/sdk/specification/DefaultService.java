@@ -153,6 +153,7 @@ public class DefaultService implements Service {
                 defaultScheduler,
                 getFrameworkInfo(serviceSpec, schedulerBuilder.getStateStore()),
                 serviceSpec.getZookeeperConnection());
+        defaultScheduler.stop();
     }
 
     protected ServiceSpec getServiceSpec() {
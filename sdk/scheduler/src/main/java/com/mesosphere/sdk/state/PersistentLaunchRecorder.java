@@ -57,6 +57,15 @@ public class PersistentLaunchRecorder implements OperationRecorder {
         }
     }
 
+    /**
+     * Commits any buffered writes of the recorded tasks, so that they aren't lost if the scheduler fails over after
+     * Mesos has launched them. Otherwise their reservations would then be seen as unexpected and cleaned up.
+     */
+    @Override
+    public void flush() throws StateStoreException {
+        stateStore.flush();
+    }
+
     /**
      * This method keeps the resources associated with tasks in the state store up to date, when a task which shares
      * their resource-set is launched.
@@ -173,6 +173,20 @@ public interface StateStore {
      */
     Collection<String> fetchPropertyKeys() throws StateStoreException;
 
+    /**
+     * Fetches all Properties as a mapping of key to value, or an empty map if none are found. By default, each value
+     * is fetched individually via {@link #fetchProperty(String)}.
+     *
+     * @throws StateStoreException if fetching the data fails
+     */
+    default Map<String, byte[]> fetchProperties() throws StateStoreException {
+        Map<String, byte[]> properties = new HashMap<>();
+        for (String key : fetchPropertyKeys()) {
+            properties.put(key, fetchProperty(key));
+        }
+        return properties;
+    }
+
     /**
      * Clears a given property from the StateStore, or does nothing if no such property exists.
      *
@@ -180,4 +194,19 @@ public interface StateStore {
      * @throws StateStoreException if key validation fails or clearing the entry fails
      */
     void clearProperty(final String key) throws StateStoreException;
+
+
+    // Durability
+
+
+    /**
+     * Blocks until all previous writes to this StateStore have been committed to the underlying storage. This only
+     * needs to be called when writes are buffered before being committed, and the caller needs a write to be durable
+     * before proceeding. Reads from this StateStore already reflect any buffered writes.
+     *
+     * @throws StateStoreException if committing buffered writes fails
+     */
+    default void flush() throws StateStoreException {
+        // Writes are synchronous by default, so there's nothing to flush.
+    }
 }
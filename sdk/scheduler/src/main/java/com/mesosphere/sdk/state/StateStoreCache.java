@@ -1,7 +1,10 @@
 package com.mesosphere.sdk.state;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.mesosphere.sdk.curator.CuratorStateStore;
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.storage.StorageError.Reason;
 
 import org.apache.mesos.Protos.FrameworkID;
@@ -11,13 +14,18 @@ import org.apache.mesos.Protos.TaskStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 /**
  * Thread-safe write-through cache for an underlying {@link StateStore}.
@@ -29,6 +37,11 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * Implementation note: All write operations always invoke the underlying storage before updating
  * the local cache. This avoids creating an inconsistent cache state if writing to the underlying
  * persistent store fails.
+ * <p>
+ * Writes are serialized against each other, but reads never wait on writes: cached values are held in concurrent maps,
+ * and the collections returned by the fetch methods are immutable snapshots which are rebuilt on the first read after
+ * a write to that type of data. For example, a burst of status updates doesn't invalidate the snapshot returned by
+ * {@link #fetchTasks()}.
  */
 public class StateStoreCache implements StateStore {
 
@@ -43,15 +56,23 @@ public class StateStoreCache implements StateStore {
     @VisibleForTesting
     protected final StateStore store;
 
-    private Optional<FrameworkID> frameworkId;
+    private volatile Optional<FrameworkID> frameworkId;
 
     @VisibleForTesting
-    protected Map<String, TaskInfo> nameToTask = new HashMap<>();
+    protected volatile Map<String, TaskInfo> nameToTask = new ConcurrentHashMap<>();
     @VisibleForTesting
-    protected Map<String, TaskStatus> nameToStatus = new HashMap<>();
+    protected volatile Map<String, TaskStatus> nameToStatus = new ConcurrentHashMap<>();
+    private volatile Map<TaskID, String> idToName = new ConcurrentHashMap<>();
 
     @VisibleForTesting
-    protected Map<String, byte[]> properties = new HashMap<>();
+    protected volatile Map<String, byte[]> properties = new ConcurrentHashMap<>();
+
+    private final SnapshotCache<Collection<String>> taskNamesSnapshot = new SnapshotCache<>();
+    private final SnapshotCache<Collection<TaskInfo>> tasksSnapshot = new SnapshotCache<>();
+    private final SnapshotCache<Collection<TaskStatus>> statusesSnapshot = new SnapshotCache<>();
+    private final SnapshotCache<Collection<String>> propertyKeysSnapshot = new SnapshotCache<>();
+
+    private final List<StateStoreListener> listeners = new ArrayList<>();
 
     /**
      * Returns a cache instance. To ensure consistency, only one singleton cache instance may exist
@@ -116,12 +137,7 @@ public class StateStoreCache implements StateStore {
 
     @Override
     public Optional<FrameworkID> fetchFrameworkId() throws StateStoreException {
-        RLOCK.lock();
-        try {
-            return frameworkId;
-        } finally {
-            RLOCK.unlock();
-        }
+        return frameworkId;
     }
 
     @Override
@@ -130,7 +146,15 @@ public class StateStoreCache implements StateStore {
         try {
             store.storeTasks(tasks);
             for (TaskInfo task : tasks) {
-                nameToTask.put(task.getName(), task);
+                TaskInfo oldTask = nameToTask.put(task.getName(), task);
+                if (oldTask != null && !oldTask.getTaskId().equals(task.getTaskId())) {
+                    idToName.remove(oldTask.getTaskId());
+                }
+                idToName.put(task.getTaskId(), task.getName());
+            }
+            invalidateTasks();
+            for (StateStoreListener listener : listeners) {
+                listener.tasksStored(tasks);
             }
         } finally {
             RWLOCK.unlock();
@@ -142,20 +166,17 @@ public class StateStoreCache implements StateStore {
         RWLOCK.lock();
         try {
             store.storeStatus(status);
-            String taskName = null;
-            // Use TaskInfo cache to map TaskID => Name
-            for (TaskInfo taskInfo : nameToTask.values()) {
-                if (taskInfo.getTaskId().equals(status.getTaskId())) {
-                    taskName = taskInfo.getName();
-                    break;
-                }
-            }
+            String taskName = idToName.get(status.getTaskId());
             if (taskName == null) {
                 throw new StateStoreException(Reason.LOGIC_ERROR, String.format(
                         "The following TaskInfo is not present in the StateStore: %s. " +
                                 "TaskInfo must be present in order to store a TaskStatus.", status.getTaskId()));
             }
             nameToStatus.put(taskName, status);
+            statusesSnapshot.invalidate();
+            for (StateStoreListener listener : listeners) {
+                listener.statusStored(taskName, status);
+            }
         } finally {
             RWLOCK.unlock();
         }
@@ -170,8 +191,15 @@ public class StateStoreCache implements StateStore {
             if (oldValue == null) {
                 logger.warn("Unable to find task named {} to remove. Known task names are: {}",
                         taskName, nameToTask.keySet());
+            } else {
+                idToName.remove(oldValue.getTaskId());
             }
             nameToStatus.remove(taskName);
+            invalidateTasks();
+            statusesSnapshot.invalidate();
+            for (StateStoreListener listener : listeners) {
+                listener.taskCleared(taskName);
+            }
         } finally {
             RWLOCK.unlock();
         }
@@ -179,52 +207,27 @@ public class StateStoreCache implements StateStore {
 
     @Override
     public Collection<String> fetchTaskNames() throws StateStoreException {
-        RLOCK.lock();
-        try {
-            return nameToTask.keySet();
-        } finally {
-            RLOCK.unlock();
-        }
+        return taskNamesSnapshot.get(() -> ImmutableSet.copyOf(nameToTask.keySet()));
     }
 
     @Override
     public Collection<TaskInfo> fetchTasks() throws StateStoreException {
-        RLOCK.lock();
-        try {
-            return nameToTask.values();
-        } finally {
-            RLOCK.unlock();
-        }
+        return tasksSnapshot.get(() -> ImmutableList.copyOf(nameToTask.values()));
     }
 
     @Override
     public Optional<TaskInfo> fetchTask(String taskName) throws StateStoreException {
-        RLOCK.lock();
-        try {
-            return Optional.ofNullable(nameToTask.get(taskName));
-        } finally {
-            RLOCK.unlock();
-        }
+        return Optional.ofNullable(nameToTask.get(taskName));
     }
 
     @Override
     public Collection<TaskStatus> fetchStatuses() throws StateStoreException {
-        RLOCK.lock();
-        try {
-            return nameToStatus.values();
-        } finally {
-            RLOCK.unlock();
-        }
+        return statusesSnapshot.get(() -> ImmutableList.copyOf(nameToStatus.values()));
     }
 
     @Override
     public Optional<TaskStatus> fetchStatus(String taskName) throws StateStoreException {
-        RLOCK.lock();
-        try {
-            return Optional.ofNullable(nameToStatus.get(taskName));
-        } finally {
-            RLOCK.unlock();
-        }
+        return Optional.ofNullable(nameToStatus.get(taskName));
     }
 
     @Override
@@ -233,6 +236,7 @@ public class StateStoreCache implements StateStore {
         try {
             store.storeProperty(key, value);
             properties.put(key, value);
+            propertyKeysSnapshot.invalidate();
         } finally {
             RWLOCK.unlock();
         }
@@ -240,28 +244,23 @@ public class StateStoreCache implements StateStore {
 
     @Override
     public byte[] fetchProperty(String key) throws StateStoreException {
-        RLOCK.lock();
-        try {
-            byte[] val = properties.get(key);
-            if (val == null) { // emulate StateStore contract
-                throw new StateStoreException(Reason.NOT_FOUND, String.format(
-                        "Property key does not exist: %s (known keys are: %s)",
-                        key, properties.keySet()));
-            }
-            return val;
-        } finally {
-            RLOCK.unlock();
+        byte[] val = properties.get(key);
+        if (val == null) { // emulate StateStore contract
+            throw new StateStoreException(Reason.NOT_FOUND, String.format(
+                    "Property key does not exist: %s (known keys are: %s)",
+                    key, properties.keySet()));
         }
+        return val;
     }
 
     @Override
     public Collection<String> fetchPropertyKeys() throws StateStoreException {
-        RLOCK.lock();
-        try {
-            return properties.keySet();
-        } finally {
-            RLOCK.unlock();
-        }
+        return propertyKeysSnapshot.get(() -> ImmutableSet.copyOf(properties.keySet()));
+    }
+
+    @Override
+    public Map<String, byte[]> fetchProperties() throws StateStoreException {
+        return new HashMap<>(properties);
     }
 
     @Override
@@ -270,11 +269,17 @@ public class StateStoreCache implements StateStore {
         try {
             store.clearProperty(key);
             properties.remove(key);
+            propertyKeysSnapshot.invalidate();
         } finally {
             RWLOCK.unlock();
         }
     }
 
+    @Override
+    public void flush() throws StateStoreException {
+        store.flush();
+    }
+
     /**
      * Clears and resyncs the cache contents with what's currently in the underlying {@link StateStore}.
      *
@@ -286,38 +291,99 @@ public class StateStoreCache implements StateStore {
         try {
             Optional<FrameworkID> newFrameworkId = store.fetchFrameworkId();
 
-            Map<String, TaskInfo> newNameToTask = new HashMap<>();
-            Map<TaskID, TaskInfo> idToTask = new HashMap<>(); // Used to map ID=>Name below
+            Map<String, TaskInfo> newNameToTask = new ConcurrentHashMap<>();
+            Map<TaskID, String> newIdToName = new ConcurrentHashMap<>();
             for (TaskInfo task : store.fetchTasks()) {
                 newNameToTask.put(task.getName(), task);
-                idToTask.put(task.getTaskId(), task);
+                newIdToName.put(task.getTaskId(), task.getName());
             }
 
-            Map<String, TaskStatus> newNameToStatus = new HashMap<>();
+            Map<String, TaskStatus> newNameToStatus = new ConcurrentHashMap<>();
             for (TaskStatus status : store.fetchStatuses()) {
                 // Get the name from the corresponding TaskInfo for this task ID:
-                TaskInfo task = idToTask.get(status.getTaskId());
-                if (task == null) {
+                String taskName = newIdToName.get(status.getTaskId());
+                if (taskName == null) {
                     throw new StateStoreException(Reason.LOGIC_ERROR, String.format(
                             "The following TaskInfo is not present: %s. TaskInfo must be present in " +
-                                    "order to store a TaskStatus. All Tasks: %s", status.getTaskId(), idToTask));
+                                    "order to store a TaskStatus. All Tasks: %s", status.getTaskId(), newNameToTask));
                 }
-                newNameToStatus.put(task.getName(), status);
+                newNameToStatus.put(taskName, status);
             }
 
-            Map<String, byte[]> newProperties = new HashMap<>();
-            for (String key : store.fetchPropertyKeys()) {
-                newProperties.put(key, store.fetchProperty(key));
-            }
+            Map<String, byte[]> newProperties = new ConcurrentHashMap<>(store.fetchProperties());
 
             // Update the local state AFTER all the data retrieval succeded:
             // This reduces the risk of inconsistent cache state due to storage failure.
             frameworkId = newFrameworkId;
+            idToName = newIdToName;
             nameToTask = newNameToTask;
             nameToStatus = newNameToStatus;
             properties = newProperties;
+            invalidateTasks();
+            statusesSnapshot.invalidate();
+            propertyKeysSnapshot.invalidate();
+            Collection<TaskInfo> tasks = fetchTasks();
+            for (StateStoreListener listener : listeners) {
+                listener.tasksRefreshed(tasks);
+            }
+        } finally {
+            RWLOCK.unlock();
+        }
+    }
+
+    /**
+     * Adds a listener which will be notified of all subsequent changes to the cached tasks. The listener is
+     * immediately sent the current set of tasks via {@link StateStoreListener#tasksRefreshed(Collection)}.
+     */
+    public void addListener(StateStoreListener listener) {
+        RWLOCK.lock();
+        try {
+            listeners.add(listener);
+            listener.tasksRefreshed(fetchTasks());
         } finally {
             RWLOCK.unlock();
         }
     }
+
+    private void invalidateTasks() {
+        taskNamesSnapshot.invalidate();
+        tasksSnapshot.invalidate();
+    }
+
+    /**
+     * An immutable copy of some cached data, which is lazily rebuilt on the first read following a write to that data.
+     * Writers must call {@link #invalidate()} after updating the underlying data. A snapshot which was built while a
+     * write was in progress is discarded by the next read, as it's tagged with the version preceding that write.
+     */
+    private static class SnapshotCache<T> {
+        private final AtomicLong version = new AtomicLong();
+        private volatile Snapshot<T> snapshot;
+
+        private void invalidate() {
+            version.incrementAndGet();
+        }
+
+        private T get(Supplier<T> builder) {
+            long currentVersion = version.get();
+            Snapshot<T> currentSnapshot = snapshot;
+            if (currentSnapshot != null && currentSnapshot.version == currentVersion) {
+                Metrics.counter(Metrics.STATE_CACHE_SNAPSHOT_HITS).inc();
+                return currentSnapshot.value;
+            }
+            Metrics.counter(Metrics.STATE_CACHE_SNAPSHOT_MISSES).inc();
+            T value = builder.get();
+            snapshot = new Snapshot<>(currentVersion, value);
+            return value;
+        }
+    }
+
+    private static class Snapshot<T> {
+        private final long version;
+        private final T value;
+
+        private Snapshot(long version, T value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
 }
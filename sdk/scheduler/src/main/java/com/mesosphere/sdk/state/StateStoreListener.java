@@ -0,0 +1,52 @@
+package com.mesosphere.sdk.state;
+
+import org.apache.mesos.Protos.TaskInfo;
+import org.apache.mesos.Protos.TaskStatus;
+
+import java.util.Collection;
+
+/**
+ * A {@code StateStoreListener} is notified of changes to the {@link TaskInfo}s and {@link TaskStatus}es in a
+ * {@link StateStore}, allowing components to maintain derived indexes incrementally rather than rescanning all tasks on
+ * every read.
+ * <p>
+ * Notifications are only sent after the underlying write has succeeded, and are delivered on the thread which
+ * performed the write. Implementations should therefore return quickly and must not write to the store themselves.
+ *
+ * @see StateStoreCache#addListener(StateStoreListener)
+ */
+public interface StateStoreListener {
+
+    /**
+     * Invoked when the listener is first added, and whenever the store's contents are reloaded wholesale. Any
+     * previously received tasks should be discarded and replaced with the provided tasks.
+     *
+     * @param tasks all tasks currently in the store
+     */
+    void tasksRefreshed(Collection<TaskInfo> tasks);
+
+    /**
+     * Invoked after one or more tasks have been stored, each replacing any previous task with the same name.
+     *
+     * @param tasks the tasks which were stored
+     */
+    void tasksStored(Collection<TaskInfo> tasks);
+
+    /**
+     * Invoked after a task has been cleared from the store.
+     *
+     * @param taskName the name of the task which was cleared
+     */
+    void taskCleared(String taskName);
+
+    /**
+     * Invoked after a task's status has been stored. The status of a cleared task is implicitly cleared along with it.
+     * Listeners which only depend on {@link TaskInfo}s may ignore this.
+     *
+     * @param taskName the name of the task whose status was stored
+     * @param status the status which was stored
+     */
+    default void statusStored(String taskName, TaskStatus status) {
+        // no-op by default
+    }
+}
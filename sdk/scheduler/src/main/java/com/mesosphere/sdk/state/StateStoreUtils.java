@@ -72,27 +72,60 @@ public class StateStoreUtils {
         List<TaskInfo> results = new ArrayList<>();
         for (TaskInfo info : allInfos) {
             TaskStatus status = statusMap.get(info.getTaskId());
-            if (status == null) {
-                continue;
+            if (status != null && needsRecovery(configStore, info, status)) {
+                results.add(info);
             }
+        }
+        return results;
+    }
 
-            Optional<TaskSpec> taskSpec = TaskUtils.getTaskSpec(
-                    TaskUtils.getPodInstance(configStore, info),
-                    info.getName());
+    /**
+     * Fetches and returns the {@link TaskInfo}s for those of the named tasks which need recovery. Unlike
+     * {@link #fetchTasksNeedingRecovery(StateStore, ConfigStore)}, this only reads the named tasks from the
+     * {@link StateStore}, allowing callers which track the tasks that may have failed to avoid scanning every task.
+     *
+     * @return Terminated TaskInfos, of which there may be fewer than the provided task names
+     */
+    public static Collection<TaskInfo> fetchTasksNeedingRecovery(
+            StateStore stateStore,
+            ConfigStore<ServiceSpec> configStore,
+            Collection<String> taskNames)
+            throws StateStoreException, TaskException {
 
-            if (!taskSpec.isPresent()) {
-                throw new TaskException("Failed to determine TaskSpec from TaskInfo: " + info);
+        List<TaskInfo> results = new ArrayList<>();
+        for (String taskName : taskNames) {
+            Optional<TaskInfo> info = stateStore.fetchTask(taskName);
+            Optional<TaskStatus> status = stateStore.fetchStatus(taskName);
+            if (!info.isPresent() || !status.isPresent()
+                    || !info.get().getTaskId().equals(status.get().getTaskId())) {
+                continue;
             }
 
-            if (TaskUtils.needsRecovery(taskSpec.get(), status)) {
-                LOGGER.info("Task: '{}' needs recovery with status: {}.",
-                        taskSpec.get().getName(), TextFormat.shortDebugString(status));
-                results.add(info);
+            if (needsRecovery(configStore, info.get(), status.get())) {
+                results.add(info.get());
             }
         }
         return results;
     }
 
+    private static boolean needsRecovery(ConfigStore<ServiceSpec> configStore, TaskInfo info, TaskStatus status)
+            throws TaskException {
+        Optional<TaskSpec> taskSpec = TaskUtils.getTaskSpec(
+                TaskUtils.getPodInstance(configStore, info),
+                info.getName());
+
+        if (!taskSpec.isPresent()) {
+            throw new TaskException("Failed to determine TaskSpec from TaskInfo: " + info);
+        }
+
+        if (TaskUtils.needsRecovery(taskSpec.get(), status)) {
+            LOGGER.info("Task: '{}' needs recovery with status: {}.",
+                    taskSpec.get().getName(), TextFormat.shortDebugString(status));
+            return true;
+        }
+        return false;
+    }
+
     public static Collection<TaskInfo> fetchTasksFromPod(StateStore stateStore, String pod) throws StateStoreException {
         Collection<TaskInfo> allInfos = stateStore.fetchTasks();
 
@@ -0,0 +1,512 @@
+package com.mesosphere.sdk.storage;
+
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link Persister} which stores data in a local file, for single-node deployments, tests, and simulations where
+ * running a ZooKeeper isn't practical.
+ * <p>
+ * The full path tree is held in memory, and each change is appended to a memory-mapped log file as a CRC-checked
+ * record. A {@link #setMany(Map)} call is written as a single record, so after a crash either all or none of its
+ * writes are recovered. When opened, the log is replayed to rebuild the tree, stopping at the first incomplete or
+ * corrupt record. Once the log has grown to several times the size of the data it contains, it's compacted by
+ * writing a snapshot of the tree to a new file which then atomically replaces the log.
+ * <p>
+ * Appended records are visible to other processes immediately, and survive a crash of this process. {@link #flush()}
+ * additionally forces them to disk. To match the behavior of {@link com.mesosphere.sdk.curator.CuratorPersister}
+ * which callers expect, reads and deletes of missing paths throw {@link KeeperException.NoNodeException}, and writes
+ * implicitly create any missing parent paths.
+ */
+public class LocalPersister implements Persister {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalPersister.class);
+
+    private static final int FILE_MAGIC = 0x44435350; // "DCSP"
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8; // magic + version
+    private static final int RECORD_HEADER_BYTES = 8; // body length + body CRC
+
+    private static final byte OP_SET = 1;
+    private static final byte OP_DELETE = 2;
+
+    private static final int INITIAL_MAP_BYTES = 1024 * 1024;
+    private static final long DEFAULT_MIN_COMPACTION_BYTES = 4 * 1024 * 1024;
+    /**
+     * The log is compacted once it's more than this many times larger than a snapshot of the current data.
+     */
+    private static final int COMPACTION_RATIO = 4;
+
+    private static final String ROOT_PATH = "/";
+    private static final byte[] EMPTY_DATA = new byte[0];
+
+    private final Path logPath;
+    private final long minCompactionBytes;
+
+    // Path => node, including the root and any implicitly created parents.
+    private final Map<String, Node> nodes = new HashMap<>();
+    // Estimated size of a log record containing a snapshot of all nodes.
+    private long snapshotBytes = 0;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private boolean closed = false;
+
+    /**
+     * Opens the log at the provided path, creating it if it doesn't exist yet, and loads its contents.
+     *
+     * @throws IOException if the file couldn't be opened, or isn't a log written by this class
+     */
+    public LocalPersister(Path logPath) throws IOException {
+        this(logPath, DEFAULT_MIN_COMPACTION_BYTES);
+    }
+
+    /**
+     * Visible for testing: allows compaction of smaller logs.
+     */
+    LocalPersister(Path logPath, long minCompactionBytes) throws IOException {
+        this.logPath = logPath;
+        this.minCompactionBytes = minCompactionBytes;
+        nodes.put(ROOT_PATH, new Node(EMPTY_DATA));
+        open();
+    }
+
+    @Override
+    public synchronized void setMany(Map<String, byte[]> pathBytesMap) throws Exception {
+        if (pathBytesMap.isEmpty()) {
+            return;
+        }
+        List<Op> ops = new ArrayList<>(pathBytesMap.size());
+        for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
+            ops.add(Op.set(entry.getKey(), entry.getValue()));
+        }
+        append(ops);
+    }
+
+    @Override
+    public synchronized void set(String path, byte[] bytes) throws Exception {
+        append(Arrays.asList(Op.set(path, bytes)));
+    }
+
+    @Override
+    public synchronized byte[] get(String path) throws Exception {
+        return getNode(path).data.clone();
+    }
+
+    @Override
+    public synchronized Map<String, byte[]> getMany(Collection<String> paths) throws Exception {
+        checkOpen();
+        Map<String, byte[]> pathBytesMap = new HashMap<>();
+        for (String path : paths) {
+            Node node = nodes.get(path);
+            if (node != null) {
+                pathBytesMap.put(path, node.data.clone());
+            }
+        }
+        return pathBytesMap;
+    }
+
+    /**
+     * Deletes the data at the specified path, along with any children.
+     */
+    @Override
+    public synchronized void delete(String path) throws Exception {
+        getNode(path);
+        if (path.equals(ROOT_PATH)) {
+            throw new IllegalArgumentException("Root path may not be deleted");
+        }
+        append(Arrays.asList(Op.delete(path)));
+    }
+
+    /**
+     * Deletes the data at the specified paths, along with any children, as a single record.
+     */
+    @Override
+    public synchronized boolean deleteManyIfUnchanged(String checkPath, byte[] checkBytes, Collection<String> paths)
+            throws Exception {
+        checkOpen();
+        Node checkNode = nodes.get(checkPath);
+        if (checkNode == null || !Arrays.equals(checkBytes, checkNode.data)) {
+            return false;
+        }
+        List<Op> ops = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            validatePath(path);
+            if (path.equals(ROOT_PATH)) {
+                throw new IllegalArgumentException("Root path may not be deleted");
+            }
+            if (nodes.containsKey(path)) {
+                ops.add(Op.delete(path));
+            }
+        }
+        if (!ops.isEmpty()) {
+            append(ops);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized Collection<String> getChildren(String path) throws Exception {
+        return new ArrayList<>(getNode(path).children);
+    }
+
+    /**
+     * Forces any appended records to disk.
+     */
+    @Override
+    public synchronized void flush() throws Exception {
+        checkOpen();
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            logger.error(String.format("Failed to close log at %s", logPath), e);
+        }
+    }
+
+    /**
+     * Returns the number of bytes currently used by the log, including its header.
+     */
+    synchronized long getLogBytes() {
+        return buffer.position();
+    }
+
+    // Log management
+
+    private void open() throws IOException {
+        channel = FileChannel.open(logPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_MAP_BYTES));
+
+        int magic = buffer.getInt(0);
+        if (magic == 0) {
+            buffer.putInt(0, FILE_MAGIC);
+            buffer.putInt(4, FILE_VERSION);
+        } else if (magic != FILE_MAGIC || buffer.getInt(4) != FILE_VERSION) {
+            channel.close();
+            throw new IOException(String.format(
+                    "File at %s is not a supported log: magic=%x version=%d", logPath, magic, buffer.getInt(4)));
+        }
+        buffer.position(FILE_HEADER_BYTES);
+
+        int recordCount = 0;
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int start = buffer.position();
+            int bodyLength = buffer.getInt(start);
+            if (bodyLength == 0) {
+                break; // end of log
+            }
+            List<Op> ops = readRecord(start, bodyLength);
+            if (ops == null) {
+                // Most likely a record which was being written when the process exited. Drop it and anything after it.
+                logger.warn("Discarding incomplete or corrupt record at offset {} of {}", start, logPath);
+                for (int i = start; i < buffer.capacity(); ++i) {
+                    buffer.put(i, (byte) 0);
+                }
+                break;
+            }
+            for (Op op : ops) {
+                apply(op);
+            }
+            buffer.position(start + RECORD_HEADER_BYTES + bodyLength);
+            ++recordCount;
+        }
+        logger.info("Loaded {} nodes from {} records in {}", nodes.size(), recordCount, logPath);
+        compactIfNeeded();
+    }
+
+    /**
+     * Returns the ops in the record at the provided offset, or {@code null} if the record is incomplete or corrupt.
+     */
+    private List<Op> readRecord(int start, int bodyLength) {
+        int bodyStart = start + RECORD_HEADER_BYTES;
+        if (bodyLength < 0 || bodyLength > buffer.capacity() - bodyStart) {
+            return null;
+        }
+        ByteBuffer body = buffer.duplicate();
+        body.limit(bodyStart + bodyLength).position(bodyStart);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+            return null;
+        }
+
+        body.position(bodyStart);
+        try {
+            int opCount = body.getInt();
+            List<Op> ops = new ArrayList<>(opCount);
+            for (int i = 0; i < opCount; ++i) {
+                byte type = body.get();
+                String path = new String(readBytes(body), StandardCharsets.UTF_8);
+                if (type == OP_SET) {
+                    ops.add(Op.set(path, readBytes(body)));
+                } else if (type == OP_DELETE) {
+                    ops.add(Op.delete(path));
+                } else {
+                    return null;
+                }
+            }
+            return ops;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the provided ops to the log as a single record, then applies them to the in-memory tree.
+     */
+    private void append(List<Op> ops) throws IOException {
+        checkOpen();
+        int bodyLength = 4;
+        for (Op op : ops) {
+            bodyLength += op.getEncodedLength();
+        }
+        ensureCapacity(RECORD_HEADER_BYTES + bodyLength);
+        writeRecord(buffer, ops, bodyLength);
+        for (Op op : ops) {
+            apply(op);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Writes a record containing the provided ops at the buffer's position, and advances the position past it.
+     */
+    private static void writeRecord(ByteBuffer target, List<Op> ops, int bodyLength) {
+        int start = target.position();
+        target.position(start + RECORD_HEADER_BYTES);
+        target.putInt(ops.size());
+        for (Op op : ops) {
+            target.put(op.type);
+            target.putInt(op.pathBytes.length);
+            target.put(op.pathBytes);
+            if (op.type == OP_SET) {
+                target.putInt(op.data.length);
+                target.put(op.data);
+            }
+        }
+        ByteBuffer body = target.duplicate();
+        body.limit(start + RECORD_HEADER_BYTES + bodyLength).position(start + RECORD_HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        target.putInt(start + 4, (int) crc.getValue());
+        // Written last, so that a partially written record is never mistaken for a complete one:
+        target.putInt(start, bodyLength);
+    }
+
+    private void ensureCapacity(int recordLength) throws IOException {
+        if (buffer.remaining() >= recordLength) {
+            return;
+        }
+        long required = (long) buffer.position() + recordLength;
+        long newSize = Math.max(required, (long) buffer.capacity() * 2);
+        if (newSize > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Log at %s can't grow beyond %d bytes", logPath, newSize));
+        }
+        int position = buffer.position();
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+        buffer.position(position);
+    }
+
+    private void compactIfNeeded() throws IOException {
+        long logBytes = buffer.position();
+        if (logBytes < minCompactionBytes || logBytes < COMPACTION_RATIO * (FILE_HEADER_BYTES + snapshotBytes)) {
+            return;
+        }
+
+        // Nodes are written parents-first, though parents would be implicitly created anyway.
+        List<Op> ops = new ArrayList<>(nodes.size());
+        int bodyLength = 4;
+        for (Map.Entry<String, Node> entry : new TreeMap<>(nodes).entrySet()) {
+            if (!entry.getKey().equals(ROOT_PATH)) {
+                Op op = Op.set(entry.getKey(), entry.getValue().data);
+                ops.add(op);
+                bodyLength += op.getEncodedLength();
+            }
+        }
+        ByteBuffer snapshot = ByteBuffer.allocate(FILE_HEADER_BYTES + RECORD_HEADER_BYTES + bodyLength);
+        snapshot.putInt(FILE_MAGIC);
+        snapshot.putInt(FILE_VERSION);
+        writeRecord(snapshot, ops, bodyLength);
+        snapshot.flip();
+
+        Path compactedPath = logPath.resolveSibling(logPath.getFileName() + ".compact");
+        try (FileChannel compacted = FileChannel.open(compactedPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (snapshot.hasRemaining()) {
+                compacted.write(snapshot);
+            }
+            compacted.force(true);
+        }
+        buffer.force();
+        Files.move(compactedPath, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel.close();
+        channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(INITIAL_MAP_BYTES, (long) snapshot.limit() * 2));
+        buffer.position(snapshot.limit());
+        logger.info("Compacted log at {} from {} to {} bytes", logPath, logBytes, snapshot.limit());
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException(String.format("Log at %s has been closed", logPath));
+        }
+    }
+
+    // Path tree
+
+    private Node getNode(String path) throws KeeperException.NoNodeException {
+        checkOpen();
+        validatePath(path);
+        Node node = nodes.get(path);
+        if (node == null) {
+            throw new KeeperException.NoNodeException(path);
+        }
+        return node;
+    }
+
+    private void apply(Op op) {
+        if (op.type == OP_SET) {
+            Node node = nodes.get(op.path);
+            if (node == null) {
+                createNode(op.path, op.data);
+            } else {
+                snapshotBytes += op.data.length - node.data.length;
+                node.data = op.data;
+            }
+        } else {
+            Node node = nodes.get(op.path);
+            if (node != null) {
+                removeTree(op.path, node);
+                nodes.get(getParentPath(op.path)).children.remove(getName(op.path));
+            }
+        }
+    }
+
+    private Node createNode(String path, byte[] data) {
+        String parentPath = getParentPath(path);
+        Node parent = nodes.get(parentPath);
+        if (parent == null) {
+            parent = createNode(parentPath, EMPTY_DATA);
+        }
+        parent.children.add(getName(path));
+        Node node = new Node(data);
+        nodes.put(path, node);
+        snapshotBytes += Op.getEncodedLength(path.length(), data.length);
+        return node;
+    }
+
+    private void removeTree(String path, Node node) {
+        for (String child : node.children) {
+            String childPath = path + "/" + child;
+            removeTree(childPath, nodes.get(childPath));
+        }
+        nodes.remove(path);
+        snapshotBytes -= Op.getEncodedLength(path.length(), node.data.length);
+    }
+
+    private static void validatePath(String path) {
+        if (!path.startsWith("/")
+                || (path.endsWith("/") && !path.equals(ROOT_PATH))
+                || path.contains("//")) {
+            throw new IllegalArgumentException(String.format("Invalid path: '%s'", path));
+        }
+    }
+
+    private static String getParentPath(String path) {
+        int lastDelim = path.lastIndexOf('/');
+        return lastDelim == 0 ? ROOT_PATH : path.substring(0, lastDelim);
+    }
+
+    private static String getName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static class Node {
+        private byte[] data;
+        private final Set<String> children = new TreeSet<>();
+
+        private Node(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    private static class Op {
+        private final byte type;
+        private final String path;
+        private final byte[] pathBytes;
+        private final byte[] data;
+
+        private static Op set(String path, byte[] data) {
+            validatePath(path);
+            // Copy, as the caller may reuse their array:
+            return new Op(OP_SET, path, data == null ? EMPTY_DATA : data.clone());
+        }
+
+        private static Op delete(String path) {
+            validatePath(path);
+            return new Op(OP_DELETE, path, null);
+        }
+
+        private Op(byte type, String path, byte[] data) {
+            this.type = type;
+            this.path = path;
+            this.pathBytes = path.getBytes(StandardCharsets.UTF_8);
+            this.data = data;
+        }
+
+        private int getEncodedLength() {
+            return type == OP_SET
+                    ? getEncodedLength(pathBytes.length, data.length)
+                    : 1 + 4 + pathBytes.length;
+        }
+
+        private static int getEncodedLength(int pathLength, int dataLength) {
+            return 1 + 4 + pathLength + 4 + dataLength;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.mesosphere.sdk.storage;
 
+import org.apache.zookeeper.KeeperException;
+
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -24,18 +28,73 @@ public interface Persister {
      */
     byte[] get(String path) throws Exception;
 
+    /**
+     * Retrieves the previously stored data at each of the specified paths, returning a mapping of path to data. Paths
+     * which don't have any data are omitted from the returned mapping.
+     * <p>
+     * By default this calls {@link #get(String)} for each path in turn. Implementations may override it to fetch the
+     * paths more efficiently.
+     */
+    default Map<String, byte[]> getMany(Collection<String> paths) throws Exception {
+        Map<String, byte[]> pathBytesMap = new HashMap<>();
+        for (String path : paths) {
+            try {
+                pathBytesMap.put(path, get(path));
+            } catch (KeeperException.NoNodeException e) {
+                // Missing paths are omitted.
+            }
+        }
+        return pathBytesMap;
+    }
+
     /**
      * Deletes the data at the specified path, or throws an exception if the data didn't already
      * exist.
      */
     void delete(String path) throws Exception;
 
+    /**
+     * Deletes the data at each of the specified paths as a single atomic operation, but only if the data at
+     * {@code checkPath} still equals {@code checkBytes}. Paths which don't have any data are skipped.
+     * <p>
+     * By default this checks the data and then deletes each path in turn, which is only atomic if nothing else is
+     * writing to this storage. Implementations which may be shared with other writers should override it.
+     *
+     * @return whether the data at {@code checkPath} was unchanged, in which case the paths were deleted
+     */
+    default boolean deleteManyIfUnchanged(String checkPath, byte[] checkBytes, Collection<String> paths)
+            throws Exception {
+        try {
+            if (!Arrays.equals(checkBytes, get(checkPath))) {
+                return false;
+            }
+        } catch (KeeperException.NoNodeException e) {
+            return false;
+        }
+        for (String path : paths) {
+            try {
+                delete(path);
+            } catch (KeeperException.NoNodeException e) {
+                // Missing paths are skipped.
+            }
+        }
+        return true;
+    }
+
     /**
      * Returns the names of child nodes at the provided path. The returned values may be joined with
      * the provided {@code path} to get their full paths.
      */
     Collection<String> getChildren(String path) throws Exception;
 
+    /**
+     * Blocks until any writes which have been buffered by this instance are committed to storage. Implementations
+     * which write synchronously don't need to do anything.
+     */
+    default void flush() throws Exception {
+        // Writes are synchronous by default, so there's nothing to flush.
+    }
+
     /**
      * Closes this storage and cleans up any resources. No other operations should be performed
      * against this instance after calling close().
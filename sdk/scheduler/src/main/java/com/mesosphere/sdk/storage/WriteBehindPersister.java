@@ -0,0 +1,267 @@
+package com.mesosphere.sdk.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Persister} which buffers writes to an underlying {@link Persister} and commits them in the background.
+ * <p>
+ * Writes received within a short window are coalesced, such that only the latest value for each path is kept, and are
+ * then committed together in a single call to {@link Persister#setMany(Map)}, which is an atomic multi-op transaction
+ * in the case of {@link com.mesosphere.sdk.curator.CuratorPersister}. Batches are committed one at a time in the order
+ * they were received, and a failed batch is retried before any later writes are committed.
+ * <p>
+ * After {@value #MAX_FAILED_COMMITS} consecutive failed commits, background retries stop and further writes are
+ * rejected with the last failure, rather than being merged into a batch which may never succeed. The buffered writes
+ * are then only retried by explicit calls to {@link #flush()}, and writes are accepted again once one succeeds.
+ * <p>
+ * Reads of a path with a buffered write return the buffered value. Deletes and child listings first commit any
+ * buffered writes. Callers which need a write to be durable before proceeding should call {@link #flush()}.
+ */
+public class WriteBehindPersister implements Persister {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindPersister.class);
+
+    /**
+     * Once this many bytes are buffered, a commit is started without waiting for the end of the window. This keeps
+     * transactions well below ZooKeeper's default 1MB request limit.
+     */
+    private static final int MAX_PENDING_BYTES = 256 * 1024;
+
+    /**
+     * The number of consecutive failed commits after which buffered writes are no longer retried in the background.
+     */
+    static final int MAX_FAILED_COMMITS = 5;
+
+    private final Persister persister;
+    private final long windowMs;
+    private final ScheduledExecutorService executor;
+
+    // Guards pending, pendingBytes, inFlight, commitScheduled, failedCommits and commitFailure.
+    private final Object pendingLock = new Object();
+    private Map<String, byte[]> pending = new LinkedHashMap<>();
+    private int pendingBytes = 0;
+    private Map<String, byte[]> inFlight = null;
+    private boolean commitScheduled = false;
+    private int failedCommits = 0;
+    private Exception commitFailure = null;
+
+    // Held while writing to the underlying persister, so that commits and deletes are applied in order.
+    private final Object commitLock = new Object();
+
+    /**
+     * Creates a new instance which buffers writes to the provided {@link Persister} for up to {@code windowMs}.
+     */
+    public WriteBehindPersister(Persister persister, long windowMs) {
+        this.persister = persister;
+        this.windowMs = windowMs;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "write-behind-persister");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Buffers the provided writes. They will be committed together in a single transaction.
+     *
+     * @throws Exception if buffered writes have repeatedly failed to commit, in which case these writes are rejected
+     */
+    @Override
+    public void setMany(Map<String, byte[]> pathBytesMap) throws Exception {
+        synchronized (pendingLock) {
+            checkCommitFailure();
+            for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
+                putPending(entry.getKey(), entry.getValue());
+            }
+            scheduleCommit();
+        }
+    }
+
+    /**
+     * Buffers the provided write.
+     *
+     * @throws Exception if buffered writes have repeatedly failed to commit, in which case this write is rejected
+     */
+    @Override
+    public void set(String path, byte[] bytes) throws Exception {
+        synchronized (pendingLock) {
+            checkCommitFailure();
+            putPending(path, bytes);
+            scheduleCommit();
+        }
+    }
+
+    @Override
+    public byte[] get(String path) throws Exception {
+        synchronized (pendingLock) {
+            byte[] bytes = pending.get(path);
+            if (bytes == null && inFlight != null) {
+                bytes = inFlight.get(path);
+            }
+            if (bytes != null) {
+                return bytes;
+            }
+        }
+        return persister.get(path);
+    }
+
+    @Override
+    public Map<String, byte[]> getMany(Collection<String> paths) throws Exception {
+        Map<String, byte[]> result = new HashMap<>();
+        Collection<String> unbufferedPaths = new ArrayList<>();
+        synchronized (pendingLock) {
+            for (String path : paths) {
+                byte[] bytes = pending.get(path);
+                if (bytes == null && inFlight != null) {
+                    bytes = inFlight.get(path);
+                }
+                if (bytes == null) {
+                    unbufferedPaths.add(path);
+                } else {
+                    result.put(path, bytes);
+                }
+            }
+        }
+        result.putAll(persister.getMany(unbufferedPaths));
+        return result;
+    }
+
+    @Override
+    public void delete(String path) throws Exception {
+        synchronized (commitLock) {
+            flush();
+            persister.delete(path);
+        }
+    }
+
+    @Override
+    public boolean deleteManyIfUnchanged(String checkPath, byte[] checkBytes, Collection<String> paths)
+            throws Exception {
+        synchronized (commitLock) {
+            flush();
+            return persister.deleteManyIfUnchanged(checkPath, checkBytes, paths);
+        }
+    }
+
+    @Override
+    public Collection<String> getChildren(String path) throws Exception {
+        flush();
+        return persister.getChildren(path);
+    }
+
+    /**
+     * Commits all buffered writes, blocking until they've been written to the underlying {@link Persister}.
+     *
+     * @throws Exception if the commit fails, in which case the writes remain buffered, and will be retried in the
+     *     background unless commits have now failed {@value #MAX_FAILED_COMMITS} times in a row
+     */
+    @Override
+    public void flush() throws Exception {
+        synchronized (commitLock) {
+            Map<String, byte[]> batch;
+            synchronized (pendingLock) {
+                commitScheduled = false;
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                inFlight = batch;
+                pending = new LinkedHashMap<>();
+                pendingBytes = 0;
+            }
+
+            try {
+                persister.setMany(batch);
+            } catch (Exception e) {
+                synchronized (pendingLock) {
+                    // Restore the failed writes, except where they've since been superseded by newer writes.
+                    Map<String, byte[]> newerWrites = pending;
+                    pending = new LinkedHashMap<>();
+                    pendingBytes = 0;
+                    for (Map.Entry<String, byte[]> entry : batch.entrySet()) {
+                        putPending(entry.getKey(), entry.getValue());
+                    }
+                    for (Map.Entry<String, byte[]> entry : newerWrites.entrySet()) {
+                        putPending(entry.getKey(), entry.getValue());
+                    }
+                    failedCommits++;
+                    if (failedCommits >= MAX_FAILED_COMMITS) {
+                        logger.error("Failed to commit {} buffered writes {} times in a row, rejecting further writes",
+                                pending.size(), failedCommits);
+                        commitFailure = e;
+                    } else {
+                        scheduleCommit();
+                    }
+                }
+                throw e;
+            } finally {
+                synchronized (pendingLock) {
+                    inFlight = null;
+                }
+            }
+            synchronized (pendingLock) {
+                failedCommits = 0;
+                commitFailure = null;
+            }
+            logger.debug("Committed {} buffered writes", batch.size());
+        }
+    }
+
+    /**
+     * Commits any buffered writes before closing the underlying {@link Persister}.
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Failed to commit buffered writes before closing", e);
+        }
+        executor.shutdownNow();
+        persister.close();
+    }
+
+    private void checkCommitFailure() {
+        if (commitFailure != null) {
+            throw new IllegalStateException(String.format(
+                    "Rejecting write: %d buffered writes have failed to commit %d times in a row",
+                    pending.size(), failedCommits), commitFailure);
+        }
+    }
+
+    private void putPending(String path, byte[] bytes) {
+        byte[] previous = pending.put(path, bytes);
+        if (previous != null) {
+            pendingBytes -= previous.length;
+        }
+        pendingBytes += bytes.length;
+    }
+
+    private void scheduleCommit() {
+        if (pendingBytes >= MAX_PENDING_BYTES) {
+            commitScheduled = true;
+            executor.execute(this::commitInBackground);
+        } else if (!commitScheduled) {
+            commitScheduled = true;
+            executor.schedule(this::commitInBackground, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void commitInBackground() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Failed to commit buffered writes", e);
+        }
+    }
+}
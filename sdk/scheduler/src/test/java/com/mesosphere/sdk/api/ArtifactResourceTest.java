@@ -18,11 +18,13 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.UUID;
 
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
-import static org.junit.Assert.assertEquals;
-import static org.mockito.Mockito.when;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 public class ArtifactResourceTest {
 
@@ -41,21 +43,21 @@ public class ArtifactResourceTest {
 
     @Test
     public void testGetTemplateBadUUID() throws ConfigStoreException {
-        assertEquals(400, resource.getTemplate("bad uuid", "pod", "task", "conffile").getStatus());
+        assertEquals(400, resource.getTemplate("bad uuid", "pod", "task", "conffile", null).getStatus());
     }
 
     @Test
     public void testGetTemplateServiceConfigNotFound() throws ConfigStoreException {
         UUID uuid = UUID.randomUUID();
         when(mockConfigStore.fetch(uuid)).thenThrow(new ConfigStoreException(Reason.NOT_FOUND, "hi"));
-        assertEquals(404, resource.getTemplate(uuid.toString(), "pod", "task", "conffile").getStatus());
+        assertEquals(404, resource.getTemplate(uuid.toString(), "pod", "task", "conffile", null).getStatus());
     }
 
     @Test
     public void testGetTemplateServiceConfigReadFailed() throws ConfigStoreException {
         UUID uuid = UUID.randomUUID();
         when(mockConfigStore.fetch(uuid)).thenThrow(new ConfigStoreException(Reason.STORAGE_ERROR, "hi"));
-        assertEquals(500, resource.getTemplate(uuid.toString(), "pod", "task", "conffile").getStatus());
+        assertEquals(500, resource.getTemplate(uuid.toString(), "pod", "task", "conffile", null).getStatus());
     }
 
     @Test
@@ -63,7 +65,7 @@ public class ArtifactResourceTest {
         UUID uuid = UUID.randomUUID();
         when(mockConfigStore.fetch(uuid)).thenReturn(mockServiceSpec);
         when(mockServiceSpec.getPods()).thenReturn(Collections.emptyList());
-        assertEquals(404, resource.getTemplate(uuid.toString(), "pod", "task", "conffile").getStatus());
+        assertEquals(404, resource.getTemplate(uuid.toString(), "pod", "task", "conffile", null).getStatus());
     }
 
     @Test
@@ -73,7 +75,7 @@ public class ArtifactResourceTest {
         when(mockServiceSpec.getPods()).thenReturn(Arrays.asList(mockPodSpec));
         when(mockPodSpec.getType()).thenReturn("pod");
         when(mockPodSpec.getTasks()).thenReturn(Collections.emptyList());
-        assertEquals(404, resource.getTemplate(uuid.toString(), "pod", "task", "conffile").getStatus());
+        assertEquals(404, resource.getTemplate(uuid.toString(), "pod", "task", "conffile", null).getStatus());
     }
 
     @Test
@@ -85,7 +87,7 @@ public class ArtifactResourceTest {
         when(mockPodSpec.getTasks()).thenReturn(Arrays.asList(mockTaskSpec));
         when(mockTaskSpec.getName()).thenReturn("task");
         when(mockTaskSpec.getConfigFiles()).thenReturn(Collections.emptyList());
-        assertEquals(404, resource.getTemplate(uuid.toString(), "pod", "task", "conffile").getStatus());
+        assertEquals(404, resource.getTemplate(uuid.toString(), "pod", "task", "conffile", null).getStatus());
     }
 
     @Test
@@ -98,9 +100,51 @@ public class ArtifactResourceTest {
         when(mockTaskSpec.getName()).thenReturn("task");
         ConfigFileSpec configSpec = new DefaultConfigFileSpec("conffile", "../conf/confpath.xml", "content goes here");
         when(mockTaskSpec.getConfigFiles()).thenReturn(Arrays.asList(configSpec));
-        Response r = resource.getTemplate(uuid.toString(), "pod", "task", "conffile");
+        Response r = resource.getTemplate(uuid.toString(), "pod", "task", "conffile", null);
         assertEquals(200, r.getStatus());
         assertEquals(MediaType.TEXT_PLAIN_TYPE, r.getMediaType());
         assertEquals(configSpec.getTemplateContent(), r.getEntity());
+        assertEquals("public, max-age=31536000, immutable", r.getHeaderString(HttpHeaders.CACHE_CONTROL));
+        assertNotNull(r.getEntityTag());
+        assertFalse(r.getEntityTag().isWeak());
+    }
+
+    @Test
+    public void testGetTemplateIsIndexedOnce() throws ConfigStoreException {
+        UUID uuid = UUID.randomUUID();
+        mockTemplate(uuid);
+        assertEquals(200, resource.getTemplate(uuid.toString(), "pod", "task", "conffile", null).getStatus());
+        assertEquals(404, resource.getTemplate(uuid.toString(), "pod", "task", "otherfile", null).getStatus());
+        assertEquals(200, resource.getTemplate(uuid.toString(), "pod", "task", "conffile", null).getStatus());
+        verify(mockConfigStore, times(1)).fetch(uuid);
+    }
+
+    @Test
+    public void testGetTemplateNotModified() throws ConfigStoreException {
+        UUID uuid = UUID.randomUUID();
+        mockTemplate(uuid);
+        EntityTag tag = resource.getTemplate(uuid.toString(), "pod", "task", "conffile", null).getEntityTag();
+        String quotedTag = "\"" + tag.getValue() + "\"";
+
+        Response r = resource.getTemplate(uuid.toString(), "pod", "task", "conffile", quotedTag);
+        assertEquals(304, r.getStatus());
+        assertNull(r.getEntity());
+        assertEquals(tag, r.getEntityTag());
+
+        r = resource.getTemplate(uuid.toString(), "pod", "task", "conffile", "\"other\", W/" + quotedTag);
+        assertEquals(304, r.getStatus());
+
+        r = resource.getTemplate(uuid.toString(), "pod", "task", "conffile", "\"other\"");
+        assertEquals(200, r.getStatus());
+    }
+
+    private void mockTemplate(UUID uuid) throws ConfigStoreException {
+        when(mockConfigStore.fetch(uuid)).thenReturn(mockServiceSpec);
+        when(mockServiceSpec.getPods()).thenReturn(Arrays.asList(mockPodSpec));
+        when(mockPodSpec.getType()).thenReturn("pod");
+        when(mockPodSpec.getTasks()).thenReturn(Arrays.asList(mockTaskSpec));
+        when(mockTaskSpec.getName()).thenReturn("task");
+        ConfigFileSpec configSpec = new DefaultConfigFileSpec("conffile", "../conf/confpath.xml", "content goes here");
+        when(mockTaskSpec.getConfigFiles()).thenReturn(Arrays.asList(configSpec));
     }
 }
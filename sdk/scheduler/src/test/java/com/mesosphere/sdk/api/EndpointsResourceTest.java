@@ -18,6 +18,7 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Response;
 import java.util.Arrays;
 import java.util.Collection;
@@ -163,17 +164,17 @@ public class EndpointsResourceTest {
     @Test
     public void testGetAllEndpoints() throws ConfigStoreException {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
-        Response response = resource.getEndpoints(null);
+        Response response = resource.getEndpoints(null, null, null);
         assertEquals(200, response.getStatus());
         JSONArray json = new JSONArray((String) response.getEntity());
         assertEquals(json.toString(), 4, json.length());
 
         assertEquals(CUSTOM_KEY, json.get(0));
-        assertEquals("vip2", json.get(1));
+        assertEquals("some-task-type", json.get(1));
         assertEquals("vip1", json.get(2));
-        assertEquals("some-task-type", json.get(3));
+        assertEquals("vip2", json.get(3));
 
-        JSONObject vip1 = new JSONObject((String) resource.getEndpoint("vip1", null).getEntity());
+        JSONObject vip1 = new JSONObject((String) resource.getEndpoint("vip1", null, null, null).getEntity());
         assertEquals(3, vip1.length());
         assertEquals("vip1.svc-name.l4lb.thisdcos.directory:5432", vip1.get("vip"));
         JSONArray dns = vip1.getJSONArray("dns");
@@ -185,7 +186,7 @@ public class EndpointsResourceTest {
         assertEquals(TestConstants.HOSTNAME + ":2345", address.get(0));
         assertEquals(TestConstants.HOSTNAME + ":3456", address.get(1));
 
-        JSONObject vip2 = new JSONObject((String) resource.getEndpoint("vip2", null).getEntity());
+        JSONObject vip2 = new JSONObject((String) resource.getEndpoint("vip2", null, null, null).getEntity());
         assertEquals(3, vip2.length());
         assertEquals("vip2.svc-name.l4lb.thisdcos.directory:6432", vip2.get("vip"));
         dns = vip2.getJSONArray("dns");
@@ -197,7 +198,8 @@ public class EndpointsResourceTest {
         assertEquals(TestConstants.HOSTNAME + ":2346", address.get(0));
         assertEquals(TestConstants.HOSTNAME + ":3457", address.get(1));
 
-        JSONObject taskType = new JSONObject((String) resource.getEndpoint("some-task-type", null).getEntity());
+        JSONObject taskType = new JSONObject(
+                (String) resource.getEndpoint("some-task-type", null, null, null).getEntity());
         assertEquals(2, taskType.length());
         dns = taskType.getJSONArray("dns");
         assertEquals(6, dns.length());
@@ -222,7 +224,7 @@ public class EndpointsResourceTest {
     @Test
     public void testGetOneEndpoint() throws ConfigStoreException {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
-        Response response = resource.getEndpoint("vip1", null);
+        Response response = resource.getEndpoint("vip1", null, null, null);
         assertEquals(200, response.getStatus());
         JSONObject json = new JSONObject((String) response.getEntity());
         assertEquals(json.toString(), 3, json.length());
@@ -240,22 +242,42 @@ public class EndpointsResourceTest {
     @Test
     public void testGetOneCustomEndpoint() throws ConfigStoreException {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
-        Response response = resource.getEndpoint("custom", null);
+        Response response = resource.getEndpoint("custom", null, null, null);
         assertEquals(200, response.getStatus());
         assertEquals(CUSTOM_VALUE, response.getEntity());
     }
 
+    @Test
+    public void testGetEndpointNotModified() throws ConfigStoreException {
+        when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
+        EntityTag tag = resource.getEndpoint("vip1", null, null, null).getEntityTag();
+        String quotedTag = "\"" + tag.getValue() + "\"";
+        assertEquals(304, resource.getEndpoint("vip1", null, quotedTag, null).getStatus());
+        assertEquals(304, resource.getEndpoints(null, quotedTag, null).getStatus());
+
+        // custom endpoints are always produced in full:
+        assertEquals(200, resource.getEndpoint("custom", null, quotedTag, null).getStatus());
+
+        // removing a task produces a new version:
+        when(mockStateStore.fetchTasks()).thenReturn(Arrays.asList(TASK_WITH_VIPS_1));
+        Response response = resource.getEndpoint("vip1", null, quotedTag, null);
+        assertEquals(200, response.getStatus());
+        JSONObject json = new JSONObject((String) response.getEntity());
+        assertEquals(1, json.getJSONArray("dns").length());
+    }
+
     @Test
     public void testGetAllEndpointsNativeIgnored() throws ConfigStoreException {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
-        assertEquals(resource.getEndpoints(null).getEntity(), resource.getEndpoints("native").getEntity());
-        assertEquals(resource.getEndpoint("vip1", null).getEntity(),
-                resource.getEndpoint("vip1", "native").getEntity());
-        assertEquals(resource.getEndpoint("vip2", null).getEntity(),
-                resource.getEndpoint("vip2", "native").getEntity());
-        assertEquals(resource.getEndpoint("some-task-type", null).getEntity(),
-                resource.getEndpoint("some-task-type", "native").getEntity());
-        assertEquals(resource.getEndpoint("custom", null).getEntity(),
-                resource.getEndpoint("custom", "native").getEntity());
+        assertEquals(resource.getEndpoints(null, null, null).getEntity(),
+                resource.getEndpoints("native", null, null).getEntity());
+        assertEquals(resource.getEndpoint("vip1", null, null, null).getEntity(),
+                resource.getEndpoint("vip1", "native", null, null).getEntity());
+        assertEquals(resource.getEndpoint("vip2", null, null, null).getEntity(),
+                resource.getEndpoint("vip2", "native", null, null).getEntity());
+        assertEquals(resource.getEndpoint("some-task-type", null, null, null).getEntity(),
+                resource.getEndpoint("some-task-type", "native", null, null).getEntity());
+        assertEquals(resource.getEndpoint("custom", null, null, null).getEntity(),
+                resource.getEndpoint("custom", "native", null, null).getEntity());
     }
 }
@@ -0,0 +1,61 @@
+package com.mesosphere.sdk.api;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.core.Response;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MetricsResourceTest {
+
+    private MetricRegistry registry;
+    private MetricsResource resource;
+
+    @Before
+    public void beforeEach() {
+        registry = new MetricRegistry();
+        resource = new MetricsResource(registry);
+    }
+
+    @Test
+    public void testEmptyMetrics() {
+        JSONObject json = getJson(resource.getMetrics());
+        for (String type : new String[] { "gauges", "counters", "histograms", "meters", "timers" }) {
+            assertEquals(0, json.getJSONObject(type).length());
+        }
+    }
+
+    @Test
+    public void testMetrics() {
+        registry.register("queue", (Gauge<Integer>) () -> 3);
+        registry.counter("offers.accepted").inc(5);
+        registry.histogram("candidates").update(2);
+        registry.meter("offers.received").mark(7);
+        registry.timer("offers.cycle").update(20, TimeUnit.MILLISECONDS);
+
+        JSONObject json = getJson(resource.getMetrics());
+        assertEquals(3, json.getJSONObject("gauges").getInt("queue"));
+        assertEquals(5, json.getJSONObject("counters").getLong("offers.accepted"));
+
+        JSONObject histogram = json.getJSONObject("histograms").getJSONObject("candidates");
+        assertEquals(1, histogram.getLong("count"));
+        assertEquals(2, histogram.getDouble("max"), 0.0);
+
+        assertEquals(7, json.getJSONObject("meters").getJSONObject("offers.received").getLong("count"));
+
+        JSONObject timer = json.getJSONObject("timers").getJSONObject("offers.cycle");
+        assertEquals(1, timer.getLong("count"));
+        // reported in milliseconds:
+        assertEquals(20, timer.getDouble("p99"), 0.001);
+    }
+
+    private static JSONObject getJson(Response response) {
+        assertEquals(200, response.getStatus());
+        return new JSONObject((String) response.getEntity());
+    }
+}
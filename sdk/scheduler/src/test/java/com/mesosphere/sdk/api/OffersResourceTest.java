@@ -0,0 +1,88 @@
+package com.mesosphere.sdk.api;
+
+import com.mesosphere.sdk.offer.evaluate.EvaluationDiagnostics;
+import com.mesosphere.sdk.offer.evaluate.EvaluationOutcome;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import org.apache.mesos.Protos.Offer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class OffersResourceTest {
+
+    private static final Offer OFFER = OfferTestUtils.getOffer(ResourceTestUtils.getUnreservedCpu(1.0));
+
+    private EvaluationDiagnostics diagnostics;
+    private OffersResource resource;
+
+    @Before
+    public void beforeEach() {
+        diagnostics = new EvaluationDiagnostics();
+        resource = new OffersResource(diagnostics);
+    }
+
+    @Test
+    public void testNoSteps() {
+        Response response = resource.getSteps();
+        assertEquals(200, response.getStatus());
+        assertEquals(0, new JSONArray((String) response.getEntity()).length());
+        assertEquals(404, resource.getStep("hello-0:[server]").getStatus());
+    }
+
+    @Test
+    public void testSampledFailures() {
+        EvaluationDiagnostics.StepDiagnostic diagnostic = diagnostics.start("hello-0:[server]", 10);
+        EvaluationOutcome child = EvaluationOutcome.fail(this, "child %d", 1);
+        EvaluationOutcome parent = EvaluationOutcome.create(
+                false, this, Collections.emptyList(), Arrays.asList(child), "parent %s", "reason");
+        for (int i = 0; i < EvaluationDiagnostics.MAX_SAMPLED_OFFERS + 2; ++i) {
+            diagnostic.addFailure(OFFER, Arrays.asList(EvaluationOutcome.pass(this, "passed"), parent));
+        }
+        diagnostics.record(diagnostic);
+
+        Response response = resource.getStep("hello-0:[server]");
+        assertEquals(200, response.getStatus());
+        JSONObject json = new JSONObject((String) response.getEntity());
+        assertEquals("hello-0:[server]", json.getString("step"));
+        assertEquals(10, json.getInt("offers"));
+        assertEquals(EvaluationDiagnostics.MAX_SAMPLED_OFFERS + 2, json.getInt("failed-offers"));
+        assertFalse(json.getBoolean("passed"));
+
+        JSONArray sampled = json.getJSONArray("sampled-failures");
+        assertEquals(EvaluationDiagnostics.MAX_SAMPLED_OFFERS, sampled.length());
+        JSONObject sample = sampled.getJSONObject(0);
+        assertEquals(OFFER.getId().getValue(), sample.getString("offer-id"));
+        JSONArray outcomes = sample.getJSONArray("outcomes");
+        assertEquals(2, outcomes.length());
+        assertTrue(outcomes.getJSONObject(0).getBoolean("passed"));
+        assertEquals("parent reason", outcomes.getJSONObject(1).getString("reason"));
+        assertEquals("OffersResourceTest", outcomes.getJSONObject(1).getString("source"));
+        assertEquals("child 1",
+                outcomes.getJSONObject(1).getJSONArray("children").getJSONObject(0).getString("reason"));
+
+        assertEquals(1, new JSONArray((String) resource.getSteps().getEntity()).length());
+    }
+
+    @Test
+    public void testLatestEvaluationReplacesPrior() {
+        EvaluationDiagnostics.StepDiagnostic diagnostic = diagnostics.start("hello-0:[server]", 1);
+        diagnostic.addFailure(OFFER, Collections.emptyList());
+        diagnostics.record(diagnostic);
+        diagnostic = diagnostics.start("hello-0:[server]", 1);
+        diagnostic.setPassed();
+        diagnostics.record(diagnostic);
+
+        JSONArray json = new JSONArray((String) resource.getSteps().getEntity());
+        assertEquals(1, json.length());
+        assertTrue(json.getJSONObject(0).getBoolean("passed"));
+        assertEquals(0, json.getJSONObject(0).getInt("failed-offers"));
+    }
+}
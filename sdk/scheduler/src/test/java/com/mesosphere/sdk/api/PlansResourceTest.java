@@ -125,11 +125,11 @@ public class PlansResourceTest {
 
         response = resource.interruptCommand(planName, phaseId.toString());
         validateCommandResult(response, "interrupt");
-        verify(mockPhaseStrategy).interrupt();
+        verify(mockPhase).interrupt();
 
         response = resource.interruptCommand(planName, phaseName);
         validateCommandResult(response, "interrupt");
-        verify(mockPhaseStrategy, times(2)).interrupt();
+        verify(mockPhase, times(2)).interrupt();
     }
 
     @Test
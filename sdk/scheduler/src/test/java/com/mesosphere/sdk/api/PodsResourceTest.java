@@ -5,6 +5,7 @@ import com.mesosphere.sdk.api.types.TaskInfoAndStatus;
 import com.mesosphere.sdk.offer.CommonTaskUtils;
 import com.mesosphere.sdk.scheduler.TaskKiller;
 import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.state.StateStoreCache;
 import com.mesosphere.sdk.testutils.TaskTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
 
@@ -19,13 +20,20 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Response;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -120,7 +128,7 @@ public class PodsResourceTest {
     @Test
     public void testGetPodNames() {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
-        Response response = resource.getPods();
+        Response response = resource.getPods(null, null);
         assertEquals(200, response.getStatus());
         JSONArray json = new JSONArray((String) response.getEntity());
         assertEquals(json.toString(), 4, json.length());
@@ -135,7 +143,7 @@ public class PodsResourceTest {
     public void testGetAllPodStatuses() {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
         when(mockStateStore.fetchStatuses()).thenReturn(TASK_STATUSES);
-        Response response = resource.getPodStatuses();
+        Response response = resource.getPodStatuses(null, null);
         assertEquals(200, response.getStatus());
         JSONObject json = new JSONObject((String) response.getEntity());
         assertEquals(json.toString(), 4, json.length());
@@ -205,7 +213,7 @@ public class PodsResourceTest {
     public void testGetPodStatus() {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
         when(mockStateStore.fetchStatuses()).thenReturn(TASK_STATUSES);
-        Response response = resource.getPodStatus("test-1");
+        Response response = resource.getPodStatus("test-1", null, null);
         assertEquals(200, response.getStatus());
         JSONArray json = new JSONArray((String) response.getEntity());
         assertEquals(json.toString(), 2, json.length());
@@ -227,7 +235,7 @@ public class PodsResourceTest {
     public void testGetPodStatusNotFound() {
         when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
         when(mockStateStore.fetchStatuses()).thenReturn(TASK_STATUSES);
-        Response response = resource.getPodStatus("aaa");
+        Response response = resource.getPodStatus("aaa", null, null);
         assertEquals(404, response.getStatus());
     }
 
@@ -254,6 +262,68 @@ public class PodsResourceTest {
         assertEquals(404, response.getStatus());
     }
 
+    @Test
+    public void testGetPodStatusesNotModified() {
+        when(mockStateStore.fetchTasks()).thenReturn(TASK_INFOS);
+        when(mockStateStore.fetchStatuses()).thenReturn(TASK_STATUSES);
+        EntityTag tag = resource.getPodStatuses(null, null).getEntityTag();
+        String quotedTag = "\"" + tag.getValue() + "\"";
+
+        Response response = resource.getPodStatuses(quotedTag, null);
+        assertEquals(304, response.getStatus());
+        assertNull(response.getEntity());
+        assertEquals(304, resource.getPodStatus("test-1", quotedTag, null).getStatus());
+
+        // a status change produces a new version:
+        when(mockStateStore.fetchStatuses()).thenReturn(Arrays.asList(POD_1_STATUS_A));
+        response = resource.getPodStatus("test-1", quotedTag, null);
+        assertEquals(200, response.getStatus());
+        assertNotEquals(tag, response.getEntityTag());
+        JSONArray json = new JSONArray((String) response.getEntity());
+        assertEquals("TASK_FINISHED", json.getJSONObject(0).getString("state"));
+        assertEquals("No state defined", json.getJSONObject(1).getString("state"));
+    }
+
+    @Test
+    public void testGetPodStatusFollowsStateStoreCache() throws Exception {
+        when(mockStateStore.fetchFrameworkId()).thenReturn(Optional.empty());
+        when(mockStateStore.fetchTasks()).thenReturn(Arrays.asList(POD_0_TASK_A, POD_0_TASK_B));
+        when(mockStateStore.fetchStatuses()).thenReturn(Arrays.asList(POD_0_STATUS_A));
+        StateStoreCache.resetInstanceForTests();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            StateStore cache = StateStoreCache.getInstance(mockStateStore);
+            resource = new PodsResource(mockTaskKiller, cache, mockRestartHook);
+
+            Response response = resource.getPodStatus("test-0", null, null);
+            assertEquals(200, response.getStatus());
+            JSONArray json = new JSONArray((String) response.getEntity());
+            assertEquals(2, json.length());
+            assertEquals("No state defined", json.getJSONObject(1).getString("state"));
+            String quotedTag = "\"" + response.getEntityTag().getValue() + "\"";
+            assertEquals(304, resource.getPodStatus("test-0", quotedTag, null).getStatus());
+
+            // a waiting request is released by the next status update:
+            Future<Response> waitingResponse = executor.submit(() -> resource.getPodStatus("test-0", quotedTag, 30));
+            cache.storeStatus(POD_0_STATUS_B);
+            response = waitingResponse.get(10, TimeUnit.SECONDS);
+            assertEquals(200, response.getStatus());
+            json = new JSONArray((String) response.getEntity());
+            assertEquals("TASK_STAGING", json.getJSONObject(1).getString("state"));
+
+            // without any further updates, a waiting request times out:
+            String updatedTag = "\"" + response.getEntityTag().getValue() + "\"";
+            assertEquals(304, resource.getPodStatus("test-0", updatedTag, 1).getStatus());
+
+            // the view was only populated once, rather than rescanning the store on each request:
+            verify(mockStateStore, times(1)).fetchTasks();
+            verify(mockStateStore, times(1)).fetchStatuses();
+        } finally {
+            executor.shutdownNow();
+            StateStoreCache.resetInstanceForTests();
+        }
+    }
+
     // restart
 
     @Test
@@ -0,0 +1,195 @@
+package com.mesosphere.sdk.api;
+
+import com.mesosphere.sdk.scheduler.plan.DefaultPhase;
+import com.mesosphere.sdk.scheduler.plan.DefaultPlan;
+import com.mesosphere.sdk.scheduler.plan.DefaultPlanCoordinator;
+import com.mesosphere.sdk.scheduler.plan.DefaultPlanManager;
+import com.mesosphere.sdk.scheduler.plan.PlanScheduler;
+import com.mesosphere.sdk.scheduler.plan.Status;
+import com.mesosphere.sdk.scheduler.plan.TestStep;
+import com.mesosphere.sdk.scheduler.plan.strategy.SerialStrategy;
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.state.StateStoreCache;
+import com.mesosphere.sdk.testutils.TaskTestUtils;
+import com.mesosphere.sdk.testutils.TestConstants;
+
+import org.apache.mesos.Protos.TaskInfo;
+import org.apache.mesos.Protos.TaskState;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+public class WatchResourceTest {
+
+    private static final TaskInfo TASK = TaskTestUtils.getTaskInfo(Collections.emptyList());
+
+    @Mock private PlanScheduler mockPlanScheduler;
+    @Mock private StateStore mockStateStore;
+
+    private TestStep step0;
+    private TestStep step1;
+    private DefaultPlan plan;
+    private StateStore stateStoreCache;
+    private WatchResource resource;
+    private ExecutorService executor;
+
+    @Before
+    public void beforeEach() {
+        MockitoAnnotations.initMocks(this);
+        when(mockStateStore.fetchFrameworkId()).thenReturn(Optional.empty());
+        when(mockStateStore.fetchTasks()).thenReturn(Arrays.asList(TASK));
+        when(mockStateStore.fetchStatuses()).thenReturn(Collections.emptyList());
+        StateStoreCache.resetInstanceForTests();
+        stateStoreCache = StateStoreCache.getInstance(mockStateStore);
+
+        step0 = new TestStep("step-0");
+        step1 = new TestStep("step-1");
+        DefaultPhase phase = new DefaultPhase(
+                "phase", Arrays.asList(step0, step1), new SerialStrategy<>(), Collections.emptyList());
+        plan = new DefaultPlan(
+                "deploy", Arrays.asList(phase), new SerialStrategy<>(), Collections.emptyList());
+        resource = new WatchResource(
+                new DefaultPlanCoordinator(Arrays.asList(new DefaultPlanManager(plan)), mockPlanScheduler),
+                stateStoreCache);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void afterEach() {
+        executor.shutdownNow();
+        StateStoreCache.resetInstanceForTests();
+    }
+
+    @Test
+    public void testSnapshot() {
+        JSONObject json = getJson(resource.getChanges(null, null, null));
+        assertTrue(json.getBoolean("reset"));
+        // plan, phase, two steps:
+        JSONArray changes = json.getJSONArray("changes");
+        assertEquals(changes.toString(), 4, changes.length());
+        assertEquals(4, json.getLong("revision"));
+
+        JSONObject change = changes.getJSONObject(0);
+        assertEquals("plan", change.getString("type"));
+        assertEquals("deploy", change.getString("plan"));
+        assertFalse(change.has("revision"));
+
+        change = changes.getJSONObject(2);
+        assertEquals("step", change.getString("type"));
+        assertEquals("deploy", change.getString("plan"));
+        assertEquals("phase", change.getString("phase"));
+        assertEquals("step-0", change.getString("step"));
+        assertEquals(step0.getStatus().toString(), change.getString("status"));
+    }
+
+    @Test
+    public void testOnlyChangesAreReturned() {
+        JSONObject snapshot = getJson(resource.getChanges(null, null, null));
+        String epoch = snapshot.getString("epoch");
+        long revision = snapshot.getLong("revision");
+
+        JSONObject json = getJson(resource.getChanges(epoch, revision, null));
+        assertFalse(json.getBoolean("reset"));
+        assertEquals(revision, json.getLong("revision"));
+        assertEquals(0, json.getJSONArray("changes").length());
+
+        step1.setStatus(Status.COMPLETE);
+        json = getJson(resource.getChanges(epoch, revision, null));
+        assertFalse(json.getBoolean("reset"));
+        // the phase is now partially complete, while the plan is still interrupted:
+        JSONArray changes = json.getJSONArray("changes");
+        assertEquals(changes.toString(), 2, changes.length());
+        JSONObject change = changes.getJSONObject(0);
+        assertEquals(revision + 1, change.getLong("revision"));
+        assertEquals("phase", change.getString("type"));
+        assertEquals("IN_PROGRESS", change.getString("status"));
+        change = changes.getJSONObject(1);
+        assertEquals(revision + 2, change.getLong("revision"));
+        assertEquals("step-1", change.getString("step"));
+        assertEquals("COMPLETE", change.getString("status"));
+    }
+
+    @Test
+    public void testUnknownRevisionIsReset() {
+        JSONObject snapshot = getJson(resource.getChanges(null, null, null));
+        String epoch = snapshot.getString("epoch");
+        long revision = snapshot.getLong("revision");
+        JSONObject json = getJson(resource.getChanges(epoch, revision + 100, null));
+        assertTrue(json.getBoolean("reset"));
+        assertEquals(revision, json.getLong("revision"));
+    }
+
+    @Test
+    public void testRevisionFromBeforeRestartIsReset() {
+        JSONObject snapshot = getJson(resource.getChanges(null, null, null));
+        String epoch = snapshot.getString("epoch");
+        long revision = snapshot.getLong("revision");
+        step1.setStatus(Status.COMPLETE);
+        assertEquals(revision + 2, getJson(resource.getChanges(null, null, null)).getLong("revision"));
+
+        // A restarted scheduler has a new feed, whose revisions start over:
+        StateStoreCache.resetInstanceForTests();
+        WatchResource restartedResource = new WatchResource(
+                new DefaultPlanCoordinator(Arrays.asList(new DefaultPlanManager(plan)), mockPlanScheduler),
+                StateStoreCache.getInstance(mockStateStore));
+        JSONObject json = getJson(restartedResource.getChanges(epoch, revision, null));
+        assertTrue(json.getBoolean("reset"));
+        assertNotEquals(epoch, json.getString("epoch"));
+        assertEquals(revision, json.getLong("revision"));
+
+        // Revisions without an epoch are also reset:
+        assertTrue(getJson(restartedResource.getChanges(null, revision, null)).getBoolean("reset"));
+    }
+
+    @Test
+    public void testWaitForTaskChange() throws Exception {
+        JSONObject snapshot = getJson(resource.getChanges(null, null, null));
+        String epoch = snapshot.getString("epoch");
+        long revision = snapshot.getLong("revision");
+
+        Future<Response> waitingResponse = executor.submit(() -> resource.getChanges(epoch, revision, 30));
+        stateStoreCache.storeStatus(TaskTestUtils.generateStatus(TASK.getTaskId(), TaskState.TASK_RUNNING));
+        JSONArray changes = getJson(waitingResponse.get(10, TimeUnit.SECONDS)).getJSONArray("changes");
+        assertEquals(changes.toString(), 1, changes.length());
+        JSONObject change = changes.getJSONObject(0);
+        assertEquals("task", change.getString("type"));
+        assertEquals(TestConstants.TASK_NAME, change.getString("name"));
+        assertEquals("TASK_RUNNING", change.getString("state"));
+
+        stateStoreCache.clearTask(TestConstants.TASK_NAME);
+        changes = getJson(resource.getChanges(epoch, revision + 1, null)).getJSONArray("changes");
+        assertEquals(changes.toString(), 1, changes.length());
+        assertTrue(changes.getJSONObject(0).getBoolean("removed"));
+    }
+
+    @Test
+    public void testWaitTimesOutWithoutChanges() {
+        JSONObject snapshot = getJson(resource.getChanges(null, null, null));
+        String epoch = snapshot.getString("epoch");
+        long revision = snapshot.getLong("revision");
+        JSONObject json = getJson(resource.getChanges(epoch, revision, 1));
+        assertFalse(json.getBoolean("reset"));
+        assertEquals(0, json.getJSONArray("changes").length());
+    }
+
+    private static JSONObject getJson(Response response) {
+        assertEquals(200, response.getStatus());
+        return new JSONObject((String) response.getEntity());
+    }
+}
@@ -0,0 +1,58 @@
+package com.mesosphere.sdk.api.types;
+
+import com.mesosphere.sdk.state.StateStore;
+import org.awaitility.Awaitility;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link PodsView}, and the waiting behavior of {@link TaskStateView}.
+ */
+public class PodsViewTest {
+
+    @Mock private StateStore mockStateStore;
+
+    @Before
+    public void beforeEach() {
+        MockitoAnnotations.initMocks(this);
+        when(mockStateStore.fetchTasks()).thenReturn(Collections.emptyList());
+        when(mockStateStore.fetchStatuses()).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    public void testWaitingRequestsAreLimited() throws Exception {
+        PodsView view = PodsView.create(mockStateStore);
+        String quotedTag = "\"" + view.getEntityTag().getValue() + "\"";
+        ExecutorService executor = Executors.newFixedThreadPool(TaskStateView.MAX_WAITING_REQUESTS);
+        try {
+            for (int i = 0; i < TaskStateView.MAX_WAITING_REQUESTS; ++i) {
+                executor.submit(() -> {
+                    view.awaitChange(quotedTag, TaskStateView.MAX_WAIT_SECONDS);
+                    return null;
+                });
+            }
+            Awaitility.await().atMost(5, TimeUnit.SECONDS)
+                    .until(TaskStateView::getWaitingRequestCount, equalTo(TaskStateView.MAX_WAITING_REQUESTS));
+
+            // Further requests are answered immediately rather than waiting:
+            long startNanos = System.nanoTime();
+            view.awaitChange(quotedTag, TaskStateView.MAX_WAIT_SECONDS);
+            assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(1));
+        } finally {
+            executor.shutdownNow();
+        }
+        Awaitility.await().atMost(5, TimeUnit.SECONDS)
+                .until(TaskStateView::getWaitingRequestCount, equalTo(0));
+    }
+}
@@ -0,0 +1,99 @@
+package com.mesosphere.sdk.config;
+
+import com.mesosphere.sdk.storage.StorageError.Reason;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link ConfigStoreCache}.
+ */
+public class ConfigStoreCacheTest {
+    private static final UUID ID_1 = UUID.randomUUID();
+    private static final UUID ID_2 = UUID.randomUUID();
+    private static final StringConfiguration CONFIG_1 = new StringConfiguration("one");
+    private static final StringConfiguration CONFIG_2 = new StringConfiguration("two");
+
+    @Mock private ConfigStore<StringConfiguration> mockConfigStore;
+    private ConfigStoreCache<StringConfiguration> cache;
+
+    @Before
+    public void beforeEach() {
+        MockitoAnnotations.initMocks(this);
+        cache = new ConfigStoreCache<>(mockConfigStore, 1);
+    }
+
+    @Test
+    public void testFetchIsCached() throws Exception {
+        when(mockConfigStore.fetch(ID_1)).thenReturn(CONFIG_1);
+        assertEquals(CONFIG_1, cache.fetch(ID_1));
+        assertEquals(CONFIG_1, cache.fetch(ID_1));
+        assertEquals(CONFIG_1, cache.fetch(ID_1));
+        verify(mockConfigStore, times(1)).fetch(ID_1);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        when(mockConfigStore.fetch(ID_1)).thenReturn(CONFIG_1);
+        when(mockConfigStore.fetch(ID_2)).thenReturn(CONFIG_2);
+        assertEquals(CONFIG_1, cache.fetch(ID_1));
+        assertEquals(CONFIG_2, cache.fetch(ID_2));
+        assertEquals(CONFIG_1, cache.fetch(ID_1));
+        verify(mockConfigStore, times(2)).fetch(ID_1);
+        assertTrue(cache.getStats().evictionCount() > 0);
+    }
+
+    @Test
+    public void testClearInvalidates() throws Exception {
+        when(mockConfigStore.fetch(ID_1))
+                .thenReturn(CONFIG_1)
+                .thenThrow(new ConfigStoreException(Reason.NOT_FOUND, "gone"));
+        assertEquals(CONFIG_1, cache.fetch(ID_1));
+        cache.clear(ID_1);
+        verify(mockConfigStore).clear(ID_1);
+        try {
+            cache.fetch(ID_1);
+            fail("Expected exception");
+        } catch (ConfigStoreException e) {
+            assertEquals(Reason.NOT_FOUND, e.getReason());
+        }
+    }
+
+    @Test
+    public void testClearManyInvalidates() throws Exception {
+        when(mockConfigStore.fetch(ID_1)).thenReturn(CONFIG_1);
+        when(mockConfigStore.fetch(ID_2)).thenReturn(CONFIG_2);
+        assertEquals(CONFIG_1, cache.fetch(ID_1));
+        assertEquals(CONFIG_2, cache.fetch(ID_2));
+        cache.clear(Arrays.asList(ID_1, ID_2));
+        verify(mockConfigStore).clear(Arrays.asList(ID_1, ID_2));
+        assertEquals(CONFIG_1, cache.fetch(ID_1));
+        assertEquals(CONFIG_2, cache.fetch(ID_2));
+        verify(mockConfigStore, times(2)).fetch(ID_1);
+        verify(mockConfigStore, times(2)).fetch(ID_2);
+    }
+
+    @Test
+    public void testFailedFetchIsNotCached() throws Exception {
+        when(mockConfigStore.fetch(ID_1))
+                .thenThrow(new ConfigStoreException(Reason.STORAGE_ERROR, "fail"))
+                .thenReturn(CONFIG_1);
+        try {
+            cache.fetch(ID_1);
+            fail("Expected exception");
+        } catch (ConfigStoreException e) {
+            assertEquals(Reason.STORAGE_ERROR, e.getReason());
+        }
+        assertEquals(CONFIG_1, cache.fetch(ID_1));
+        assertEquals(2, cache.getMissCount());
+    }
+}
@@ -1,11 +1,13 @@
 package com.mesosphere.sdk.config;
 
+import com.mesosphere.sdk.offer.CommonTaskUtils;
 import com.mesosphere.sdk.offer.Constants;
 import com.mesosphere.sdk.scheduler.DefaultScheduler;
 import com.mesosphere.sdk.specification.*;
 import com.mesosphere.sdk.state.StateStore;
 import com.mesosphere.sdk.testutils.OfferRequirementTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos;
 import org.junit.*;
 import org.junit.contrib.java.lang.system.EnvironmentVariables;
 import org.mockito.Mock;
@@ -15,6 +17,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.UUID;
 
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -23,6 +26,7 @@ public class ConfigurationUpdaterTest {
     private static final UUID TARGET_ID = UUID.randomUUID();
     private static final UUID NEW_ID = UUID.randomUUID();
     private static final UUID UNKNOWN_ID = UUID.randomUUID();
+    private static final UUID DUPLICATE_ID = UUID.randomUUID();
 
     private static final String SERVICE_NAME = "test-service";
     private static final int TASK_A_COUNT = 1;
@@ -202,4 +206,28 @@ public class ConfigurationUpdaterTest {
         Assert.assertEquals(TARGET_ID, result.targetId);
         Assert.assertEquals(1, result.errors.size());
     }
+
+    @Test
+    public void testDuplicateConfigsAreComparedByHash() throws ConfigStoreException {
+        final ConfigurationUpdater<ServiceSpec> configurationUpdater = new DefaultConfigurationUpdater(
+                mockStateStore, mockConfigStore, DefaultServiceSpec.getComparatorInstance(), DefaultScheduler.defaultConfigValidators());
+        Protos.TaskInfo.Builder taskBuilder = Protos.TaskInfo.newBuilder()
+                .setName(TASK_A_NAME)
+                .setTaskId(CommonTaskUtils.toTaskId(TASK_A_NAME))
+                .setSlaveId(Protos.SlaveID.newBuilder().setValue("agent"));
+        Protos.TaskInfo task = CommonTaskUtils.setTargetConfiguration(taskBuilder, DUPLICATE_ID).build();
+        when(mockStateStore.fetchTasks()).thenReturn(Arrays.asList(task));
+        when(mockConfigStore.getTargetConfig()).thenReturn(TARGET_ID);
+        when(mockConfigStore.fetch(TARGET_ID)).thenReturn(ORIGINAL_SERVICE_SPECIFICATION);
+        when(mockConfigStore.fetchHash(TARGET_ID)).thenReturn("hash");
+        when(mockConfigStore.fetchHash(DUPLICATE_ID)).thenReturn("hash");
+        when(mockConfigStore.list()).thenReturn(Arrays.asList(TARGET_ID, DUPLICATE_ID));
+
+        ConfigurationUpdater.UpdateResult result = configurationUpdater.updateConfiguration(ORIGINAL_SERVICE_SPECIFICATION);
+        Assert.assertEquals(TARGET_ID, result.targetId);
+        verify(mockStateStore).storeTasks(Arrays.asList(
+                CommonTaskUtils.setTargetConfiguration(task.toBuilder(), TARGET_ID).build()));
+        verify(mockConfigStore).clear(Collections.singleton(DUPLICATE_ID));
+        verify(mockConfigStore, never()).fetch(DUPLICATE_ID);
+    }
 }
@@ -3,6 +3,8 @@ package com.mesosphere.sdk.curator;
 import com.mesosphere.sdk.config.ConfigStore;
 import com.mesosphere.sdk.config.ConfigStoreException;
 import com.mesosphere.sdk.config.StringConfiguration;
+import com.mesosphere.sdk.state.SchemaVersionStore;
+import com.mesosphere.sdk.storage.Persister;
 import com.mesosphere.sdk.testutils.CuratorTestUtils;
 import org.apache.curator.retry.ExponentialBackoffRetry;
 import org.apache.curator.test.TestingServer;
@@ -12,16 +14,22 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
 
 /**
  * Tests to validate the operation of the CuratorConfigStore
  */
 public class CuratorConfigStoreTest {
     private static final String ROOT_ZK_PATH = "/test-root-path";
+    private static final String CONTENT_PATH = "/dcos-service-test-root-path/ConfigContent";
+    private static final String CONFIGURATIONS_PATH = "/dcos-service-test-root-path/Configurations";
 
     private static TestingServer testZk;
     private ConfigStore<StringConfiguration> store;
@@ -108,6 +116,129 @@ public class CuratorConfigStoreTest {
         }
     }
 
+    @Test
+    public void testIdenticalConfigsShareContent() throws Exception {
+        CuratorPersister curator = new CuratorPersister(
+                testZk.getConnectString(), new ExponentialBackoffRetry(1000, 3));
+        UUID id1 = store.store(testConfig);
+        UUID id2 = store.store(testConfig);
+        UUID otherId = store.store(new StringConfiguration("other-config"));
+        assertNotEquals(id1, id2);
+        assertEquals(store.fetchHash(id1), store.fetchHash(id2));
+        assertNotEquals(store.fetchHash(id1), store.fetchHash(otherId));
+        assertEquals(2, curator.getChildren(CONTENT_PATH).size());
+
+        // Content is only removed once nothing refers to it:
+        store.clear(id1);
+        assertEquals(testConfig, store.fetch(id2));
+        assertEquals(2, curator.getChildren(CONTENT_PATH).size());
+        store.clear(id2);
+        assertEquals(1, curator.getChildren(CONTENT_PATH).size());
+        assertEquals(new StringConfiguration("other-config"), store.fetch(otherId));
+        curator.close();
+    }
+
+    @Test
+    public void testClearManyRemovesUnreferencedContent() throws Exception {
+        CuratorPersister curator = new CuratorPersister(
+                testZk.getConnectString(), new ExponentialBackoffRetry(1000, 3));
+        UUID id1 = store.store(testConfig);
+        UUID id2 = store.store(testConfig);
+        UUID otherId = store.store(new StringConfiguration("other-config"));
+        UUID remainingId = store.store(new StringConfiguration("other-config"));
+        assertEquals(2, curator.getChildren(CONTENT_PATH).size());
+
+        // Missing IDs are skipped, and content still referenced by a remaining ID is kept:
+        store.clear(Arrays.asList(id1, id2, otherId, UUID.randomUUID()));
+        assertEquals(Arrays.asList(remainingId), new ArrayList<>(store.list()));
+        assertEquals(Arrays.asList(store.fetchHash(remainingId)), new ArrayList<>(curator.getChildren(CONTENT_PATH)));
+        assertEquals(new StringConfiguration("other-config"), store.fetch(remainingId));
+        curator.close();
+    }
+
+    @Test
+    public void testContentIsCompressed() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; ++i) {
+            builder.append("repetitive-config-");
+        }
+        StringConfiguration largeConfig = new StringConfiguration(builder.toString());
+        UUID id = store.store(largeConfig);
+        assertEquals(largeConfig, store.fetch(id));
+
+        CuratorPersister curator = new CuratorPersister(
+                testZk.getConnectString(), new ExponentialBackoffRetry(1000, 3));
+        byte[] content = curator.get(CuratorUtils.join(CONTENT_PATH, store.fetchHash(id)));
+        assertTrue(String.valueOf(content.length), content.length < largeConfig.getBytes().length / 10);
+        curator.close();
+    }
+
+    @Test
+    public void testFetchConfigStoredByEarlierVersion() throws Exception {
+        // Earlier versions stored the serialized config directly against its ID:
+        UUID id = UUID.randomUUID();
+        CuratorPersister curator = new CuratorPersister(
+                testZk.getConnectString(), new ExponentialBackoffRetry(1000, 3));
+        curator.set("/dcos-service-test-root-path/Configurations/" + id, testConfig.getBytes());
+        curator.close();
+
+        assertEquals(testConfig, store.fetch(id));
+        assertEquals(store.fetchHash(store.store(testConfig)), store.fetchHash(id));
+        store.clear(id);
+        assertFalse(store.list().contains(id));
+    }
+
+    @Test
+    public void testClearKeepsContentReferencedDuringClear() throws Exception {
+        ConfigStore<StringConfiguration> otherStore = new CuratorConfigStore<StringConfiguration>(
+                new StringConfiguration.Factory(), ROOT_ZK_PATH, testZk.getConnectString());
+        AtomicReference<UUID> otherId = new AtomicReference<>();
+        Persister persister = spy(new CuratorPersister(
+                testZk.getConnectString(), new ExponentialBackoffRetry(1000, 3)));
+        // Store a reference to the content just after the clearing store has read the remaining references:
+        doAnswer(invocation -> {
+            Object children = invocation.callRealMethod();
+            if (otherId.get() == null) {
+                otherId.set(otherStore.store(testConfig));
+            }
+            return children;
+        }).when(persister).getChildren(CONFIGURATIONS_PATH);
+        CuratorConfigStore<StringConfiguration> clearingStore =
+                new CuratorConfigStore<>(new StringConfiguration.Factory(), ROOT_ZK_PATH, persister);
+
+        UUID id = clearingStore.store(testConfig);
+        clearingStore.clear(id);
+        assertNotNull(otherId.get());
+        assertEquals(testConfig, otherStore.fetch(otherId.get()));
+        clearingStore.close();
+        ((CuratorConfigStore<StringConfiguration>) otherStore).close();
+    }
+
+    @Test
+    public void testSchemaVersion1IsUpgraded() throws Exception {
+        CuratorTestUtils.clear(testZk);
+        CuratorPersister curator = new CuratorPersister(
+                testZk.getConnectString(), new ExponentialBackoffRetry(1000, 3));
+        SchemaVersionStore schemaVersionStore = new CuratorSchemaVersionStore(curator, ROOT_ZK_PATH);
+        schemaVersionStore.store(1);
+
+        new CuratorConfigStore<StringConfiguration>(
+                new StringConfiguration.Factory(), ROOT_ZK_PATH, testZk.getConnectString()).close();
+        assertEquals(2, schemaVersionStore.fetch());
+        curator.close();
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testUnsupportedSchemaVersion() throws Exception {
+        CuratorPersister curator = new CuratorPersister(
+                testZk.getConnectString(), new ExponentialBackoffRetry(1000, 3));
+        new CuratorSchemaVersionStore(curator, ROOT_ZK_PATH).store(3);
+        curator.close();
+
+        new CuratorConfigStore<StringConfiguration>(
+                new StringConfiguration.Factory(), ROOT_ZK_PATH, testZk.getConnectString());
+    }
+
     @Test
     public void testStoreSetTargetConfigGetTargetConfig() throws Exception {
         UUID testId = store.store(testConfig);
@@ -12,6 +12,8 @@ import org.apache.curator.framework.api.transaction.TransactionCheckBuilder;
 import org.apache.curator.framework.api.transaction.TransactionCreateBuilder;
 import org.apache.curator.framework.api.transaction.TransactionDeleteBuilder;
 import org.apache.curator.framework.api.transaction.TransactionSetDataBuilder;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.test.TestingServer;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.data.ACL;
 import org.apache.zookeeper.data.Stat;
@@ -23,6 +25,9 @@ import java.nio.charset.Charset;
 import java.util.*;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -251,6 +256,65 @@ public class CuratorPersisterTest {
         persister.setMany(MANY_MAP);
     }
 
+    @Test
+    public void testSetManySkipsChecksOfKnownPaths() throws Exception {
+        when(mockClient.checkExists()).thenReturn(mockExistsBuilder);
+        for (String path : PATHS) {
+            when(mockExistsBuilder.forPath(path)).thenReturn(null);
+        }
+        when(mockClient.inTransaction())
+                .thenReturn(new TestTransaction(TestTransaction.Result.SUCCESS))
+                .thenReturn(new TestTransaction(TestTransaction.Result.SUCCESS));
+        persister.setMany(MANY_MAP);
+        verify(mockExistsBuilder, times(PATHS.size())).forPath(anyString());
+
+        // All paths (and their parents) were created above, so they're updated without checking again:
+        TestTransaction transaction = new TestTransaction(TestTransaction.Result.SUCCESS);
+        when(mockClient.inTransaction()).thenReturn(transaction);
+        persister.setMany(MANY_MAP);
+        verify(mockExistsBuilder, times(PATHS.size())).forPath(anyString());
+        assertEquals(transaction.operations.toString(), 4, transaction.operations.size());
+        for (TestOperation op : transaction.operations) {
+            assertEquals(TestOperation.Mode.SET_DATA, op.mode);
+        }
+    }
+
+    @Test
+    public void testSetManyRecoversFromOutOfBandDeletes() throws Exception {
+        TestingServer testZk = new TestingServer();
+        CuratorPersister zkPersister = new CuratorPersister(
+                testZk.getConnectString(), new ExponentialBackoffRetry(1000, 3));
+        CuratorPersister otherPersister = new CuratorPersister(
+                testZk.getConnectString(), new ExponentialBackoffRetry(1000, 3));
+        try {
+            zkPersister.setMany(MANY_MAP);
+
+            // Delete nodes which zkPersister believes to exist:
+            otherPersister.delete(PATH_SUB_PARENT);
+            otherPersister.delete(PATH_1);
+
+            Map<String, byte[]> updates = new TreeMap<>();
+            updates.put(PATH_1, DATA_2);
+            updates.put(PATH_2, DATA_1);
+            updates.put(PATH_SUB_1, DATA_SUB_2);
+            zkPersister.setMany(updates);
+
+            assertArrayEquals(DATA_2, otherPersister.get(PATH_1));
+            assertArrayEquals(DATA_1, otherPersister.get(PATH_2));
+            assertArrayEquals(DATA_SUB_2, otherPersister.get(PATH_SUB_1));
+            assertEquals(Arrays.asList("1"), otherPersister.getChildren(PATH_SUB_PARENT));
+
+            // Single writes recover as well:
+            otherPersister.delete(PATH_2);
+            zkPersister.set(PATH_2, DATA_2);
+            assertArrayEquals(DATA_2, otherPersister.get(PATH_2));
+        } finally {
+            zkPersister.close();
+            otherPersister.close();
+            testZk.close();
+        }
+    }
+
     /**
      * Implements a sort of 'journal' of an operation chain to be performed within a Curator transaction.
      */
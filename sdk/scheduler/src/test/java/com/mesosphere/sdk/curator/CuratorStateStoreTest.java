@@ -8,10 +8,14 @@ import org.apache.mesos.Protos.SlaveID;
 import com.mesosphere.sdk.offer.CommonTaskUtils;
 import com.mesosphere.sdk.state.StateStore;
 import com.mesosphere.sdk.state.StateStoreException;
+import com.mesosphere.sdk.storage.LocalPersister;
+import com.mesosphere.sdk.storage.WriteBehindPersister;
 import com.mesosphere.sdk.testutils.CuratorTestUtils;
 import org.junit.*;
+import org.junit.rules.TemporaryFolder;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
 
 import static org.junit.Assert.*;
@@ -35,6 +39,7 @@ public class CuratorStateStoreTest {
     public static final String SLASH_PROPERTY_KEY = "hey/hi";
 
     private static TestingServer testZk;
+    @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
     private StateStore store;
 
     @BeforeClass
@@ -271,6 +276,67 @@ public class CuratorStateStoreTest {
         assertEquals(status, statuses.iterator().next());
     }
 
+    @Test
+    public void testWriteBehindStoreStatus() throws Exception {
+        CuratorPersister curator = new CuratorPersister(
+                testZk.getConnectString(), new ExponentialBackoffRetry(1000, 3));
+        StateStore writeBehindStore =
+                new CuratorStateStore(ROOT_ZK_PATH, new WriteBehindPersister(curator, 60000));
+        Protos.TaskInfo task = createTask(TASK_NAME);
+        writeBehindStore.storeTasks(Arrays.asList(task));
+        Protos.TaskStatus status = TASK_STATUS.toBuilder().setTaskId(task.getTaskId()).build();
+        writeBehindStore.storeStatus(status);
+
+        // buffered writes are visible to the writer, but not yet to other readers:
+        assertEquals(status, writeBehindStore.fetchStatus(TASK_NAME).get());
+        assertFalse(store.fetchTask(TASK_NAME).isPresent());
+
+        writeBehindStore.flush();
+        assertEquals(task, store.fetchTask(TASK_NAME).get());
+        assertEquals(status, store.fetchStatus(TASK_NAME).get());
+        ((CuratorStateStore) writeBehindStore).closeForTesting();
+    }
+
+    @Test
+    public void testLocalPersisterStore() throws Exception {
+        Path logPath = tempFolder.newFile().toPath();
+        CuratorStateStore localStore = new CuratorStateStore(ROOT_ZK_PATH, new LocalPersister(logPath));
+        Protos.TaskInfo task = createTask(TASK_NAME);
+        localStore.storeTasks(Arrays.asList(task));
+        Protos.TaskStatus status = TASK_STATUS.toBuilder().setTaskId(task.getTaskId()).build();
+        localStore.storeStatus(status);
+        localStore.storeProperty(GOOD_PROPERTY_KEY, PROPERTY_VALUE.getBytes(StandardCharsets.UTF_8));
+        localStore.closeForTesting();
+
+        localStore = new CuratorStateStore(ROOT_ZK_PATH, new LocalPersister(logPath));
+        assertEquals(Arrays.asList(task), localStore.fetchTasks());
+        assertEquals(status, localStore.fetchStatus(TASK_NAME).get());
+        assertEquals(PROPERTY_VALUE,
+                new String(localStore.fetchProperty(GOOD_PROPERTY_KEY), StandardCharsets.UTF_8));
+        localStore.clearTask(TASK_NAME);
+        assertTrue(localStore.fetchTaskNames().isEmpty());
+        localStore.closeForTesting();
+    }
+
+    @Test
+    public void testFetchManyTasksAndStatuses() throws Exception {
+        // more tasks than CuratorPersister reads at once:
+        List<Protos.TaskInfo> tasks = new ArrayList<>();
+        for (int i = 0; i < 150; ++i) {
+            tasks.add(createTask(TASK_NAME + i));
+        }
+        store.storeTasks(tasks);
+        Set<Protos.TaskStatus> statuses = new HashSet<>();
+        for (int i = 0; i < tasks.size(); i += 2) {
+            Protos.TaskStatus status = createTaskStatus(tasks.get(i).getTaskId());
+            store.storeStatus(status);
+            statuses.add(status);
+        }
+
+        assertEquals(new HashSet<>(tasks), new HashSet<>(store.fetchTasks()));
+        assertEquals(statuses, new HashSet<>(store.fetchStatuses()));
+    }
+
     @Test
     public void testFetchMissingStatus() throws Exception {
         assertTrue(!store.fetchStatus(TASK_NAME).isPresent());
@@ -471,6 +537,18 @@ public class CuratorStateStoreTest {
         store.clearProperty(GOOD_PROPERTY_KEY);
     }
 
+    @Test
+    public void testFetchProperties() throws Exception {
+        assertTrue(store.fetchProperties().isEmpty());
+        store.storeProperty(GOOD_PROPERTY_KEY, PROPERTY_VALUE.getBytes(StandardCharsets.UTF_8));
+        store.storeProperty("other", new byte[0]);
+
+        Map<String, byte[]> properties = store.fetchProperties();
+        assertEquals(2, properties.size());
+        assertEquals(PROPERTY_VALUE, new String(properties.get(GOOD_PROPERTY_KEY), StandardCharsets.UTF_8));
+        assertEquals(0, properties.get("other").length);
+    }
+
     @Test(expected = StateStoreException.class)
     public void testPropertiesStoreWhitespace() {
         store.storeProperty(
@@ -0,0 +1,92 @@
+package com.mesosphere.sdk.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StatsDReporterTest {
+
+    private DatagramSocket agent;
+    private MetricRegistry registry;
+    private StatsDReporter reporter;
+
+    @Before
+    public void beforeEach() throws Exception {
+        agent = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        agent.setSoTimeout(5000);
+        registry = new MetricRegistry();
+        reporter = new StatsDReporter(
+                registry, InetAddress.getLoopbackAddress().getHostAddress(), agent.getLocalPort());
+    }
+
+    @After
+    public void afterEach() {
+        reporter.stop();
+        agent.close();
+    }
+
+    @Test
+    public void testReport() throws Exception {
+        registry.register("queue", (Gauge<Integer>) () -> 3);
+        registry.register("skew", (Gauge<Integer>) () -> -2);
+        registry.counter("offers.accepted").inc(5);
+        registry.timer("offers.cycle").update(20, TimeUnit.MILLISECONDS);
+        reporter.report();
+
+        List<String> lines = receiveLines();
+        assertTrue(lines.toString(), lines.contains("queue:3.000|g"));
+        // negative values are preceded by a reset, as signed values are deltas:
+        int skewIndex = lines.indexOf("skew:-2.000|g");
+        assertTrue(lines.toString(), skewIndex > 0);
+        assertEquals("skew:0|g", lines.get(skewIndex - 1));
+        assertTrue(lines.toString(), lines.contains("offers.accepted:5|g"));
+        assertTrue(lines.toString(), lines.contains("offers.cycle.count:1|g"));
+        assertTrue(lines.toString(), lines.contains("offers.cycle.p99:20.000|g"));
+    }
+
+    @Test
+    public void testLargeReportIsSplit() throws Exception {
+        for (int i = 0; i < 200; ++i) {
+            registry.counter(String.format("counter-with-a-long-name-%03d", i)).inc(i);
+        }
+        reporter.report();
+
+        List<String> lines = new ArrayList<>();
+        while (lines.size() < 200) {
+            DatagramPacket packet = receive();
+            assertTrue(packet.getLength() <= StatsDReporter.MAX_DATAGRAM_BYTES);
+            lines.addAll(toLines(packet));
+        }
+        assertEquals(200, lines.size());
+        assertEquals("counter-with-a-long-name-000:0|g", lines.get(0));
+        assertEquals("counter-with-a-long-name-199:199|g", lines.get(199));
+    }
+
+    private List<String> receiveLines() throws Exception {
+        return toLines(receive());
+    }
+
+    private DatagramPacket receive() throws Exception {
+        DatagramPacket packet = new DatagramPacket(new byte[65536], 65536);
+        agent.receive(packet);
+        return packet;
+    }
+
+    private static List<String> toLines(DatagramPacket packet) {
+        return Arrays.asList(
+                new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8).split("\n"));
+    }
+}
@@ -127,4 +127,55 @@ public class MesosResourcePoolTest {
         pool.release(new MesosResource(resource));
         Assert.assertEquals(2, pool.getUnreservedMergedPool().get("cpus").getScalar().getValue(), 0.0);
     }
+
+    @Test
+    public void testMergeUnreservedRanges() {
+        Offer offer = OfferTestUtils.getOffer(Arrays.asList(
+                getUnreservedPorts(getRange(6, 10), getRange(20, 30)),
+                getUnreservedPorts(getRange(1, 5))));
+        MesosResourcePool pool = new MesosResourcePool(offer);
+
+        Assert.assertEquals(
+                Arrays.asList(getRange(1, 10), getRange(20, 30)),
+                pool.getUnreservedMergedValue("ports").get().getRanges().getRangeList());
+        Assert.assertFalse(pool.getUnreservedMergedValue("cpus").isPresent());
+    }
+
+    @Test
+    public void testConsumeAndReleaseUnreservedRanges() {
+        Offer offer = OfferTestUtils.getOffer(getUnreservedPorts(getRange(1, 10), getRange(20, 30)));
+        MesosResourcePool pool = new MesosResourcePool(offer);
+
+        Resource desired = getUnreservedPorts(getRange(5, 5), getRange(20, 21));
+        MesosResource consumed = pool.consume(new ResourceRequirement(desired)).get();
+        Assert.assertEquals(desired, consumed.getResource());
+        Assert.assertEquals(
+                Arrays.asList(getRange(1, 4), getRange(6, 10), getRange(22, 30)),
+                pool.getUnreservedMergedPool().get("ports").getRanges().getRangeList());
+
+        pool.release(consumed);
+        Assert.assertEquals(
+                Arrays.asList(getRange(1, 10), getRange(20, 30)),
+                pool.getUnreservedMergedPool().get("ports").getRanges().getRangeList());
+    }
+
+    @Test
+    public void testConsumeInsufficientUnreservedRanges() {
+        Offer offer = OfferTestUtils.getOffer(getUnreservedPorts(getRange(1, 10), getRange(20, 30)));
+        MesosResourcePool pool = new MesosResourcePool(offer);
+
+        Assert.assertFalse(pool.consume(new ResourceRequirement(getUnreservedPorts(getRange(9, 20)))).isPresent());
+        Assert.assertFalse(pool.consume(new ResourceRequirement(getUnreservedPorts(getRange(31, 31)))).isPresent());
+        Assert.assertEquals(
+                Arrays.asList(getRange(1, 10), getRange(20, 30)),
+                pool.getUnreservedMergedPool().get("ports").getRanges().getRangeList());
+    }
+
+    private static Resource getUnreservedPorts(Protos.Value.Range... ranges) {
+        return ResourceUtils.getUnreservedRanges("ports", Arrays.asList(ranges));
+    }
+
+    private static Protos.Value.Range getRange(long begin, long end) {
+        return Protos.Value.Range.newBuilder().setBegin(begin).setEnd(end).build();
+    }
 }
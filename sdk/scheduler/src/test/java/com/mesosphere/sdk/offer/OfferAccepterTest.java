@@ -12,6 +12,7 @@ import com.mesosphere.sdk.testutils.TaskTestUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -25,6 +26,8 @@ public class OfferAccepterTest {
 
     @Mock
     private SchedulerDriver driver;
+    @Mock
+    private OperationRecorder mockRecorder;
 
     @Before
     public void initMocks() {
@@ -79,6 +82,41 @@ public class OfferAccepterTest {
                 anyObject());
     }
 
+    @Test
+    public void testFlushBeforeAccept() throws Exception {
+        Resource resource = ResourceTestUtils.getUnreservedCpu(1.0);
+        Offer offer = OfferTestUtils.getOffer(resource);
+        TaskInfo taskInfo = TaskTestUtils.getTaskInfo(resource);
+        LaunchOfferRecommendation recommendation = new LaunchOfferRecommendation(offer, taskInfo);
+
+        OfferAccepter accepter = new OfferAccepter(mockRecorder);
+        Assert.assertEquals(1, accepter.accept(driver, Arrays.asList(recommendation)).size());
+
+        InOrder inOrder = inOrder(mockRecorder, driver);
+        inOrder.verify(mockRecorder).record(recommendation);
+        inOrder.verify(mockRecorder).flush();
+        inOrder.verify(driver).acceptOffers(
+                anyCollectionOf(OfferID.class),
+                anyCollectionOf(Operation.class),
+                anyObject());
+    }
+
+    @Test
+    public void testFailedFlushSkipsAccept() throws Exception {
+        Resource resource = ResourceTestUtils.getUnreservedCpu(1.0);
+        Offer offer = OfferTestUtils.getOffer(resource);
+        TaskInfo taskInfo = TaskTestUtils.getTaskInfo(resource);
+        doThrow(new Exception("flush failed")).when(mockRecorder).flush();
+
+        OfferAccepter accepter = new OfferAccepter(mockRecorder);
+        Assert.assertTrue(accepter.accept(driver, Arrays.asList(new LaunchOfferRecommendation(offer, taskInfo)))
+                .isEmpty());
+        verify(driver, times(0)).acceptOffers(
+                anyCollectionOf(OfferID.class),
+                anyCollectionOf(Operation.class),
+                anyObject());
+    }
+
     public static class TestOperationRecorder implements OperationRecorder {
         private List<Operation> reserves = new ArrayList<>();
         private List<Operation> unreserves = new ArrayList<>();
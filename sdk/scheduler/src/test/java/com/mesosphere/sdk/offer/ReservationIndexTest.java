@@ -0,0 +1,76 @@
+package com.mesosphere.sdk.offer;
+
+import com.mesosphere.sdk.testutils.TaskTestUtils;
+import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos.Resource;
+import org.apache.mesos.Protos.TaskInfo;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ReservationIndexTest {
+
+    private static final Resource VOLUME = ResourceUtils.getExpectedRootVolume(
+            100.0, "volume-resource-id", TestConstants.CONTAINER_PATH,
+            TestConstants.ROLE, TestConstants.PRINCIPAL, "persistence-id");
+    private static final Resource EXECUTOR_CPUS = ResourceUtils.getExpectedScalar(
+            "cpus", 0.1, "executor-resource-id", TestConstants.ROLE, TestConstants.PRINCIPAL);
+
+    @Test
+    public void testStoreAndClear() {
+        ReservationIndex index = new ReservationIndex();
+        assertFalse(index.isExpectedResourceId("volume-resource-id"));
+
+        TaskInfo task = getTask("task-0", VOLUME);
+        index.tasksStored(Arrays.asList(task));
+        assertTrue(index.isExpectedResourceId("volume-resource-id"));
+        assertTrue(index.isExpectedPersistenceId("persistence-id"));
+        assertTrue(index.isExpectedResourceId("executor-resource-id"));
+
+        index.taskCleared("task-0");
+        assertFalse(index.isExpectedResourceId("volume-resource-id"));
+        assertFalse(index.isExpectedPersistenceId("persistence-id"));
+        assertFalse(index.isExpectedResourceId("executor-resource-id"));
+    }
+
+    @Test
+    public void testReplacedTaskDropsOldIds() {
+        ReservationIndex index = new ReservationIndex(Arrays.asList(getTask("task-0", VOLUME)));
+
+        index.tasksStored(Arrays.asList(getTask("task-0", ResourceUtils.getExpectedScalar(
+                "mem", 256, "mem-resource-id", TestConstants.ROLE, TestConstants.PRINCIPAL))));
+        assertTrue(index.isExpectedResourceId("mem-resource-id"));
+        assertFalse(index.isExpectedResourceId("volume-resource-id"));
+        assertFalse(index.isExpectedPersistenceId("persistence-id"));
+    }
+
+    @Test
+    public void testSharedExecutorIdsAreCounted() {
+        // Both tasks in the pod share the executor's reservation:
+        ReservationIndex index = new ReservationIndex(
+                Arrays.asList(getTask("task-0", VOLUME), getTask("task-1", VOLUME)));
+
+        index.taskCleared("task-0");
+        assertTrue(index.isExpectedResourceId("executor-resource-id"));
+        assertTrue(index.isExpectedPersistenceId("persistence-id"));
+
+        index.taskCleared("task-1");
+        assertFalse(index.isExpectedResourceId("executor-resource-id"));
+        assertFalse(index.isExpectedPersistenceId("persistence-id"));
+
+        index.tasksRefreshed(Arrays.asList(getTask("task-2", VOLUME)));
+        assertTrue(index.isExpectedResourceId("executor-resource-id"));
+        index.tasksRefreshed(Collections.emptyList());
+        assertFalse(index.isExpectedResourceId("executor-resource-id"));
+    }
+
+    private static TaskInfo getTask(String name, Resource resource) {
+        return TaskTestUtils.getTaskInfo(resource).toBuilder()
+                .setName(name)
+                .setExecutor(TaskTestUtils.getExecutorInfo(EXECUTOR_CPUS))
+                .build();
+    }
+}
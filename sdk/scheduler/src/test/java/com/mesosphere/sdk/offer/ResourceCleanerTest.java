@@ -92,6 +92,19 @@ public class ResourceCleanerTest {
                 .thenReturn(Arrays.asList(TASK_INFO_1, TASK_INFO_2));
         populatedCleaners.add(new ResourceCleaner(mockStateStore));
 
+        // cleaners with indexes which are updated as tasks are stored and cleared
+        TaskInfo otherTaskInfo2 = TASK_INFO_2.toBuilder().setName("other-" + TASK_INFO_2.getName()).build();
+        emptyCleaners.add(new ResourceCleaner(new ReservationIndex()));
+        ReservationIndex clearedIndex = new ReservationIndex();
+        clearedIndex.tasksStored(Arrays.asList(TASK_INFO_1, otherTaskInfo2));
+        clearedIndex.taskCleared(TASK_INFO_1.getName());
+        clearedIndex.taskCleared(otherTaskInfo2.getName());
+        emptyCleaners.add(new ResourceCleaner(clearedIndex));
+        ReservationIndex storedIndex = new ReservationIndex();
+        storedIndex.tasksStored(Arrays.asList(TASK_INFO_1));
+        storedIndex.tasksStored(Arrays.asList(otherTaskInfo2));
+        populatedCleaners.add(new ResourceCleaner(storedIndex));
+
         allCleaners.addAll(emptyCleaners);
         allCleaners.addAll(populatedCleaners);
     }
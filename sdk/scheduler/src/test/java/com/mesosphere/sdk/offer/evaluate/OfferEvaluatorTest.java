@@ -1,5 +1,6 @@
 package com.mesosphere.sdk.offer.evaluate;
 
+import com.mesosphere.sdk.metrics.Metrics;
 import com.mesosphere.sdk.offer.*;
 import com.mesosphere.sdk.offer.evaluate.placement.PlacementUtils;
 import com.mesosphere.sdk.scheduler.plan.DefaultPodInstance;
@@ -166,6 +167,43 @@ public class OfferEvaluatorTest extends OfferEvaluatorTestBase {
         Assert.assertEquals(resourceId, getFirstLabel(launchResource).getValue());
     }
 
+    @Test
+    public void testExpectedResourcesRoutedToReservingAgent() throws Exception {
+        String resourceId = UUID.randomUUID().toString();
+        Resource desiredResource = ResourceTestUtils.getExpectedRanges("ports", 10000, 10000, resourceId);
+        Offer otherAgentOffer = OfferTestUtils.getEmptyOfferBuilder()
+                .setId(OfferID.newBuilder().setValue("other-offer"))
+                .setSlaveId(SlaveID.newBuilder().setValue("other-agent"))
+                .addResources(ResourceTestUtils.getUnreservedPorts(10000, 10000))
+                .build();
+        Offer reservingAgentOffer = OfferTestUtils.getOffer(desiredResource);
+
+        Metrics.resetForTests();
+        List<OfferRecommendation> recommendations = evaluator.evaluate(
+                OfferRequirementTestUtils.getOfferRequirement(desiredResource),
+                Arrays.asList(otherAgentOffer, reservingAgentOffer));
+
+        Assert.assertEquals(1, recommendations.size());
+        Assert.assertEquals(reservingAgentOffer.getId(), recommendations.get(0).getOffer().getId());
+        // The offer from the other agent was never evaluated:
+        Assert.assertEquals(0, Metrics.counter(Metrics.OFFER_EVALUATION_FAILED).getCount());
+        Assert.assertEquals(1, Metrics.counter(Metrics.OFFER_EVALUATION_PASSED).getCount());
+    }
+
+    @Test
+    public void testExpectedResourcesNotOffered() throws Exception {
+        Resource desiredResource =
+                ResourceTestUtils.getExpectedRanges("ports", 10000, 10000, UUID.randomUUID().toString());
+
+        Metrics.resetForTests();
+        List<OfferRecommendation> recommendations = evaluator.evaluate(
+                OfferRequirementTestUtils.getOfferRequirement(desiredResource),
+                OfferTestUtils.getOffers(ResourceTestUtils.getUnreservedPorts(10000, 10000)));
+
+        Assert.assertTrue(recommendations.isEmpty());
+        Assert.assertEquals(0, Metrics.counter(Metrics.OFFER_EVALUATION_FAILED).getCount());
+    }
+
     @Test
     public void testLaunchExpectedDynamicPort() throws Exception {
         String resourceId = UUID.randomUUID().toString();
@@ -881,6 +919,38 @@ public class OfferEvaluatorTest extends OfferEvaluatorTestBase {
         Assert.assertEquals(Operation.Type.LAUNCH, launchOperation.getType());
     }
 
+    @Test
+    public void testParallelEvaluationSelectsFirstPassingOffer() throws Exception {
+        OfferEvaluator parallelEvaluator = new OfferEvaluator(stateStore, offerRequirementProvider, 4);
+        Resource desiredResource = ResourceTestUtils.getDesiredCpu(1.0);
+        Offer insufficientOffer = OfferTestUtils.getEmptyOfferBuilder()
+                .setId(OfferID.newBuilder().setValue("insufficient"))
+                .addResources(ResourceUtils.getUnreservedScalar("mem", 2.0))
+                .build();
+        Offer firstSufficientOffer = OfferTestUtils.getEmptyOfferBuilder()
+                .setId(OfferID.newBuilder().setValue("first-sufficient"))
+                .addResources(ResourceUtils.getUnreservedScalar("cpus", 2.0))
+                .build();
+        Offer secondSufficientOffer = OfferTestUtils.getEmptyOfferBuilder()
+                .setId(OfferID.newBuilder().setValue("second-sufficient"))
+                .addResources(ResourceUtils.getUnreservedScalar("cpus", 3.0))
+                .build();
+
+        List<OfferRecommendation> recommendations = parallelEvaluator.evaluate(
+                OfferRequirementTestUtils.getOfferRequirement(desiredResource),
+                Arrays.asList(insufficientOffer, firstSufficientOffer, secondSufficientOffer));
+        Assert.assertEquals(2, recommendations.size());
+        for (OfferRecommendation recommendation : recommendations) {
+            Assert.assertEquals("first-sufficient", recommendation.getOffer().getId().getValue());
+        }
+        Assert.assertEquals(Operation.Type.RESERVE, recommendations.get(0).getOperation().getType());
+        Assert.assertEquals(Operation.Type.LAUNCH, recommendations.get(1).getOperation().getType());
+
+        Assert.assertTrue(parallelEvaluator.evaluate(
+                OfferRequirementTestUtils.getOfferRequirement(desiredResource),
+                Arrays.asList(insufficientOffer, insufficientOffer)).isEmpty());
+    }
+
     @Test
     public void testLaunchSequencedTasksInPod() throws Exception {
         ClassLoader classLoader = getClass().getClassLoader();
@@ -946,6 +1016,102 @@ public class OfferEvaluatorTest extends OfferEvaluatorTestBase {
         Assert.assertEquals(Operation.Type.LAUNCH, operation.getType());
     }
 
+    @Test
+    public void testFailFastStopsAtFirstFailure() throws Exception {
+        Resource desiredPorts = ResourceTestUtils.getDesiredRanges("ports", 555, 555);
+        Offer insufficientOffer = OfferTestUtils.getOffer(ResourceTestUtils.getUnreservedPorts(666, 666));
+        OfferRequirement offerRequirement = OfferRequirementTestUtils.getOfferRequirement(desiredPorts);
+
+        OfferEvaluator failFastEvaluator = new OfferEvaluator(stateStore, offerRequirementProvider, 1, true);
+        List<OfferEvaluationStage> stages = failFastEvaluator.getEvaluationPipeline(offerRequirement);
+        Assert.assertTrue(stages.get(0) instanceof ScalarTotalsEvaluationStage);
+        Assert.assertTrue(stages.get(1) instanceof ExecutorEvaluationStage);
+        Assert.assertTrue(stages.get(2) instanceof PlacementRuleEvaluationStage);
+        Assert.assertEquals(evaluator.getEvaluationPipeline(offerRequirement).size() + 1, stages.size());
+
+        Assert.assertTrue(failFastEvaluator.evaluate(offerRequirement, Arrays.asList(insufficientOffer)).isEmpty());
+
+        // The same offer selection is made as without fail-fast:
+        Offer sufficientOffer = OfferTestUtils.getOffer(ResourceTestUtils.getUnreservedPorts(555, 555));
+        List<OfferRecommendation> recommendations = failFastEvaluator.evaluate(
+                offerRequirement, Arrays.asList(insufficientOffer, sufficientOffer));
+        Assert.assertEquals(2, recommendations.size());
+        Assert.assertEquals(Operation.Type.RESERVE, recommendations.get(0).getOperation().getType());
+        Assert.assertEquals(Operation.Type.LAUNCH, recommendations.get(1).getOperation().getType());
+    }
+
+    @Test
+    public void testStepDiagnosticsRecorded() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+        File file = new File(classLoader.getResource("resource-set-seq.yml").getFile());
+        DefaultServiceSpec serviceSpec =
+                YAMLServiceSpecFactory.generateServiceSpec(YAMLServiceSpecFactory.generateRawSpecFromYAML(file));
+        PodInstance podInstance = new DefaultPodInstance(serviceSpec.getPods().get(0), 0);
+        PodInstanceRequirement podInstanceRequirement =
+                PodInstanceRequirement.create(podInstance, Arrays.asList("format"));
+        String stepName = TaskUtils.getStepName(podInstance, Arrays.asList("format"));
+
+        Offer insufficientOffer = OfferTestUtils.getOffer(ResourceUtils.getUnreservedScalar("cpus", 3.0));
+        List<OfferRecommendation> recommendations =
+                evaluator.evaluate(podInstanceRequirement, Arrays.asList(insufficientOffer, insufficientOffer));
+        Assert.assertTrue(recommendations.isEmpty());
+
+        EvaluationDiagnostics.StepDiagnostic diagnostic = evaluator.getDiagnostics().get(stepName).get();
+        Assert.assertEquals(2, diagnostic.getOfferCount());
+        Assert.assertEquals(2, diagnostic.getFailedOfferCount());
+        Assert.assertFalse(diagnostic.isPassed());
+        EvaluationDiagnostics.OfferOutcomes sample = diagnostic.getSampledFailures().get(0);
+        Assert.assertEquals(insufficientOffer, sample.getOffer());
+        Assert.assertTrue(sample.getOutcomes().stream().anyMatch(outcome -> !outcome.isPassing()));
+
+        Offer sufficientOffer = OfferTestUtils.getOffer(Arrays.asList(
+                ResourceUtils.getUnreservedScalar("cpus", 3.0),
+                ResourceUtils.getUnreservedScalar("disk", 500.0)));
+        recommendations = evaluator.evaluate(podInstanceRequirement, Arrays.asList(sufficientOffer));
+        Assert.assertFalse(recommendations.isEmpty());
+
+        diagnostic = evaluator.getDiagnostics().get(stepName).get();
+        Assert.assertTrue(diagnostic.isPassed());
+        Assert.assertEquals(0, diagnostic.getFailedOfferCount());
+    }
+
+    @Test
+    public void testParallelStepDiagnosticsFollowOfferOrder() throws Exception {
+        OfferEvaluator parallelEvaluator = new OfferEvaluator(stateStore, offerRequirementProvider, 4);
+        ClassLoader classLoader = getClass().getClassLoader();
+        File file = new File(classLoader.getResource("resource-set-seq.yml").getFile());
+        DefaultServiceSpec serviceSpec =
+                YAMLServiceSpecFactory.generateServiceSpec(YAMLServiceSpecFactory.generateRawSpecFromYAML(file));
+        PodInstance podInstance = new DefaultPodInstance(serviceSpec.getPods().get(0), 0);
+        PodInstanceRequirement podInstanceRequirement =
+                PodInstanceRequirement.create(podInstance, Arrays.asList("format"));
+        String stepName = TaskUtils.getStepName(podInstance, Arrays.asList("format"));
+
+        Offer insufficientOffer = OfferTestUtils.getOffer(ResourceUtils.getUnreservedScalar("cpus", 3.0));
+        Offer sufficientOffer = OfferTestUtils.getOffer(Arrays.asList(
+                ResourceUtils.getUnreservedScalar("cpus", 3.0),
+                ResourceUtils.getUnreservedScalar("disk", 500.0)));
+        List<Offer> offers = Arrays.asList(
+                withOfferId(insufficientOffer, "before-0"),
+                withOfferId(insufficientOffer, "before-1"),
+                withOfferId(sufficientOffer, "selected"),
+                withOfferId(insufficientOffer, "after-0"),
+                withOfferId(insufficientOffer, "after-1"));
+        Assert.assertFalse(parallelEvaluator.evaluate(podInstanceRequirement, offers).isEmpty());
+
+        // Only the offers before the selected one are sampled, in offer order, as with serial evaluation:
+        EvaluationDiagnostics.StepDiagnostic diagnostic = parallelEvaluator.getDiagnostics().get(stepName).get();
+        Assert.assertTrue(diagnostic.isPassed());
+        Assert.assertEquals(2, diagnostic.getFailedOfferCount());
+        Assert.assertEquals(Arrays.asList("before-0", "before-1"), diagnostic.getSampledFailures().stream()
+                .map(sample -> sample.getOffer().getId().getValue())
+                .collect(Collectors.toList()));
+    }
+
+    private static Offer withOfferId(Offer offer, String offerId) {
+        return offer.toBuilder().setId(OfferID.newBuilder().setValue(offerId)).build();
+    }
+
     @Test
     public void testRelaunchFailedPod() throws Exception {
         ClassLoader classLoader = getClass().getClassLoader();
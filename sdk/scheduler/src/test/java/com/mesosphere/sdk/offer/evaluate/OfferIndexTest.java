@@ -0,0 +1,50 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.OfferID;
+import org.apache.mesos.Protos.SlaveID;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class OfferIndexTest {
+
+    private static final Offer RESERVED_OFFER = OfferTestUtils.getOffer(Arrays.asList(
+            ResourceTestUtils.getExpectedScalar("cpus", 1.0, "cpus-id"),
+            ResourceTestUtils.getExpectedScalar("mem", 256, "mem-id")));
+    private static final Offer UNRESERVED_OFFER = OfferTestUtils.getEmptyOfferBuilder()
+            .setId(OfferID.newBuilder().setValue("other-offer"))
+            .setSlaveId(SlaveID.newBuilder().setValue("other-agent"))
+            .addResources(ResourceTestUtils.getUnreservedCpu(1.0))
+            .build();
+
+    @Test
+    public void testAgentsByResourceId() {
+        OfferIndex index = new OfferIndex(Arrays.asList(UNRESERVED_OFFER, RESERVED_OFFER));
+
+        Assert.assertEquals(
+                Collections.singleton(TestConstants.AGENT_ID.getValue()),
+                index.getAgentIds(Arrays.asList("mem-id", "cpus-id")));
+        Assert.assertTrue(index.getAgentIds(Arrays.asList("unknown-id")).isEmpty());
+
+        Assert.assertEquals(
+                Arrays.asList(RESERVED_OFFER), index.getOffers(TestConstants.AGENT_ID.getValue()));
+        Assert.assertEquals(Arrays.asList(UNRESERVED_OFFER), index.getOffers("other-agent"));
+        Assert.assertTrue(index.getOffers("unknown-agent").isEmpty());
+    }
+
+    @Test
+    public void testContainsOfferInstances() {
+        OfferIndex index = new OfferIndex(Arrays.asList(UNRESERVED_OFFER, RESERVED_OFFER));
+
+        Assert.assertTrue(index.containsAll(Arrays.asList(RESERVED_OFFER)));
+        Assert.assertTrue(index.containsAll(Collections.emptyList()));
+        // An equal offer which wasn't indexed may have different resources, e.g. in tests which reuse offer IDs:
+        Assert.assertFalse(index.containsAll(Arrays.asList(RESERVED_OFFER.toBuilder().build())));
+    }
+}
@@ -0,0 +1,58 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.OfferRequirement;
+import com.mesosphere.sdk.testutils.OfferRequirementTestUtils;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import org.apache.mesos.Protos;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+public class ScalarTotalsEvaluationStageTest {
+
+    @Test
+    public void testSufficientTotals() throws Exception {
+        OfferRequirement offerRequirement = OfferRequirementTestUtils.getOfferRequirement(
+                Arrays.asList(ResourceTestUtils.getUnreservedCpu(1.0), ResourceTestUtils.getUnreservedMem(512)),
+                false);
+        Protos.Offer offer = OfferTestUtils.getOffer(Arrays.asList(
+                ResourceTestUtils.getUnreservedCpu(2.0), ResourceTestUtils.getUnreservedMem(512)));
+
+        EvaluationOutcome outcome = new ScalarTotalsEvaluationStage(offerRequirement)
+                .evaluate(new MesosResourcePool(offer), null);
+        Assert.assertTrue(outcome.getReason(), outcome.isPassing());
+    }
+
+    @Test
+    public void testInsufficientTotals() throws Exception {
+        OfferRequirement offerRequirement = OfferRequirementTestUtils.getOfferRequirement(
+                Arrays.asList(ResourceTestUtils.getUnreservedCpu(1.0), ResourceTestUtils.getUnreservedMem(512)),
+                false);
+        Protos.Offer offer = OfferTestUtils.getOffer(Arrays.asList(
+                ResourceTestUtils.getUnreservedCpu(2.0), ResourceTestUtils.getUnreservedMem(256)));
+
+        EvaluationOutcome outcome = new ScalarTotalsEvaluationStage(offerRequirement)
+                .evaluate(new MesosResourcePool(offer), null);
+        Assert.assertFalse(outcome.isPassing());
+        Assert.assertTrue(outcome.getReason(), outcome.getReason().contains("'mem'"));
+    }
+
+    @Test
+    public void testReservedAndUnreservedAreCounted() throws Exception {
+        // An existing reservation of 1.0 cpus which needs increasing to 1.5 cpus:
+        String resourceId = UUID.randomUUID().toString();
+        OfferRequirement offerRequirement = OfferRequirementTestUtils.getOfferRequirement(
+                ResourceTestUtils.getExpectedScalar("cpus", 1.5, resourceId));
+        Protos.Offer offer = OfferTestUtils.getOffer(Arrays.asList(
+                ResourceTestUtils.getExpectedScalar("cpus", 1.0, resourceId),
+                ResourceTestUtils.getUnreservedCpu(0.5)));
+
+        EvaluationOutcome outcome = new ScalarTotalsEvaluationStage(offerRequirement)
+                .evaluate(new MesosResourcePool(offer), null);
+        Assert.assertTrue(outcome.getReason(), outcome.isPassing());
+    }
+}
@@ -0,0 +1,157 @@
+package com.mesosphere.sdk.offer.evaluate.placement;
+
+import com.mesosphere.sdk.offer.CommonTaskUtils;
+import com.mesosphere.sdk.offer.InvalidRequirementException;
+import com.mesosphere.sdk.offer.OfferRequirement;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import com.mesosphere.sdk.testutils.TaskTestUtils;
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.SlaveID;
+import org.apache.mesos.Protos.TaskInfo;
+import org.apache.mesos.Protos.Value;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link PlacementIndex}.
+ */
+public class PlacementIndexTest {
+
+    private static final int HOST_COUNT = 5;
+    private static final int RACK_COUNT = 3;
+
+    private static final List<PlacementRule> RULES = Arrays.asList(
+            new MaxPerHostnameRule(1),
+            new MaxPerHostnameRule(2, RegexMatcher.create("type0-.*")),
+            new MaxPerAttributeRule(2, RegexMatcher.create("rack:.*")),
+            new MaxPerAttributeRule(1, ExactMatcher.createAttribute("rack", "rack1"), RegexMatcher.create(".*-1-.*")),
+            new RoundRobinByHostnameRule(Optional.empty()),
+            new RoundRobinByHostnameRule(Optional.of(HOST_COUNT + 1), RegexMatcher.create("type1-.*")),
+            new RoundRobinByAttributeRule("RACK", Optional.of(RACK_COUNT)),
+            new RoundRobinByAttributeRule("rack", Optional.empty(), RegexMatcher.create("type0-.*")),
+            TaskTypeRule.avoid("type0"),
+            TaskTypeRule.colocateWith("type1"),
+            new AndRule(TaskTypeRule.avoid("type1"), new MaxPerHostnameRule(2)),
+            new OrRule(new NotRule(new MaxPerHostnameRule(1)), HostnameRule.avoidExact(getHostname(0))));
+
+    @Test
+    public void testIncrementalUpdatesMatchFullScan() throws InvalidRequirementException {
+        Random random = new Random(12345);
+        Map<String, TaskInfo> tasks = new LinkedHashMap<>();
+        PlacementIndex index = new PlacementIndex();
+        List<OfferRequirement> requirements = Arrays.asList(
+                OfferRequirement.create("type0", 0, Collections.emptyList()),
+                OfferRequirement.create("type1", 2, Collections.emptyList()),
+                OfferRequirement.create("type2", 0, Collections.emptyList()));
+
+        for (int i = 0; i < 60; ++i) {
+            String type = "type" + random.nextInt(3);
+            int podIndex = random.nextInt(4);
+            String taskName = String.format("%s-%d-task%d", type, podIndex, random.nextInt(2));
+            if (random.nextInt(4) == 0) {
+                tasks.remove(taskName);
+                index.taskCleared(taskName);
+            } else {
+                TaskInfo task = getTaskInfo(taskName, type, podIndex, random.nextInt(HOST_COUNT));
+                tasks.put(taskName, task);
+                index.tasksStored(Arrays.asList(task));
+            }
+
+            for (PlacementRule rule : RULES) {
+                for (OfferRequirement requirement : requirements) {
+                    for (int host = 0; host < HOST_COUNT; ++host) {
+                        Offer offer = getOffer(host);
+                        assertEquals(
+                                String.format("rule=%s type=%s index=%d host=%d tasks=%s",
+                                        rule, requirement.getType(), requirement.getIndex(), host, tasks.keySet()),
+                                rule.filter(offer, requirement, tasks.values()).isPassing(),
+                                rule.filter(offer, requirement, index).isPassing());
+                    }
+                }
+            }
+        }
+        assertEquals(new HashSet<>(tasks.values()), new HashSet<>(index.getTasks()));
+        assertEquals(tasks.values().size(), new PlacementIndex(tasks.values()).getTasks().size());
+    }
+
+    @Test
+    public void testStaleTasksAreExcluded() throws InvalidRequirementException {
+        PlacementIndex index = new PlacementIndex(Arrays.asList(
+                getTaskInfo("type0-0-a", "type0", 0, 0),
+                getTaskInfo("type0-0-b", "type0", 0, 0),
+                getTaskInfo("type0-1-a", "type0", 1, 1),
+                getTaskInfo("type0-2-a", "type0", 2, 1)));
+        PlacementIndex.Key key = PlacementIndex.Key.hostname(AnyMatcher.create());
+        OfferRequirement newTask = OfferRequirement.create("type0", 3, Collections.emptyList());
+        OfferRequirement existingTask = OfferRequirement.create("type0", 0, Collections.emptyList());
+
+        assertEquals(4, index.getMatchingTaskCount(key));
+        assertEquals(2, index.getTaskCount(key, getHostname(0), newTask));
+        assertEquals(0, index.getTaskCount(key, getHostname(0), existingTask));
+
+        PlacementIndex.ValueCounts counts = index.getValueCounts(key, getHostname(0), newTask);
+        assertEquals(2, counts.getValueCount());
+        assertEquals(2, counts.getMinCount());
+        assertEquals(2, counts.getMaxCount());
+        assertEquals(2, counts.getDistinctValues());
+
+        counts = index.getValueCounts(key, getHostname(0), existingTask);
+        assertEquals(0, counts.getValueCount());
+        assertEquals(2, counts.getMinCount());
+        assertEquals(2, counts.getMaxCount());
+        assertEquals(1, counts.getDistinctValues());
+    }
+
+    @Test
+    public void testRefreshReplacesTasks() throws InvalidRequirementException {
+        PlacementIndex index = new PlacementIndex(Arrays.asList(getTaskInfo("type0-0-a", "type0", 0, 0)));
+        PlacementIndex.Key key = PlacementIndex.Key.agentId("type0");
+        OfferRequirement requirement = OfferRequirement.create("type1", 0, Collections.emptyList());
+        assertEquals(1, index.getTaskCount(key, getAgentId(0).getValue(), requirement));
+
+        index.tasksRefreshed(Arrays.asList(getTaskInfo("type0-1-a", "type0", 1, 1)));
+        assertEquals(0, index.getTaskCount(key, getAgentId(0).getValue(), requirement));
+        assertEquals(1, index.getTaskCount(key, getAgentId(1).getValue(), requirement));
+        assertEquals(1, index.getTasks().size());
+    }
+
+    private static TaskInfo getTaskInfo(String taskName, String type, int podIndex, int host) {
+        TaskInfo.Builder taskBuilder = TaskTestUtils.getTaskInfo(Collections.emptyList()).toBuilder()
+                .setName(taskName)
+                .setTaskId(CommonTaskUtils.toTaskId(taskName))
+                .setSlaveId(getAgentId(host));
+        CommonTaskUtils.setType(taskBuilder, type);
+        CommonTaskUtils.setIndex(taskBuilder, podIndex);
+        Offer offer = getOffer(host);
+        CommonTaskUtils.setHostname(taskBuilder, offer);
+        CommonTaskUtils.setOfferAttributes(taskBuilder, offer);
+        return taskBuilder.build();
+    }
+
+    private static Offer getOffer(int host) {
+        Offer.Builder offerBuilder = OfferTestUtils.getOffer(ResourceTestUtils.getDesiredCpu(1.0)).toBuilder()
+                .setHostname(getHostname(host))
+                .setSlaveId(getAgentId(host));
+        offerBuilder.addAttributesBuilder()
+                .setName("rack")
+                .setType(Value.Type.TEXT)
+                .getTextBuilder().setValue("rack" + (host % RACK_COUNT));
+        offerBuilder.addAttributesBuilder()
+                .setName("zone")
+                .setType(Value.Type.TEXT)
+                .getTextBuilder().setValue("zone" + (host % 2));
+        return offerBuilder.build();
+    }
+
+    private static String getHostname(int host) {
+        return "host" + host;
+    }
+
+    private static SlaveID getAgentId(int host) {
+        return SlaveID.newBuilder().setValue("agent" + host).build();
+    }
+}
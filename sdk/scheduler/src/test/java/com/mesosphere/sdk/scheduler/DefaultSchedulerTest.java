@@ -535,7 +535,8 @@ public class DefaultSchedulerTest {
         Protos.Offer insufficientOffer = OfferTestUtils.getOffer(neededAdditionalResource);
         defaultScheduler.resourceOffers(mockSchedulerDriver, Arrays.asList(insufficientOffer));
         verify(mockSchedulerDriver, timeout(1000).times(1)).killTask(launchedTaskId);
-        verify(mockSchedulerDriver, timeout(1000).times(1)).declineOffer(insufficientOffer.getId());
+        verify(mockSchedulerDriver, timeout(1000).times(1)).declineOffer(insufficientOffer.getId(), getFilters(
+                Double.parseDouble(SchedulerFlags.DEFAULT_DECLINE_REFUSE_SECONDS_ACTIVE)));
         Assert.assertEquals(Status.PREPARED, stepTaskA0.getStatus());
 
         // Sent TASK_KILLED status
@@ -668,11 +669,20 @@ public class DefaultSchedulerTest {
         Awaitility.await().pollDelay(Duration.ONE_SECOND).until(taskMarkFailed(taskInfo.getName()), equalTo(true));
     }
 
+    @Test
+    public void testDeclineForLongerWhenIdle() {
+        install();
+        Protos.Offer offer = getInsufficientOfferForTaskA(UUID.randomUUID());
+        defaultScheduler.resourceOffers(mockSchedulerDriver, Arrays.asList(offer));
+        verify(mockSchedulerDriver, timeout(1000).times(1)).declineOffer(offer.getId(), getFilters(
+                Double.parseDouble(SchedulerFlags.DEFAULT_DECLINE_REFUSE_SECONDS_IDLE)));
+    }
+
     @Test
     public void testApiServerNotReadyDecline() {
         TestScheduler testScheduler = new TestScheduler(defaultScheduler, false);
         testScheduler.resourceOffers(mockSchedulerDriver, Arrays.asList(getSufficientOfferForTaskA()));
-        verify(mockSchedulerDriver, timeout(1000).times(1)).declineOffer(any());
+        verify(mockSchedulerDriver, timeout(1000).times(1)).declineOffer(any(), any());
     }
 
     @Test
@@ -728,6 +738,10 @@ public class DefaultSchedulerTest {
                 .build();
     }
 
+    private static Protos.Filters getFilters(double refuseSeconds) {
+        return Protos.Filters.newBuilder().setRefuseSeconds(refuseSeconds).build();
+    }
+
     private void register() {
         defaultScheduler.registered(mockSchedulerDriver, TestConstants.FRAMEWORK_ID, TestConstants.MASTER_INFO);
     }
@@ -848,7 +862,16 @@ public class DefaultSchedulerTest {
         taskIds.add(installStep(1, 1, getSufficientOfferForTaskB()));
 
         Assert.assertEquals(Arrays.asList(Status.COMPLETE, Status.COMPLETE, Status.COMPLETE), getStepStatuses(plan));
-        Assert.assertTrue(StateStoreUtils.isSuppressed(stateStore));
+        // The suppressed state is written to the state store asynchronously:
+        Awaitility.await()
+            .atMost(1, TimeUnit.SECONDS)
+            .until(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return defaultScheduler.offerDemandController.isSuppressed()
+                            && StateStoreUtils.isSuppressed(stateStore);
+                }
+            });
 
         return taskIds;
     }
@@ -0,0 +1,153 @@
+package com.mesosphere.sdk.scheduler;
+
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.OfferID;
+import org.apache.mesos.SchedulerDriver;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class OfferBufferTest {
+
+    private static final long HOLD_MS = 500;
+    private static final int MAX_OFFERS = 3;
+
+    @Mock private ScheduledExecutorService mockTimer;
+    @Mock private SchedulerDriver mockDriver;
+    @Mock private SchedulerDriver otherMockDriver;
+
+    private List<List<Offer>> flushed;
+    private List<SchedulerDriver> flushedDrivers;
+    private OfferBuffer buffer;
+
+    @Before
+    public void beforeEach() {
+        MockitoAnnotations.initMocks(this);
+        flushed = new ArrayList<>();
+        flushedDrivers = new ArrayList<>();
+        buffer = new OfferBuffer(HOLD_MS, MAX_OFFERS, mockTimer, (driver, offers) -> {
+            flushedDrivers.add(driver);
+            flushed.add(offers);
+        });
+    }
+
+    @Test
+    public void testFlushOnWindowExpiry() {
+        Offer offer1 = getOffer();
+        Offer offer2 = getOffer();
+        buffer.add(mockDriver, Arrays.asList(offer1));
+        buffer.add(mockDriver, Arrays.asList(offer2));
+        // Only one window is started for both callbacks:
+        Runnable expiry = captureExpiry();
+        assertTrue(flushed.isEmpty());
+        assertEquals(2, buffer.size());
+
+        expiry.run();
+        assertEquals(Arrays.asList(Arrays.asList(offer1, offer2)), flushed);
+        assertEquals(Arrays.asList(mockDriver), flushedDrivers);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testFlushWhenFull() {
+        Offer offer1 = getOffer();
+        Offer offer2 = getOffer();
+        Offer offer3 = getOffer();
+        buffer.add(mockDriver, Arrays.asList(offer1));
+        Runnable expiry = captureExpiry();
+        buffer.add(mockDriver, Arrays.asList(offer2, offer3));
+        assertEquals(Arrays.asList(Arrays.asList(offer1, offer2, offer3)), flushed);
+        assertEquals(Arrays.asList(mockDriver), flushedDrivers);
+
+        // The expiry of the flushed window doesn't cut the next window short:
+        Offer offer4 = getOffer();
+        buffer.add(mockDriver, Arrays.asList(offer4));
+        expiry.run();
+        assertEquals(1, flushed.size());
+        assertEquals(1, buffer.size());
+        verify(mockTimer, times(2)).schedule(any(Runnable.class), eq(HOLD_MS), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRescindedOffersAreDropped() {
+        Offer offer1 = getOffer();
+        Offer offer2 = getOffer();
+        buffer.add(mockDriver, Arrays.asList(offer1, offer2));
+        Runnable expiry = captureExpiry();
+
+        assertTrue(buffer.remove(offer1.getId()));
+        assertFalse(buffer.remove(offer1.getId()));
+        assertFalse(buffer.remove(OfferID.newBuilder().setValue("unknown").build()));
+
+        expiry.run();
+        assertEquals(Arrays.asList(Arrays.asList(offer2)), flushed);
+    }
+
+    @Test
+    public void testAllOffersRescinded() {
+        Offer offer = getOffer();
+        buffer.add(mockDriver, Arrays.asList(offer));
+        Runnable expiry = captureExpiry();
+        buffer.remove(offer.getId());
+
+        expiry.run();
+        assertTrue(flushed.isEmpty());
+    }
+
+    @Test
+    public void testFlushWithLatestDriver() {
+        Offer offer1 = getOffer();
+        Offer offer2 = getOffer();
+        buffer.add(mockDriver, Arrays.asList(offer1));
+        buffer.add(otherMockDriver, Arrays.asList(offer2));
+        captureExpiry().run();
+        assertEquals(Arrays.asList(Arrays.asList(offer1, offer2)), flushed);
+        assertEquals(Arrays.asList(otherMockDriver), flushedDrivers);
+    }
+
+    @Test
+    public void testClose() {
+        buffer.add(mockDriver, Arrays.asList(getOffer()));
+        Runnable expiry = captureExpiry();
+
+        buffer.close();
+        verify(mockTimer).shutdownNow();
+        assertEquals(0, buffer.size());
+        expiry.run();
+
+        // Offers added after closing are dropped without scheduling another window:
+        buffer.add(mockDriver, Arrays.asList(getOffer(), getOffer(), getOffer()));
+        assertEquals(0, buffer.size());
+        assertTrue(flushed.isEmpty());
+        verify(mockTimer, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    private Runnable captureExpiry() {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockTimer, atLeastOnce()).schedule(captor.capture(), anyLong(), any(TimeUnit.class));
+        return captor.getValue();
+    }
+
+    private static Offer getOffer() {
+        return OfferTestUtils.getOffer(ResourceTestUtils.getUnreservedCpu(1.0)).toBuilder()
+                .setId(OfferID.newBuilder().setValue(UUID.randomUUID().toString()))
+                .build();
+    }
+}
@@ -0,0 +1,193 @@
+package com.mesosphere.sdk.scheduler;
+
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.scheduler.plan.*;
+import com.mesosphere.sdk.scheduler.plan.strategy.SerialStrategy;
+import com.mesosphere.sdk.specification.PodInstance;
+import com.mesosphere.sdk.specification.PodSpec;
+import com.mesosphere.sdk.specification.TestPodFactory;
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.testutils.OfferRequirementTestUtils;
+import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos;
+import org.apache.mesos.SchedulerDriver;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.EnvironmentVariables;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class OfferDemandControllerTest {
+    @ClassRule
+    public static final EnvironmentVariables environmentVariables =
+            OfferRequirementTestUtils.getOfferRequirementProviderEnvironment();
+
+    private static final double ACTIVE_REFUSE_SECONDS = 5;
+    private static final double IDLE_REFUSE_SECONDS = 120;
+
+    @Mock private StateStore mockStateStore;
+    @Mock private SchedulerDriver mockSchedulerDriver;
+
+    private List<Runnable> pendingWrites;
+    private OfferDemandController controller;
+
+    @Before
+    public void beforeEach() {
+        MockitoAnnotations.initMocks(this);
+        when(mockStateStore.fetchPropertyKeys()).thenReturn(Collections.emptyList());
+        pendingWrites = new ArrayList<>();
+        controller = new OfferDemandController(
+                mockStateStore, ACTIVE_REFUSE_SECONDS, IDLE_REFUSE_SECONDS, pendingWrites::add);
+    }
+
+    @Test
+    public void testSuppressWithoutDemand() {
+        Step step = getStep();
+        step.forceComplete();
+
+        controller.update(mockSchedulerDriver, getPlanManagers(step));
+        assertTrue(controller.isSuppressed());
+        assertTrue(controller.getDemand().isEmpty());
+        assertEquals(IDLE_REFUSE_SECONDS, controller.getDeclineRefuseSeconds(), 0.0);
+        verify(mockSchedulerDriver, times(1)).suppressOffers();
+
+        // Already suppressed:
+        controller.update(mockSchedulerDriver, getPlanManagers(step));
+        verify(mockSchedulerDriver, times(1)).suppressOffers();
+        verify(mockSchedulerDriver, never()).reviveOffers();
+    }
+
+    @Test
+    public void testReviveWithDemand() {
+        Step step = getStep();
+        step.forceComplete();
+        controller.update(mockSchedulerDriver, getPlanManagers(step));
+        assertTrue(controller.isSuppressed());
+
+        step.restart();
+        controller.update(mockSchedulerDriver, getPlanManagers(step));
+        assertFalse(controller.isSuppressed());
+        assertEquals(ACTIVE_REFUSE_SECONDS, controller.getDeclineRefuseSeconds(), 0.0);
+        verify(mockSchedulerDriver, times(1)).reviveOffers();
+
+        // Already revived:
+        controller.update(mockSchedulerDriver, getPlanManagers(step));
+        verify(mockSchedulerDriver, times(1)).reviveOffers();
+    }
+
+    @Test
+    public void testStartingStepsHaveNoDemand() {
+        OfferRecommendation recommendation = mock(OfferRecommendation.class);
+        when(recommendation.getOperation()).thenReturn(Protos.Offer.Operation.getDefaultInstance());
+        Step step = getStep();
+        step.updateOfferStatus(Collections.singletonList(recommendation));
+        assertTrue(step.isStarting());
+
+        controller.update(mockSchedulerDriver, getPlanManagers(step));
+        assertTrue(controller.isSuppressed());
+    }
+
+    @Test
+    public void testInterruptedPlanHasNoDemand() {
+        Step step = getStep();
+        Collection<PlanManager> planManagers = getPlanManagers(step);
+        planManagers.iterator().next().getPlan().interrupt();
+
+        controller.update(mockSchedulerDriver, planManagers);
+        assertTrue(controller.isSuppressed());
+    }
+
+    @Test
+    public void testDemandByPlanAndRole() {
+        controller.update(mockSchedulerDriver, getPlanManagers(getStep(), getStep()));
+
+        assertEquals(2, controller.getDemandedStepCount());
+        assertEquals(1, controller.getDemand().size());
+        OfferDemandController.PlanDemand demand = controller.getDemand().iterator().next();
+        assertEquals("test-plan", demand.getPlanName());
+        assertEquals(2, demand.getStepCount());
+
+        Map<String, Double> scalars = demand.getScalarsByRole().get(TestConstants.ROLE);
+        assertEquals(2 * TestPodFactory.CPU, scalars.get("cpus"), 0.0);
+        assertEquals(2 * TestPodFactory.MEM, scalars.get("mem"), 0.0);
+        assertEquals(2 * TestPodFactory.DISK, scalars.get("disk"), 0.0);
+    }
+
+    @Test
+    public void testUnconditionalRevive() {
+        controller.revive(mockSchedulerDriver);
+        controller.revive(mockSchedulerDriver);
+        verify(mockSchedulerDriver, times(2)).reviveOffers();
+        assertFalse(controller.isSuppressed());
+
+        // Not suppressed in the state store either, so nothing is written:
+        runPendingWrites();
+        verify(mockStateStore, never()).storeProperty(anyString(), any());
+    }
+
+    @Test
+    public void testWritesAreAsyncAndCoalesced() {
+        Step step = getStep();
+        step.forceComplete();
+
+        controller.update(mockSchedulerDriver, getPlanManagers(step));
+        assertTrue(controller.isSuppressed());
+        verify(mockStateStore, never()).storeProperty(anyString(), any());
+
+        // Suppressed, then revived before the write ran: only one write is queued, and it finds nothing to store.
+        controller.revive(mockSchedulerDriver);
+        assertEquals(1, pendingWrites.size());
+        runPendingWrites();
+        verify(mockStateStore, never()).storeProperty(anyString(), any());
+
+        controller.update(mockSchedulerDriver, getPlanManagers(step));
+        runPendingWrites();
+        verify(mockStateStore, times(1)).storeProperty(eq("suppressed"), any());
+    }
+
+    private void runPendingWrites() {
+        List<Runnable> writes = new ArrayList<>(pendingWrites);
+        pendingWrites.clear();
+        writes.forEach(Runnable::run);
+    }
+
+    private static Step getStep() {
+        PodSpec podSpec = TestPodFactory.getPodSpec(
+                "test-pod",
+                TestConstants.RESOURCE_SET_ID,
+                TestConstants.TASK_NAME,
+                TestPodFactory.CMD.getValue(),
+                1,
+                TestPodFactory.CPU,
+                TestPodFactory.MEM,
+                TestPodFactory.DISK);
+        PodInstance podInstance = new DefaultPodInstance(podSpec, 0);
+        return new DeploymentStep(
+                "test-step",
+                Status.PENDING,
+                PodInstanceRequirement.create(podInstance, Arrays.asList(TestConstants.TASK_NAME)),
+                Collections.emptyList());
+    }
+
+    private static Collection<PlanManager> getPlanManagers(Step... steps) {
+        Phase phase = new DefaultPhase(
+                "test-phase", Arrays.asList(steps), new SerialStrategy<>(), Collections.emptyList());
+        PlanManager planManager = new DefaultPlanManager(new DefaultPlan("test-plan", Arrays.asList(phase)));
+        planManager.getPlan().proceed();
+        return Arrays.asList(planManager);
+    }
+}
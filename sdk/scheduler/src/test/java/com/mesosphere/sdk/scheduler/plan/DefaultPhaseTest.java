@@ -8,7 +8,9 @@ import org.mockito.Mockito;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Mockito.when;
@@ -47,4 +49,105 @@ public class DefaultPhaseTest {
 
         Assert.assertEquals(Status.WAITING, canaryPhase.getStatus());
     }
+
+    @Test
+    public void testStatusIsUpdatedWhenStepsChange() {
+        TestStep step1 = new TestStep("step-1");
+        TestStep step2 = new TestStep("step-2");
+        DefaultPhase phase = new DefaultPhase(
+                "phase",
+                Arrays.asList(step1, step2),
+                new SerialStrategy<>(),
+                Collections.emptyList());
+        DefaultPlan plan = new DefaultPlan("plan", Arrays.asList(phase));
+        Assert.assertTrue(phase.isStatusCached());
+
+        Assert.assertEquals(Status.PENDING, phase.getStatus());
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+
+        step1.setStatus(Status.COMPLETE);
+        Assert.assertEquals(Status.IN_PROGRESS, phase.getStatus());
+        Assert.assertEquals(Status.IN_PROGRESS, plan.getStatus());
+
+        step2.setStatus(Status.COMPLETE);
+        Assert.assertEquals(Status.COMPLETE, phase.getStatus());
+        Assert.assertEquals(Status.COMPLETE, plan.getStatus());
+
+        step2.restart();
+        Assert.assertEquals(Status.IN_PROGRESS, phase.getStatus());
+        Assert.assertEquals(Status.IN_PROGRESS, plan.getStatus());
+    }
+
+    @Test
+    public void testStatusCountsAreUpdatedWhenStepsChange() {
+        TestStep step1 = new TestStep("step-1");
+        TestStep step2 = new TestStep("step-2");
+        DefaultPhase phase = new DefaultPhase(
+                "phase",
+                Arrays.asList(step1, step2),
+                new SerialStrategy<>(),
+                Collections.emptyList());
+        DefaultPlan plan = new DefaultPlan("plan", Arrays.asList(phase));
+
+        Assert.assertEquals(Collections.singletonMap(Status.PENDING, 2), phase.getChildStatusCounts());
+        Assert.assertEquals(Collections.singletonMap(Status.PENDING, 1), plan.getChildStatusCounts());
+
+        step1.setStatus(Status.COMPLETE);
+        Map<Status, Integer> expected = new HashMap<>();
+        expected.put(Status.PENDING, 1);
+        expected.put(Status.COMPLETE, 1);
+        Assert.assertEquals(expected, phase.getChildStatusCounts());
+        Assert.assertEquals(Collections.singletonMap(Status.IN_PROGRESS, 1), plan.getChildStatusCounts());
+
+        step2.setStatus(Status.COMPLETE);
+        Assert.assertEquals(Collections.singletonMap(Status.COMPLETE, 2), phase.getChildStatusCounts());
+        Assert.assertEquals(Collections.singletonMap(Status.COMPLETE, 1), plan.getChildStatusCounts());
+    }
+
+    @Test
+    public void testStatusIsUpdatedWhenInterrupted() {
+        TestStep step = new TestStep();
+        DefaultPhase phase = new DefaultPhase(
+                "phase",
+                Arrays.asList(step),
+                new SerialStrategy<>(),
+                Collections.emptyList());
+        DefaultPlan plan = new DefaultPlan("plan", Arrays.asList(phase));
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+
+        step.interrupt();
+        Assert.assertEquals(Status.WAITING, phase.getStatus());
+        Assert.assertEquals(Status.WAITING, plan.getStatus());
+        step.proceed();
+        Assert.assertEquals(Status.PENDING, phase.getStatus());
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+
+        phase.interrupt();
+        Assert.assertEquals(Status.WAITING, phase.getStatus());
+        Assert.assertEquals(Status.WAITING, plan.getStatus());
+        phase.proceed();
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+
+        plan.interrupt();
+        Assert.assertEquals(Status.WAITING, plan.getStatus());
+        plan.proceed();
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+    }
+
+    @Test
+    public void testStatusIsNotCachedForOtherSteps() {
+        Step step = Mockito.mock(Step.class);
+        when(step.getStatus()).thenReturn(Status.PENDING);
+        when(step.isEligible(anyCollectionOf(String.class))).thenReturn(true);
+        DefaultPhase phase = new DefaultPhase(
+                "phase",
+                Arrays.asList(step),
+                new SerialStrategy<>(),
+                Collections.emptyList());
+        Assert.assertFalse(phase.isStatusCached());
+        Assert.assertEquals(Status.PENDING, phase.getStatus());
+
+        when(step.getStatus()).thenReturn(Status.COMPLETE);
+        Assert.assertEquals(Status.COMPLETE, phase.getStatus());
+    }
 }
@@ -4,6 +4,7 @@ import com.mesosphere.sdk.offer.CommonTaskUtils;
 import com.mesosphere.sdk.offer.LaunchOfferRecommendation;
 import com.mesosphere.sdk.offer.OfferRequirement;
 import com.mesosphere.sdk.offer.TaskUtils;
+import com.mesosphere.sdk.scheduler.plan.strategy.SerialStrategy;
 import com.mesosphere.sdk.specification.GoalState;
 import com.mesosphere.sdk.specification.PodInstance;
 import com.mesosphere.sdk.specification.PodSpec;
@@ -17,9 +18,11 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.Mockito.when;
 
@@ -96,4 +99,100 @@ public class DefaultStepTest {
         Collection<String> dirtyAssets = Arrays.asList(step.getAsset().get());
         Assert.assertFalse(step.isEligible(dirtyAssets));
     }
+
+    @Test
+    public void testStatusIsRoutedToExpectingSteps() {
+        RecordingStep step1 = new RecordingStep(TEST_STEP_NAME + "-1");
+        RecordingStep step2 = new RecordingStep(TEST_STEP_NAME + "-2");
+        List<Protos.TaskStatus> otherStepUpdates = new ArrayList<>();
+        Step otherStep = new TestStep() {
+            @Override
+            public void update(Protos.TaskStatus status) {
+                otherStepUpdates.add(status);
+            }
+        };
+        DefaultPhase phase1 = new DefaultPhase(
+                "phase-1", Arrays.asList(step1, step2), new SerialStrategy<>(), Collections.emptyList());
+        DefaultPhase phase2 = new DefaultPhase(
+                "phase-2", Arrays.asList(otherStep), new SerialStrategy<>(), Collections.emptyList());
+        Plan plan = new DefaultPlan("plan", Arrays.asList(phase1, phase2));
+
+        String taskName = TaskSpec.getInstanceName(podInstance, taskSpec);
+        Protos.TaskID taskID = CommonTaskUtils.toTaskId(taskName);
+        step1.updateOfferStatus(Arrays.asList(new LaunchOfferRecommendation(
+                OfferTestUtils.getEmptyOfferBuilder().build(),
+                Protos.TaskInfo.newBuilder()
+                        .setTaskId(taskID)
+                        .setName(taskName)
+                        .setSlaveId(TestConstants.AGENT_ID)
+                        .build())));
+        Assert.assertTrue(phase1.isExpectingUpdates(taskID));
+        Protos.TaskStatus status = Protos.TaskStatus.newBuilder()
+                .setTaskId(taskID)
+                .setState(Protos.TaskState.TASK_RUNNING)
+                .build();
+        plan.update(status);
+
+        Assert.assertTrue(step1.isComplete());
+        Assert.assertEquals(Arrays.asList(status), step1.updates);
+        Assert.assertTrue(step2.updates.isEmpty());
+        // Steps which don't report their task IDs still receive every status:
+        Assert.assertEquals(Arrays.asList(status), otherStepUpdates);
+
+        // Relaunching without any tasks removes the old task ID from the index:
+        step1.updateOfferStatus(Collections.emptyList());
+        Assert.assertFalse(phase1.isExpectingUpdates(taskID));
+        Protos.TaskStatus otherStatus = status.toBuilder().setState(Protos.TaskState.TASK_FAILED).build();
+        plan.update(otherStatus);
+        Assert.assertEquals(Arrays.asList(status), step1.updates);
+        Assert.assertEquals(Arrays.asList(status, otherStatus), otherStepUpdates);
+    }
+
+    @Test
+    public void testStatusIsRoutedFromEveryPhaseContainingStep() {
+        RecordingStep step = new RecordingStep(TEST_STEP_NAME);
+        // As with recovery plans, the same step is wrapped in a new phase, and the older phase is still in use:
+        DefaultPhase olderPhase = new DefaultPhase(
+                "phase", Arrays.asList(step), new SerialStrategy<>(), Collections.emptyList());
+        DefaultPhase newerPhase = new DefaultPhase(
+                "phase", Arrays.asList(step), new SerialStrategy<>(), Collections.emptyList());
+
+        String taskName = TaskSpec.getInstanceName(podInstance, taskSpec);
+        Protos.TaskID taskID = CommonTaskUtils.toTaskId(taskName);
+        step.updateOfferStatus(Arrays.asList(new LaunchOfferRecommendation(
+                OfferTestUtils.getEmptyOfferBuilder().build(),
+                Protos.TaskInfo.newBuilder()
+                        .setTaskId(taskID)
+                        .setName(taskName)
+                        .setSlaveId(TestConstants.AGENT_ID)
+                        .build())));
+        Assert.assertTrue(olderPhase.isExpectingUpdates(taskID));
+        Assert.assertTrue(newerPhase.isExpectingUpdates(taskID));
+
+        Protos.TaskStatus status = Protos.TaskStatus.newBuilder()
+                .setTaskId(taskID)
+                .setState(Protos.TaskState.TASK_RUNNING)
+                .build();
+        new DefaultPlan("plan", Arrays.asList(olderPhase)).update(status);
+        Assert.assertEquals(Arrays.asList(status), step.updates);
+        newerPhase.update(status);
+        Assert.assertEquals(Arrays.asList(status, status), step.updates);
+    }
+
+    private class RecordingStep extends DeploymentStep {
+        private final List<Protos.TaskStatus> updates = new ArrayList<>();
+
+        private RecordingStep(String name) {
+            super(name,
+                    Status.PENDING,
+                    PodInstanceRequirement.create(podInstance, TaskUtils.getTaskNames(podInstance)),
+                    Collections.emptyList());
+        }
+
+        @Override
+        public void update(Protos.TaskStatus status) {
+            updates.add(status);
+            super.update(status);
+        }
+    }
 }
@@ -425,4 +425,96 @@ public class DefaultRecoveryPlanManagerTest {
         assertEquals(1, recoveryManager.getPlan().getChildren().get(0).getChildren().size());
         assertTrue(recoveryManager.getPlan().getChildren().get(0).getChildren().get(0).isPending());
     }
+
+    @Test
+    public void testPlanNotRebuiltWithoutFailures() throws Exception {
+        final Protos.TaskStatus runningStatus = TaskTestUtils.generateStatus(
+                TASK_INFO.getTaskId(),
+                Protos.TaskState.TASK_RUNNING);
+
+        stateStore.storeTasks(TASK_INFOS);
+        stateStore.storeStatus(runningStatus);
+        recoveryManager.update(runningStatus);
+
+        // The first update builds the (empty) recovery phase:
+        assertTrue(recoveryManager.getCandidates(Collections.emptyList()).isEmpty());
+        assertEquals(1, recoveryManager.getPlan().getChildren().size());
+
+        Plan plan = recoveryManager.getPlan();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(recoveryManager.getCandidates(Collections.emptyList()).isEmpty());
+            assertSame(plan, recoveryManager.getPlan());
+        }
+        assertTrue(recoveryManager.getFailedPods().isEmpty());
+    }
+
+    @Test
+    public void testPlanNotRebuiltForUnchangedFailure() throws Exception {
+        final Protos.TaskStatus failedStatus = TaskTestUtils.generateStatus(
+                TASK_INFO.getTaskId(),
+                Protos.TaskState.TASK_FAILED);
+
+        launchConstrainer.setCanLaunch(true);
+        stateStore.storeTasks(TASK_INFOS);
+        stateStore.storeStatus(failedStatus);
+        recoveryManager.update(failedStatus);
+
+        assertEquals(1, recoveryManager.getCandidates(Collections.emptyList()).size());
+        Plan plan = recoveryManager.getPlan();
+        Step step = plan.getChildren().get(0).getChildren().get(0);
+        assertEquals(RecoveryType.TRANSIENT, ((DefaultRecoveryStep) step).getRecoveryType());
+
+        // Still failed: the existing step is kept
+        recoveryManager.update(failedStatus);
+        recoveryManager.getCandidates(Collections.emptyList());
+        assertSame(plan, recoveryManager.getPlan());
+
+        // Now permanently failed, without a new status: the step is replaced with a permanent one
+        failureMonitor.setFailedList(TASK_INFO);
+        recoveryManager.getCandidates(Collections.emptyList());
+        assertNotSame(plan, recoveryManager.getPlan());
+        assertEquals(1, recoveryManager.getPlan().getChildren().get(0).getChildren().size());
+        Step permanentStep = recoveryManager.getPlan().getChildren().get(0).getChildren().get(0);
+        assertEquals(RecoveryType.PERMANENT, ((DefaultRecoveryStep) permanentStep).getRecoveryType());
+    }
+
+    @Test
+    public void testRelaunchedTaskNoLongerTracked() throws Exception {
+        final Protos.TaskStatus failedStatus = TaskTestUtils.generateStatus(
+                TASK_INFO.getTaskId(),
+                Protos.TaskState.TASK_FAILED);
+
+        stateStore.storeTasks(TASK_INFOS);
+        stateStore.storeStatus(failedStatus);
+        recoveryManager.update(failedStatus);
+        recoveryManager.getCandidates(Collections.emptyList());
+        assertEquals(1, recoveryManager.getFailedPods().size());
+
+        // Relaunch with a new task ID, as recorded by PersistentLaunchRecorder:
+        final TaskInfo relaunchedTask = TaskInfo.newBuilder(TASK_INFO)
+                .setTaskId(CommonTaskUtils.toTaskId(TASK_INFO.getName()))
+                .build();
+        stateStore.storeTasks(Collections.singletonList(relaunchedTask));
+        stateStore.storeStatus(TaskTestUtils.generateStatus(
+                relaunchedTask.getTaskId(),
+                Protos.TaskState.TASK_STAGING));
+        recoveryManager.getCandidates(Collections.emptyList());
+        assertTrue(recoveryManager.getFailedPods().isEmpty());
+    }
+
+    @Test
+    public void testFailureFromBeforeStartupRecovered() throws Exception {
+        final Protos.TaskStatus failedStatus = TaskTestUtils.generateStatus(
+                TASK_INFO.getTaskId(),
+                Protos.TaskState.TASK_FAILED);
+
+        // The status was stored by a previous scheduler, and isn't passed to this plan manager:
+        stateStore.storeTasks(TASK_INFOS);
+        stateStore.storeStatus(failedStatus);
+
+        recoveryManager.getCandidates(Collections.emptyList());
+        assertEquals(1, recoveryManager.getPlan().getChildren().get(0).getChildren().size());
+        assertEquals("test-task-type-0:[test-task-name]",
+                recoveryManager.getPlan().getChildren().get(0).getChildren().get(0).getName());
+    }
 }
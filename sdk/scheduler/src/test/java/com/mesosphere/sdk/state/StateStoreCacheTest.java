@@ -82,6 +82,7 @@ public class StateStoreCacheTest {
         when(mockStore.fetchStatuses()).thenReturn(Arrays.asList(STATUS));
         when(mockStore.fetchPropertyKeys()).thenReturn(Arrays.asList(PROP_KEY));
         when(mockStore.fetchProperty(PROP_KEY)).thenReturn(PROP_VAL);
+        when(mockStore.fetchProperties()).thenReturn(Collections.singletonMap(PROP_KEY, PROP_VAL));
         mockedCache = new StateStoreCache(mockStore);
     }
 
@@ -136,6 +137,44 @@ public class StateStoreCacheTest {
         });
     }
 
+    @Test
+    public void testListenerNotifiedOfTaskWrites() {
+        List<String> events = new ArrayList<>();
+        mockedCache.addListener(new StateStoreListener() {
+            @Override
+            public void tasksRefreshed(Collection<TaskInfo> tasks) {
+                events.add("refreshed:" + getNames(tasks));
+            }
+
+            @Override
+            public void tasksStored(Collection<TaskInfo> tasks) {
+                events.add("stored:" + getNames(tasks));
+            }
+
+            @Override
+            public void taskCleared(String taskName) {
+                events.add("cleared:" + taskName);
+            }
+        });
+        mockedCache.storeTasks(Arrays.asList(TASK2));
+        mockedCache.clearTask(TASK_NAME);
+
+        doThrow(new StateStoreException(Reason.UNKNOWN, "hello")).when(mockStore).clearTask(TASK_NAME2);
+        try {
+            mockedCache.clearTask(TASK_NAME2);
+            fail("expected exception");
+        } catch (StateStoreException e) {
+            // expected
+        }
+
+        mockedCache.refresh();
+        assertEquals(Arrays.asList(
+                "refreshed:[task]",
+                "stored:[task2]",
+                "cleared:task",
+                "refreshed:[task]"), events);
+    }
+
     @Test
     public void testStoreFrameworkIdFailureThenSuccess() {
         assertEquals(FRAMEWORK_ID, mockedCache.fetchFrameworkId().get());
@@ -310,6 +349,45 @@ public class StateStoreCacheTest {
         assertEquals(taskB, mockedCache.fetchTask(TASK_NAME).get());
     }
 
+    @Test(expected=StateStoreException.class)
+    public void testStoreTaskStatusForReplacedTaskId() {
+        final TaskInfo taskB = TASK.toBuilder()
+                .setTaskId(CommonTaskUtils.toTaskId(TASK_NAME + "b"))
+                .build();
+        mockedCache.storeTasks(Arrays.asList(taskB));
+        mockedCache.storeStatus(STATUS.toBuilder().setTaskId(taskB.getTaskId()).build());
+        assertEquals(taskB.getTaskId(), mockedCache.fetchStatus(TASK_NAME).get().getTaskId());
+        mockedCache.storeStatus(STATUS); // should throw: TASK's ID was replaced by taskB's
+    }
+
+    @Test
+    public void testFetchedCollectionsAreSnapshots() {
+        Collection<String> taskNames = mockedCache.fetchTaskNames();
+        Collection<TaskInfo> tasks = mockedCache.fetchTasks();
+        Collection<TaskStatus> statuses = mockedCache.fetchStatuses();
+        Collection<String> propertyKeys = mockedCache.fetchPropertyKeys();
+
+        // status updates leave the task snapshots intact:
+        mockedCache.storeStatus(STATUS.toBuilder().setState(TaskState.TASK_RUNNING).build());
+        assertSame(tasks, mockedCache.fetchTasks());
+        assertSame(taskNames, mockedCache.fetchTaskNames());
+        assertEquals(TaskState.TASK_KILLING, statuses.iterator().next().getState());
+        assertEquals(TaskState.TASK_RUNNING, mockedCache.fetchStatuses().iterator().next().getState());
+
+        mockedCache.storeTasks(Arrays.asList(TASK2));
+        mockedCache.storeProperty(PROP_KEY2, PROP_VAL2);
+        mockedCache.clearTask(TASK_NAME);
+        assertEquals(Arrays.asList(TASK_NAME), new ArrayList<>(taskNames));
+        assertEquals(Arrays.asList(TASK), new ArrayList<>(tasks));
+        assertEquals(1, statuses.size());
+        assertEquals(Arrays.asList(PROP_KEY), new ArrayList<>(propertyKeys));
+
+        assertEquals(Arrays.asList(TASK_NAME2), new ArrayList<>(mockedCache.fetchTaskNames()));
+        assertEquals(Arrays.asList(TASK2), new ArrayList<>(mockedCache.fetchTasks()));
+        assertTrue(mockedCache.fetchStatuses().isEmpty());
+        assertEquals(2, mockedCache.fetchPropertyKeys().size());
+    }
+
     @Test
     public void testTaskStatusSingleThread() {
         cache.consistencyCheckForTests();
@@ -437,7 +515,7 @@ public class StateStoreCacheTest {
         when(mockStore.fetchTasks()).thenReturn(Collections.emptyList());
         when(mockStore.fetchStatuses()).thenReturn(Collections.emptyList());
         when(mockStore.fetchPropertyKeys()).thenReturn(Arrays.asList(PROP_KEY));
-        when(mockStore.fetchProperty(PROP_KEY)).thenThrow(new StateStoreException(Reason.UNKNOWN, "hello"));
+        when(mockStore.fetchProperties()).thenThrow(new StateStoreException(Reason.UNKNOWN, "hello"));
 
         try {
             mockedCache.refresh();
@@ -564,6 +642,14 @@ public class StateStoreCacheTest {
         }
     }
 
+    private static Set<String> getNames(Collection<TaskInfo> tasks) {
+        Set<String> names = new TreeSet<>();
+        for (TaskInfo task : tasks) {
+            names.add(task.getName());
+        }
+        return names;
+    }
+
     private static void runThreads(Runnable r) throws InterruptedException {
         final Object lock = new Object();
         final List<Throwable> errors = new ArrayList<>();
@@ -0,0 +1,173 @@
+package com.mesosphere.sdk.storage;
+
+import org.apache.zookeeper.KeeperException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LocalPersister}.
+ */
+public class LocalPersisterTest {
+    private static final String PATH_PARENT = "/path";
+    private static final String PATH_1 = "/path/1";
+    private static final String PATH_2 = "/path/2";
+    private static final String PATH_SUB_1 = "/path/sub/1";
+    private static final byte[] DATA_1 = "one".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA_2 = "two".getBytes(StandardCharsets.UTF_8);
+
+    @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+    private Path logPath;
+    private LocalPersister persister;
+
+    @Before
+    public void beforeEach() throws Exception {
+        logPath = tempFolder.getRoot().toPath().resolve("state.log");
+        persister = new LocalPersister(logPath);
+    }
+
+    @After
+    public void afterEach() {
+        persister.close();
+    }
+
+    @Test
+    public void testSetGetDelete() throws Exception {
+        persister.set(PATH_SUB_1, DATA_1);
+        persister.set(PATH_1, DATA_1);
+        persister.set(PATH_1, DATA_2);
+
+        assertArrayEquals(DATA_2, persister.get(PATH_1));
+        assertArrayEquals(DATA_1, persister.get(PATH_SUB_1));
+        assertArrayEquals(new byte[0], persister.get(PATH_PARENT)); // implicitly created
+        assertEquals(Arrays.asList("1", "sub"), persister.getChildren(PATH_PARENT));
+        assertEquals(Arrays.asList("path"), persister.getChildren("/"));
+
+        Map<String, byte[]> many = persister.getMany(Arrays.asList(PATH_1, PATH_2, PATH_SUB_1));
+        assertEquals(new HashSet<>(Arrays.asList(PATH_1, PATH_SUB_1)), many.keySet());
+
+        persister.delete("/path/sub");
+        assertEquals(Arrays.asList("1"), persister.getChildren(PATH_PARENT));
+        assertMissing(PATH_SUB_1);
+        try {
+            persister.delete(PATH_SUB_1);
+            fail("Expected exception");
+        } catch (KeeperException.NoNodeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDeleteManyIfUnchanged() throws Exception {
+        persister.setMany(getMap(PATH_1, DATA_1, PATH_SUB_1, DATA_2));
+
+        assertFalse(persister.deleteManyIfUnchanged(PATH_1, DATA_2, Arrays.asList(PATH_SUB_1)));
+        assertFalse(persister.deleteManyIfUnchanged(PATH_2, DATA_2, Arrays.asList(PATH_SUB_1)));
+        assertArrayEquals(DATA_2, persister.get(PATH_SUB_1));
+
+        // Missing paths are skipped:
+        assertTrue(persister.deleteManyIfUnchanged(PATH_1, DATA_1, Arrays.asList(PATH_SUB_1, PATH_2)));
+        assertMissing(PATH_SUB_1);
+        assertArrayEquals(DATA_1, persister.get(PATH_1));
+    }
+
+    @Test
+    public void testContentsAreReloaded() throws Exception {
+        persister.setMany(getMap(PATH_1, DATA_1, PATH_SUB_1, DATA_2));
+        persister.set(PATH_2, DATA_2);
+        persister.delete(PATH_1);
+        persister.close();
+
+        persister = new LocalPersister(logPath);
+        assertMissing(PATH_1);
+        assertArrayEquals(DATA_2, persister.get(PATH_2));
+        assertArrayEquals(DATA_2, persister.get(PATH_SUB_1));
+        assertEquals(Arrays.asList("2", "sub"), persister.getChildren(PATH_PARENT));
+    }
+
+    @Test
+    public void testCorruptBatchIsDiscardedAtomically() throws Exception {
+        persister.set(PATH_1, DATA_1);
+        long validBytes = persister.getLogBytes();
+        persister.setMany(getMap(PATH_1, DATA_2, PATH_2, DATA_2));
+        persister.close();
+
+        // Simulate a partially written record by damaging the last byte of the batch:
+        try (RandomAccessFile file = new RandomAccessFile(logPath.toFile(), "rw")) {
+            file.seek(validBytes + 20);
+            file.write(0xff);
+        }
+
+        persister = new LocalPersister(logPath);
+        assertArrayEquals(DATA_1, persister.get(PATH_1));
+        assertMissing(PATH_2);
+        assertEquals(validBytes, persister.getLogBytes());
+
+        // Writes continue from the end of the valid records:
+        persister.set(PATH_2, DATA_1);
+        persister.close();
+        persister = new LocalPersister(logPath);
+        assertArrayEquals(DATA_1, persister.get(PATH_1));
+        assertArrayEquals(DATA_1, persister.get(PATH_2));
+    }
+
+    @Test
+    public void testLogIsCompacted() throws Exception {
+        persister.close();
+        persister = new LocalPersister(logPath, 1024);
+        for (int i = 0; i < 1000; ++i) {
+            persister.set(PATH_1, String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+            persister.set(PATH_2 + "/" + (i % 10), DATA_2);
+        }
+        assertTrue(String.valueOf(persister.getLogBytes()), persister.getLogBytes() < 4096);
+        persister.close();
+
+        persister = new LocalPersister(logPath, 1024);
+        assertArrayEquals("999".getBytes(StandardCharsets.UTF_8), persister.get(PATH_1));
+        assertEquals(10, persister.getChildren(PATH_2).size());
+    }
+
+    @Test
+    public void testLogGrowsBeyondInitialMapping() throws Exception {
+        byte[] data = new byte[100 * 1024];
+        Map<String, byte[]> many = new TreeMap<>();
+        for (int i = 0; i < 30; ++i) {
+            many.put(PATH_PARENT + "/" + i, data);
+        }
+        persister.setMany(many);
+        persister.close();
+
+        persister = new LocalPersister(logPath);
+        assertEquals(30, persister.getChildren(PATH_PARENT).size());
+        assertEquals(Collections.emptyList(), persister.getChildren(PATH_PARENT + "/29"));
+    }
+
+    private void assertMissing(String path) throws Exception {
+        try {
+            persister.get(path);
+            fail("Expected exception");
+        } catch (KeeperException.NoNodeException e) {
+            // expected
+        }
+    }
+
+    private static Map<String, byte[]> getMap(String path1, byte[] data1, String path2, byte[] data2) {
+        Map<String, byte[]> map = new TreeMap<>();
+        map.put(path1, data1);
+        map.put(path2, data2);
+        return map;
+    }
+}
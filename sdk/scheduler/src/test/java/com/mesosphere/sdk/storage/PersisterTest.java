@@ -0,0 +1,75 @@
+package com.mesosphere.sdk.storage;
+
+import org.apache.zookeeper.KeeperException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the default methods of {@link Persister}.
+ */
+public class PersisterTest {
+    private static final String PATH_1 = "/path/1";
+    private static final String PATH_2 = "/path/2";
+    private static final byte[] DATA_1 = "one".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testDefaultGetManyOmitsMissingPaths() throws Exception {
+        Map<String, byte[]> data = new HashMap<>();
+        data.put(PATH_1, DATA_1);
+        Map<String, byte[]> result = new GetOnlyPersister(data).getMany(Arrays.asList(PATH_1, PATH_2));
+        assertEquals(1, result.size());
+        assertArrayEquals(DATA_1, result.get(PATH_1));
+    }
+
+    /**
+     * A {@link Persister} which only implements {@link #get(String)}, as an external implementation might.
+     */
+    private static class GetOnlyPersister implements Persister {
+        private final Map<String, byte[]> data;
+
+        private GetOnlyPersister(Map<String, byte[]> data) {
+            this.data = data;
+        }
+
+        @Override
+        public byte[] get(String path) throws Exception {
+            byte[] bytes = data.get(path);
+            if (bytes == null) {
+                throw new KeeperException.NoNodeException(path);
+            }
+            return bytes;
+        }
+
+        @Override
+        public void setMany(Map<String, byte[]> pathBytesMap) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(String path, byte[] bytes) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete(String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Collection<String> getChildren(String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.mesosphere.sdk.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link WriteBehindPersister}.
+ */
+public class WriteBehindPersisterTest {
+    private static final String PATH_1 = "/path/1";
+    private static final String PATH_2 = "/path/2";
+    private static final byte[] DATA_1 = "one".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA_2 = "two".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA_3 = "three".getBytes(StandardCharsets.UTF_8);
+
+    @Mock private Persister mockPersister;
+    @Captor private ArgumentCaptor<Map<String, byte[]>> batchCaptor;
+    private WriteBehindPersister persister;
+
+    @Before
+    public void beforeEach() {
+        MockitoAnnotations.initMocks(this);
+        // Long enough that commits only happen via explicit flushes:
+        persister = new WriteBehindPersister(mockPersister, 60000);
+    }
+
+    @After
+    public void afterEach() {
+        persister.close();
+    }
+
+    @Test
+    public void testWritesAreCoalescedIntoOneTransaction() throws Exception {
+        persister.set(PATH_1, DATA_1);
+        persister.set(PATH_1, DATA_2);
+        persister.setMany(getMap(PATH_2, DATA_3));
+
+        assertArrayEquals(DATA_2, persister.get(PATH_1));
+        assertArrayEquals(DATA_3, persister.get(PATH_2));
+        verify(mockPersister, never()).setMany(any());
+        verify(mockPersister, never()).get(any());
+
+        persister.flush();
+        Map<String, byte[]> expected = getMap(PATH_1, DATA_2);
+        expected.putAll(getMap(PATH_2, DATA_3));
+        assertEquals(toStrings(expected), toStrings(getCommittedBatches(1).get(0)));
+
+        persister.flush(); // nothing left to commit
+        verify(mockPersister, times(1)).setMany(any());
+
+        when(mockPersister.get(PATH_1)).thenReturn(DATA_1);
+        assertArrayEquals(DATA_1, persister.get(PATH_1));
+    }
+
+    @Test
+    public void testGetManyReturnsBufferedWrites() throws Exception {
+        when(mockPersister.getMany(Arrays.asList(PATH_2))).thenReturn(getMap(PATH_2, DATA_2));
+        persister.set(PATH_1, DATA_1);
+
+        Map<String, byte[]> expected = getMap(PATH_1, DATA_1);
+        expected.putAll(getMap(PATH_2, DATA_2));
+        assertEquals(toStrings(expected), toStrings(persister.getMany(Arrays.asList(PATH_1, PATH_2))));
+    }
+
+    @Test
+    public void testFailedWritesAreRetriedWithoutOverwritingNewerWrites() throws Exception {
+        doThrow(new Exception("fail")).doNothing().when(mockPersister).setMany(any());
+        persister.set(PATH_1, DATA_1);
+        persister.set(PATH_2, DATA_1);
+        try {
+            persister.flush();
+            fail("Expected exception");
+        } catch (Exception e) {
+            assertEquals("fail", e.getMessage());
+        }
+
+        // failed writes remain visible:
+        assertArrayEquals(DATA_1, persister.get(PATH_1));
+        persister.set(PATH_2, DATA_2);
+        persister.flush();
+
+        List<Map<String, byte[]>> batches = getCommittedBatches(2);
+        Map<String, byte[]> expected = getMap(PATH_1, DATA_1);
+        expected.putAll(getMap(PATH_2, DATA_2));
+        assertEquals(toStrings(expected), toStrings(batches.get(1)));
+    }
+
+    @Test
+    public void testDeleteAndGetChildrenCommitPendingWritesFirst() throws Exception {
+        when(mockPersister.getChildren("/path")).thenReturn(Arrays.asList("1"));
+        persister.set(PATH_1, DATA_1);
+        assertEquals(Arrays.asList("1"), persister.getChildren("/path"));
+        persister.set(PATH_2, DATA_2);
+        persister.delete("/path");
+
+        InOrder inOrder = inOrder(mockPersister);
+        inOrder.verify(mockPersister).setMany(getMap(PATH_1, DATA_1));
+        inOrder.verify(mockPersister).getChildren("/path");
+        inOrder.verify(mockPersister).setMany(getMap(PATH_2, DATA_2));
+        inOrder.verify(mockPersister).delete("/path");
+    }
+
+    @Test
+    public void testWritesAreCommittedInBackground() throws Exception {
+        persister.close();
+        persister = new WriteBehindPersister(mockPersister, 10);
+        persister.set(PATH_1, DATA_1);
+        verify(mockPersister, timeout(5000)).setMany(getMap(PATH_1, DATA_1));
+    }
+
+    @Test
+    public void testBackgroundRetriesAreBounded() throws Exception {
+        persister.close();
+        persister = new WriteBehindPersister(mockPersister, 10);
+        doThrow(new Exception("fail")).when(mockPersister).setMany(any());
+        persister.set(PATH_1, DATA_1);
+        verify(mockPersister, timeout(5000).times(WriteBehindPersister.MAX_FAILED_COMMITS)).setMany(any());
+
+        // No further retries, and new writes are rejected with the failure:
+        try {
+            persister.set(PATH_2, DATA_2);
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            assertEquals("fail", e.getCause().getMessage());
+        }
+        Thread.sleep(100);
+        verify(mockPersister, times(WriteBehindPersister.MAX_FAILED_COMMITS)).setMany(any());
+
+        // Writes are accepted again once an explicit flush succeeds:
+        doNothing().when(mockPersister).setMany(any());
+        persister.flush();
+        persister.set(PATH_2, DATA_2);
+        persister.flush();
+
+        InOrder inOrder = inOrder(mockPersister);
+        inOrder.verify(mockPersister, times(WriteBehindPersister.MAX_FAILED_COMMITS + 1))
+                .setMany(getMap(PATH_1, DATA_1));
+        inOrder.verify(mockPersister).setMany(getMap(PATH_2, DATA_2));
+    }
+
+    private List<Map<String, byte[]>> getCommittedBatches(int count) throws Exception {
+        verify(mockPersister, times(count)).setMany(batchCaptor.capture());
+        return batchCaptor.getAllValues();
+    }
+
+    private static Map<String, byte[]> getMap(String path, byte[] data) {
+        Map<String, byte[]> map = new HashMap<>();
+        map.put(path, data);
+        return map;
+    }
+
+    private static Map<String, String> toStrings(Map<String, byte[]> map) {
+        Map<String, String> strings = new HashMap<>();
+        for (Map.Entry<String, byte[]> entry : map.entrySet()) {
+            strings.put(entry.getKey(), new String(entry.getValue(), StandardCharsets.UTF_8));
+        }
+        return strings;
+    }
+}